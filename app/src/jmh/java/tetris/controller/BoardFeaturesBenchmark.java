@@ -0,0 +1,73 @@
+package tetris.controller;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.*;
+
+/*
+ * 로봇 평가 함수가 초당 몇 번 도는지 재는 JMH 벤치마크.
+ * ./gradlew jmh --args="BoardFeaturesBenchmark" 로 실행한다.
+ *
+ * extractBitBoard : LookaheadSearch 가 후보마다 부르는 BitBoard 특징 계산
+ * extractArray    : 배열 보드 특징 계산
+ * calculateScore  : RobotController.calculateScore (특징 계산 + 가중치 합)
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BoardFeaturesBenchmark {
+
+    static final int BOARD_COUNT = 64; // 분기 예측이 한 보드에 익숙해지지 않도록 돌려 쓴다
+
+    BitBoard[] bitBoards;
+    int[][][] boards;
+    BoardFeatures features;
+    RobotController robotController;
+    int index;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(0);
+        bitBoards = new BitBoard[BOARD_COUNT];
+        boards = new int[BOARD_COUNT][GameEngine.BOARD_END_HEIGHT][GameEngine.BOARD_WIDTH];
+        for (int n = 0; n < BOARD_COUNT; n++) {
+            int height = random.nextInt(GameEngine.BOARD_HEIGHT / 2) + 1;
+            for (int i = GameEngine.BOARD_END_HEIGHT - height; i < GameEngine.BOARD_END_HEIGHT; i++) {
+                for (int j = 0; j < GameEngine.BOARD_WIDTH; j++) {
+                    if (random.nextInt(10) < 7)
+                        boards[n][i][j] = GameEngine.FIXED_BLOCK_NUMBER;
+                }
+            }
+            bitBoards[n] = new BitBoard(GameEngine.BOARD_END_HEIGHT);
+            bitBoards[n].sync(boards[n]);
+        }
+        features = new BoardFeatures();
+        robotController = new RobotController(null, new LookaheadSearch());
+    }
+
+    private int next() {
+        index = (index + 1) & (BOARD_COUNT - 1);
+        return index;
+    }
+
+    @Benchmark
+    public int extractBitBoard() {
+        features.extract(bitBoards[next()]);
+        return features.holes + features.bumpiness;
+    }
+
+    @Benchmark
+    public int extractArray() {
+        features.extract(boards[next()]);
+        return features.holes + features.bumpiness;
+    }
+
+    @Benchmark
+    public double calculateScore() {
+        return robotController.calculateScore(boards[next()]);
+    }
+}
@@ -0,0 +1,102 @@
+package tetris.controller;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.*;
+
+import tetris.model.*;
+
+/*
+ * GameEngine 의 충돌 검사, ghost 계산, SRS 회전, 줄삭제 비용을 배열 보드와 BitBoard 로 나눠 잰다.
+ * ./gradlew jmh --args="EngineBenchmark" 로 실행한다.
+ *
+ * clearLine 은 매번 꽉 찬 줄 4개가 있는 보드로 되돌린 뒤 지우므로,
+ * 되돌리는 비용만 재는 restoreBoard 를 빼고 비교한다.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class EngineBenchmark {
+
+    static final int FULL_LINES = 4;
+
+    @Param({ "array", "bitboard" })
+    String mode;
+
+    GameEngine engine;
+    int[][] savedBoard;
+    int step;
+
+    // 아래쪽 12줄을 구멍이 있는 고정 블록으로 채우고 그중 4줄은 꽉 채운다
+    @Setup
+    public void setUp() {
+        engine = new GameEngine();
+        engine.setBitBoardMode(mode.equals("bitboard"));
+        Random random = new Random(0);
+        for (int i = GameEngine.BOARD_END_HEIGHT - 12; i < GameEngine.BOARD_END_HEIGHT; i++) {
+            boolean isFull = (i - GameEngine.BOARD_START_HEIGHT) % 3 == 0;
+            for (int j = 0; j < GameEngine.BOARD_WIDTH; j++) {
+                if (isFull || random.nextInt(4) > 0) {
+                    engine.board[i][j] = GameEngine.FIXED_BLOCK_NUMBER;
+                    engine.visualBoard[i][j] = Block.OBLOCK_IDENTIFY_NUMBER;
+                }
+            }
+        }
+        engine.syncBitBoard();
+        savedBoard = new int[GameEngine.BOARD_END_HEIGHT][];
+        for (int i = 0; i < savedBoard.length; i++)
+            savedBoard[i] = engine.board[i].clone();
+        engine.currentBlock = new TBlock();
+        engine.blockBuffer = new TBlock();
+        engine.x = GameEngine.START_X;
+        engine.y = GameEngine.BOARD_START_HEIGHT;
+    }
+
+    private int nextStep() {
+        step = (step + 1) & 7;
+        return step;
+    }
+
+    @Benchmark
+    public boolean checkBlockCollision() {
+        int s = nextStep();
+        return engine.checkBlockCollision(s, GameEngine.BOARD_START_HEIGHT + 2 * s);
+    }
+
+    @Benchmark
+    public int getGhostY() {
+        engine.x = nextStep();
+        engine.y = GameEngine.BOARD_START_HEIGHT;
+        engine.getGhostY();
+        return engine.ghostY;
+    }
+
+    @Benchmark
+    public int testRotation() {
+        int s = nextStep();
+        engine.x = 1 + s % (GameEngine.BOARD_WIDTH - 3);
+        engine.y = GameEngine.BOARD_START_HEIGHT + s;
+        engine.testRotation();
+        return engine.x;
+    }
+
+    @Benchmark
+    public int restoreBoard() {
+        for (int i = 0; i < savedBoard.length; i++)
+            System.arraycopy(savedBoard[i], 0, engine.board[i], 0, GameEngine.BOARD_WIDTH);
+        engine.syncBitBoard();
+        return engine.board[GameEngine.BOARD_END_HEIGHT - 1][0];
+    }
+
+    @Benchmark
+    public int clearLine() {
+        restoreBoard();
+        int lines = engine.findFullLines();
+        engine.overWriteLines(engine.clearStartIndex, lines);
+        return lines;
+    }
+}
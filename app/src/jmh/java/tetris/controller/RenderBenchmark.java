@@ -0,0 +1,62 @@
+package tetris.controller;
+
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+
+import javax.swing.*;
+
+import org.openjdk.jmh.annotations.*;
+
+import tetris.model.*;
+
+/*
+ * gamePane 에 보드를 그리는 비용.
+ * ./gradlew jmh --args="RenderBenchmark" 로 실행한다 (화면 없이 -Djava.awt.headless=true 로도 돈다).
+ *
+ * initGameBoard : 보드 문자열 전체를 새로 만들고 setText 로 문서를 다시 만든다
+ * moveBlock     : 좌우 이동 한 번. 문자열에서 블록을 지우고 다시 그린 뒤 바뀐 칸만 문서에 반영한다
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Djava.awt.headless=true")
+public class RenderBenchmark {
+
+    static final List<Integer> BLOCK_LIST = Arrays.asList(Block.TBLOCK_IDENTIFY_NUMBER, Block.IBLOCK_IDENTIFY_NUMBER,
+            Block.OBLOCK_IDENTIFY_NUMBER);
+
+    GameController gameController;
+    boolean isMovingRight;
+
+    @Setup
+    public void setUp() {
+        gameController = new GameController(new JTextPane(), new JTextPane(), new JTextPane(), new JLabel(),
+                new JPanel()) {
+            @Override
+            public void doBeforeTakeOutNextBlock() {
+                if (blockDeque.size() < 3)
+                    blockDeque.addAll(BLOCK_LIST);
+            }
+        };
+        gameController.gameLoop = new GameLoop(System::nanoTime, false); // 중력은 돌리지 않는다
+        gameController.startGame(GameEngine.NORMAL_MODE, GameEngine.GENERAL_GAME_MODE, BLOCK_LIST, 0);
+    }
+
+    @Benchmark
+    public int initGameBoard() {
+        gameController.initGameBoard();
+        return gameController.engine.x;
+    }
+
+    @Benchmark
+    public int moveBlock() {
+        isMovingRight = !isMovingRight;
+        if (isMovingRight)
+            gameController.moveRight();
+        else
+            gameController.moveLeft();
+        return gameController.engine.x;
+    }
+}
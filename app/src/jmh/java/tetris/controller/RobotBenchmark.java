@@ -0,0 +1,86 @@
+package tetris.controller;
+
+import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.*;
+
+import tetris.model.*;
+
+/*
+ * 로봇이 블록 하나를 놓을 자리를 찾는 비용.
+ * ./gradlew jmh --args="RobotBenchmark" 로 실행한다. calculateScore 는 BoardFeaturesBenchmark 에서 잰다.
+ *
+ * findMove       : 현재 블록과 다음 블록까지 보는 beam search (RobotController.findMove)
+ * findMoveSingle : 현재 블록만 보는 탐색
+ * threads        : beam search 가 쓰는 ForkJoinPool 크기
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RobotBenchmark {
+
+    static final int BOARD_COUNT = 16;
+
+    @Param({ "1", "4" })
+    int threads;
+
+    ForkJoinPool pool;
+    RobotController robotController;
+    GameEngine[] engines;
+    BitBoard bitBoard;
+    int index;
+
+    @Setup
+    public void setUp() {
+        pool = new ForkJoinPool(threads);
+        robotController = new RobotController(null,
+                new LookaheadSearch(pool, LookaheadSearch.DEFAULT_BEAM_WIDTH, RobotTournament.DEFAULT_TIME_BUDGET));
+        Random random = new Random(0);
+        engines = new GameEngine[BOARD_COUNT];
+        for (int n = 0; n < BOARD_COUNT; n++) {
+            GameEngine engine = new GameEngine();
+            int height = 2 + random.nextInt(8);
+            for (int i = GameEngine.BOARD_END_HEIGHT - height; i < GameEngine.BOARD_END_HEIGHT; i++) {
+                for (int j = 0; j < GameEngine.BOARD_WIDTH; j++) {
+                    if (random.nextInt(10) < 7)
+                        engine.board[i][j] = GameEngine.FIXED_BLOCK_NUMBER;
+                }
+            }
+            engine.currentBlock = engine.getBlock(Block.IBLOCK_IDENTIFY_NUMBER + random.nextInt(7));
+            engine.nextBlock = engine.getBlock(Block.IBLOCK_IDENTIFY_NUMBER + random.nextInt(7));
+            engines[n] = engine;
+        }
+        bitBoard = new BitBoard(GameEngine.BOARD_END_HEIGHT);
+    }
+
+    @TearDown
+    public void tearDown() {
+        pool.shutdown();
+    }
+
+    private GameEngine nextEngine() {
+        index = (index + 1) & (BOARD_COUNT - 1);
+        return engines[index];
+    }
+
+    @Benchmark
+    public int findMove() {
+        GameEngine engine = nextEngine();
+        robotController.findMove(engine, engine.currentBlock);
+        return robotController.moveX;
+    }
+
+    @Benchmark
+    public int findMoveSingle() {
+        GameEngine engine = nextEngine();
+        bitBoard.sync(engine.board);
+        LookaheadSearch.Placement placement = robotController.lookahead.search(bitBoard, engine.currentBlock, null,
+                robotController.getWeights());
+        return placement == null ? -1 : placement.x;
+    }
+}
@@ -0,0 +1,52 @@
+package tetris.model;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.*;
+
+/*
+ * 회전 표를 쓰는 Block.rotate 와 copyBlock 비용.
+ * ./gradlew jmh --args="BlockBenchmark" 로 실행한다.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BlockBenchmark {
+
+    @Param({ "I", "T", "O" })
+    String type;
+
+    Block block;
+    Block copy;
+
+    @Setup
+    public void setUp() {
+        switch (type) {
+            case "I":
+                block = new IBlock();
+                break;
+            case "O":
+                block = new OBlock();
+                break;
+            default:
+                block = new TBlock();
+                break;
+        }
+        copy = new JBlock();
+    }
+
+    @Benchmark
+    public int rotate() {
+        block.rotate();
+        return block.getRotateCount();
+    }
+
+    @Benchmark
+    public int copyBlock() {
+        copy.copyBlock(block);
+        return copy.getWidth();
+    }
+}
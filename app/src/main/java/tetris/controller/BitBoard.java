@@ -0,0 +1,104 @@
+package tetris.controller;
+
+/*
+ * 한 줄을 int 하나(10비트 마스크)로 표현하는 보드.
+ * i번째 비트가 1이면 그 줄의 i열이 고정된 블록으로 차 있다는 뜻이다.
+ * GameEngine 의 board 배열을 그대로 따라가며, 충돌은 AND, 꽉 찬 줄 검사는 마스크 비교,
+ * 줄삭제는 행 이동으로 처리한다.
+ */
+public class BitBoard {
+
+    static final int FULL_ROW = (1 << GameEngine.BOARD_WIDTH) - 1;
+    // 한줄삭제 아이템처럼 빈칸이 있어도 꽉 찬 줄로 취급해야 할 때 세우는 비트
+    static final int FULL_LINE_FLAG = 1 << GameEngine.BOARD_WIDTH;
+
+    final int[] rows;
+
+    public BitBoard(int height) {
+        rows = new int[height];
+    }
+
+    // 배열 보드 전체를 다시 옮긴다
+    void sync(int[][] board) {
+        for (int i = 0; i < rows.length; i++)
+            syncRow(board, i);
+    }
+
+    // 배열 보드의 한 줄을 옮긴다. 꽉 찬 줄의 기준은 GameEngine.findFullLines 와 같다.
+    void syncRow(int[][] board, int index) {
+        int[] row = board[index];
+        int mask = 0;
+        int blockNums = 0;
+        for (int j = 0; j < row.length; j++) {
+            if (row[j] > 1) {
+                mask |= 1 << j;
+                blockNums += row[j];
+            }
+        }
+        if (blockNums >= GameEngine.FULL_LINE)
+            mask |= FULL_LINE_FLAG;
+        rows[index] = mask;
+    }
+
+    // 블록의 줄 마스크를 (x, y)에 놓았을 때 겹치는 칸이 있는지 확인
+    boolean collides(int[] blockMasks, int x, int y) {
+        for (int j = 0; j < blockMasks.length; j++) {
+            if ((rows[y + j] & (blockMasks[j] << x)) != 0)
+                return true;
+        }
+        return false;
+    }
+
+    // (x, y)에 놓인 블록 중 고정된 칸 바로 위에 있는 칸이 있는지 확인
+    boolean restsOnBlock(int[] blockMasks, int x, int y) {
+        for (int j = 0; j < blockMasks.length; j++) {
+            int unfixed = (blockMasks[j] << x) & ~rows[y + j];
+            if ((rows[y + j + 1] & unfixed) != 0)
+                return true;
+        }
+        return false;
+    }
+
+    boolean isFullRow(int index) {
+        return rows[index] >= FULL_ROW;
+    }
+
+    void clearCell(int row, int col) {
+        rows[row] &= ~(1 << col);
+    }
+
+    // index 줄을 지우고 그 위의 줄들을 한 칸씩 내린다 (0번 줄은 그대로 남는다)
+    void shiftDown(int index) {
+        System.arraycopy(rows, 0, rows, 1, index);
+    }
+
+    // 같은 줄 마스크를 가진 복사본 (탐색에서 후보마다 따로 고치기 위해 쓴다)
+    BitBoard copy() {
+        BitBoard copy = new BitBoard(rows.length);
+        System.arraycopy(rows, 0, copy.rows, 0, rows.length);
+        return copy;
+    }
+
+    // 블록의 줄 마스크를 (x, y)에 고정된 칸으로 새긴다
+    void place(int[] blockMasks, int x, int y) {
+        for (int j = 0; j < blockMasks.length; j++)
+            rows[y + j] |= blockMasks[j] << x;
+    }
+
+    // from 줄부터 아래로 꽉 찬 줄을 모두 지우고 지운 줄 수를 돌려준다
+    int clearFullRows(int from) {
+        int lines = 0;
+        for (int i = from; i < rows.length; i++) {
+            if (isFullRow(i)) {
+                shiftDown(i);
+                lines++;
+            }
+        }
+        return lines;
+    }
+
+    void clear() {
+        for (int i = 0; i < rows.length; i++)
+            rows[i] = 0;
+    }
+}
@@ -0,0 +1,77 @@
+package tetris.controller;
+
+import java.util.*;
+import java.util.List;
+
+import tetris.model.Block;
+
+/*
+ * seed 하나로 한 판의 블록 순서와 아이템 칸 위치를 모두 정하는 7-bag 생성기.
+ * 같은 seed 로 만들면 같은 순서가 나오므로 판을 그대로 다시 두거나 로봇 벤치마크를 재현할 수 있다.
+ * 대전에서는 한 생성기에서 꺼낸 목록을 두 플레이어의 덱에 같이 넣으므로 두 사람이 받는 순서가 같다.
+ *
+ * nextBlocks 는 기존 generateBlockRandomizer 와 같은 구성으로 만든다.
+ * 기본     : 7개 블록 bag 4개
+ * easy    : bag 하나와 I 블록 하나를 더 넣는다
+ * hard    : I 블록이 빠진 bag 하나를 더 넣는다
+ */
+class BlockRandomizer {
+
+    static final int BAG_COUNT = 4;
+    private static final long ITEM_SEED_MASK = 0x9E3779B97F4A7C15L; // 블록 순서와 아이템 난수가 겹치지 않게 섞는다
+
+    private final long seed;
+    private final RestorableRandom random;
+
+    BlockRandomizer(long seed) {
+        this.seed = seed;
+        random = new RestorableRandom(seed);
+    }
+
+    // 새 판에 쓸 seed. 판을 다시 두고 싶으면 이 값을 남겨 두면 된다.
+    static long newSeed() {
+        return new Random().nextLong();
+    }
+
+    long getSeed() {
+        return seed;
+    }
+
+    // GameEngine.setItemSeed 에 넘길 아이템 난수 seed. 같은 판의 플레이어들은 같은 값을 받는다.
+    long getItemSeed() {
+        return seed ^ ITEM_SEED_MASK;
+    }
+
+    // 롤백 대전은 되돌린 프레임부터 다시 둘 때 이 상태도 같이 되돌린다
+    long getState() {
+        return random.getState();
+    }
+
+    void setState(long state) {
+        random.setState(state);
+    }
+
+    List<Integer> nextBlocks(int diffMode) {
+        List<Integer> blocks = new ArrayList<>();
+        for (int i = 0; i < BAG_COUNT; i++)
+            blocks.addAll(shuffledBag(true));
+
+        if (diffMode == GameEngine.EASY_MODE) {
+            blocks.addAll(shuffledBag(true));
+            blocks.add(Block.IBLOCK_IDENTIFY_NUMBER);
+        } else if (diffMode == GameEngine.HARD_MODE) {
+            blocks.addAll(shuffledBag(false));
+        }
+        return blocks;
+    }
+
+    private List<Integer> shuffledBag(boolean hasIBlock) {
+        List<Integer> bag = new ArrayList<>(Arrays.asList(Block.JBLOCK_IDENTIFY_NUMBER, Block.LBLOCK_IDENTIFY_NUMBER,
+                Block.ZBLOCK_IDENTIFY_NUMBER, Block.SBLOCK_IDENTIFY_NUMBER, Block.TBLOCK_IDENTIFY_NUMBER,
+                Block.OBLOCK_IDENTIFY_NUMBER));
+        if (hasIBlock)
+            bag.add(Block.IBLOCK_IDENTIFY_NUMBER);
+        Collections.shuffle(bag, random);
+        return bag;
+    }
+}
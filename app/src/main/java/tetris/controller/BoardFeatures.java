@@ -0,0 +1,138 @@
+package tetris.controller;
+
+/*
+ * 로봇이 자리를 평가할 때 쓰는 보드 특징을 한 번의 줄 순회로 구한다.
+ * 열 높이 배열을 미리 만들어 두고 재사용하므로 extract 는 객체를 만들지 않는다.
+ * extract 는 score 가 쓰는 특징만 구하고, wells 와 rowTransitions 는 필요할 때 따로 부른다.
+ * 한 인스턴스는 한 스레드에서만 써야 한다 (LookaheadSearch 는 작업마다 하나씩 만든다).
+ *
+ * aggHeight      : 열 높이의 합
+ * maxHeight      : 가장 높은 열의 높이
+ * holes          : 열의 맨 위 블록 아래에 있는 빈칸 수
+ * bumpiness      : 이웃한 열 높이 차이의 합
+ * completeLines  : 꽉 찬 줄 수
+ * wells()          : 양 옆(벽 포함)보다 낮은 열의 깊이 합. 마지막 extract 의 열 높이로 구한다
+ * rowTransitions() : 블록이 있는 줄을 왼쪽에서 오른쪽으로 볼 때 빈칸과 블록이 바뀌는 횟수 (양쪽 벽은 블록으로 본다)
+ */
+class BoardFeatures {
+
+    private static final int WIDTH = GameEngine.BOARD_WIDTH;
+    private static final int START = GameEngine.BOARD_START_HEIGHT;
+    private static final int END = GameEngine.BOARD_END_HEIGHT;
+    private static final int WALLS = 1 | 1 << (WIDTH + 1); // 줄 마스크를 한 칸 민 뒤 양쪽 벽 자리
+
+    final int[] heights;
+    int aggHeight;
+    int maxHeight;
+    int holes;
+    int bumpiness;
+    int completeLines;
+
+    BoardFeatures() {
+        heights = new int[WIDTH];
+    }
+
+    // BitBoard 의 고정된 칸으로 특징을 구한다
+    void extract(BitBoard board) {
+        reset();
+        int seen = 0; // 위에서부터 내려오며 블록을 한 번이라도 만난 열
+        for (int i = START; i < END; i++)
+            seen = addRow(board.rows[i] & BitBoard.FULL_ROW, i, seen);
+        finish();
+    }
+
+    // 0 보다 큰 칸을 블록으로 보는 배열 보드로 특징을 구한다 (RobotController.calculateScore 와 같은 기준)
+    void extract(int[][] board) {
+        reset();
+        int seen = 0;
+        for (int i = START; i < END; i++) {
+            int[] cells = board[i];
+            int row = 0;
+            for (int j = 0; j < WIDTH; j++) {
+                if (cells[j] > 0)
+                    row |= 1 << j;
+            }
+            seen = addRow(row, i, seen);
+        }
+        finish();
+    }
+
+    // weights 는 높이 합, 지운 줄, 구멍, 울퉁불퉁함 순서의 가중치, lines 는 이번 자리에서 지운 줄 수
+    double score(double[] weights, int lines) {
+        return weights[0] * aggHeight + weights[1] * lines + weights[2] * holes + weights[3] * bumpiness;
+    }
+
+    private void reset() {
+        for (int j = 0; j < WIDTH; j++)
+            heights[j] = 0;
+        holes = 0;
+        completeLines = 0;
+    }
+
+    private int addRow(int row, int index, int seen) {
+        int top = row & ~seen;
+        while (top != 0) {
+            int j = Integer.numberOfTrailingZeros(top);
+            heights[j] = END - index;
+            top &= top - 1;
+        }
+        seen |= row;
+        holes += Integer.bitCount(seen & ~row);
+        if (row == BitBoard.FULL_ROW)
+            completeLines++;
+        return seen;
+    }
+
+    private void finish() {
+        aggHeight = 0;
+        maxHeight = 0;
+        bumpiness = 0;
+        for (int j = 0; j < WIDTH; j++) {
+            int height = heights[j];
+            aggHeight += height;
+            maxHeight = Math.max(maxHeight, height);
+            if (j > 0)
+                bumpiness += Math.abs(height - heights[j - 1]);
+        }
+    }
+
+    int wells() {
+        int wells = 0;
+        for (int j = 0; j < WIDTH; j++) {
+            int left = j == 0 ? GameEngine.BOARD_HEIGHT : heights[j - 1];
+            int right = j == WIDTH - 1 ? GameEngine.BOARD_HEIGHT : heights[j + 1];
+            int depth = Math.min(left, right) - heights[j];
+            if (depth > 0)
+                wells += depth;
+        }
+        return wells;
+    }
+
+    static int rowTransitions(BitBoard board) {
+        int transitions = 0;
+        for (int i = START; i < END; i++)
+            transitions += rowTransitions(board.rows[i] & BitBoard.FULL_ROW);
+        return transitions;
+    }
+
+    static int rowTransitions(int[][] board) {
+        int transitions = 0;
+        for (int i = START; i < END; i++) {
+            int row = 0;
+            for (int j = 0; j < WIDTH; j++) {
+                if (board[i][j] > 0)
+                    row |= 1 << j;
+            }
+            transitions += rowTransitions(row);
+        }
+        return transitions;
+    }
+
+    private static int rowTransitions(int row) {
+        if (row == 0)
+            return 0;
+        // 벽을 붙인 줄과 한 칸 민 줄을 비교하면 이웃한 두 칸이 다른 곳마다 비트가 선다
+        int walled = row << 1 | WALLS;
+        return Integer.bitCount((walled ^ walled >>> 1) & ((1 << (WIDTH + 1)) - 1));
+    }
+}
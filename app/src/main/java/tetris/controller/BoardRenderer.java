@@ -0,0 +1,99 @@
+package tetris.controller;
+
+import java.awt.Color;
+import java.util.Map;
+
+import javax.swing.JTextPane;
+import javax.swing.text.*;
+
+/*
+ * gamePane 의 보드 칸을 그려주는 렌더러.
+ * 직전에 그린 글자와 색을 칸마다 기억해 두고, 바뀐 칸만 문서에서 고친다.
+ * 이동 한 번에 문서 전체를 setText 로 다시 만들지 않기 위해 사용한다.
+ */
+class BoardRenderer {
+
+    private static final int BOARD_START_HEIGHT = GameEngine.BOARD_START_HEIGHT;
+    private static final int BOARD_END_HEIGHT = GameEngine.BOARD_END_HEIGHT;
+    private static final int BOARD_WIDTH = GameEngine.BOARD_WIDTH;
+
+    private final JTextPane pane;
+    private final SimpleAttributeSet attributeSet;
+    private final Map<Integer, Color> colorMap;
+
+    private final char[] drawnChars;
+    private final Color[] drawnColors;
+    private boolean isValid;
+
+    BoardRenderer(JTextPane pane, SimpleAttributeSet attributeSet, Map<Integer, Color> colorMap) {
+        this.pane = pane;
+        this.attributeSet = attributeSet;
+        this.colorMap = colorMap;
+        drawnChars = new char[GameEngine.BOARD_HEIGHT * BOARD_WIDTH];
+        drawnColors = new Color[GameEngine.BOARD_HEIGHT * BOARD_WIDTH];
+    }
+
+    static int getOffset(int row, int col) {
+        return (BOARD_WIDTH + 4) + (row - BOARD_START_HEIGHT) * (BOARD_WIDTH + 3) + col;
+    }
+
+    // 애니메이션처럼 문서를 직접 칠한 뒤에는 다음 render 에서 전체를 다시 그리게 한다
+    void invalidate() {
+        isValid = false;
+    }
+
+    // 문서에 이미 text 가 들어 있을 때 모든 칸의 색을 칠하고 그 상태를 기억한다
+    void repaint(CharSequence text, int[][] visualBoard) {
+        StyledDocument doc = pane.getStyledDocument();
+        for (int i = BOARD_START_HEIGHT; i < BOARD_END_HEIGHT; i++) {
+            for (int j = 0; j < BOARD_WIDTH; j++) {
+                int index = (i - BOARD_START_HEIGHT) * BOARD_WIDTH + j;
+                int offset = getOffset(i, j);
+                Color color = colorMap.get(visualBoard[i][j]);
+                if (visualBoard[i][j] > 0) {
+                    StyleConstants.setForeground(attributeSet, color);
+                    doc.setCharacterAttributes(offset, 1, attributeSet, true);
+                }
+                drawnChars[index] = text.charAt(offset);
+                drawnColors[index] = color;
+            }
+        }
+        StyleConstants.setForeground(attributeSet, Color.WHITE);
+        pane.setCharacterAttributes(attributeSet, false);
+        isValid = true;
+    }
+
+    // text 와 visualBoard 를 문서에 반영한다. 직전과 글자나 색이 다른 칸만 고친다.
+    void render(CharSequence text, int[][] visualBoard) {
+        if (!isValid) {
+            pane.setText(text.toString());
+            repaint(text, visualBoard);
+            return;
+        }
+        StyledDocument doc = pane.getStyledDocument();
+        for (int i = BOARD_START_HEIGHT; i < BOARD_END_HEIGHT; i++) {
+            for (int j = 0; j < BOARD_WIDTH; j++) {
+                int index = (i - BOARD_START_HEIGHT) * BOARD_WIDTH + j;
+                int offset = getOffset(i, j);
+                char ch = text.charAt(offset);
+                Color color = colorMap.get(visualBoard[i][j]);
+                if (ch == drawnChars[index] && color.equals(drawnColors[index]))
+                    continue;
+                StyleConstants.setForeground(attributeSet, color);
+                try {
+                    if (ch != drawnChars[index])
+                        ((AbstractDocument) doc).replace(offset, 1, String.valueOf(ch), attributeSet);
+                    else
+                        doc.setCharacterAttributes(offset, 1, attributeSet, true);
+                } catch (BadLocationException e) {
+                    GameController.log.warning(e.getMessage());
+                    invalidate();
+                    return;
+                }
+                drawnChars[index] = ch;
+                drawnColors[index] = color;
+            }
+        }
+        StyleConstants.setForeground(attributeSet, Color.WHITE);
+    }
+}
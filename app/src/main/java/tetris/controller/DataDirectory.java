@@ -0,0 +1,126 @@
+package tetris.controller;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.*;
+
+/*
+ * 점수, 설정, 리플레이를 두는 디렉터리.
+ * -Dtetris.dataDir=..., 없으면 환경변수 TETRIS_DATA_DIR, 그것도 없으면 ~/.tetris 를 쓴다.
+ * 예전처럼 작업 디렉터리의 src/main/java/tetris/data 에 두지 않으므로 어디서 실행해도 같은 곳을 쓴다.
+ *
+ * 파일을 쓸 때는 옆의 임시 파일에 다 쓰고 디스크에 내린 뒤 이름을 바꿔 덮어쓴다.
+ * 쓰는 도중에 꺼져도 원래 파일이나 새 파일 중 하나가 온전히 남는다.
+ * 데이터 디렉터리에 없는 파일은 예전 위치에 있으면 그것을 읽는다.
+ */
+class DataDirectory {
+
+    static final String PROPERTY = "tetris.dataDir";
+    static final String ENV = "TETRIS_DATA_DIR";
+    static final String DEFAULT_DIR = ".tetris";
+    static final String LEGACY_DIR = "src/main/java/tetris/data";
+    private static final String TEMP_SUFFIX = ".tmp";
+
+    private final Path dir;
+    private final Path legacyDir;
+
+    DataDirectory(Path dir, Path legacyDir) {
+        this.dir = dir;
+        this.legacyDir = legacyDir;
+    }
+
+    private static class LazyHolder {
+        private static final DataDirectory INSTANCE = new DataDirectory(defaultDir(), Paths.get(LEGACY_DIR));
+    }
+
+    static DataDirectory getInstance() {
+        return LazyHolder.INSTANCE;
+    }
+
+    static Path defaultDir() {
+        String path = System.getProperty(PROPERTY);
+        if (path == null || path.isEmpty())
+            path = System.getenv(ENV);
+        if (path == null || path.isEmpty())
+            return Paths.get(System.getProperty("user.home"), DEFAULT_DIR);
+        return Paths.get(path);
+    }
+
+    Path getPath() {
+        return dir;
+    }
+
+    Path resolve(String name) {
+        return dir.resolve(name);
+    }
+
+    // 예전 위치의 같은 이름 파일. 예전 위치를 쓰지 않으면 null
+    Path resolveLegacy(String name) {
+        return legacyDir == null ? null : legacyDir.resolve(name);
+    }
+
+    /* 읽기 */
+
+    // 데이터 디렉터리에서, 없으면 예전 위치에서 읽는다. 둘 다 없으면 null
+    byte[] read(String name) throws IOException {
+        Path path = resolve(name);
+        if (!Files.exists(path)) {
+            path = resolveLegacy(name);
+            if (path == null || !Files.exists(path))
+                return null;
+        }
+        return readFully(path);
+    }
+
+    static byte[] readFully(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size > Integer.MAX_VALUE)
+                throw new IOException(path + " is too large");
+            ByteBuffer buffer = ByteBuffer.allocate((int) size);
+            while (buffer.hasRemaining() && channel.read(buffer) >= 0)
+                ;
+            if (buffer.hasRemaining())
+                throw new EOFException(path + " changed while reading");
+            return buffer.array();
+        }
+    }
+
+    /* 쓰기 */
+
+    void write(String name, byte[] data) throws IOException {
+        writeAtomically(resolve(name), data);
+    }
+
+    // 임시 파일에 쓰고 force 한 뒤 target 으로 바꿔치기한다
+    static void writeAtomically(Path target, byte[] data) throws IOException {
+        if (target.getParent() != null)
+            Files.createDirectories(target.getParent());
+        Path temp = tempFile(target);
+        try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            ByteBuffer buffer = ByteBuffer.wrap(data);
+            while (buffer.hasRemaining())
+                channel.write(buffer);
+            channel.force(true);
+        } catch (IOException e) {
+            Files.deleteIfExists(temp);
+            throw e;
+        }
+        replace(temp, target);
+    }
+
+    static Path tempFile(Path target) {
+        return target.resolveSibling(target.getFileName() + TEMP_SUFFIX);
+    }
+
+    // 이름 바꾸기가 원자적이지 않은 파일 시스템이면 그냥 덮어쓴다
+    static void replace(Path temp, Path target) throws IOException {
+        try {
+            Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+}
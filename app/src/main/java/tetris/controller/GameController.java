@@ -3,6 +3,7 @@ package tetris.controller;
 import java.awt.*;
 import java.awt.event.*;
 import java.util.logging.Logger;
+import java.util.function.IntConsumer;
 import java.util.List;
 
 import javax.swing.*;
@@ -18,60 +19,51 @@ public abstract class GameController implements GameMethod {
     static final Logger log = Logger.getGlobal();
 
     private static final int ANIMATION_INTERVAL = 50;
+    private static final int ANIMATION_FRAMES = 10;
     private static final int LOCK_DELAY_TIME = 500;
-    static final int BOARD_START_HEIGHT = 5;
-    static final int BOARD_END_HEIGHT = GameView.BORDER_HEIGHT + BOARD_START_HEIGHT;
-    static final int BOARD_HEIGHT = BOARD_END_HEIGHT - BOARD_START_HEIGHT;
-    static final int BOARD_WIDTH = GameView.BORDER_WIDTH;
-    static final int START_X = 3;
-    static final int START_Y = BOARD_START_HEIGHT - 1;
-    private static final int BOMB_RANGE = 5; // 홀수만 가능
-    private static final int STUFF_RANGE = 3; // 홀수만 가능
-    private static final int MAX_BLOCK_HEIGHT = 4;
+    private static final int NO_ANIMATION = 0;
+    private static final int DELETE_LINE_ANIMATION = 1;
+    private static final int EXPLOSION_ANIMATION = 2;
+    static final int BOARD_START_HEIGHT = GameEngine.BOARD_START_HEIGHT;
+    static final int BOARD_END_HEIGHT = GameEngine.BOARD_END_HEIGHT;
+    static final int BOARD_HEIGHT = GameEngine.BOARD_HEIGHT;
+    static final int BOARD_WIDTH = GameEngine.BOARD_WIDTH;
+    static final int START_X = GameEngine.START_X;
+    static final int START_Y = GameEngine.START_Y;
+    private static final int BOMB_RANGE = GameEngine.BOMB_RANGE;
+    private static final int STUFF_RANGE = GameEngine.STUFF_RANGE;
     private static final int NEXT_BLOCK_WIDTH = 6;
-    private static final int UNFIXED_BLOCK_NUMBER = 1;
-    private static final int FIXED_BLOCK_NUMBER = 2;
-    private static final int OVERLAP_BLOCK_NUMBER = UNFIXED_BLOCK_NUMBER + FIXED_BLOCK_NUMBER;
-    private static final int FULL_LINE = FIXED_BLOCK_NUMBER * BOARD_WIDTH;
-    public static final int EASY_MODE = 1;
-    public static final int NORMAL_MODE = 0;
-    public static final int HARD_MODE = 2;
-    public static final int GENERAL_GAME_MODE = 0;
-    public static final int ITEM_GAME_MODE = 1;
-    public static final int TIME_ATTACK_MODE = 2;
-
-    private Timer gameDelayTimer;
+    public static final int EASY_MODE = GameEngine.EASY_MODE;
+    public static final int NORMAL_MODE = GameEngine.NORMAL_MODE;
+    public static final int HARD_MODE = GameEngine.HARD_MODE;
+    public static final int GENERAL_GAME_MODE = GameEngine.GENERAL_GAME_MODE;
+    public static final int ITEM_GAME_MODE = GameEngine.ITEM_GAME_MODE;
+    public static final int TIME_ATTACK_MODE = GameEngine.TIME_ATTACK_MODE;
+
     private boolean delayFlag;
-    private boolean isBottomFlag;
-    private boolean isItemFlag;
-    private int delay;
-    private int diffMode; // 난이도 설정
-    private int gameMode; // 게임모드 설정
-    protected Block currentBlock;
-    protected Block nextBlock;
-    protected Block blockBuffer;
-
-    protected int[][] visualBoard;
-    protected int[][] board; // gamePane 의 'X' size를 결정하기 위한 변수
-    private int[][] boardBuffer;
-    protected int[][] attackLineBoard;
+
+    // 게임 루프의 tick 을 세어 중력, 바닥 대기, 애니메이션을 진행한다.
+    GameLoop gameLoop;
+    private GameLoop.Ticker ticker;
+    private boolean isGravityRunning;
+    private boolean isGravityRearmed; // 중력으로 내려가는 중에 대기시간이 다시 정해졌는지
+    private int gravityDelay;
+    private int gravityElapsed;
+    private int animation; // 진행 중인 애니메이션 종류. 롤백 대전이 되돌릴 수 있도록 람다 대신 값으로 둔다
+    private int animationX; // 줄삭제는 시작 줄, 폭발은 가운데 x
+    private int animationY; // 줄삭제는 줄 수, 폭발은 가운데 y
+    private int animationFrame;
+    private int animationElapsed;
+
+    // 게임 규칙과 상태는 engine 이 가지고, GameController 는 화면과 타이머를 담당한다.
+    final GameEngine engine;
     protected Deque<Integer> blockDeque;
     protected Deque<Integer> opponentBlockDeque;
-    private Deque<int[]> attackLinesDeque;
 
     private StringBuilder boardStringBuilder;
     private StringBuilder nextBlockStringBuilder;
     private StringBuilder attackLinesStringBuilder;
     private StringBuilder attackLineSB;
-    int x;
-    int y;
-    int ghostY;
-
-    protected int score; // game 점수와 관련된 변수
-    protected int attackLines;
-    private int itemLines;
-    private int itemFreqency;
-    int deleteLines;
 
     private GameController opponent;
     private JTextPane gamePane;
@@ -83,24 +75,28 @@ public abstract class GameController implements GameMethod {
     private StyledDocument gamePaneDoc;
     private StyledDocument nextBlockPaneDoc;
     private StyledDocument attackLinePaneDoc;
-    private StyledDocument opponentAttackLinePaneDoc;
 
     private SimpleAttributeSet boardAttributeSet;
     private SimpleAttributeSet nextBoardAttributeSet;
     private SimpleAttributeSet attackBoardAttributeSet;
     private SimpleAttributeSet blockAttributeSet;
+    private BoardRenderer boardRenderer;
+    private BoardCanvas boardCanvas;
     private Component focusing;
+    private Replay replay; // 녹화 중이면 입력과 중력을 남긴다
+    private int replayPlayer;
+    private IntConsumer inputQueue; // null 이 아니면 키 입력을 바로 두지 않고 넘긴다
+    private boolean isGameOverDeferred; // true 면 게임오버가 되어도 doAfterGameOver 를 부르지 않는다
     KeyListener gameKeyListener;
 
     private InitGameKeyMap initGameKeyMap;
     private Map<KeyPair, Runnable> gameKeyMap;
+    private Map<KeyPair, Integer> gameKeyInputMap; // 키마다 GameEngine 입력 종류
     private Map<Integer, Color> colorMap;
-    private Map<Integer, Runnable> rotateMap;
     private Map<Integer, Character> blockCharMap;
-    private List<List<WallKick>> wallKickList;
 
     private boolean isColorBlindMode;
-    private boolean isNotDropDownState;
+    private boolean isBoardCanvasMode;
 
     protected GameController(JTextPane gamePane, JTextPane nextBlockPane, JTextPane attackLinePane,
             JLabel scoreLabel,
@@ -110,32 +106,26 @@ public abstract class GameController implements GameMethod {
         this.scoreLabel = scoreLabel;
         this.focusing = focusing;
         this.attackLinePane = attackLinePane;
+        this.engine = new GameEngine();
         initGameController();
     }
 
     private void initGameController() {
-        diffMode = 0;
-        gameMode = 0;
-        itemFreqency = 10;
         isColorBlindMode = false;
-        board = new int[BOARD_END_HEIGHT][BOARD_WIDTH];
-        boardBuffer = new int[BOARD_END_HEIGHT][BOARD_WIDTH];
-        visualBoard = new int[BOARD_END_HEIGHT][BOARD_WIDTH];
-        attackLineBoard = new int[BOARD_HEIGHT][BOARD_WIDTH];
-        attackLinesDeque = new ArrayDeque<>();
-        blockDeque = new ArrayDeque<>();
+        isBoardCanvasMode = false;
+        blockDeque = engine.blockDeque;
+        engine.setBitBoardMode(true);
         colorMap = new HashMap<>();
-        x = START_X;
-        y = START_Y;
 
         delayFlag = true;
+        gameLoop = GameLoop.getInstance();
+        ticker = this::tick;
 
         initBlockCharMap();
         initColorMap();
-        initRotateMap();
-        initWallKickList();
 
         gameKeyMap = new HashMap<>();
+        gameKeyInputMap = new HashMap<>();
         initGameKeyMap = new InitGameKeyMap();
         addGameKeyListener();
 
@@ -152,23 +142,18 @@ public abstract class GameController implements GameMethod {
         blockAttributeSet = new SimpleAttributeSet();
         nextBoardAttributeSet = new SimpleAttributeSet();
         attackBoardAttributeSet = new SimpleAttributeSet();
+        boardRenderer = new BoardRenderer(gamePane, blockAttributeSet, colorMap);
 
     }
 
     public void setOpponentPlayer(GameController opponent) {
         this.opponent = opponent;
         this.opponentBlockDeque = opponent.blockDeque;
-        this.opponentAttackLinePaneDoc = opponent.attackLinePane.getStyledDocument();
+        engine.setOpponent(opponent.engine);
     }
 
     public void startGame(int diffMode, int gameMode, List<Integer> randomBlockList, int resoultion) {
-        this.diffMode = diffMode;
-        this.gameMode = gameMode;
-
-        blockDeque.addAll(randomBlockList);
-        blockBuffer = getBlock(blockDeque.getFirst());
-        currentBlock = getBlock(blockDeque.removeFirst());
-        nextBlock = getBlock(blockDeque.removeFirst());
+        engine.startGame(diffMode, gameMode, randomBlockList);
 
         setAttributeSet(boardAttributeSet);
         setAttributeSet(nextBoardAttributeSet);
@@ -190,23 +175,13 @@ public abstract class GameController implements GameMethod {
         initGameBoard();
         initAttackLines();
         resetNextBlockPane();
-        placeBlock(board, visualBoard, currentBlock, x, y);
+        drawBlock(engine.x, engine.y);
         drawNextBlock();
 
-        nextBlockPane.repaint();
-        nextBlockPane.revalidate();
-
-        score = 0;
-        delay = 1000;
-        itemLines = 0;
-        deleteLines = 0;
-        attackLines = 0;
-        isItemFlag = false;
-        isNotDropDownState = true;
         delayFlag = true;
 
         showScore();
-        startGameDelayTimer(delay);
+        startGameDelayTimer(engine.delay);
         doWhenGameStart();
     }
 
@@ -217,6 +192,16 @@ public abstract class GameController implements GameMethod {
     public void loadSetting(Setting setting) {
         isColorBlindMode = setting.isColorBlindMode();
         initColorMap();
+        isBoardCanvasMode = setting.isBoardCanvasMode() && boardCanvas != null;
+        if (boardCanvas != null)
+            boardCanvas.setPalette(colorMap, blockCharMap);
+    }
+
+    // 그래픽 보드 설정이 켜져 있을 때 gamePane 대신 그릴 컴포넌트
+    // 칸을 바꾼 영역은 RepaintScheduler 로 모아 프레임마다 한 번 다시 그린다
+    public void setBoardCanvas(BoardCanvas boardCanvas) {
+        this.boardCanvas = boardCanvas;
+        boardCanvas.setRepaintRequester(region -> RepaintScheduler.getInstance().markDirty(boardCanvas, region));
     }
 
     private void initBlockCharMap() {
@@ -267,85 +252,95 @@ public abstract class GameController implements GameMethod {
         }
     }
 
-    private void initRotateMap() {
-        rotateMap = new HashMap<>();
-        rotateMap.put(Block.FOURTH_ROTATE_STATE, () -> {
-        });
-        rotateMap.put(Block.FIRST_ROTATE_STATE, () -> x++);
-        rotateMap.put(Block.SECOND_ROTATE_STATE, () -> {
-            y++;
-            x--;
-        });
-        rotateMap.put(Block.THIRD_ROTATE_STATE, () -> y--);
-        rotateMap.put(Block.IBLOCK_FOURTH_ROTATE_STATE, () -> {
-            x--;
-            y++;
-        });
-        rotateMap.put(Block.IBLOCK_FIRST_ROTATE_STATE, () -> {
-            x += 2;
-            y--;
-        });
-        rotateMap.put(Block.IBLOCK_SECOND_ROTATE_STATE, () -> {
-            x -= 2;
-            y += 2;
-        });
-        rotateMap.put(Block.IBLOCK_THIRD_ROTATE_STATE, () -> {
-            x++;
-            y -= 2;
-        });
-        rotateMap.put(Block.DO_NOT_ROTATE_STATE, () -> {
-        });
-        rotateMap.put(Block.OBLOCK_ROTATE_STATE, () -> {
-        });
+    // startDelay 뒤에 중력으로 한 칸 내리고, 그 뒤로는 engine.delay 마다 내린다
+    public void startGameDelayTimer(int startDelay) {
+        gravityDelay = startDelay;
+        gravityElapsed = 0;
+        isGravityRunning = true;
+        isGravityRearmed = true;
+        gameLoop.register(ticker);
     }
 
-    private void initWallKickList() {
-        wallKickList = new ArrayList<>();
-        /*
-         * J,L,T,S,Z Block testcase (주의 사항으로 Tetris Fan Wiki에서의 회전에서 y좌표는 +가 위로 올라간다 따라서
-         * 음수로 치환해야 한다.)
-         */
-        wallKickList.add(new ArrayList<>( // 0 >> 1
-                Arrays.asList(new WallKick(-1, 0), new WallKick(-1, -1), new WallKick(0, 2),
-                        new WallKick(-1, 2))));
-        wallKickList.add(new ArrayList<>( // 1 >> 2
-                Arrays.asList(new WallKick(1, 0), new WallKick(1, 1), new WallKick(0, -2),
-                        new WallKick(1, -2))));
-        wallKickList.add(new ArrayList<>( // 2 >> 3
-                Arrays.asList(new WallKick(1, 0), new WallKick(1, -1), new WallKick(0, 2),
-                        new WallKick(1, 2))));
-        wallKickList.add(new ArrayList<>( // 3 >> 0
-                Arrays.asList(new WallKick(-1, 0), new WallKick(-1, 1), new WallKick(0, -2),
-                        new WallKick(-1, -2))));
-        /* IBlock testcase */
-        wallKickList.add(new ArrayList<>( // 0 >> 1
-                Arrays.asList(new WallKick(-2, 0), new WallKick(1, 0), new WallKick(-2, 1),
-                        new WallKick(1, -2))));
-        wallKickList.add(new ArrayList<>( // 1 >> 2
-                Arrays.asList(new WallKick(-1, 0), new WallKick(2, 0), new WallKick(-1, -2),
-                        new WallKick(2, 1))));
-        wallKickList.add(new ArrayList<>( // 2 >> 3
-                Arrays.asList(new WallKick(2, 0), new WallKick(-1, 0), new WallKick(2, -1),
-                        new WallKick(-1, 2))));
-        wallKickList.add(new ArrayList<>( // 3 >> 0
-                Arrays.asList(new WallKick(1, 0), new WallKick(-2, 0), new WallKick(1, 2),
-                        new WallKick(-2, -1))));
+    // 게임 루프가 tick 마다 부르는 메소드. 애니메이션을 먼저 진행한 뒤 중력을 진행한다.
+    private void tick(int interval) {
+        tickAnimation(interval);
+        tickGravity(interval);
     }
 
-    public void startGameDelayTimer(int startDelay) {
-        gameDelayTimer = new Timer(startDelay, e -> {
-            moveDown();
-            delay -= delay > 250 ? 1 : 0;
-            if (delayFlag)
-                gameDelayTimer.setDelay(delay);
-            else {
-                // gameDelayTimer.setRepeats(false);
-                gameDelayTimer.stop();
-            }
+    private void tickGravity(int interval) {
+        if (!isGravityRunning)
+            return;
+        gravityElapsed += interval;
+        if (gravityElapsed < gravityDelay)
+            return;
+        gravityElapsed = 0;
+        isGravityRearmed = false;
+        record(Replay.STEP);
+        moveDown();
+        engine.accelerate();
+        if (!delayFlag)
+            isGravityRunning = false;
+        else if (!isGravityRearmed) // 바닥 대기처럼 moveDown 이 정한 대기시간은 그대로 둔다
+            gravityDelay = engine.delay;
+    }
+
+    // ANIMATION_FRAMES 장면을 ANIMATION_INTERVAL 간격으로 칠한 뒤 finishAnimation 을 실행한다. 그동안 키를 받지 않는다
+    private void startAnimation(int animation, int animationX, int animationY) {
+        this.animation = animation;
+        this.animationX = animationX;
+        this.animationY = animationY;
+        animationFrame = 0;
+        animationElapsed = 0;
+        focusing.removeKeyListener(gameKeyListener);
+        paintAnimation(animationFrame);
+        gameLoop.register(ticker);
+    }
 
-        });
-        /// gameDelayTimer.setRepeats(true);
-        gameDelayTimer.start();
+    private void tickAnimation(int interval) {
+        if (animation == NO_ANIMATION)
+            return;
+        animationElapsed += interval;
+        if (animationElapsed < ANIMATION_INTERVAL)
+            return;
+        animationElapsed = 0;
+        animationFrame++;
+        if (animationFrame < ANIMATION_FRAMES) {
+            paintAnimation(animationFrame);
+            return;
+        }
+        int finished = animation;
+        animation = NO_ANIMATION;
+        finishAnimation(finished, animationX, animationY);
+    }
+
+    private void paintAnimation(int frame) {
+        if (animation == DELETE_LINE_ANIMATION)
+            paintLines(animationX, animationY, frame % 2 == 0 ? Color.WHITE : Color.BLACK);
+        else if (animation == EXPLOSION_ANIMATION)
+            paintSquare(animationX, animationY, frame % 2 == 0 ? Color.RED : Color.YELLOW);
+    }
+
+    private void finishAnimation(int animation, int animationX, int animationY) {
+        if (animation == DELETE_LINE_ANIMATION) {
+            engine.overWriteLines(animationX, animationY);
+            initGameBoard();
+            showDeleteLines();
+            record(Replay.TAKE_OUT);
+            takeOutNextBlock();
+        } else if (animation == EXPLOSION_ANIMATION) {
+            engine.deleteSquare(animationX, animationY);
+            boardRenderer.invalidate(); // paintSquare 로 직접 칠한 색을 지운다
+            drawSquare(animationX, animationY, BOMB_RANGE);
+            engine.fixBoard();
+            record(Replay.TAKE_OUT);
+            takeOutNextBlock();
+            engine.isBottomFlag = engine.checkBlockCollision(engine.x, engine.y);
+        }
+        focusing.addKeyListener(gameKeyListener);
+    }
+
+    boolean isAnimating() {
+        return animation != NO_ANIMATION;
     }
 
     private void setAttributeSet(SimpleAttributeSet attributeSet) {
@@ -363,6 +358,7 @@ public abstract class GameController implements GameMethod {
     }
 
     public void initGameBoard() {
+        int[][] visualBoard = engine.visualBoard;
         boardStringBuilder.setLength(0);
         for (int t = 0; t < BOARD_WIDTH + 2; t++) {
             boardStringBuilder.append(GameView.BORDER_CHAR);
@@ -381,11 +377,16 @@ public abstract class GameController implements GameMethod {
         for (int t = 0; t < BOARD_WIDTH + 2; t++) {
             boardStringBuilder.append(GameView.BORDER_CHAR);
         }
+        if (isBoardCanvasMode) {
+            boardCanvas.clearCells();
+            boardCanvas.render(visualBoard, BOARD_START_HEIGHT);
+            return;
+        }
         gamePane.setText(boardStringBuilder.toString());
         StyleConstants.setForeground(blockAttributeSet, Color.WHITE);
         gamePaneDoc.setParagraphAttributes(0, gamePaneDoc.getLength(), boardAttributeSet, true);
         gamePaneDoc.setCharacterAttributes(0, gamePaneDoc.getLength(), blockAttributeSet, true);
-        paintBlock();
+        boardRenderer.repaint(boardStringBuilder, visualBoard);
     }
 
     public void initAttackLines() {
@@ -436,7 +437,8 @@ public abstract class GameController implements GameMethod {
     }
 
     public void drawNextBlock() {
-        currentBlock.getCoordiList().forEach(e -> {
+        Block nextBlock = engine.nextBlock;
+        engine.currentBlock.getCoordiList().forEach(e -> {
             int offset = (NEXT_BLOCK_WIDTH + 4) + ((e[1] + 2) * (NEXT_BLOCK_WIDTH + 3) + e[0] + 1);
             nextBlockStringBuilder.setCharAt(
                     offset,
@@ -481,49 +483,12 @@ public abstract class GameController implements GameMethod {
     public void initNextBlockPane() {
     }
 
-    Block getBlock(int id) {
-        switch (id) {
-            case Block.IBLOCK_IDENTIFY_NUMBER:
-                return new IBlock();
-            case Block.JBLOCK_IDENTIFY_NUMBER:
-                return new JBlock();
-            case Block.LBLOCK_IDENTIFY_NUMBER:
-                return new LBlock();
-            case Block.OBLOCK_IDENTIFY_NUMBER:
-                return new OBlock();
-            case Block.SBLOCK_IDENTIFY_NUMBER:
-                return new SBlock();
-            case Block.TBLOCK_IDENTIFY_NUMBER:
-                return new TBlock();
-            case Block.ZBLOCK_IDENTIFY_NUMBER:
-                return new ZBlock();
-            default:
-                return new IBlock();
-        }
-    }
-
-    private void paintBlock() {
-        for (int i = BOARD_START_HEIGHT; i < BOARD_END_HEIGHT; i++) {
-            for (int j = 0; j < BOARD_WIDTH; j++) {
-                if (visualBoard[i][j] > 0) {
-                    StyleConstants.setForeground(blockAttributeSet, colorMap.get(visualBoard[i][j]));
-                    gamePaneDoc.setCharacterAttributes(
-                            (BOARD_WIDTH + 4) + (i - BOARD_START_HEIGHT) * (BOARD_WIDTH + 3) + j, 1,
-                            blockAttributeSet, true);
-                }
-            }
-        }
-        StyleConstants.setForeground(blockAttributeSet, Color.WHITE);
-        gamePane.setCharacterAttributes(blockAttributeSet, false);
-    }
-
-    // 주어진 board에 Block을 놓아주는 메소드
-    void placeBlock(int[][] board, int[][] visualBoard, Block block, int x, int y) {
-        getGhostY();
+    // engine 이 놓은 현재 Block 과 ghost 를 gamePane 에 그려주는 메소드
+    private void drawBlock(int x, int y) {
+        Block block = engine.currentBlock;
+        int ghostY = engine.ghostY;
         block.getCoordiList().forEach(e -> {
             int offset = (BOARD_WIDTH + 4) + (ghostY + e[1] - BOARD_START_HEIGHT) * (BOARD_WIDTH + 3) + x + e[0];
-            board[y + e[1]][x + e[0]] += 1;
-            visualBoard[ghostY + e[1]][x + e[0]] = Block.GHOST_IDENTIFIY_NUMBER;
             if (offset >= (BOARD_WIDTH + 4))
                 boardStringBuilder.setCharAt(
                         offset,
@@ -534,260 +499,225 @@ public abstract class GameController implements GameMethod {
                 .forEach(e -> {
                     int offset = (BOARD_WIDTH + 4) + (y + e[1] - BOARD_START_HEIGHT) * (BOARD_WIDTH + 3) + x
                             + e[0];
-                    visualBoard[y + e[1]][x + e[0]] = block.getVisualShape(e[0], e[1]);
                     if (offset >= (BOARD_WIDTH + 4))
-                        boardStringBuilder.setCharAt(
-                                (BOARD_WIDTH + 4) + (y + e[1] - BOARD_START_HEIGHT) * (BOARD_WIDTH + 3) + x + e[0],
-                                blockCharMap.get(block.getIdentifynumber()));
+                        boardStringBuilder.setCharAt(offset, blockCharMap.get(block.getIdentifynumber()));
                 });
-        if (currentBlock.getAttachItemID() > 0) {
-            int[] itemCoordinate = currentBlock.getItemCoordinate();
+        if (block.getAttachItemID() > 0) {
+            int[] itemCoordinate = block.getItemCoordinate();
             int offset = (BOARD_WIDTH + 4) + (y + itemCoordinate[1] - BOARD_START_HEIGHT) * (BOARD_WIDTH + 3) + x
                     + itemCoordinate[0];
             if (offset >= (BOARD_WIDTH + 4))
                 boardStringBuilder.setCharAt(
                         offset,
-                        blockCharMap.get(currentBlock.getAttachItemID()));
+                        blockCharMap.get(block.getAttachItemID()));
         }
         boardStringBuilder.replace(0, 12, "XXXXXXXXXXXX");
-        gamePane.setText(boardStringBuilder.toString());
-        paintBlock();
+        renderBoard();
     }
 
-    // 주어진 board에 Block을 놓아주는 메소드(오버로딩)
-    void placeBlock(int[][] board, Block block, int x, int y) {
-        block.getCoordiList().forEach(e -> board[y + e[1]][x + e[0]] += 1);
+    // 바뀐 칸을 설정된 방식(gamePane 글자 또는 BoardCanvas)으로 화면에 반영한다
+    private void renderBoard() {
+        if (isBoardCanvasMode)
+            boardCanvas.render(engine.visualBoard, BOARD_START_HEIGHT);
+        else
+            boardRenderer.render(boardStringBuilder, engine.visualBoard);
     }
 
-    // board에서 블록을 지워주는 method
-    void eraseBlock(int[][] board, Block block, int x, int y) {
-        block.getCoordiList().forEach(e -> {
-            board[y + e[1]][x + e[0]] = 0;
-            visualBoard[y + e[1]][x + e[0]] = 0;
-            visualBoard[ghostY + e[1]][x + e[0]] = 0;
-        });
-    }
-
-    // board에서 블록을 지워주는 method
-    void eraseBlock(int[][] board, Block block, int x, int y, StringBuilder boardStringBuilder) {
+    // engine 이 지우기 전의 현재 Block 과 ghost 를 boardStringBuilder 에서 지워주는 메소드
+    // (화면에는 뒤따르는 drawBlock 에서 바뀐 칸만 한 번에 반영된다)
+    private void clearBlock() {
+        Block block = engine.currentBlock;
+        int x = engine.x;
+        int y = engine.y;
+        int ghostY = engine.ghostY;
         block.getCoordiList().forEach(e -> {
             int offset = (BOARD_WIDTH + 4) + (y + e[1] - BOARD_START_HEIGHT) * (BOARD_WIDTH + 3) + x + e[0];
-            board[y + e[1]][x + e[0]] = 0;
-            visualBoard[y + e[1]][x + e[0]] = 0;
-            visualBoard[ghostY + e[1]][x + e[0]] = 0;
             if (offset >= (BOARD_WIDTH + 4)) {
-                boardStringBuilder.setCharAt(
-                        (BOARD_WIDTH + 4) + (y + e[1] - BOARD_START_HEIGHT) * (BOARD_WIDTH + 3) + x + e[0],
-                        ' ');
+                boardStringBuilder.setCharAt(offset, ' ');
             }
         });
-        block.getCoordiList().forEach(e -> boardStringBuilder.setCharAt(
-                (BOARD_WIDTH + 4) + (ghostY + e[1] - BOARD_START_HEIGHT) * (BOARD_WIDTH + 3) + x + e[0],
-                ' '));
-        gamePane.setText(boardStringBuilder.toString());
+        block.getCoordiList().forEach(e -> {
+            int offset = (BOARD_WIDTH + 4) + (ghostY + e[1] - BOARD_START_HEIGHT) * (BOARD_WIDTH + 3) + x + e[0];
+            if (offset >= (BOARD_WIDTH + 4)) // drawBlock 처럼 보이지 않는 줄의 그림자는 건너뛴다
+                boardStringBuilder.setCharAt(offset, ' ');
+        });
     }
 
     protected void moveDown() {
 
-        if (isBottomFlag) {
+        if (engine.isBottomFlag) {
             lockDelay();
             return;
         }
-        eraseBlock(board, currentBlock, x, y, boardStringBuilder);
-        y++;
-        placeBlock(board, visualBoard, currentBlock, x, y);
-        gamePane.revalidate();
-        gamePane.repaint();
-        score += (201 - delay / 5);
+        clearBlock();
+        engine.fallOneLine();
+        drawBlock(engine.x, engine.y);
         showScore();
-        isBottomFlag = checkIsItBottom();
-        if (isBottomFlag) {
+        if (engine.isBottomFlag) {
             stopGameDelayTimer();
             startGameDelayTimer(LOCK_DELAY_TIME);
         }
     }
 
     void dropDown() {
-        if (isNotDropDownState) {
-            eraseBlock(board, currentBlock, x, y, boardStringBuilder);
-            score += (201 - delay / 5) * ghostY - y;
+        if (!acceptInput(GameEngine.DROP_DOWN))
+            return;
+        if (engine.isNotDropDownState) {
+            boolean isBottomFlag = engine.isBottomFlag;
+            clearBlock();
+            engine.dropDown();
             showScore();
-            y = ghostY;
-            placeBlock(board, visualBoard, currentBlock, x, y);
+            drawBlock(engine.x, engine.y);
             if (!isBottomFlag) {
-                isBottomFlag = true;
                 stopGameDelayTimer();
                 startGameDelayTimer(LOCK_DELAY_TIME);
             }
-            isNotDropDownState = false;
             // moveDown(); hard drop 적용
         }
     }
 
-    // Ghost piece의 Y좌표 구하는 메소드
-    void getGhostY() {
-        if (currentBlock == null)
-            return;
-        int limit = BOARD_END_HEIGHT - currentBlock.getHeight();
-        for (ghostY = y; ghostY < limit; ghostY++) {
-            if (checkBlockCollision(x, ghostY)) {
-                ghostY--;
-                return;
-            }
-        }
-        if (checkBlockCollision(x, ghostY))
-            ghostY--;
-    }
-
     public void moveRight() {
-        eraseBlock(board, currentBlock, x, y, boardStringBuilder);
-        if (currentBlock == null) {
+        if (!acceptInput(GameEngine.MOVE_RIGHT))
             return;
-        }
-        if (x < BOARD_WIDTH - currentBlock.getWidth()) {
-            x++;
-            if (checkBlockCollision(x, y))
-                x--;
-        }
-        placeBlock(board, visualBoard, currentBlock, x, y);
-        isBottomFlag = checkIsItBottom();
-
+        clearBlock();
+        engine.moveRight();
+        drawBlock(engine.x, engine.y);
     }
 
     public void moveLeft() {
-        eraseBlock(board, currentBlock, x, y, boardStringBuilder);
-        if (currentBlock == null) {
+        if (!acceptInput(GameEngine.MOVE_LEFT))
             return;
-        }
-        if (x > 0) {
-            x--;
-            if (checkBlockCollision(x, y))
-                x++;
-        }
-        placeBlock(board, visualBoard, currentBlock, x, y);
-        isBottomFlag = checkIsItBottom();
+        clearBlock();
+        engine.moveLeft();
+        drawBlock(engine.x, engine.y);
     }
 
     public void moveRotate() {
-        eraseBlock(board, currentBlock, x, y, boardStringBuilder);
-        testRotation();
-        placeBlock(board, visualBoard, currentBlock, x, y);
-        boolean flag = checkIsItBottom();
-        if (isBottomFlag || flag) {
+        if (!acceptInput(GameEngine.MOVE_ROTATE))
+            return;
+        boolean isBottomFlag = engine.isBottomFlag;
+        clearBlock();
+        engine.moveRotate();
+        drawBlock(engine.x, engine.y);
+        if (isBottomFlag || engine.isBottomFlag) {
             stopGameDelayTimer();
-            startGameDelayTimer(delay);
-            isBottomFlag = flag;
+            startGameDelayTimer(engine.delay);
         }
     }
 
-    /* SRS기반 회전 점검 */
-    private void testRotation() {
-        // 아예 돌리기 전 x,y 좌표
-        int rotateState = blockBuffer.getRotateCount();
-        if (rotateState == Block.DO_NOT_ROTATE_STATE)
-            return;
-        else if (rotateState == Block.OBLOCK_ROTATE_STATE) {
-            currentBlock.rotate();
-            blockBuffer.copyBlock(currentBlock);
-            return;
-        }
-        int xBeforeRotate = x;
-        int yBeforeRotate = y;
-        blockBuffer.rotate();
-        rotateMap.get(rotateState).run(); // 순서 유의 (rotate전의 rotateCount를 보고 Anchor를 옮겼음)
-        int xBuffer = x;
-        int yBuffer = y;
-        List<WallKick> wallKicks = wallKickList.get(rotateState);
-
-        /* 충돌 확인 및 체크 */
-        for (WallKick wallKick : wallKicks) {
-            if (ifBlockOutOfBounds(x, y) || checkBlockCollision(x, y)) {
-                x = xBuffer;
-                y = yBuffer;
-                x += wallKick.xKick;
-                y += wallKick.yKick;
-            } else {
-                currentBlock.rotate();
-                blockBuffer.copyBlock(currentBlock);
-                return;
-            }
-        }
-
-        /* 끝까지 충돌 발생시 rotate 안함 */
-        if (ifBlockOutOfBounds(x, y) || checkBlockCollision(x, y)) {
-            x = xBeforeRotate;
-            y = yBeforeRotate;
-            blockBuffer.copyBlock(currentBlock);
-        } else {
-            currentBlock.rotate();
-            blockBuffer.copyBlock(currentBlock);
-        }
-
+    /*
+     * 줄삭제나 폭발 애니메이션 중에는 엔진이 다음 블록을 꺼내기 전이므로 입력을 받지 않는다.
+     * 받은 입력은 녹화 중이면 Replay 에 남긴다. (ReplayPlayer 의 엔진은 애니메이션 없이
+     * Replay.TAKE_OUT 이 올 때까지 입력을 버리므로 애니메이션 중 입력을 받으면 재생 결과가 달라진다)
+     */
+    private boolean acceptInput(int input) {
+        if (isAnimating())
+            return false;
+        record(input);
+        return true;
     }
 
-    // Block이 바닥에 닿는지 확인
-    public boolean checkIsItBottom() {
-        if (y == BOARD_END_HEIGHT - currentBlock.getHeight())
-            return true;
-
-        int width = currentBlock.getWidth();
-        int height = currentBlock.getHeight();
-
-        for (int i = 0; i < width; i++) {
-            for (int j = 0; j < height; j++) {
-                if (board[y + j + 1][x + i] > 1 && board[y + j][x + i] == 1) {
-                    return true;
-                }
-            }
-        }
-        return false;
+    private void record(int action) {
+        if (replay != null)
+            replay.record(gameLoop.getTicks(), replayPlayer, action);
     }
 
-    private class WallKick {
+    /*
+     * 키 입력을 바로 두지 않고 입력 종류(GameEngine.MOVE_LEFT ~ DROP_DOWN)로 inputQueue 에 넘긴다.
+     * 온라인 대전은 넘긴 입력을 두 사람이 확인한 프레임에 applyInput 으로 둔다. null 이면 다시 키로 바로 둔다.
+     */
+    void setInputQueue(IntConsumer inputQueue) {
+        this.inputQueue = inputQueue;
+    }
 
-        int xKick;
-        int yKick;
+    // 입력 하나를 키를 누른 것과 같은 방법으로 둔다
+    void applyInput(int action) {
+        switch (action) {
+            case GameEngine.MOVE_LEFT:
+                moveLeft();
+                break;
+            case GameEngine.MOVE_RIGHT:
+                moveRight();
+                break;
+            case GameEngine.MOVE_ROTATE:
+                moveRotate();
+                break;
+            case GameEngine.MOVE_DOWN:
+                if (acceptInput(GameEngine.MOVE_DOWN))
+                    moveDown();
+                break;
+            case GameEngine.DROP_DOWN:
+                dropDown();
+                break;
+            default:
+                log.warning("알 수 없는 입력 " + action);
+        }
+    }
+
+    /*
+     * 롤백 대전은 예측한 프레임에서 게임오버가 되어도 되돌릴 수 있으므로 바로 끝내지 않는다.
+     * true 로 두면 engine 만 끝난 상태가 되고, 프레임이 확정되면 RollbackSession 이 doAfterGameOver 를 부른다.
+     */
+    void setGameOverDeferred(boolean isGameOverDeferred) {
+        this.isGameOverDeferred = isGameOverDeferred;
+    }
+
+    // 보드와 중력, 바닥 대기, 애니메이션 상태를 snapshot 에 담는다
+    void save(GameSnapshot snapshot) {
+        engine.save(snapshot);
+        snapshot.delayFlag = delayFlag;
+        snapshot.isGravityRunning = isGravityRunning;
+        snapshot.isGravityRearmed = isGravityRearmed;
+        snapshot.gravityDelay = gravityDelay;
+        snapshot.gravityElapsed = gravityElapsed;
+        snapshot.animation = animation;
+        snapshot.animationX = animationX;
+        snapshot.animationY = animationY;
+        snapshot.animationFrame = animationFrame;
+        snapshot.animationElapsed = animationElapsed;
+    }
+
+    // save 로 담은 때로 되돌리고 화면을 처음부터 다시 그린다
+    void restore(GameSnapshot snapshot) {
+        engine.restore(snapshot);
+        delayFlag = snapshot.delayFlag;
+        isGravityRunning = snapshot.isGravityRunning;
+        isGravityRearmed = snapshot.isGravityRearmed;
+        gravityDelay = snapshot.gravityDelay;
+        gravityElapsed = snapshot.gravityElapsed;
+        animation = snapshot.animation;
+        animationX = snapshot.animationX;
+        animationY = snapshot.animationY;
+        animationFrame = snapshot.animationFrame;
+        animationElapsed = snapshot.animationElapsed;
+        focusing.removeKeyListener(gameKeyListener);
+        if (!isAnimating())
+            focusing.addKeyListener(gameKeyListener);
+        redraw();
+    }
 
-        WallKick(int xKick, int yKick) {
-            this.xKick = xKick;
-            this.yKick = yKick;
-        }
+    private void redraw() {
+        initGameBoard();
+        drawBlock(engine.x, engine.y);
+        initAttackLines();
+        drawAttackLinePane();
+        resetNextBlockPane();
+        drawNextBlock();
+        showScore();
+        showDeleteLines();
+        if (isAnimating())
+            paintAnimation(animationFrame);
+    }
 
+    // replay 에 player 번째 플레이어로 녹화한다. null 이면 녹화를 멈춘다.
+    void setReplay(Replay replay, int player) {
+        this.replay = replay;
+        this.replayPlayer = player;
     }
 
-    // Block끼리 충돌하는지 확인
-    private boolean checkBlockCollision(int x, int y) {
-        copyBoard(board, boardBuffer);
-        placeBlock(boardBuffer, blockBuffer, x, y);
-        for (int j = 0; j < blockBuffer.getHeight(); j++) {
-            for (int i = 0; i < blockBuffer.getWidth(); i++) {
-                if (boardBuffer[y + j][x + i] > FIXED_BLOCK_NUMBER) {
-                    return true;
-                }
-            }
-        }
-        return false;
-    }
-
-    // Block이 경계를 넘는지 확인
-    private boolean ifBlockOutOfBounds(int x, int y) {
-        boolean flag = false;
-        if (x < 0 || y < 0) { // 왼쪽 위 아래 경게 확인
-            flag = true;
-            return flag;
-        } else if (x + blockBuffer.getWidth() > BOARD_WIDTH
-                || y + blockBuffer.getHeight() > BOARD_END_HEIGHT)
-            flag = true;
-        return flag;
-    }
-
-    // 게임오버플래그 설정
-    private boolean isGameOver() {
-        for (int i = 0; i < BOARD_WIDTH; i++) {
-            if (board[BOARD_START_HEIGHT - 1][i] > 0)
-                return true;
-        }
-        return false;
+    // Block이 바닥에 닿는지 확인
+    public boolean checkIsItBottom() {
+        return engine.checkIsItBottom();
     }
 
     // 게임시작시 발동 메소드
@@ -808,68 +738,32 @@ public abstract class GameController implements GameMethod {
 
     // 삭제줄 복사 메소드
     private void drawAttackLines(int lines) {
-        attackLinesDeque.clear();
-
-        if (opponent == null || opponent.attackLines > (BOARD_HEIGHT) / 2)
+        if (!engine.sendAttackLines(lines))
             return;
+        opponent.drawAttackLinePane();
+    }
 
-        // 만일 이번에 들어오는 줄로 공격할 줄이 10개를 넘어선다면
-        if (opponent.attackLines + lines > (BOARD_HEIGHT) / 2)
-            lines = (BOARD_HEIGHT) / 2 - opponent.attackLines;
-
-        // 공격할 줄을 만들고 (구멍을 만드는 과정)
-        int[][] temp = new int[MAX_BLOCK_HEIGHT][BOARD_WIDTH];
-        for (int j = 3; j > 3 - lines; j--) {
-            for (int i = 0; i < BOARD_WIDTH; i++) {
-                temp[j][i] = FIXED_BLOCK_NUMBER;
-            }
-        }
-        placeBlock(temp, currentBlock, x, MAX_BLOCK_HEIGHT - currentBlock.getHeight());
-
-        // 구멍난 공격줄을 queue 넣어주고
-        for (int j = 3; j > 3 - lines; j--) {
-            if (Arrays.stream(temp[j]).sum() > FULL_LINE) {
-                attackLinesDeque.offer(
-                        Arrays.stream(temp[j]).map(e -> e % OVERLAP_BLOCK_NUMBER).toArray());
-            }
-        }
-
-        System.out.println("현재 공격 줄 수 :" + opponent.attackLines);
-
-        // 그 다음 이미 있던 공격줄을 넣어주고
-        for (int i = BOARD_HEIGHT - 1; i > BOARD_HEIGHT - opponent.attackLines - 1; i--)
-            attackLinesDeque.offer(Arrays.copyOf(opponent.attackLineBoard[i], BOARD_WIDTH));
-
-        // 상대방 공격줄에 라인 추가
-        opponent.attackLines += lines;
-
-        // stack에서 공격할 줄을 board에 넣어준다.
-        int size = attackLinesDeque.size();
-        System.out.println("이제 나올 공격 줄 수 :" + opponent.attackLines);
-        System.out.println("현재 큐 크기:" + size);
-        for (int i = BOARD_HEIGHT - 1; i > BOARD_HEIGHT - 1
-                - size; i--) {
-            opponent.attackLineBoard[i] = Arrays.copyOf(attackLinesDeque.poll(), BOARD_WIDTH);
-        }
-
-        // 그리고 그걸 attackLinePane에 표현한다.
+    // 쌓인 공격줄을 attackLinePane에 표현한다.
+    private void drawAttackLinePane() {
+        int[][] attackLineBoard = engine.attackLineBoard;
+        int attackLines = engine.attackLines;
         attackLineSB.setLength(0);
         for (int j = 0; j < BOARD_HEIGHT; j++) {
             for (int i = 0; i < BOARD_WIDTH; i++) {
-                attackLineSB.append(blockCharMap.get(opponent.attackLineBoard[j][i]));
+                attackLineSB.append(blockCharMap.get(attackLineBoard[j][i]));
             }
             attackLinesStringBuilder.replace((BOARD_WIDTH + 4) + (j * (BOARD_WIDTH + 3)),
                     (BOARD_WIDTH + 4) + (j * (BOARD_WIDTH + 3)) + BOARD_WIDTH, attackLineSB.toString());
             attackLineSB.setLength(0);
         }
 
-        opponent.attackLinePane.setText(attackLinesStringBuilder.toString());
+        attackLinePane.setText(attackLinesStringBuilder.toString());
 
-        opponentAttackLinePaneDoc.setParagraphAttributes(0, opponentAttackLinePaneDoc.getLength(),
+        attackLinePaneDoc.setParagraphAttributes(0, attackLinePaneDoc.getLength(),
                 attackBoardAttributeSet, false);
         StyleConstants.setForeground(blockAttributeSet, colorMap.get(Block.ATTACK_BLOCK_IDENTIFY_NUMBER));
-        for (int i = BOARD_HEIGHT - 1; i > BOARD_HEIGHT - 1 - opponent.attackLines; i--) {
-            opponent.attackLinePaneDoc.setCharacterAttributes(
+        for (int i = BOARD_HEIGHT - 1; i > BOARD_HEIGHT - 1 - attackLines; i--) {
+            attackLinePaneDoc.setCharacterAttributes(
                     (BOARD_WIDTH + 4) + (i * (BOARD_WIDTH + 3)),
                     BOARD_WIDTH,
                     blockAttributeSet,
@@ -880,20 +774,7 @@ public abstract class GameController implements GameMethod {
 
     // 공격받는중
     void underAttack() {
-        copyBoard(board, boardBuffer);
-        copyBoard(attackLineBoard, board, BOARD_END_HEIGHT - 1);
-        copyBoard(boardBuffer, board, BOARD_END_HEIGHT - attackLines - 1);
-        for (int i = BOARD_HEIGHT - 1 - attackLines; i < BOARD_HEIGHT; i++) {
-            attackLineBoard[i] = Arrays.stream(attackLineBoard[i])
-                    .map(e -> e * 6)
-                    .toArray();
-        }
-        copyBoard(visualBoard, boardBuffer);
-        copyBoard(attackLineBoard, visualBoard, BOARD_END_HEIGHT - 1);
-        copyBoard(boardBuffer, visualBoard, BOARD_END_HEIGHT - attackLines - 1);
-        attackLines = 0;
-        attackLinesDeque.clear();
-        initZeroBoard(attackLineBoard);
+        engine.underAttack();
 
         // 나의 attacakLinePane 비워주기
         initAttackLines();
@@ -903,68 +784,35 @@ public abstract class GameController implements GameMethod {
 
     // 블럭 줄삭제
     private boolean clearLine() {
-        boolean existFullyLine = false;
-        int fullyLines = 0;
-        int startindex = -1;
-        int blockNums = 0;
-        for (int i = BOARD_START_HEIGHT; i < BOARD_END_HEIGHT; i++) {
-            for (int j = 0; j < BOARD_WIDTH; j++)
-                if (board[i][j] > 1)
-                    blockNums += board[i][j];
-            if (blockNums >= 20) {
-                startindex = i;
-                fullyLines++;
-                existFullyLine = true;
-            }
-            blockNums = 0;
-        }
+        int fullyLines = engine.findFullLines();
         if (fullyLines > 0) {
-            startindex = startindex - fullyLines + 1;
             if (fullyLines > 1)
                 drawAttackLines(fullyLines);
-            launchDeleteLineAnimation(startindex, fullyLines);
-            delay -= delay > 250 ? 5 - 2 * diffMode % 2 : 0;
-            score += 20 * fullyLines;
+            launchDeleteLineAnimation(engine.clearStartIndex, fullyLines);
+            engine.scoreLines(fullyLines);
             showScore();
         }
-        itemLines += fullyLines;
-        deleteLines += fullyLines;
-        return existFullyLine;
+        engine.countLines(fullyLines);
+        return fullyLines > 0;
     }
 
     // 줄삭제 애니메이션
     private void launchDeleteLineAnimation(int index, int lines) {
         stopGameDelayTimer();
-        System.out.println("삭제전");
-        focusing.removeKeyListener(gameKeyListener);
-        Timer aniTimer;
-        int count = 0;
-        int aniDelay = ANIMATION_INTERVAL;
-        for (count = 0; count < 10; count++) {
-            if (count % 2 == 0)
-                aniTimer = new Timer(count * aniDelay,
-                        e -> paintLines(index, lines, Color.WHITE));
-            else
-                aniTimer = new Timer(count * aniDelay,
-                        e -> paintLines(index, lines, Color.BLACK));
-            aniTimer.setRepeats(false);
-            aniTimer.start();
-        }
-        int totaldelay = count * aniDelay;
-        aniTimer = new Timer(totaldelay, e -> {
-            overWriteLines(index, lines);
-            showDeleteLines();
-            takeOutNextBlock();
-            focusing.addKeyListener(gameKeyListener);
-        });
-        aniTimer.setRepeats(false);
-        aniTimer.start();
-        startGameDelayTimer(totaldelay + delay);
+        startAnimation(DELETE_LINE_ANIMATION, index, lines);
+        startGameDelayTimer(ANIMATION_FRAMES * ANIMATION_INTERVAL + engine.delay);
 
     }
 
     // 줄색칠 메소드
     private void paintLines(int index, int lines, Color color) {
+        if (isBoardCanvasMode) {
+            for (int i = 0; i < lines; i++)
+                for (int j = 0; j < BOARD_WIDTH; j++)
+                    boardCanvas.paintCell(index + i - BOARD_START_HEIGHT, j, color);
+            boardCanvas.flush();
+            return;
+        }
         StyleConstants.setForeground(blockAttributeSet, color);
         for (int i = 0; i < lines; i++) {
             gamePaneDoc.setCharacterAttributes(
@@ -977,34 +825,12 @@ public abstract class GameController implements GameMethod {
     // 폭발 애니메이션
     private void launchExplosionAnimation() {
         stopGameDelayTimer();
-        gamePane.removeKeyListener(gameKeyListener);
-        Timer aniTimer;
-        int count = 0;
-        int aniDelay = ANIMATION_INTERVAL;
-        int xbuffer = currentBlock.getItemCoordinate()[0] + x;
-        int ybuffer = currentBlock.getItemCoordinate()[1] + y;
-        placeBombSquare(xbuffer, ybuffer);
-        for (count = 0; count < 10; count++) {
-            if (count % 2 == 0)
-                aniTimer = new Timer(count * aniDelay,
-                        e -> paintSquare(xbuffer, ybuffer, Color.RED));
-            else
-                aniTimer = new Timer(count * aniDelay,
-                        e -> paintSquare(xbuffer, ybuffer, Color.YELLOW));
-            aniTimer.setRepeats(false);
-            aniTimer.start();
-        }
-        int totaldelay = count * aniDelay;
-        aniTimer = new Timer(totaldelay, e -> {
-            deleteSquare(xbuffer, ybuffer);
-            fixBoard();
-            takeOutNextBlock();
-            isBottomFlag = checkBlockCollision(x, y);
-            focusing.addKeyListener(gameKeyListener);
-        });
-        aniTimer.setRepeats(false);
-        aniTimer.start();
-        startGameDelayTimer(totaldelay);
+        int xbuffer = engine.getItemX();
+        int ybuffer = engine.getItemY();
+        engine.placeBombSquare(xbuffer, ybuffer);
+        drawSquare(xbuffer, ybuffer, BOMB_RANGE);
+        startAnimation(EXPLOSION_ANIMATION, xbuffer, ybuffer);
+        startGameDelayTimer(ANIMATION_FRAMES * ANIMATION_INTERVAL);
     }
 
     // 사각형 색칠 메소드
@@ -1018,156 +844,97 @@ public abstract class GameController implements GameMethod {
             if (ybuffer + i < BOARD_END_HEIGHT) {
                 for (int j = 0; j < BOMB_RANGE; j++) {
                     if (xbuffer + j > -1 && xbuffer + j < BOARD_WIDTH) {
-                        gamePaneDoc.setCharacterAttributes(offset + i * (BOARD_WIDTH + 3) + j, 1,
-                                blockAttributeSet, true);
+                        if (!isBoardCanvasMode)
+                            gamePaneDoc.setCharacterAttributes(offset + i * (BOARD_WIDTH + 3) + j, 1,
+                                    blockAttributeSet, true);
+                        else if (ybuffer + i >= BOARD_START_HEIGHT)
+                            boardCanvas.paintCell(ybuffer + i - BOARD_START_HEIGHT, xbuffer + j, color);
                     }
                 }
             }
         }
+        if (isBoardCanvasMode)
+            boardCanvas.flush();
     }
 
-    private void placeBombSquare(int x, int y) {
-        x -= ((BOMB_RANGE - 1) / 2);
-        y -= ((BOMB_RANGE - 1) / 2);
-        for (int i = 0; i < BOMB_RANGE; i++) {
+    // engine 이 바꾼 사각형 범위를 gamePane 에 그려주는 메소드
+    private void drawSquare(int x, int y, int range) {
+        int[][] visualBoard = engine.visualBoard;
+        x -= ((range - 1) / 2);
+        y -= ((range - 1) / 2);
+        for (int i = 0; i < range; i++) {
             if (y + i < BOARD_END_HEIGHT)
-                for (int j = 0; j < BOMB_RANGE; j++) {
+                for (int j = 0; j < range; j++) {
                     if (x + j > -1 && x + j < BOARD_WIDTH) {
-                        visualBoard[y + i][x + j] = Block.BOMBBLOCK_IDENTIFY_NUMBER;
                         int offset = (BOARD_WIDTH + 4) + (y + i - BOARD_START_HEIGHT) * (BOARD_WIDTH + 3) + x + j;
-                        boardStringBuilder.setCharAt(offset, blockCharMap.get(Block.BOMBBLOCK_IDENTIFY_NUMBER));
-                        gamePane.setText(boardStringBuilder.toString());
-                        paintBlock();
-                    }
-                }
-        }
-    }
-
-    private void placeSquare(int x, int y) {
-        x -= ((STUFF_RANGE - 1) / 2);
-        y -= ((STUFF_RANGE - 1) / 2);
-        for (int i = 0; i < STUFF_RANGE; i++) {
-            if (y + i < BOARD_END_HEIGHT)
-                for (int j = 0; j < STUFF_RANGE; j++) {
-                    if (x + j > -1 && x + j < BOARD_WIDTH) {
-                        visualBoard[y + i][x + j] = Block.STUFF_BLOCK_IDENTIFY_NUMBER;
-                        board[y + i][x + j] = FIXED_BLOCK_NUMBER;
-                        int offset = (BOARD_WIDTH + 4) + (y + i - BOARD_START_HEIGHT) * (BOARD_WIDTH + 3) + x + j;
-                        boardStringBuilder.setCharAt(offset, blockCharMap.get(Block.STUFF_BLOCK_IDENTIFY_NUMBER));
-                        gamePane.setText(boardStringBuilder.toString());
-                        paintBlock();
-                    }
-                }
-        }
-    }
-
-    private void deleteSquare(int x, int y) {
-        x -= ((BOMB_RANGE - 1) / 2);
-        y -= ((BOMB_RANGE - 1) / 2);
-        for (int i = 0; i < BOMB_RANGE; i++) {
-            if (y + i < BOARD_END_HEIGHT)
-                for (int j = 0; j < BOMB_RANGE; j++) {
-                    if (x + j > -1 && x + j < BOARD_WIDTH) {
-                        board[y + i][x + j] = 0;
-                        visualBoard[y + i][x + j] = 0;
-                        int offset = (BOARD_WIDTH + 4) + (y + i - BOARD_START_HEIGHT) * (BOARD_WIDTH + 3) + x + j;
-                        boardStringBuilder.setCharAt(offset, ' ');
-                        gamePane.setText(boardStringBuilder.toString());
-                        paintBlock();
+                        boardStringBuilder.setCharAt(offset, blockCharMap.get(visualBoard[y + i][x + j]));
                     }
                 }
         }
+        renderBoard();
     }
 
     // 바닥 도달시
     private void lockDelay() {
-        if (isItemFlag) {
+        if (engine.isItemFlag) {
+            Block currentBlock = engine.currentBlock;
             if (currentBlock.getIdentifynumber() == Block.WEIGHTBLOCK_IDENTIFY_NUMBER) {
-                ifIsweightBlock(board, visualBoard, currentBlock);
-                isItemFlag = false;
+                ifIsweightBlock();
+                engine.isItemFlag = false;
             } else if (currentBlock.getAttachItemID() == Block.BOMBBLOCK_IDENTIFY_NUMBER) {
                 launchExplosionAnimation();
-                isItemFlag = false;
+                engine.isItemFlag = false;
                 return;
             } else if (currentBlock.getAttachItemID() == Block.STUFF_BLOCK_IDENTIFY_NUMBER) {
-                ifIsStuffBlock(board, visualBoard, currentBlock);
-                isItemFlag = false;
+                engine.ifIsStuffBlock();
+                drawSquare(engine.getItemX(), engine.getItemY(), STUFF_RANGE);
+                engine.isItemFlag = false;
             }
         }
-        copyBoard(board, boardBuffer);
-        fixBoard();
+        engine.fixBoard();
         if (!clearLine()) {
             takeOutNextBlock();
             stopGameDelayTimer();
-            startGameDelayTimer(delay);
+            startGameDelayTimer(engine.delay);
         }
 
     }
 
     // 다음 블록 놓기
     private void takeOutNextBlock() {
-        if (isGameOver()) {
-            doAfterGameOver();
+        if (engine.checkGameOver()) {
+            if (!isGameOverDeferred)
+                doAfterGameOver();
             return;
         }
         doBeforeTakeOutNextBlock();
-        currentBlock.copyBlock(nextBlock);
-        blockBuffer.copyBlock(currentBlock);
-        nextBlock = getBlock(blockDeque.removeFirst());
-        if (gameMode == ITEM_GAME_MODE && itemLines >= itemFreqency) {
-            nextBlock.makeItemBlock();
-            itemLines = 0;
-            isItemFlag = true;
-        }
+        engine.spawnNextBlock();
         drawNextBlock();
-        x = START_X;
-        y = START_Y;
-        getGhostY();
-        // 시작위치에서 충돌날 시 위로 한 칸 올린다.
-        if (checkBlockCollision(x, y)) {
-            y--;
-        }
-        placeBlock(board, visualBoard, currentBlock, x, y);
-        isBottomFlag = checkIsItBottom();
-        isNotDropDownState = true;
+        drawBlock(engine.x, engine.y);
         doAfterTakeOutNextBlock();
     }
 
     /* 아이템블록 구현 메소드 */
     // 무게추
-    private void ifIsweightBlock(int[][] board, int[][] visualBoard, Block block) {
-        int yTemp = BOARD_END_HEIGHT - block.getHeight();
-        for (int j = 0; j < BOARD_END_HEIGHT; j++) {
-            for (int i = 0; i < block.getWidth(); i++) {
-                board[j][x + i] = 0;
-                visualBoard[j][x + i] = 0;
+    private void ifIsweightBlock() {
+        int x = engine.x;
+        int width = engine.currentBlock.getWidth();
+        for (int j = BOARD_START_HEIGHT; j < BOARD_END_HEIGHT; j++) {
+            for (int i = 0; i < width; i++) {
                 int offset = (BOARD_WIDTH + 4) + (j - BOARD_START_HEIGHT) * (BOARD_WIDTH + 3) + x + i;
-                if (offset >= (BOARD_WIDTH + 4))
-                    boardStringBuilder.setCharAt(offset, ' ');
+                boardStringBuilder.setCharAt(offset, ' ');
             }
         }
-        placeBlock(board, visualBoard, block, x, yTemp);
-    }
-
-    // 채우기 블록
-    private void ifIsStuffBlock(int[][] board, int[][] visualBoard, Block block) {
-        int xbuffer = currentBlock.getItemCoordinate()[0] + x;
-        int ybuffer = currentBlock.getItemCoordinate()[1] + y;
-        placeSquare(xbuffer, ybuffer);
-
+        engine.ifIsweightBlock();
+        drawBlock(x, BOARD_END_HEIGHT - engine.currentBlock.getHeight());
     }
 
     // 게임 중단 상태에서 다시 실행하는 경우
     public void restart() {
-        initZeroBoard(board);
-        x = START_X;
-        y = START_Y;
-        blockDeque.clear();
-        blockBuffer = getBlock(blockDeque.getFirst());
-        currentBlock = getBlock(blockDeque.removeFirst());
-        nextBlock = getBlock(blockDeque.removeFirst());
-
-        placeBlock(board, visualBoard, currentBlock, x, y);
+        List<Integer> remainBlockList = new ArrayList<>(blockDeque);
+        engine.resetGame();
+        engine.startGame(engine.diffMode, engine.gameMode, remainBlockList);
+        drawBlock(engine.x, engine.y);
         drawNextBlock();
     }
 
@@ -1200,33 +967,40 @@ public abstract class GameController implements GameMethod {
 
         private void resetMap() {
             gameKeyMap.clear();
+            gameKeyInputMap.clear();
         }
 
         private void initUpKey() {
+            gameKeyInputMap.put(new KeyPair(upKey, focusing), GameEngine.MOVE_ROTATE);
             gameKeyMap.put(new KeyPair(upKey, focusing), () -> {
                 moveRotate();
             });
         }
 
         private void initDownKey() {
+            gameKeyInputMap.put(new KeyPair(downKey, focusing), GameEngine.MOVE_DOWN);
             gameKeyMap.put(new KeyPair(downKey, focusing), () -> {
-                moveDown();
+                if (acceptInput(GameEngine.MOVE_DOWN))
+                    moveDown();
             });
         }
 
         private void initLeftKey() {
+            gameKeyInputMap.put(new KeyPair(leftKey, focusing), GameEngine.MOVE_LEFT);
             gameKeyMap.put(new KeyPair(leftKey, focusing), () -> {
                 moveLeft();
             });
         }
 
         private void initRightKey() {
+            gameKeyInputMap.put(new KeyPair(rightKey, focusing), GameEngine.MOVE_RIGHT);
             gameKeyMap.put(new KeyPair(rightKey, focusing), () -> {
                 moveRight();
             });
         }
 
         private void initStackKey() {
+            gameKeyInputMap.put(new KeyPair(stackKey, focusing), GameEngine.DROP_DOWN);
             gameKeyMap.put(new KeyPair(stackKey, focusing), GameController.this::dropDown);
         }
     }
@@ -1236,6 +1010,12 @@ public abstract class GameController implements GameMethod {
         @Override
         public void keyPressed(KeyEvent e) {
             KeyPair key = new KeyPair(e.getKeyCode(), e.getComponent());
+            if (inputQueue != null) {
+                Integer input = gameKeyInputMap.get(key);
+                if (input != null)
+                    inputQueue.accept(input);
+                return;
+            }
             if (gameKeyMap.containsKey(key))
                 gameKeyMap.get(key).run();
         }
@@ -1246,71 +1026,14 @@ public abstract class GameController implements GameMethod {
         focusing.addKeyListener(gameKeyListener);
     }
 
-    private void initZeroBoard(int[][] board) {
-        for (int i = 0; i < board.length; i++) {
-            for (int j = 0; j < board[i].length; j++) {
-                board[i][j] = 0;
-            }
-        }
-    }
-
-    private void pasteLines(int[][] copy, int[][] paste) {
-        for (int i = 0; i < copy.length; i++) {
-            paste[i + 1] = Arrays.copyOf(copy[i], paste[i].length);
-        }
-    }
-
-    private void overWriteLines(int startIndex, int lines) {
-        int endIndex = startIndex + lines;
-        for (int i = startIndex; i < endIndex; i++)
-            overWriteLine(i);
-        initGameBoard();
-    }
-
-    private void overWriteLine(int index) {
-        int[][] copy = new int[index][BOARD_WIDTH];
-        copyBoard(board, copy);
-        pasteLines(copy, board);
-        copyBoard(visualBoard, copy);
-        pasteLines(copy, visualBoard);
-    }
-
-    void copyBoard(int[][] copy, int[][] paste) {
-        for (int i = 0; i < paste.length; i++) {
-            paste[i] = Arrays.copyOf(copy[i], paste[i].length);
-        }
-    }
-
-    void copyBoard(int[][] copy, int[][] paste, int start) {
-        int copyIndex = copy.length;
-        copyIndex--;
-        if (start > paste.length) {
-            log.info("입력받은 시작인덱스가 실제 복사받을 인덱스를 넘어섭니다.");
-            return;
-        }
-        for (int i = start; i > -1 && copyIndex > -1; i--, copyIndex--) {
-            paste[i] = Arrays.copyOf(copy[copyIndex], paste[i].length);
-        }
-
-    }
-
-    private void fixBoard() {
-        for (int i = BOARD_START_HEIGHT; i < BOARD_END_HEIGHT; i++) {
-            for (int j = 0; j < BOARD_WIDTH; j++) {
-                if (board[i][j] == 1) {
-                    board[i][j] = FIXED_BLOCK_NUMBER;
-                    if (visualBoard[i][j] == Block.ONELINEBLOCK_IDENTIFY_NUMBER)
-                        board[i][j] = FULL_LINE;
-                    visualBoard[i][j] = currentBlock.getIdentifynumber();
-                }
-            }
-        }
+    // 다른 게임 루프로 옮긴다. 온라인 대전은 두 사람이 확인한 프레임마다 한 번씩 도는 루프를 쓴다
+    void setGameLoop(GameLoop gameLoop) {
+        this.gameLoop.unregister(ticker);
+        this.gameLoop = gameLoop;
     }
 
     public void stopGameDelayTimer() {
-        if (gameDelayTimer != null) {
-            gameDelayTimer.stop();
-        }
+        isGravityRunning = false;
     }
 
     public void endGame() {
@@ -1324,24 +1047,23 @@ public abstract class GameController implements GameMethod {
     public void resetGame() {
         delayFlag = false;
         stopGameDelayTimer();
-        initZeroBoard(board);
-        initZeroBoard(visualBoard);
-        initZeroBoard(boardBuffer);
-        isBottomFlag = false;
-        blockDeque.clear();
-        x = START_X;
-        y = START_Y;
+        animation = NO_ANIMATION;
+        gameLoop.unregister(ticker);
+        engine.resetGame();
         boardStringBuilder.setLength(0);
     }
 
+    // 일시정지 중에는 루프에서 빠져 애니메이션도 멈추고, 다른 대상이 없으면 GameLoop 의 Timer 도 멈춘다
     public void stopGame() {
         delayFlag = false;
         stopGameDelayTimer();
+        gameLoop.unregister(ticker);
     }
 
+    // startGameDelayTimer 가 루프에 다시 등록한다
     public void continuGame() {
         delayFlag = true;
-        startGameDelayTimer(delay);
+        startGameDelayTimer(engine.delay);
     }
 
     public static void showCurrent(int[][] board, Block block, int x, int y) {
@@ -1361,12 +1083,12 @@ public abstract class GameController implements GameMethod {
     }
 
     private void showScore() {
-        scoreLabel.setText(String.format("%d", score));
+        scoreLabel.setText(String.format("%d", engine.score));
     }
 
     protected void showDeleteLines() {
         if (linesLabel != null)
-            linesLabel.setText(String.format("%d라인", deleteLines));
+            linesLabel.setText(String.format("%d라인", engine.deleteLines));
     }
 
     protected void setDeleteLines(JLabel linesLabel) {
@@ -1374,10 +1096,16 @@ public abstract class GameController implements GameMethod {
     }
 
     public void restartGameDelayTimer() {
-        gameDelayTimer.restart();
+        gravityElapsed = 0;
+        isGravityRunning = true;
+        gameLoop.register(ticker);
     }
 
     public void setItemFreqency(int itemFreqency) {
-        this.itemFreqency = itemFreqency;
+        engine.setItemFreqency(itemFreqency);
+    }
+
+    public int getScore() {
+        return engine.score;
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,1008 @@
+package tetris.controller;
+
+import java.util.*;
+import java.util.List;
+import java.util.logging.Logger;
+
+import tetris.model.*;
+
+/*
+ * 화면(Swing)과 무관한 게임 규칙 엔진.
+ * board, 현재/다음 블록, 점수 등의 상태를 가지고 이동, 회전, 고정, 줄삭제를 처리한다.
+ * GameController 는 이 엔진에 규칙을 위임하고 그리기만 담당하며,
+ * 엔진 단독으로도 applyInput / step 만으로 한 게임을 끝까지 진행할 수 있다.
+ */
+public class GameEngine implements GameMethod {
+
+    static final Logger log = Logger.getGlobal();
+
+    static final int BOARD_START_HEIGHT = 5;
+    static final int BOARD_HEIGHT = 20;
+    static final int BOARD_END_HEIGHT = BOARD_HEIGHT + BOARD_START_HEIGHT;
+    static final int BOARD_WIDTH = 10;
+    static final int START_X = 3;
+    static final int START_Y = BOARD_START_HEIGHT - 1;
+    static final int BOMB_RANGE = 5; // 홀수만 가능
+    static final int STUFF_RANGE = 3; // 홀수만 가능
+    static final int MAX_BLOCK_HEIGHT = 4;
+    static final int UNFIXED_BLOCK_NUMBER = 1;
+    static final int FIXED_BLOCK_NUMBER = 2;
+    static final int OVERLAP_BLOCK_NUMBER = UNFIXED_BLOCK_NUMBER + FIXED_BLOCK_NUMBER;
+    static final int FULL_LINE = FIXED_BLOCK_NUMBER * BOARD_WIDTH;
+    static final int START_DELAY = 1000;
+    public static final int EASY_MODE = 1;
+    public static final int NORMAL_MODE = 0;
+    public static final int HARD_MODE = 2;
+    public static final int GENERAL_GAME_MODE = 0;
+    public static final int ITEM_GAME_MODE = 1;
+    public static final int TIME_ATTACK_MODE = 2;
+
+    // applyInput 에 사용하는 입력 종류
+    public static final int MOVE_LEFT = 0;
+    public static final int MOVE_RIGHT = 1;
+    public static final int MOVE_ROTATE = 2;
+    public static final int MOVE_DOWN = 3;
+    public static final int DROP_DOWN = 4;
+
+    Block currentBlock;
+    Block nextBlock;
+    Block blockBuffer;
+
+    int[][] board; // 0: 빈칸, 1: 움직이는 블록, 2: 고정된 블록
+    int[][] visualBoard; // 화면에 그려질 블록 식별번호
+    int[][] boardBuffer;
+    int[][] attackLineBoard;
+    final BitBoard bitBoard; // bitBoardMode 일 때 board 의 고정된 칸을 따라가는 비트 보드
+    final Deque<Integer> blockDeque;
+    private final Deque<int[]> attackLinesDeque;
+    private final RestorableRandom itemRandom; // 아이템 종류와 칸 위치를 정한다
+
+    int x;
+    int y;
+    int ghostY;
+    int clearStartIndex; // 마지막으로 찾은 삭제줄의 시작 인덱스
+
+    int score;
+    int delay;
+    int attackLines;
+    int itemLines;
+    int itemFreqency;
+    int deleteLines;
+    int diffMode;
+    int gameMode;
+
+    boolean isBottomFlag;
+    boolean isItemFlag;
+    boolean isNotDropDownState;
+    boolean isGameEnd;
+    boolean bitBoardMode;
+    // true 면 줄삭제나 폭발 뒤 다음 블록을 바로 꺼내지 않고 finishTakeOut 을 기다린다.
+    // GameController 는 애니메이션이 끝나야 다음 블록을 꺼내므로 ReplayPlayer 가 그 시점(Replay.TAKE_OUT)을 맞추는 데 쓴다
+    boolean isTakeOutDeferred;
+    boolean isWaitingTakeOut; // 줄삭제나 폭발을 마치고 다음 블록을 기다리는 중
+    private boolean isBombTakeOut; // 기다리는 것이 폭발 뒤의 블록인지
+
+    GameEngine opponent;
+
+    private Map<Integer, Runnable> rotateMap;
+    private List<List<WallKick>> wallKickList;
+
+    public GameEngine() {
+        board = new int[BOARD_END_HEIGHT][BOARD_WIDTH];
+        boardBuffer = new int[BOARD_END_HEIGHT][BOARD_WIDTH];
+        visualBoard = new int[BOARD_END_HEIGHT][BOARD_WIDTH];
+        attackLineBoard = new int[BOARD_HEIGHT][BOARD_WIDTH];
+        bitBoard = new BitBoard(BOARD_END_HEIGHT);
+        blockDeque = new ArrayDeque<>();
+        attackLinesDeque = new ArrayDeque<>();
+        itemRandom = new RestorableRandom();
+        itemFreqency = 10;
+        delay = START_DELAY;
+        x = START_X;
+        y = START_Y;
+        initRotateMap();
+        initWallKickList();
+    }
+
+    private void initRotateMap() {
+        rotateMap = new HashMap<>();
+        rotateMap.put(Block.FOURTH_ROTATE_STATE, () -> {
+        });
+        rotateMap.put(Block.FIRST_ROTATE_STATE, () -> x++);
+        rotateMap.put(Block.SECOND_ROTATE_STATE, () -> {
+            y++;
+            x--;
+        });
+        rotateMap.put(Block.THIRD_ROTATE_STATE, () -> y--);
+        rotateMap.put(Block.IBLOCK_FOURTH_ROTATE_STATE, () -> {
+            x--;
+            y++;
+        });
+        rotateMap.put(Block.IBLOCK_FIRST_ROTATE_STATE, () -> {
+            x += 2;
+            y--;
+        });
+        rotateMap.put(Block.IBLOCK_SECOND_ROTATE_STATE, () -> {
+            x -= 2;
+            y += 2;
+        });
+        rotateMap.put(Block.IBLOCK_THIRD_ROTATE_STATE, () -> {
+            x++;
+            y -= 2;
+        });
+        rotateMap.put(Block.DO_NOT_ROTATE_STATE, () -> {
+        });
+        rotateMap.put(Block.OBLOCK_ROTATE_STATE, () -> {
+        });
+    }
+
+    private void initWallKickList() {
+        wallKickList = new ArrayList<>();
+        /*
+         * J,L,T,S,Z Block testcase (주의 사항으로 Tetris Fan Wiki에서의 회전에서 y좌표는 +가 위로 올라간다 따라서
+         * 음수로 치환해야 한다.)
+         */
+        wallKickList.add(new ArrayList<>( // 0 >> 1
+                Arrays.asList(new WallKick(-1, 0), new WallKick(-1, -1), new WallKick(0, 2),
+                        new WallKick(-1, 2))));
+        wallKickList.add(new ArrayList<>( // 1 >> 2
+                Arrays.asList(new WallKick(1, 0), new WallKick(1, 1), new WallKick(0, -2),
+                        new WallKick(1, -2))));
+        wallKickList.add(new ArrayList<>( // 2 >> 3
+                Arrays.asList(new WallKick(1, 0), new WallKick(1, -1), new WallKick(0, 2),
+                        new WallKick(1, 2))));
+        wallKickList.add(new ArrayList<>( // 3 >> 0
+                Arrays.asList(new WallKick(-1, 0), new WallKick(-1, 1), new WallKick(0, -2),
+                        new WallKick(-1, -2))));
+        /* IBlock testcase */
+        wallKickList.add(new ArrayList<>( // 0 >> 1
+                Arrays.asList(new WallKick(-2, 0), new WallKick(1, 0), new WallKick(-2, 1),
+                        new WallKick(1, -2))));
+        wallKickList.add(new ArrayList<>( // 1 >> 2
+                Arrays.asList(new WallKick(-1, 0), new WallKick(2, 0), new WallKick(-1, -2),
+                        new WallKick(2, 1))));
+        wallKickList.add(new ArrayList<>( // 2 >> 3
+                Arrays.asList(new WallKick(2, 0), new WallKick(-1, 0), new WallKick(2, -1),
+                        new WallKick(-1, 2))));
+        wallKickList.add(new ArrayList<>( // 3 >> 0
+                Arrays.asList(new WallKick(1, 0), new WallKick(-2, 0), new WallKick(1, 2),
+                        new WallKick(-2, -1))));
+    }
+
+    public void setOpponent(GameEngine opponent) {
+        this.opponent = opponent;
+    }
+
+    // 충돌, 바닥, 꽉 찬 줄 검사를 board 배열 대신 BitBoard 로 처리한다
+    public void setBitBoardMode(boolean bitBoardMode) {
+        this.bitBoardMode = bitBoardMode;
+        syncBitBoard();
+    }
+
+    // board 를 직접 고친 뒤에는 호출해서 BitBoard 를 맞춰주어야 한다
+    void syncBitBoard() {
+        if (bitBoardMode)
+            bitBoard.sync(board);
+    }
+
+    // 아이템 난수의 seed 를 정한다. 같은 seed 와 같은 입력이면 같은 아이템이 같은 칸에 붙는다.
+    public void setItemSeed(long seed) {
+        itemRandom.setSeed(seed);
+    }
+
+    public void startGame(int diffMode, int gameMode, List<Integer> randomBlockList) {
+        this.diffMode = diffMode;
+        this.gameMode = gameMode;
+
+        blockDeque.addAll(randomBlockList);
+        blockBuffer = getBlock(blockDeque.getFirst());
+        currentBlock = getBlock(blockDeque.removeFirst());
+        nextBlock = getBlock(blockDeque.removeFirst());
+        x = START_X;
+        y = START_Y;
+        syncBitBoard();
+        placeBlock(currentBlock, x, y);
+
+        score = 0;
+        delay = START_DELAY;
+        itemLines = 0;
+        deleteLines = 0;
+        attackLines = 0;
+        isItemFlag = false;
+        isNotDropDownState = true;
+        isGameEnd = false;
+        isWaitingTakeOut = false;
+    }
+
+    Block getBlock(int id) {
+        switch (id) {
+            case Block.IBLOCK_IDENTIFY_NUMBER:
+                return new IBlock();
+            case Block.JBLOCK_IDENTIFY_NUMBER:
+                return new JBlock();
+            case Block.LBLOCK_IDENTIFY_NUMBER:
+                return new LBlock();
+            case Block.OBLOCK_IDENTIFY_NUMBER:
+                return new OBlock();
+            case Block.SBLOCK_IDENTIFY_NUMBER:
+                return new SBlock();
+            case Block.TBLOCK_IDENTIFY_NUMBER:
+                return new TBlock();
+            case Block.ZBLOCK_IDENTIFY_NUMBER:
+                return new ZBlock();
+            default:
+                return new IBlock();
+        }
+    }
+
+    /* 입력 및 시간 진행 */
+
+    // 키 입력 한 번을 처리한다
+    public void applyInput(int input) {
+        if (isGameEnd || isWaitingTakeOut)
+            return;
+        switch (input) {
+            case MOVE_LEFT:
+                moveLeft();
+                break;
+            case MOVE_RIGHT:
+                moveRight();
+                break;
+            case MOVE_ROTATE:
+                moveRotate();
+                break;
+            case MOVE_DOWN:
+                moveDown();
+                break;
+            case DROP_DOWN:
+                dropDown();
+                break;
+            default:
+                break;
+        }
+    }
+
+    // 중력에 의한 한 칸 하강 (GameController 의 중력 tick 한 번에 해당)
+    public void step() {
+        if (isGameEnd || isWaitingTakeOut)
+            return;
+        moveDown();
+        accelerate();
+    }
+
+    void accelerate() {
+        delay -= delay > 250 ? 1 : 0;
+    }
+
+    void moveDown() {
+        if (isBottomFlag) {
+            lockDelay();
+            return;
+        }
+        fallOneLine();
+    }
+
+    // 블록을 한 칸 내리고 점수를 더한다
+    void fallOneLine() {
+        eraseBlock(currentBlock, x, y);
+        y++;
+        placeBlock(currentBlock, x, y);
+        score += (201 - delay / 5);
+        isBottomFlag = checkIsItBottom();
+    }
+
+    void dropDown() {
+        if (isNotDropDownState) {
+            eraseBlock(currentBlock, x, y);
+            score += (201 - delay / 5) * ghostY - y;
+            y = ghostY;
+            placeBlock(currentBlock, x, y);
+            isBottomFlag = true;
+            isNotDropDownState = false;
+        }
+    }
+
+    void moveRight() {
+        eraseBlock(currentBlock, x, y);
+        if (x < BOARD_WIDTH - currentBlock.getWidth()) {
+            x++;
+            if (checkBlockCollision(x, y))
+                x--;
+        }
+        placeBlock(currentBlock, x, y);
+        isBottomFlag = checkIsItBottom();
+    }
+
+    void moveLeft() {
+        eraseBlock(currentBlock, x, y);
+        if (x > 0) {
+            x--;
+            if (checkBlockCollision(x, y))
+                x++;
+        }
+        placeBlock(currentBlock, x, y);
+        isBottomFlag = checkIsItBottom();
+    }
+
+    void moveRotate() {
+        eraseBlock(currentBlock, x, y);
+        testRotation();
+        placeBlock(currentBlock, x, y);
+        isBottomFlag = checkIsItBottom();
+    }
+
+    // 바닥 도달시 (애니메이션 없이 바로 처리)
+    void lockDelay() {
+        if (isItemFlag) {
+            if (currentBlock.getIdentifynumber() == Block.WEIGHTBLOCK_IDENTIFY_NUMBER) {
+                ifIsweightBlock();
+                isItemFlag = false;
+            } else if (currentBlock.getAttachItemID() == Block.BOMBBLOCK_IDENTIFY_NUMBER) {
+                isItemFlag = false;
+                explodeBomb();
+                return;
+            } else if (currentBlock.getAttachItemID() == Block.STUFF_BLOCK_IDENTIFY_NUMBER) {
+                ifIsStuffBlock();
+                isItemFlag = false;
+            }
+        }
+        fixBoard();
+        int lines = clearLine();
+        if (lines > 0)
+            overWriteLines(clearStartIndex, lines);
+        if (lines > 0 && isTakeOutDeferred) {
+            isWaitingTakeOut = true;
+            isBombTakeOut = false;
+            return;
+        }
+        takeOutNextBlock();
+    }
+
+    private void explodeBomb() {
+        deleteSquare(getItemX(), getItemY());
+        fixBoard();
+        if (isTakeOutDeferred) {
+            isWaitingTakeOut = true;
+            isBombTakeOut = true;
+            return;
+        }
+        takeOutNextBlock();
+        isBottomFlag = checkBlockCollision(x, y);
+    }
+
+    // 기다리던 다음 블록을 꺼낸다. GameController 의 finishAnimation 과 같은 순서로 처리한다
+    void finishTakeOut() {
+        if (!isWaitingTakeOut)
+            return;
+        isWaitingTakeOut = false;
+        takeOutNextBlock();
+        if (isBombTakeOut)
+            isBottomFlag = checkBlockCollision(x, y);
+    }
+
+    // 다음 블록 놓기
+    void takeOutNextBlock() {
+        if (checkGameOver()) {
+            doAfterGameOver();
+            return;
+        }
+        doBeforeTakeOutNextBlock();
+        spawnNextBlock();
+        doAfterTakeOutNextBlock();
+    }
+
+    // 다음 블록을 현재 블록으로 꺼내 시작 위치에 놓는다
+    void spawnNextBlock() {
+        currentBlock.copyBlock(nextBlock);
+        blockBuffer.copyBlock(currentBlock);
+        nextBlock = getBlock(blockDeque.removeFirst());
+        if (gameMode == ITEM_GAME_MODE && itemLines >= itemFreqency) {
+            nextBlock.makeItemBlock(itemRandom);
+            itemLines = 0;
+            isItemFlag = true;
+        }
+        x = START_X;
+        y = START_Y;
+        getGhostY();
+        // 시작위치에서 충돌날 시 위로 한 칸 올린다.
+        if (checkBlockCollision(x, y)) {
+            y--;
+        }
+        placeBlock(currentBlock, x, y);
+        isBottomFlag = checkIsItBottom();
+        isNotDropDownState = true;
+    }
+
+    /* 보드 조작 */
+
+    // board 와 visualBoard 에 Block 과 ghost 를 놓아주는 메소드
+    void placeBlock(Block block, int x, int y) {
+        getGhostY();
+        for (int[] e : block.getCells()) {
+            board[y + e[1]][x + e[0]] += 1;
+            visualBoard[ghostY + e[1]][x + e[0]] = Block.GHOST_IDENTIFIY_NUMBER;
+        }
+        for (int[] e : block.getCells())
+            visualBoard[y + e[1]][x + e[0]] = block.getVisualShape(e[0], e[1]);
+    }
+
+    // 주어진 board에 Block을 놓아주는 메소드
+    void placeBlock(int[][] board, Block block, int x, int y) {
+        for (int[] e : block.getCells())
+            board[y + e[1]][x + e[0]] += 1;
+    }
+
+    // board에서 블록과 ghost 를 지워주는 method
+    void eraseBlock(Block block, int x, int y) {
+        eraseBlock(board, block, x, y);
+        // 시작위치에서 겹쳐 놓인 경우 고정된 칸도 같이 지워진다
+        if (bitBoardMode)
+            for (int[] e : block.getCells())
+                bitBoard.clearCell(y + e[1], x + e[0]);
+    }
+
+    // 주어진 board에서 블록을 지워주는 method
+    void eraseBlock(int[][] board, Block block, int x, int y) {
+        for (int[] e : block.getCells()) {
+            board[y + e[1]][x + e[0]] = 0;
+            visualBoard[y + e[1]][x + e[0]] = 0;
+            visualBoard[ghostY + e[1]][x + e[0]] = 0;
+        }
+    }
+
+    // Ghost piece의 Y좌표 구하는 메소드
+    void getGhostY() {
+        if (currentBlock == null)
+            return;
+        int limit = BOARD_END_HEIGHT - currentBlock.getHeight();
+        for (ghostY = y; ghostY < limit; ghostY++) {
+            if (checkBlockCollision(x, ghostY)) {
+                ghostY--;
+                return;
+            }
+        }
+        if (checkBlockCollision(x, ghostY))
+            ghostY--;
+    }
+
+    /* SRS기반 회전 점검 */
+    void testRotation() {
+        // 아예 돌리기 전 x,y 좌표
+        int rotateState = blockBuffer.getRotateCount();
+        if (rotateState == Block.DO_NOT_ROTATE_STATE)
+            return;
+        else if (rotateState == Block.OBLOCK_ROTATE_STATE) {
+            currentBlock.rotate();
+            blockBuffer.copyBlock(currentBlock);
+            return;
+        }
+        int xBeforeRotate = x;
+        int yBeforeRotate = y;
+        blockBuffer.rotate();
+        rotateMap.get(rotateState).run(); // 순서 유의 (rotate전의 rotateCount를 보고 Anchor를 옮겼음)
+        int xBuffer = x;
+        int yBuffer = y;
+        List<WallKick> wallKicks = wallKickList.get(rotateState);
+
+        /* 충돌 확인 및 체크 */
+        for (WallKick wallKick : wallKicks) {
+            if (ifBlockOutOfBounds(x, y) || checkBlockCollision(x, y)) {
+                x = xBuffer;
+                y = yBuffer;
+                x += wallKick.xKick;
+                y += wallKick.yKick;
+            } else {
+                currentBlock.rotate();
+                blockBuffer.copyBlock(currentBlock);
+                return;
+            }
+        }
+
+        /* 끝까지 충돌 발생시 rotate 안함 */
+        if (ifBlockOutOfBounds(x, y) || checkBlockCollision(x, y)) {
+            x = xBeforeRotate;
+            y = yBeforeRotate;
+            blockBuffer.copyBlock(currentBlock);
+        } else {
+            currentBlock.rotate();
+            blockBuffer.copyBlock(currentBlock);
+        }
+
+    }
+
+    // Block이 바닥에 닿는지 확인
+    boolean checkIsItBottom() {
+        if (y == BOARD_END_HEIGHT - currentBlock.getHeight())
+            return true;
+        if (bitBoardMode)
+            return bitBoard.restsOnBlock(currentBlock.getRowMasks(), x, y);
+
+        int width = currentBlock.getWidth();
+        int height = currentBlock.getHeight();
+
+        for (int i = 0; i < width; i++) {
+            for (int j = 0; j < height; j++) {
+                if (board[y + j + 1][x + i] > 1 && board[y + j][x + i] == 1) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    private static class WallKick {
+
+        int xKick;
+        int yKick;
+
+        WallKick(int xKick, int yKick) {
+            this.xKick = xKick;
+            this.yKick = yKick;
+        }
+
+    }
+
+    // Block끼리 충돌하는지 확인 (board 를 복사하지 않고 블록이 놓일 범위만 본다)
+    boolean checkBlockCollision(int x, int y) {
+        if (bitBoardMode)
+            return bitBoard.collides(blockBuffer.getRowMasks(), x, y);
+        int[][] shape = blockBuffer.getShape();
+        for (int j = 0; j < shape.length; j++) {
+            int[] row = board[y + j];
+            for (int i = 0; i < shape[j].length; i++) {
+                // 블록을 더했을 때 고정된 블록 값을 넘으면 겹친 것
+                if (row[x + i] + shape[j][i] > FIXED_BLOCK_NUMBER)
+                    return true;
+            }
+        }
+        return false;
+    }
+
+    // Block이 경계를 넘는지 확인
+    boolean ifBlockOutOfBounds(int x, int y) {
+        if (x < 0 || y < 0) // 왼쪽 위 아래 경게 확인
+            return true;
+        return x + blockBuffer.getWidth() > BOARD_WIDTH
+                || y + blockBuffer.getHeight() > BOARD_END_HEIGHT;
+    }
+
+    // 게임오버 확인 (시작 줄에는 고정되지 못한 칸도 걸쳐 있을 수 있어 BitBoard 대신 배열을 본다)
+    boolean checkGameOver() {
+        for (int i = 0; i < BOARD_WIDTH; i++) {
+            if (board[BOARD_START_HEIGHT - 1][i] > 0) {
+                isGameEnd = true;
+                return true;
+            }
+        }
+        return false;
+    }
+
+    void fixBoard() {
+        for (int i = BOARD_START_HEIGHT; i < BOARD_END_HEIGHT; i++) {
+            for (int j = 0; j < BOARD_WIDTH; j++) {
+                if (board[i][j] == 1) {
+                    board[i][j] = FIXED_BLOCK_NUMBER;
+                    if (visualBoard[i][j] == Block.ONELINEBLOCK_IDENTIFY_NUMBER)
+                        board[i][j] = FULL_LINE;
+                    visualBoard[i][j] = currentBlock.getIdentifynumber();
+                }
+            }
+        }
+        syncBitBoard();
+    }
+
+    /* 줄삭제 */
+
+    // 삭제할 줄 수를 구하고 점수, 속도, 공격줄을 반영한다. 실제 삭제는 overWriteLines 가 한다.
+    int clearLine() {
+        int fullyLines = findFullLines();
+        if (fullyLines > 0) {
+            if (fullyLines > 1)
+                sendAttackLines(fullyLines);
+            scoreLines(fullyLines);
+        }
+        countLines(fullyLines);
+        return fullyLines;
+    }
+
+    // 꽉 찬 줄 수를 세고 clearStartIndex 를 구한다
+    int findFullLines() {
+        int fullyLines = 0;
+        int startindex = -1;
+        for (int i = BOARD_START_HEIGHT; i < BOARD_END_HEIGHT; i++) {
+            if (isFullLine(i)) {
+                startindex = i;
+                fullyLines++;
+            }
+        }
+        if (fullyLines > 0)
+            clearStartIndex = startindex - fullyLines + 1;
+        return fullyLines;
+    }
+
+    private boolean isFullLine(int index) {
+        if (bitBoardMode)
+            return bitBoard.isFullRow(index);
+        int blockNums = 0;
+        for (int j = 0; j < BOARD_WIDTH; j++)
+            if (board[index][j] > 1)
+                blockNums += board[index][j];
+        return blockNums >= FULL_LINE;
+    }
+
+    void scoreLines(int lines) {
+        delay -= delay > 250 ? 5 - 2 * diffMode % 2 : 0;
+        score += 20 * lines;
+    }
+
+    void countLines(int lines) {
+        itemLines += lines;
+        deleteLines += lines;
+    }
+
+    void overWriteLines(int startIndex, int lines) {
+        int endIndex = startIndex + lines;
+        for (int i = startIndex; i < endIndex; i++) {
+            overWriteLine(i);
+            if (bitBoardMode)
+                bitBoard.shiftDown(i);
+        }
+    }
+
+    private void overWriteLine(int index) {
+        int[][] copy = new int[index][BOARD_WIDTH];
+        copyBoard(board, copy);
+        pasteLines(copy, board);
+        copyBoard(visualBoard, copy);
+        pasteLines(copy, visualBoard);
+    }
+
+    private void pasteLines(int[][] copy, int[][] paste) {
+        for (int i = 0; i < copy.length; i++) {
+            paste[i + 1] = Arrays.copyOf(copy[i], paste[i].length);
+        }
+    }
+
+    /* 대전 */
+
+    // 삭제줄을 상대방 공격줄로 보낸다. 상대방 공격줄이 바뀌었으면 true
+    boolean sendAttackLines(int lines) {
+        if (opponent == null)
+            return false;
+        return opponent.receiveAttackLines(lines, makeAttackLines(lines));
+    }
+
+    /*
+     * 지운 줄로 공격줄을 만든다. (구멍을 만드는 과정)
+     * 아래 줄부터 lines 개를 BOARD_WIDTH 비트 마스크로 돌려준다. 차 있는 칸이 1 이고 구멍이 0 이다.
+     * 현재 블록이 걸치지 않은 줄은 0 이며 상대에게 쌓이지 않는다.
+     */
+    int[] makeAttackLines(int lines) {
+        lines = Math.min(lines, MAX_BLOCK_HEIGHT);
+        int[][] temp = new int[MAX_BLOCK_HEIGHT][BOARD_WIDTH];
+        for (int j = 3; j > 3 - lines; j--) {
+            for (int i = 0; i < BOARD_WIDTH; i++) {
+                temp[j][i] = FIXED_BLOCK_NUMBER;
+            }
+        }
+        placeBlock(temp, currentBlock, x, MAX_BLOCK_HEIGHT - currentBlock.getHeight());
+
+        int[] rows = new int[lines];
+        for (int k = 0; k < lines; k++) {
+            int[] row = temp[3 - k];
+            if (Arrays.stream(row).sum() <= FULL_LINE)
+                continue;
+            for (int i = 0; i < BOARD_WIDTH; i++) {
+                if (row[i] % OVERLAP_BLOCK_NUMBER == FIXED_BLOCK_NUMBER)
+                    rows[k] |= 1 << i;
+            }
+        }
+        return rows;
+    }
+
+    // 상대가 만든 공격줄을 쌓는다. 공격줄이 바뀌었으면 true
+    boolean receiveAttackLines(int lines, int[] rows) {
+        attackLinesDeque.clear();
+
+        if (attackLines > (BOARD_HEIGHT) / 2)
+            return false;
+
+        // 만일 이번에 들어오는 줄로 공격할 줄이 10개를 넘어선다면
+        if (attackLines + lines > (BOARD_HEIGHT) / 2)
+            lines = (BOARD_HEIGHT) / 2 - attackLines;
+
+        // 구멍난 공격줄을 queue 넣어주고
+        for (int k = 0; k < lines && k < rows.length; k++) {
+            if (rows[k] != 0)
+                attackLinesDeque.offer(toAttackLine(rows[k]));
+        }
+
+        // 그 다음 이미 있던 공격줄을 넣어주고
+        for (int i = BOARD_HEIGHT - 1; i > BOARD_HEIGHT - attackLines - 1; i--)
+            attackLinesDeque.offer(Arrays.copyOf(attackLineBoard[i], BOARD_WIDTH));
+
+        // 공격줄에 라인 추가
+        attackLines += lines;
+
+        // stack에서 공격할 줄을 board에 넣어준다.
+        int size = attackLinesDeque.size();
+        for (int i = BOARD_HEIGHT - 1; i > BOARD_HEIGHT - 1 - size; i--) {
+            attackLineBoard[i] = attackLinesDeque.poll();
+        }
+        return true;
+    }
+
+    private static int[] toAttackLine(int mask) {
+        int[] line = new int[BOARD_WIDTH];
+        for (int i = 0; i < BOARD_WIDTH; i++) {
+            if ((mask & 1 << i) != 0)
+                line[i] = FIXED_BLOCK_NUMBER;
+        }
+        return line;
+    }
+
+    // 공격받는중
+    void underAttack() {
+        copyBoard(board, boardBuffer);
+        copyBoard(attackLineBoard, board, BOARD_END_HEIGHT - 1);
+        copyBoard(boardBuffer, board, BOARD_END_HEIGHT - attackLines - 1);
+        for (int i = BOARD_HEIGHT - 1 - attackLines; i < BOARD_HEIGHT; i++) {
+            attackLineBoard[i] = Arrays.stream(attackLineBoard[i])
+                    .map(e -> e * 6)
+                    .toArray();
+        }
+        copyBoard(visualBoard, boardBuffer);
+        copyBoard(attackLineBoard, visualBoard, BOARD_END_HEIGHT - 1);
+        copyBoard(boardBuffer, visualBoard, BOARD_END_HEIGHT - attackLines - 1);
+        attackLines = 0;
+        attackLinesDeque.clear();
+        initZeroBoard(attackLineBoard);
+        syncBitBoard();
+    }
+
+    /* 아이템블록 구현 메소드 */
+    // 무게추
+    void ifIsweightBlock() {
+        int yTemp = BOARD_END_HEIGHT - currentBlock.getHeight();
+        for (int j = 0; j < BOARD_END_HEIGHT; j++) {
+            for (int i = 0; i < currentBlock.getWidth(); i++) {
+                board[j][x + i] = 0;
+                visualBoard[j][x + i] = 0;
+            }
+        }
+        placeBlock(currentBlock, x, yTemp);
+    }
+
+    // 채우기 블록
+    void ifIsStuffBlock() {
+        int xbuffer = getItemX() - ((STUFF_RANGE - 1) / 2);
+        int ybuffer = getItemY() - ((STUFF_RANGE - 1) / 2);
+        for (int i = 0; i < STUFF_RANGE; i++) {
+            if (ybuffer + i < BOARD_END_HEIGHT)
+                for (int j = 0; j < STUFF_RANGE; j++) {
+                    if (xbuffer + j > -1 && xbuffer + j < BOARD_WIDTH) {
+                        visualBoard[ybuffer + i][xbuffer + j] = Block.STUFF_BLOCK_IDENTIFY_NUMBER;
+                        board[ybuffer + i][xbuffer + j] = FIXED_BLOCK_NUMBER;
+                    }
+                }
+        }
+    }
+
+    // 폭탄 범위를 visualBoard 에 표시
+    void placeBombSquare(int x, int y) {
+        x -= ((BOMB_RANGE - 1) / 2);
+        y -= ((BOMB_RANGE - 1) / 2);
+        for (int i = 0; i < BOMB_RANGE; i++) {
+            if (y + i < BOARD_END_HEIGHT)
+                for (int j = 0; j < BOMB_RANGE; j++) {
+                    if (x + j > -1 && x + j < BOARD_WIDTH)
+                        visualBoard[y + i][x + j] = Block.BOMBBLOCK_IDENTIFY_NUMBER;
+                }
+        }
+    }
+
+    // 폭탄 범위의 블록을 지운다
+    void deleteSquare(int x, int y) {
+        x -= ((BOMB_RANGE - 1) / 2);
+        y -= ((BOMB_RANGE - 1) / 2);
+        for (int i = 0; i < BOMB_RANGE; i++) {
+            if (y + i < BOARD_END_HEIGHT)
+                for (int j = 0; j < BOMB_RANGE; j++) {
+                    if (x + j > -1 && x + j < BOARD_WIDTH) {
+                        board[y + i][x + j] = 0;
+                        visualBoard[y + i][x + j] = 0;
+                    }
+                }
+        }
+    }
+
+    int getItemX() {
+        return currentBlock.getItemCoordinate()[0] + x;
+    }
+
+    int getItemY() {
+        return currentBlock.getItemCoordinate()[1] + y;
+    }
+
+    /* 초기화 및 복사 */
+
+    public void resetGame() {
+        initZeroBoard(board);
+        initZeroBoard(visualBoard);
+        initZeroBoard(boardBuffer);
+        bitBoard.clear();
+        isBottomFlag = false;
+        blockDeque.clear();
+        x = START_X;
+        y = START_Y;
+    }
+
+    void initZeroBoard(int[][] board) {
+        for (int i = 0; i < board.length; i++) {
+            for (int j = 0; j < board[i].length; j++) {
+                board[i][j] = 0;
+            }
+        }
+    }
+
+    void copyBoard(int[][] copy, int[][] paste) {
+        for (int i = 0; i < paste.length; i++) {
+            paste[i] = Arrays.copyOf(copy[i], paste[i].length);
+        }
+    }
+
+    void copyBoard(int[][] copy, int[][] paste, int start) {
+        int copyIndex = copy.length;
+        copyIndex--;
+        if (start > paste.length) {
+            log.info("입력받은 시작인덱스가 실제 복사받을 인덱스를 넘어섭니다.");
+            return;
+        }
+        for (int i = start; i > -1 && copyIndex > -1; i--, copyIndex--) {
+            paste[i] = Arrays.copyOf(copy[copyIndex], paste[i].length);
+        }
+
+    }
+
+    /* 상태 조회 */
+
+    public int[][] getVisualBoard() {
+        return visualBoard;
+    }
+
+    public int getScore() {
+        return score;
+    }
+
+    public int getDeleteLines() {
+        return deleteLines;
+    }
+
+    public int getDelay() {
+        return delay;
+    }
+
+    public boolean isGameEnd() {
+        return isGameEnd;
+    }
+
+    public Block getCurrentBlock() {
+        return currentBlock;
+    }
+
+    public Block getNextBlock() {
+        return nextBlock;
+    }
+
+    public Deque<Integer> getBlockDeque() {
+        return blockDeque;
+    }
+
+    /*
+     * 보드와 블록, 점수, 공격줄을 32 비트로 줄인 값. 온라인 대전에서 두 화면의 보드가 같은지 프레임마다 비교한다.
+     * 같은 상태면 어느 컴퓨터에서나 같은 값이 나오고, 배열을 만들지 않는다.
+     */
+    int checksum() {
+        int hash = 0x811C9DC5;
+        for (int[] row : visualBoard)
+            for (int cell : row)
+                hash = mix(hash, cell);
+        for (int[] row : attackLineBoard)
+            for (int cell : row)
+                hash = mix(hash, cell);
+        hash = mix(mix(mix(hash, x), y), score);
+        hash = mix(mix(mix(hash, delay), attackLines), itemLines);
+        hash = mix(mix(mix(hash, deleteLines), isBottomFlag ? 1 : 0), isGameEnd ? 1 : 0);
+        hash = mixBlock(hash, currentBlock);
+        return mixBlock(hash, nextBlock);
+    }
+
+    // 지금 상태를 snapshot 에 옮겨 담는다. 롤백 대전은 프레임마다 부르므로 새 객체를 만들지 않는다
+    void save(GameSnapshot snapshot) {
+        GameSnapshot.copyCells(board, snapshot.board);
+        GameSnapshot.copyCells(visualBoard, snapshot.visualBoard);
+        GameSnapshot.copyCells(attackLineBoard, snapshot.attackLineBoard);
+        snapshot.currentBlock.copyBlock(currentBlock);
+        snapshot.nextBlock.copyBlock(nextBlock);
+        snapshot.blockBuffer.copyBlock(blockBuffer);
+        if (snapshot.blockDeque.length < blockDeque.size())
+            snapshot.blockDeque = new int[blockDeque.size() * 2];
+        int size = 0;
+        for (int id : blockDeque)
+            snapshot.blockDeque[size++] = id;
+        snapshot.blockDequeSize = size;
+        snapshot.itemRandomState = itemRandom.getState();
+        snapshot.x = x;
+        snapshot.y = y;
+        snapshot.ghostY = ghostY;
+        snapshot.clearStartIndex = clearStartIndex;
+        snapshot.score = score;
+        snapshot.delay = delay;
+        snapshot.attackLines = attackLines;
+        snapshot.itemLines = itemLines;
+        snapshot.deleteLines = deleteLines;
+        snapshot.isBottomFlag = isBottomFlag;
+        snapshot.isItemFlag = isItemFlag;
+        snapshot.isNotDropDownState = isNotDropDownState;
+        snapshot.isGameEnd = isGameEnd;
+    }
+
+    // save 로 담은 때로 되돌린다. 시작한 게임에서만 부를 수 있다
+    void restore(GameSnapshot snapshot) {
+        GameSnapshot.copyCells(snapshot.board, board);
+        GameSnapshot.copyCells(snapshot.visualBoard, visualBoard);
+        GameSnapshot.copyCells(snapshot.attackLineBoard, attackLineBoard);
+        currentBlock.copyBlock(snapshot.currentBlock);
+        nextBlock.copyBlock(snapshot.nextBlock);
+        blockBuffer.copyBlock(snapshot.blockBuffer);
+        blockDeque.clear();
+        for (int i = 0; i < snapshot.blockDequeSize; i++)
+            blockDeque.add(snapshot.blockDeque[i]);
+        itemRandom.setState(snapshot.itemRandomState);
+        x = snapshot.x;
+        y = snapshot.y;
+        ghostY = snapshot.ghostY;
+        clearStartIndex = snapshot.clearStartIndex;
+        score = snapshot.score;
+        delay = snapshot.delay;
+        attackLines = snapshot.attackLines;
+        itemLines = snapshot.itemLines;
+        deleteLines = snapshot.deleteLines;
+        isBottomFlag = snapshot.isBottomFlag;
+        isItemFlag = snapshot.isItemFlag;
+        isNotDropDownState = snapshot.isNotDropDownState;
+        isGameEnd = snapshot.isGameEnd;
+        syncBitBoard();
+    }
+
+    private static int mixBlock(int hash, Block block) {
+        if (block == null)
+            return mix(hash, -1);
+        return mix(mix(mix(hash, block.getIdentifynumber()), block.getRotateCount()), block.getAttachItemID());
+    }
+
+    // FNV-1a 한 단계
+    private static int mix(int hash, int value) {
+        return (hash ^ value) * 0x01000193;
+    }
+
+    public void setItemFreqency(int itemFreqency) {
+        this.itemFreqency = itemFreqency;
+    }
+
+    // 게임시작시 발동 메소드
+    public void doWhenGameStart() {
+    }
+
+    // 게임오버시 발동 메소드
+    public void doAfterGameOver() {
+    }
+
+    // 바닥 도달시 발동 메소드
+    public void doBeforeTakeOutNextBlock() {
+    }
+
+    // 다음블록 놓은 후 메소드
+    public void doAfterTakeOutNextBlock() {
+    }
+}
@@ -0,0 +1,100 @@
+package tetris.controller;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.LongSupplier;
+
+import javax.swing.Timer;
+
+/*
+ * 모든 GameController 와 RobotController 를 움직이는 하나의 게임 루프.
+ * Swing Timer 하나가 실제 흐른 시간을 모아서 TICK_INTERVAL 단위의 고정 tick 으로 나눠 준다.
+ * 중력, 바닥 대기, 애니메이션은 각 Ticker 가 tick 을 세는 상태로 처리하므로
+ * 이벤트마다 Timer 를 새로 만들 필요가 없고, 여러 플레이어가 같은 시간축으로 움직인다.
+ */
+class GameLoop {
+
+    static final int TICK_INTERVAL = 10;
+    private static final int MAX_TICKS_PER_FRAME = 10; // 오래 멈췄다 깨어나도 한 번에 따라잡는 tick 수
+    private static final long TICK_NANOS = TICK_INTERVAL * 1_000_000L;
+
+    // 루프에 등록되어 tick 마다 호출되는 대상
+    interface Ticker {
+        void tick(int interval);
+    }
+
+    private final List<Ticker> tickers;
+    private final LongSupplier clock;
+    private final Timer timer;
+    private long lastTime;
+    private long accumulator; // 아직 tick 으로 바꾸지 않은 시간 (ns)
+    private long ticks; // 지금까지 돌린 tick 수. Replay 가 입력 시각으로 쓴다
+
+    GameLoop(LongSupplier clock, boolean useTimer) {
+        this.clock = clock;
+        tickers = new CopyOnWriteArrayList<>();
+        if (useTimer) {
+            timer = new Timer(TICK_INTERVAL, e -> update());
+            timer.setCoalesce(true);
+        } else {
+            timer = null;
+        }
+    }
+
+    private static class LazyHolder {
+        private static final GameLoop INSTANCE = new GameLoop(System::nanoTime, true);
+    }
+
+    static GameLoop getInstance() {
+        return LazyHolder.INSTANCE;
+    }
+
+    void register(Ticker ticker) {
+        if (tickers.contains(ticker))
+            return;
+        if (tickers.isEmpty()) {
+            lastTime = clock.getAsLong();
+            accumulator = 0;
+        }
+        tickers.add(ticker);
+        if (timer != null && !timer.isRunning())
+            timer.start();
+    }
+
+    // 등록된 대상이 없으면 Timer 도 멈춰서 메뉴 화면에서는 tick 이 돌지 않는다
+    void unregister(Ticker ticker) {
+        tickers.remove(ticker);
+        if (timer != null && tickers.isEmpty())
+            timer.stop();
+    }
+
+    boolean isRegistered(Ticker ticker) {
+        return tickers.contains(ticker);
+    }
+
+    long getTicks() {
+        return ticks;
+    }
+
+    // 마지막 호출 이후 흐른 시간만큼 고정 tick 을 돌린다
+    void update() {
+        long now = clock.getAsLong();
+        accumulator += now - lastTime;
+        lastTime = now;
+        int ticks = 0;
+        while (accumulator >= TICK_NANOS && ticks < MAX_TICKS_PER_FRAME) {
+            step();
+            accumulator -= TICK_NANOS;
+            ticks++;
+        }
+        if (ticks == MAX_TICKS_PER_FRAME)
+            accumulator = 0;
+    }
+
+    // tick 하나를 모든 대상에게 보낸다
+    void step() {
+        ticks++;
+        for (Ticker ticker : tickers)
+            ticker.tick(TICK_INTERVAL);
+    }
+}
@@ -0,0 +1,710 @@
+package tetris.controller;
+
+import java.io.*;
+import java.net.InetSocketAddress;
+import java.net.StandardSocketOptions;
+import java.nio.ByteBuffer;
+import java.nio.channels.*;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/*
+ * 온라인 대전 여러 판을 한 프로세스에서 두는 헤드리스 서버.
+ * ./gradlew gameServer --args="--port 19020 --threads 4"
+ *
+ * 클라이언트는 입력만 보내고 판은 서버의 ServerMatch 가 둔다. 메시지는 OnlineConnection 처럼 첫 바이트가 종류다.
+ *   0x10         HELLO   클라이언트가 처음 보낸다. 프로토콜 버전 (2 바이트)
+ *   0x11         START   짝이 지어지면 서버가 보낸다. seed 8, gameMode 1, itemFrequency 1, 내 번호 1 (12 바이트)
+ *   0x15         STATE   STATE_INTERVAL tick 마다 서버가 보낸다. tick 4, 점수 4, 내 보드의 checksum 4 (13 바이트)
+ *   0x16         ATTACK  내 보드에 공격줄이 쌓였다. 줄 수 (2 바이트)
+ *   0x17         REJECT  서버가 두지 않은 내 입력 (2 바이트)
+ *   0x18         END     판이 끝났다. 이긴 사람 번호, 비기면 0xFF (2 바이트)
+ *   0x19         WATCH   관전자가 HELLO 대신 처음 보낸다. 프로토콜 버전 1, 볼 판 번호 4 (6 바이트)
+ *   0x1A         BOARD   관전자에게 보내는 보드 프레임. 뒤따르는 길이 2 와 SpectatorFeed 의 프레임 (3 + 길이 바이트)
+ *   0x20 ~ 0x27  INPUT   내 입력 n 개. 입력 수를 종류 바이트에 담는다 (1 + n 바이트)
+ *
+ * 네트워크 스레드 하나가 Selector 로 모든 연결을 받고 읽고 쓴다. HELLO 를 보낸 순서대로 둘씩 짝을 짓는다.
+ * 판 번호는 짝을 지은 순서대로 0 부터 매긴다. 아직 시작하지 않은 판도 WATCH 할 수 있다.
+ * 관전자는 tick 마다 바뀐 칸만 받고 END 를 받으면 끝난다.
+ * 판마다 ScheduledThreadPoolExecutor 에 tick 주기의 반복 작업을 하나 두므로 판이 늘어도 스레드는 늘지 않는다.
+ * (JDK 11 에는 가상 스레드가 없어서 판이 스레드를 하나씩 잡지 않게 했다)
+ * 작업 스레드가 보내는 메시지는 연결의 outbox 에 쌓고 네트워크 스레드가 소켓에 쓴다.
+ */
+public class GameServer implements Closeable {
+
+    static final int DEFAULT_PORT = 19020;
+    static final int PROTOCOL_VERSION = 1;
+
+    static final int HELLO = 0x10;
+    static final int START = 0x11;
+    static final int STATE = 0x15;
+    static final int ATTACK = 0x16;
+    static final int REJECT = 0x17;
+    static final int END = 0x18;
+    static final int WATCH = 0x19;
+    static final int BOARD = 0x1A;
+    static final int INPUT = 0x20;
+    static final int MAX_INPUTS = OnlineConnection.MAX_FRAME_INPUTS;
+    static final int NO_WINNER = 0xFF;
+
+    private static final int READ_BUFFER_SIZE = 1024;
+    private static final int OUTBOX_SIZE = 16 * 1024;
+    private static final long REPORT_INTERVAL = 10_000; // ms
+
+    private static final Logger log = Logger.getGlobal();
+
+    private static final String USAGE = "usage: gameServer [--port N] [--threads N] [--speed X] [--seed N]"
+            + " [--mode normal|item] [--item-frequency N]";
+
+    // 서버 설정. 명령줄에서 읽는다
+    static class Options {
+        int port = DEFAULT_PORT;
+        int threads = Runtime.getRuntime().availableProcessors();
+        double speed = 1; // 1 이면 실제 시간. 벤치마크는 tick 을 더 빨리 돌린다
+        long seed = System.nanoTime();
+        int gameMode = GameEngine.GENERAL_GAME_MODE;
+        int itemFrequency = 10;
+
+        long getTickNanos() {
+            return Math.max(1, (long) (GameLoop.TICK_INTERVAL * 1_000_000L / speed));
+        }
+    }
+
+    private final Options options;
+    private final Selector selector;
+    private final ServerSocketChannel server;
+    private final ScheduledThreadPoolExecutor executor;
+    private final Thread thread;
+    private final ConcurrentLinkedQueue<Client> dirtyClients = new ConcurrentLinkedQueue<>();
+    private final int[] inputs = new int[MAX_INPUTS]; // 네트워크 스레드만 쓴다
+    private final Stats stats = new Stats();
+    private final Map<Long, MatchListener> liveMatches = new ConcurrentHashMap<>();
+    private final Map<Long, List<Client>> earlyWatchers = new HashMap<>(); // 시작 전 판의 관전자. 네트워크 스레드만 쓴다
+    private Client waiting; // 짝을 기다리는 클라이언트. 네트워크 스레드만 쓴다
+    private long matchCount;
+    private volatile boolean isClosing;
+
+    private GameServer(Options options, ServerSocketChannel server) throws IOException {
+        this.options = options;
+        this.server = server;
+        selector = Selector.open();
+        executor = new ScheduledThreadPoolExecutor(options.threads, runnable -> {
+            Thread worker = new Thread(runnable, "tetris-server-match");
+            worker.setDaemon(true);
+            return worker;
+        });
+        executor.setRemoveOnCancelPolicy(true);
+        thread = new Thread(this::run, "tetris-server-network");
+        thread.setDaemon(true);
+    }
+
+    // options.port 에서 연결을 받기 시작한다. port 가 0 이면 빈 포트를 쓴다
+    static GameServer start(Options options) throws IOException {
+        ServerSocketChannel server = ServerSocketChannel.open();
+        try {
+            server.bind(new InetSocketAddress(options.port), 1024);
+            server.configureBlocking(false);
+            GameServer gameServer = new GameServer(options, server);
+            server.register(gameServer.selector, SelectionKey.OP_ACCEPT);
+            gameServer.thread.start();
+            return gameServer;
+        } catch (IOException e) {
+            server.close();
+            throw e;
+        }
+    }
+
+    public static void main(String[] args) throws IOException, InterruptedException {
+        Options options;
+        try {
+            options = parse(args);
+        } catch (IllegalArgumentException e) {
+            System.err.println(e.getMessage());
+            System.err.println(USAGE);
+            return;
+        }
+        try (GameServer server = start(options)) {
+            System.out.printf("listening on %d with %d threads%n", server.getLocalPort(), options.threads);
+            long startTime = System.nanoTime();
+            while (true) {
+                Thread.sleep(REPORT_INTERVAL);
+                server.getStats().print(System.nanoTime() - startTime);
+            }
+        }
+    }
+
+    static Options parse(String[] args) {
+        Options options = new Options();
+        for (int i = 0; i < args.length; i++) {
+            String option = args[i];
+            if (i + 1 >= args.length)
+                throw new IllegalArgumentException("missing value for " + option);
+            String value = args[++i];
+            try {
+                switch (option) {
+                    case "--port":
+                        options.port = Integer.parseInt(value);
+                        break;
+                    case "--threads":
+                        options.threads = Integer.parseInt(value);
+                        break;
+                    case "--speed":
+                        options.speed = Double.parseDouble(value);
+                        if (options.speed <= 0)
+                            throw new IllegalArgumentException("speed must be positive: " + value);
+                        break;
+                    case "--seed":
+                        options.seed = Long.parseLong(value);
+                        break;
+                    case "--mode":
+                        options.gameMode = parseGameMode(value);
+                        break;
+                    case "--item-frequency":
+                        options.itemFrequency = Integer.parseInt(value);
+                        break;
+                    default:
+                        throw new IllegalArgumentException("unknown option " + option);
+                }
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("bad number for " + option + ": " + value);
+            }
+        }
+        return options;
+    }
+
+    static int parseGameMode(String value) {
+        switch (value) {
+            case "normal":
+                return GameEngine.GENERAL_GAME_MODE;
+            case "item":
+                return GameEngine.ITEM_GAME_MODE;
+            default:
+                throw new IllegalArgumentException("unknown mode " + value);
+        }
+    }
+
+    int getLocalPort() {
+        try {
+            return ((InetSocketAddress) server.getLocalAddress()).getPort();
+        } catch (IOException e) {
+            return -1;
+        }
+    }
+
+    Stats getStats() {
+        return stats;
+    }
+
+    // 진행 중인 판. 없거나 끝났으면 null
+    ServerMatch getLiveMatch(long number) {
+        MatchListener listener = liveMatches.get(number);
+        return listener == null ? null : listener.match;
+    }
+
+    // 종류별 메시지 길이. 모르는 종류면 -1. BOARD 는 길이가 머리에 있어 -1 이다
+    static int messageLength(int type) {
+        switch (type) {
+            case WATCH:
+                return 6;
+            case HELLO:
+            case ATTACK:
+            case REJECT:
+            case END:
+                return 2;
+            case START:
+                return 12;
+            case STATE:
+                return 13;
+            default:
+                return type >= INPUT && type <= INPUT + MAX_INPUTS ? 1 + type - INPUT : -1;
+        }
+    }
+
+    /* 통계 */
+
+    /*
+     * tick 시간의 분포. 작업 스레드 여럿이 잠그지 않고 더한다.
+     * 마이크로초 단위 칸에 세므로 백분위수는 1 µs 단위로 나온다. MAX_MICROS 를 넘으면 마지막 칸에 센다.
+     */
+    static class LatencyHistogram {
+        static final int MAX_MICROS = 100_000;
+
+        private final AtomicLongArray counts = new AtomicLongArray(MAX_MICROS + 1);
+        private final LongAdder count = new LongAdder();
+        private final LongAdder totalNanos = new LongAdder();
+        private final LongAccumulator maxNanos = new LongAccumulator(Math::max, 0);
+
+        void record(long nanos) {
+            nanos = Math.max(nanos, 0);
+            counts.incrementAndGet((int) Math.min(nanos / 1000, MAX_MICROS));
+            count.increment();
+            totalNanos.add(nanos);
+            maxNanos.accumulate(nanos);
+        }
+
+        long getCount() {
+            return count.sum();
+        }
+
+        double getMeanMicros() {
+            long n = count.sum();
+            return n == 0 ? 0 : totalNanos.sum() / 1000.0 / n;
+        }
+
+        double getMaxMicros() {
+            return maxNanos.get() / 1000.0;
+        }
+
+        // fraction (0 ~ 1) 백분위수의 칸 윗값
+        long getPercentileMicros(double fraction) {
+            long target = (long) Math.ceil(count.sum() * fraction);
+            long seen = 0;
+            for (int i = 0; i <= MAX_MICROS; i++) {
+                seen += counts.get(i);
+                if (seen >= target && seen > 0)
+                    return i + 1L;
+            }
+            return 0;
+        }
+
+        String summary() {
+            return String.format("mean %.1f us, p50 %d us, p99 %d us, max %.1f us", getMeanMicros(),
+                    getPercentileMicros(0.5), getPercentileMicros(0.99), getMaxMicros());
+        }
+    }
+
+    static class Stats {
+        final LongAdder matchesStarted = new LongAdder();
+        final LongAdder matchesFinished = new LongAdder();
+        final LongAdder attacks = new LongAdder();
+        final LongAdder rejectedInputs = new LongAdder();
+        final LongAdder droppedClients = new LongAdder(); // 너무 많이 거절당했거나 받지 않아 끊은 연결
+        final LongAdder failedMatches = new LongAdder(); // tick 이 예외를 던져 비긴 것으로 끝낸 판
+        final LatencyHistogram tickTime = new LatencyHistogram(); // tick 하나를 두는 데 걸린 시간
+        final LatencyHistogram tickLag = new LatencyHistogram(); // tick 이 제때보다 늦게 시작한 시간
+        final LongAdder spectatorFrames = new LongAdder(); // 관전자 한 명에게 보낸 BOARD 를 하나로 센다
+        final LongAdder spectatorKeyframes = new LongAdder();
+        final LongAdder spectatorBytes = new LongAdder();
+
+        double getMatchesPerSecond(long elapsedNanos) {
+            return elapsedNanos == 0 ? 0 : matchesFinished.sum() * 1e9 / elapsedNanos;
+        }
+
+        void print(long elapsedNanos) {
+            long finished = matchesFinished.sum();
+            System.out.printf("%d matches started, %d finished in %.2f s (%.2f matches/s), %d attacks,"
+                    + " %d rejected inputs, %d dropped clients%n", matchesStarted.sum(), finished,
+                    elapsedNanos / 1e9, getMatchesPerSecond(elapsedNanos), attacks.sum(), rejectedInputs.sum(),
+                    droppedClients.sum());
+            if (failedMatches.sum() > 0)
+                System.out.printf("%d matches failed%n", failedMatches.sum());
+            System.out.printf("%d ticks: time %s%n", tickTime.getCount(), tickTime.summary());
+            System.out.printf("%d ticks: lag  %s%n", tickLag.getCount(), tickLag.summary());
+            long frames = spectatorFrames.sum();
+            if (frames > 0)
+                System.out.printf("%d spectator frames (%d keyframes), %d bytes (%.1f bytes/frame)%n", frames,
+                        spectatorKeyframes.sum(), spectatorBytes.sum(), (double) spectatorBytes.sum() / frames);
+        }
+    }
+
+    /* 판 (작업 스레드) */
+
+    // 판의 사건을 두 연결에 메시지로 보내고, 바뀐 보드를 관전자에게 보낸다
+    private class MatchListener implements ServerMatch.Listener {
+        private final Client[] clients;
+        private final SpectatorFeed feed = new SpectatorFeed();
+        private final List<Client> spectators = new ArrayList<>(); // 작업 스레드만 쓴다
+        private final ConcurrentLinkedQueue<Client> joiningSpectators = new ConcurrentLinkedQueue<>();
+        private final long number;
+        private volatile int end = NO_WINNER; // 보낸 END 의 값
+        private volatile boolean isFinished; // end 를 정했다. 이 뒤에 들어온 관전자는 END 만 받는다
+        ServerMatch match;
+
+        MatchListener(long number, Client first, Client second) {
+            this.number = number;
+            clients = new Client[] { first, second };
+        }
+
+        // tick 을 둔 뒤 부른다. 새 관전자가 있으면 keyframe 을 보낸다
+        void broadcast() {
+            boolean isJoined = false;
+            Client joined;
+            while ((joined = joiningSpectators.poll()) != null) {
+                spectators.add(joined);
+                isJoined = true;
+            }
+            spectators.removeIf(spectator -> !spectator.key.isValid());
+            if (spectators.isEmpty())
+                return;
+            ByteBuffer frame = feed.encode(match.getTick(), isJoined, match.getEngine(0), match.getEngine(1));
+            if (frame == null)
+                return;
+            if ((frame.get(SpectatorFeed.HEADER_LENGTH + 4) & SpectatorFeed.KEYFRAME) != 0)
+                stats.spectatorKeyframes.add(spectators.size());
+            stats.spectatorFrames.add(spectators.size());
+            stats.spectatorBytes.add((long) frame.remaining() * spectators.size());
+            for (Client spectator : spectators)
+                spectator.send(frame);
+        }
+
+        // 끝난 판에 들어오려던 관전자에게도 END 를 보낸다
+        void endSpectators() {
+            Client joined;
+            while ((joined = joiningSpectators.poll()) != null)
+                joined.send(END, end);
+        }
+
+        @Override
+        public void onState(int player, int tick, int score, int checksum) {
+            Client client = clients[player];
+            synchronized (client.outbox) {
+                if (client.reserve(13))
+                    client.outbox.put((byte) STATE).putInt(tick).putInt(score).putInt(checksum);
+            }
+        }
+
+        @Override
+        public void onAttack(int player, int lines) {
+            stats.attacks.increment();
+            clients[player].send(ATTACK, lines);
+        }
+
+        @Override
+        public void onReject(int player, int input) {
+            stats.rejectedInputs.increment();
+            clients[player].send(REJECT, input);
+        }
+
+        @Override
+        public void onEnd(int winner) {
+            end = winner == ServerMatch.DRAW ? NO_WINNER : winner;
+            isFinished = true;
+            liveMatches.remove(number);
+            stats.matchesFinished.increment();
+            for (Client client : clients)
+                client.send(END, end);
+            broadcast(); // 관전자가 마지막 보드를 보게 한다
+            for (Client spectator : spectators)
+                spectator.send(END, end);
+            endSpectators();
+        }
+    }
+
+    private void startMatch(Client first, Client second) {
+        long number = matchCount++;
+        long seed = options.seed + number;
+        MatchListener listener = new MatchListener(number, first, second);
+        ServerMatch match = new ServerMatch(seed, options.gameMode, options.itemFrequency, listener);
+        listener.match = match;
+        List<Client> watchers = earlyWatchers.remove(number);
+        if (watchers != null)
+            listener.joiningSpectators.addAll(watchers);
+        liveMatches.put(number, listener);
+        Client[] clients = { first, second };
+        for (int p = 0; p < clients.length; p++) {
+            Client client = clients[p];
+            client.match = match;
+            client.player = p;
+            synchronized (client.outbox) {
+                if (client.reserve(12))
+                    client.outbox.put((byte) START).putLong(seed).put((byte) options.gameMode)
+                            .put((byte) options.itemFrequency).put((byte) p);
+            }
+        }
+        stats.matchesStarted.increment();
+        long tickNanos = options.getTickNanos();
+        long startNanos = System.nanoTime() + tickNanos;
+        match.future = executor.scheduleAtFixedRate(() -> runTick(listener, startNanos, tickNanos), tickNanos,
+                tickNanos, TimeUnit.NANOSECONDS);
+    }
+
+    private void runTick(MatchListener listener, long startNanos, long tickNanos) {
+        ServerMatch match = listener.match;
+        if (match.isEnded()) {
+            if (match.future != null)
+                match.future.cancel(false);
+            return;
+        }
+        long now = System.nanoTime();
+        stats.tickLag.record(now - (startNanos + match.getTick() * tickNanos));
+        try {
+            match.tick();
+            if (!match.isEnded())
+                listener.broadcast();
+        } catch (RuntimeException e) {
+            // 예외가 나가면 주기 작업이 조용히 멈추고 판이 END 없이 남는다
+            log.log(Level.SEVERE, "판 " + listener.number + " 을 두다 예외가 났습니다. 비긴 것으로 끝냅니다", e);
+            stats.failedMatches.increment();
+            abort(match);
+            return;
+        }
+        stats.tickTime.record(System.nanoTime() - now);
+    }
+
+    private void abort(ServerMatch match) {
+        try {
+            match.abort();
+        } catch (RuntimeException e) {
+            log.log(Level.SEVERE, "판을 끝내다 다시 예외가 났습니다", e);
+        } finally {
+            if (match.future != null)
+                match.future.cancel(false);
+        }
+    }
+
+    /* 연결 */
+
+    private class Client {
+        final SocketChannel channel;
+        final SelectionKey key;
+        final ByteBuffer readBuffer = ByteBuffer.allocate(READ_BUFFER_SIZE); // 네트워크 스레드만 쓴다
+        final ByteBuffer outbox = ByteBuffer.allocate(OUTBOX_SIZE); // 보낼 바이트. 쓰는 중인 상태로 둔다
+        boolean isHandshaken; // 네트워크 스레드만 쓴다
+        boolean isSpectator; // 네트워크 스레드만 쓴다
+        boolean isQueued; // dirtyClients 에 들어 있다. outbox 로 잠근다
+        boolean isOverflowed; // outbox 가 차서 끊어야 한다. outbox 로 잠근다
+        volatile ServerMatch match;
+        volatile int player;
+
+        Client(SocketChannel channel) throws IOException {
+            this.channel = channel;
+            key = channel.register(selector, SelectionKey.OP_READ, this);
+        }
+
+        void send(int type, int value) {
+            synchronized (outbox) {
+                if (reserve(2))
+                    outbox.put((byte) type).put((byte) value);
+            }
+        }
+
+        // 여러 관전자에게 같은 프레임을 보내므로 frame 의 position 은 건드리지 않는다
+        void send(ByteBuffer frame) {
+            synchronized (outbox) {
+                if (reserve(frame.remaining()))
+                    outbox.put(frame.duplicate());
+            }
+        }
+
+        /*
+         * outbox 로 잠근 채 부른다. length 바이트 자리가 있는지 보고, 처음 쌓는 메시지면 네트워크 스레드를 깨운다.
+         * 클라이언트가 받지 않아 outbox 가 차면 네트워크 스레드가 연결을 끊게 한다.
+         */
+        boolean reserve(int length) {
+            if (isOverflowed)
+                return false;
+            if (outbox.remaining() < length)
+                isOverflowed = true;
+            if (!isQueued) {
+                isQueued = true;
+                dirtyClients.add(this);
+                selector.wakeup();
+            }
+            return !isOverflowed;
+        }
+    }
+
+    /* 네트워크 스레드 */
+
+    private void run() {
+        try {
+            while (!isClosing) {
+                selector.select(this::process);
+                Client client;
+                while ((client = dirtyClients.poll()) != null)
+                    flush(client);
+            }
+        } catch (IOException e) {
+            log.warning("게임 서버가 멈췄습니다: " + e);
+        } finally {
+            closeChannels();
+        }
+    }
+
+    private void process(SelectionKey key) {
+        if (key.isAcceptable()) {
+            accept();
+            return;
+        }
+        Client client = (Client) key.attachment();
+        if (key.isReadable())
+            read(client);
+        if (key.isValid() && key.isWritable())
+            flush(client);
+    }
+
+    private void accept() {
+        SocketChannel accepted = null;
+        try {
+            accepted = server.accept();
+            if (accepted == null)
+                return;
+            accepted.configureBlocking(false);
+            accepted.setOption(StandardSocketOptions.TCP_NODELAY, true);
+            new Client(accepted);
+        } catch (IOException e) {
+            log.warning("연결을 받지 못했습니다: " + e);
+            closeQuietly(accepted);
+        }
+    }
+
+    private void read(Client client) {
+        try {
+            ByteBuffer buffer = client.readBuffer;
+            if (client.channel.read(buffer) < 0)
+                throw new EOFException();
+            buffer.flip();
+            while (buffer.hasRemaining()) {
+                int position = buffer.position();
+                int type = buffer.get(position) & 0xFF;
+                int length = messageLength(type);
+                if (length < 0 || type != HELLO && type != WATCH && type < INPUT)
+                    throw new IOException("알 수 없는 메시지 " + type);
+                if (buffer.remaining() < length)
+                    break;
+                buffer.position(position + length);
+                if (type == HELLO)
+                    readHello(client, buffer.get(position + 1) & 0xFF);
+                else if (type == WATCH)
+                    readWatch(client, buffer.get(position + 1) & 0xFF, buffer.getInt(position + 2));
+                else
+                    readInputs(client, type - INPUT, buffer, position + 1);
+            }
+            buffer.compact();
+        } catch (IOException e) {
+            closeClient(client, e);
+        }
+    }
+
+    private void readHello(Client client, int version) throws IOException {
+        if (client.isHandshaken || client.isSpectator)
+            throw new IOException("HELLO 를 두 번 받았습니다");
+        if (version != PROTOCOL_VERSION)
+            throw new IOException("클라이언트의 프로토콜 버전 " + version + " 이 " + PROTOCOL_VERSION + " 과 다릅니다");
+        client.isHandshaken = true;
+        if (waiting == null) {
+            waiting = client;
+            return;
+        }
+        Client first = waiting;
+        waiting = null;
+        startMatch(first, client);
+    }
+
+    // 관전자를 판에 붙인다. 붙은 뒤 첫 tick 에 keyframe 을 받는다
+    private void readWatch(Client client, int version, long number) throws IOException {
+        if (client.isHandshaken || client.isSpectator)
+            throw new IOException("WATCH 를 HELLO 뒤나 두 번 받았습니다");
+        if (version != PROTOCOL_VERSION)
+            throw new IOException("관전자의 프로토콜 버전 " + version + " 이 " + PROTOCOL_VERSION + " 과 다릅니다");
+        client.isSpectator = true;
+        MatchListener listener = liveMatches.get(number);
+        if (listener != null) {
+            listener.joiningSpectators.add(client);
+            if (listener.isFinished) // 붙이는 사이에 끝났으면 작업 스레드가 END 를 보내지 못했을 수 있다
+                listener.endSpectators();
+            return;
+        }
+        if (number < 0 || number < matchCount)
+            throw new IOException("판 " + number + " 은 이미 끝났습니다");
+        earlyWatchers.computeIfAbsent(number, key -> new ArrayList<>()).add(client);
+    }
+
+    // 판이 시작되기 전에 온 입력은 두지 않는다
+    private void readInputs(Client client, int count, ByteBuffer buffer, int offset) throws IOException {
+        if (!client.isHandshaken)
+            throw new IOException("HELLO 전에 입력을 받았습니다");
+        for (int i = 0; i < count; i++)
+            inputs[i] = buffer.get(offset + i);
+        ServerMatch match = client.match;
+        if (match == null) {
+            stats.rejectedInputs.add(count);
+            for (int i = 0; i < count; i++)
+                client.send(REJECT, inputs[i]);
+            return;
+        }
+        if (!match.offerInputs(client.player, count, inputs)) {
+            stats.droppedClients.increment();
+            throw new IOException("거절한 입력이 너무 많습니다");
+        }
+    }
+
+    private void flush(Client client) {
+        if (!client.key.isValid())
+            return;
+        boolean isPending;
+        try {
+            synchronized (client.outbox) {
+                client.isQueued = false;
+                if (client.isOverflowed) {
+                    stats.droppedClients.increment();
+                    throw new IOException("보낼 메시지가 너무 많이 밀렸습니다");
+                }
+                client.outbox.flip();
+                client.channel.write(client.outbox);
+                isPending = client.outbox.hasRemaining();
+                client.outbox.compact();
+            }
+        } catch (IOException e) {
+            closeClient(client, e);
+            return;
+        }
+        int ops = isPending ? SelectionKey.OP_READ | SelectionKey.OP_WRITE : SelectionKey.OP_READ;
+        if (client.key.interestOps() != ops)
+            client.key.interestOps(ops);
+    }
+
+    // 판 중에 끊긴 쪽은 진다. EOF 는 클라이언트가 끊은 것이다
+    private void closeClient(Client client, IOException error) {
+        if (!(error instanceof EOFException))
+            log.fine("클라이언트 연결을 끊습니다: " + error);
+        if (waiting == client)
+            waiting = null;
+        ServerMatch match = client.match;
+        if (match != null)
+            match.forfeit(client.player);
+        client.key.cancel();
+        closeQuietly(client.channel);
+    }
+
+    private static void closeQuietly(Channel channel) {
+        if (channel == null)
+            return;
+        try {
+            channel.close();
+        } catch (IOException e) {
+            log.warning("연결을 닫지 못했습니다: " + e);
+        }
+    }
+
+    private void closeChannels() {
+        for (SelectionKey key : selector.keys())
+            closeQuietly(key.channel());
+        try {
+            selector.close();
+        } catch (IOException e) {
+            log.warning("Selector 를 닫지 못했습니다: " + e);
+        }
+    }
+
+    // 새 연결을 받지 않고 두던 판을 모두 멈춘다
+    @Override
+    public void close() {
+        isClosing = true;
+        executor.shutdownNow();
+        selector.wakeup();
+    }
+
+    void awaitClosed(long millis) throws InterruptedException {
+        thread.join(millis);
+        executor.awaitTermination(millis, TimeUnit.MILLISECONDS);
+    }
+}
@@ -0,0 +1,55 @@
+package tetris.controller;
+
+import tetris.model.*;
+
+/*
+ * 한 프레임의 GameEngine 과 GameController 상태. 롤백 대전은 프레임마다 담아 두었다가
+ * 늦게 온 상대 입력이 예측과 다르면 그 프레임으로 되돌려 다시 둔다.
+ *
+ * 칸은 원시 배열에, 블록은 미리 만든 Block 에 copyBlock 으로 옮겨 담으므로 담을 때 새로 만드는 객체가 없다.
+ * bitBoard 는 board 로 다시 맞추고 boardBuffer 는 잠깐 쓰는 배열이므로 담지 않는다.
+ * 화면에 그린 글자도 담지 않고 되돌린 뒤 GameController 가 다시 그린다.
+ */
+class GameSnapshot {
+
+    // GameEngine
+    final int[][] board = new int[GameEngine.BOARD_END_HEIGHT][GameEngine.BOARD_WIDTH];
+    final int[][] visualBoard = new int[GameEngine.BOARD_END_HEIGHT][GameEngine.BOARD_WIDTH];
+    final int[][] attackLineBoard = new int[GameEngine.BOARD_HEIGHT][GameEngine.BOARD_WIDTH];
+    final Block currentBlock = new OBlock();
+    final Block nextBlock = new OBlock();
+    final Block blockBuffer = new OBlock();
+    int[] blockDeque = new int[64];
+    int blockDequeSize;
+    long itemRandomState;
+    int x;
+    int y;
+    int ghostY;
+    int clearStartIndex;
+    int score;
+    int delay;
+    int attackLines;
+    int itemLines;
+    int deleteLines;
+    boolean isBottomFlag;
+    boolean isItemFlag;
+    boolean isNotDropDownState;
+    boolean isGameEnd;
+
+    // GameController 의 tick 상태
+    boolean delayFlag;
+    boolean isGravityRunning;
+    boolean isGravityRearmed;
+    int gravityDelay;
+    int gravityElapsed;
+    int animation;
+    int animationX;
+    int animationY;
+    int animationFrame;
+    int animationElapsed;
+
+    static void copyCells(int[][] from, int[][] to) {
+        for (int i = 0; i < from.length; i++)
+            System.arraycopy(from[i], 0, to[i], 0, to[i].length);
+    }
+}
@@ -0,0 +1,205 @@
+package tetris.controller;
+
+import java.util.*;
+import java.util.List;
+
+import tetris.model.Player;
+
+/*
+ * 난이도와 게임 모드마다 따로 매기는 랭킹 색인.
+ * (난이도, 모드) 하나와 전체에 순서 통계 트리(RankTree)를 하나씩 두므로 기록이 아무리 쌓여도
+ *   top(k)   : 상위 k 개       O(log n + k)
+ *   rank(s)  : 점수 s 의 등수  O(log n)
+ * 이다. 점수가 높을수록 앞이고 같은 점수는 먼저 넣은 기록이 앞이지만 등수는 같다.
+ */
+class Leaderboard {
+
+    private final Map<String, RankTree> trees;
+    private final RankTree all;
+    private long sequence; // 같은 점수의 순서를 정하는 넣은 순번
+
+    Leaderboard() {
+        trees = new HashMap<>();
+        all = new RankTree();
+    }
+
+    void add(Player player) {
+        long order = sequence++;
+        all.insert(player, order);
+        trees.computeIfAbsent(key(player.getDifficulty(), player.getGameMode()), k -> new RankTree())
+                .insert(player, order);
+    }
+
+    void clear() {
+        trees.clear();
+        all.clear();
+        sequence = 0;
+    }
+
+    // 모든 난이도와 모드를 합친 상위 k 개
+    List<Player> top(int k) {
+        return all.top(k);
+    }
+
+    List<Player> top(String difficulty, String gameMode, int k) {
+        RankTree tree = trees.get(key(difficulty, gameMode));
+        return tree == null ? new ArrayList<>() : tree.top(k);
+    }
+
+    // 점수 score 가 몇 위인지. 같은 점수는 같은 등수다
+    int rank(int score) {
+        return all.countAbove(score) + 1;
+    }
+
+    int rank(String difficulty, String gameMode, int score) {
+        RankTree tree = trees.get(key(difficulty, gameMode));
+        return tree == null ? 1 : tree.countAbove(score) + 1;
+    }
+
+    int size() {
+        return all.size();
+    }
+
+    int size(String difficulty, String gameMode) {
+        RankTree tree = trees.get(key(difficulty, gameMode));
+        return tree == null ? 0 : tree.size();
+    }
+
+    private static String key(String difficulty, String gameMode) {
+        return difficulty + "/" + gameMode;
+    }
+
+    /*
+     * 노드마다 서브트리 크기를 들고 있는 AVL 트리.
+     * 왼쪽 서브트리 크기로 "나보다 앞인 기록 수" 를 세면서 내려가므로 등수를 높이만큼의 시간에 센다.
+     */
+    static class RankTree {
+
+        private static class Node {
+            final Player player;
+            final int score;
+            final long order;
+            Node left;
+            Node right;
+            int height = 1;
+            int size = 1;
+
+            Node(Player player, long order) {
+                this.player = player;
+                this.score = player.getScore();
+                this.order = order;
+            }
+        }
+
+        private Node root;
+
+        void insert(Player player, long order) {
+            root = insert(root, new Node(player, order));
+        }
+
+        void clear() {
+            root = null;
+        }
+
+        int size() {
+            return size(root);
+        }
+
+        // 점수가 score 보다 높은 기록 수
+        int countAbove(int score) {
+            int count = 0;
+            Node node = root;
+            while (node != null) {
+                if (node.score > score) {
+                    count += size(node.left) + 1;
+                    node = node.right;
+                } else {
+                    node = node.left;
+                }
+            }
+            return count;
+        }
+
+        // 앞에서 k 개. 다 채우면 남은 가지는 내려가지 않는다
+        List<Player> top(int k) {
+            List<Player> result = new ArrayList<>(Math.min(k, size()));
+            collect(root, k, result);
+            return result;
+        }
+
+        private void collect(Node node, int k, List<Player> result) {
+            if (node == null || result.size() >= k)
+                return;
+            collect(node.left, k, result);
+            if (result.size() < k)
+                result.add(node.player);
+            collect(node.right, k, result);
+        }
+
+        // 점수가 높을수록, 같으면 먼저 넣을수록 앞
+        private static boolean isBefore(Node a, Node b) {
+            return a.score != b.score ? a.score > b.score : a.order < b.order;
+        }
+
+        private static Node insert(Node node, Node added) {
+            if (node == null)
+                return added;
+            if (isBefore(added, node))
+                node.left = insert(node.left, added);
+            else
+                node.right = insert(node.right, added);
+            return balance(node);
+        }
+
+        private static Node balance(Node node) {
+            update(node);
+            int factor = height(node.left) - height(node.right);
+            if (factor > 1) {
+                if (height(node.left.left) < height(node.left.right))
+                    node.left = rotateLeft(node.left);
+                return rotateRight(node);
+            }
+            if (factor < -1) {
+                if (height(node.right.right) < height(node.right.left))
+                    node.right = rotateRight(node.right);
+                return rotateLeft(node);
+            }
+            return node;
+        }
+
+        private static Node rotateRight(Node node) {
+            Node left = node.left;
+            node.left = left.right;
+            left.right = node;
+            update(node);
+            update(left);
+            return left;
+        }
+
+        private static Node rotateLeft(Node node) {
+            Node right = node.right;
+            node.right = right.left;
+            right.left = node;
+            update(node);
+            update(right);
+            return right;
+        }
+
+        private static void update(Node node) {
+            node.height = Math.max(height(node.left), height(node.right)) + 1;
+            node.size = size(node.left) + size(node.right) + 1;
+        }
+
+        private static int height(Node node) {
+            return node == null ? 0 : node.height;
+        }
+
+        private static int size(Node node) {
+            return node == null ? 0 : node.size;
+        }
+
+        int height() {
+            return height(root);
+        }
+    }
+}
@@ -0,0 +1,259 @@
+package tetris.controller;
+
+import java.util.*;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.RecursiveTask;
+import java.util.function.Consumer;
+
+import tetris.model.*;
+
+/*
+ * RobotController 가 블록을 놓을 자리를 고르는 beam search.
+ * 현재 블록을 놓을 수 있는 모든 자리를 평가해 점수가 높은 beamWidth 개만 남기고,
+ * 남은 자리마다 다음 블록까지 놓아 본 가장 좋은 점수로 다시 순위를 매긴다.
+ * 자리 평가는 ForkJoinPool 에서 회전 상태 단위로 나눠 병렬로 하고,
+ * 각 작업은 BitBoard 복사본만 고치므로 작업끼리 공유하는 보드가 없다.
+ * 시간 예산을 넘기면 남은 작업은 건너뛰고, 다음 블록까지 다 본 후보가 없으면 첫 블록 점수만으로 고른다.
+ * 고를 자리가 하나는 남도록 첫 블록의 첫 회전 상태만은 시간과 상관없이 끝까지 본다.
+ * 시간 예산이 UNTIMED 이면 시간을 보지 않고 끝까지 찾으므로 같은 보드에서는 언제나 같은 자리를 고른다.
+ * 기본 풀은 탐색만 쓰는 풀이고, GUI 로봇은 searchLater 로 EDT 밖에서 탐색한다.
+ */
+class LookaheadSearch {
+
+    static final int DEFAULT_BEAM_WIDTH = 6;
+    static final long DEFAULT_TIME_BUDGET = 40; // ms
+    static final long UNTIMED = 0; // 시간 예산 없이 끝까지 찾는다
+
+    private final ForkJoinPool pool;
+    private final int beamWidth;
+    private final long timeBudget;
+
+    // 블록 하나를 놓은 결과
+    static class Placement {
+        final int x;
+        final int rotateCount;
+        final BitBoard board; // 줄삭제까지 끝난 보드
+        final int lines; // 이 자리까지 지운 줄 수의 합
+        final double score;
+        double value; // 다음 블록까지 놓아 본 가장 좋은 점수
+
+        Placement(int x, int rotateCount, BitBoard board, int lines, double score) {
+            this.x = x;
+            this.rotateCount = rotateCount;
+            this.board = board;
+            this.lines = lines;
+            this.score = score;
+            this.value = score;
+        }
+    }
+
+    // 탐색만 쓰는 풀. commonPool 을 쓰는 다른 작업이 탐색을 밀어내지 않는다
+    private static class PoolHolder {
+        private static final ForkJoinPool POOL = new ForkJoinPool(Runtime.getRuntime().availableProcessors(),
+                pool -> {
+                    ForkJoinWorkerThread worker = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(pool);
+                    worker.setName("tetris-search-" + worker.getPoolIndex());
+                    return worker;
+                }, null, false);
+    }
+
+    LookaheadSearch() {
+        this(DEFAULT_TIME_BUDGET);
+    }
+
+    LookaheadSearch(long timeBudget) {
+        this(PoolHolder.POOL, DEFAULT_BEAM_WIDTH, timeBudget);
+    }
+
+    LookaheadSearch(ForkJoinPool pool, int beamWidth, long timeBudget) {
+        this.pool = pool;
+        this.beamWidth = beamWidth;
+        this.timeBudget = timeBudget;
+    }
+
+    /*
+     * board 에 block 을 놓을 가장 좋은 자리를 찾는다. nextBlock 이 null 이면 한 블록만 본다.
+     * weights 는 높이 합, 지운 줄, 구멍, 울퉁불퉁함 순서의 가중치이다.
+     * 게임오버 없이 놓을 자리가 없으면 null
+     */
+    Placement search(BitBoard board, Block block, Block nextBlock, double[] weights) {
+        long deadline = System.nanoTime() + timeBudget * 1_000_000L;
+        List<Block> rotations = getRotations(block);
+        List<Block> nextRotations = nextBlock == null ? Collections.emptyList() : getRotations(nextBlock);
+        boolean isTimed = timeBudget != UNTIMED;
+        return pool.invoke(new SearchTask(board, rotations, nextRotations, weights, deadline, isTimed));
+    }
+
+    /*
+     * search 를 풀에서 돌리고 끝나면 풀의 스레드에서 done 을 부른다. 부른 스레드는 기다리지 않는다.
+     * 탐색하는 동안 board 와 블록을 고치지 않도록 복사본을 넘긴다
+     */
+    void searchLater(BitBoard board, Block block, Block nextBlock, double[] weights, Consumer<Placement> done) {
+        pool.execute(() -> done.accept(search(board, block, nextBlock, weights)));
+    }
+
+    // 회전 상태가 다른 블록 복사본들 (RobotController 가 돌려보던 순서대로)
+    static List<Block> getRotations(Block block) {
+        List<Block> rotations = new ArrayList<>();
+        Block rotated = new JBlock();
+        rotated.copyBlock(block);
+        for (int j = 0; j < 4; j++) {
+            rotated.rotate();
+            if (!containsRotateCount(rotations, rotated.getRotateCount())) {
+                Block copy = new JBlock();
+                copy.copyBlock(rotated);
+                rotations.add(copy);
+            }
+        }
+        return rotations;
+    }
+
+    private static boolean containsRotateCount(List<Block> rotations, int rotateCount) {
+        for (Block rotation : rotations) {
+            if (rotation.getRotateCount() == rotateCount)
+                return true;
+        }
+        return false;
+    }
+
+    private class SearchTask extends RecursiveTask<Placement> {
+
+        private final BitBoard board;
+        private final List<Block> rotations;
+        private final List<Block> nextRotations;
+        private final double[] weights;
+        private final long deadline;
+        private final boolean isTimed;
+
+        SearchTask(BitBoard board, List<Block> rotations, List<Block> nextRotations, double[] weights,
+                long deadline, boolean isTimed) {
+            this.board = board;
+            this.rotations = rotations;
+            this.nextRotations = nextRotations;
+            this.weights = weights;
+            this.deadline = deadline;
+            this.isTimed = isTimed;
+        }
+
+        @Override
+        protected Placement compute() {
+            List<Placement> placements = expandAll(board, rotations);
+            if (placements.isEmpty())
+                return null;
+            // 점수가 같으면 먼저 찾은 자리가 앞에 오도록 안정 정렬한다
+            placements.sort((a, b) -> Double.compare(b.score, a.score));
+            if (nextRotations.isEmpty())
+                return placements.get(0);
+
+            List<Placement> beam = placements.subList(0, Math.min(beamWidth, placements.size()));
+            List<List<ExpandTask>> beamTasks = new ArrayList<>();
+            List<ExpandTask> allTasks = new ArrayList<>();
+            for (Placement placement : beam) {
+                List<ExpandTask> tasks = new ArrayList<>();
+                for (Block rotation : nextRotations)
+                    tasks.add(new ExpandTask(placement.board, placement.lines, rotation, weights, deadline, isTimed));
+                beamTasks.add(tasks);
+                allTasks.addAll(tasks);
+            }
+            invokeAll(allTasks);
+
+            Placement best = null;
+            for (int i = 0; i < beam.size(); i++) {
+                Placement placement = beam.get(i);
+                if (!evaluateChildren(placement, beamTasks.get(i)))
+                    continue;
+                if (best == null || placement.value > best.value)
+                    best = placement;
+            }
+            return best == null ? placements.get(0) : best;
+        }
+
+        // 다음 블록을 다 놓아 봤으면 가장 좋은 점수를 value 로 정하고 true
+        private boolean evaluateChildren(Placement placement, List<ExpandTask> tasks) {
+            double value = Double.NEGATIVE_INFINITY; // 다음 블록을 놓을 자리가 없으면 피해야 할 자리
+            for (ExpandTask task : tasks) {
+                List<Placement> children = task.join();
+                if (children == null)
+                    return false;
+                for (Placement child : children)
+                    value = Math.max(value, child.score);
+            }
+            placement.value = value;
+            return true;
+        }
+
+        // 첫 회전 상태만 시간과 상관없이 보고, 나머지는 시간 예산을 넘겼으면 건너뛴다
+        private List<Placement> expandAll(BitBoard board, List<Block> rotations) {
+            List<ExpandTask> tasks = new ArrayList<>();
+            for (int i = 0; i < rotations.size(); i++)
+                tasks.add(new ExpandTask(board, 0, rotations.get(i), weights, deadline, isTimed && i > 0));
+            invokeAll(tasks);
+            List<Placement> placements = new ArrayList<>();
+            for (ExpandTask task : tasks) {
+                List<Placement> expanded = task.join();
+                if (expanded != null)
+                    placements.addAll(expanded);
+            }
+            return placements;
+        }
+    }
+
+    // 회전 상태 하나로 모든 열에 떨어뜨려 본다. isTimed 인데 시간 예산을 넘겼으면 null
+    private static class ExpandTask extends RecursiveTask<List<Placement>> {
+
+        private final BitBoard board;
+        private final int lines;
+        private final Block rotation;
+        private final double[] weights;
+        private final long deadline;
+        private final boolean isTimed;
+        private final BoardFeatures features; // 작업 안에서 자리마다 다시 쓴다
+
+        ExpandTask(BitBoard board, int lines, Block rotation, double[] weights, long deadline, boolean isTimed) {
+            this.board = board;
+            this.lines = lines;
+            this.rotation = rotation;
+            this.weights = weights;
+            this.deadline = deadline;
+            this.isTimed = isTimed;
+            features = new BoardFeatures();
+        }
+
+        @Override
+        protected List<Placement> compute() {
+            if (isTimed && System.nanoTime() - deadline > 0)
+                return null;
+            int[] masks = rotation.getRowMasks();
+            int height = rotation.getHeight();
+            List<Placement> placements = new ArrayList<>();
+            for (int x = 0; x < GameEngine.BOARD_WIDTH - rotation.getWidth() + 1; x++) {
+                int y = dropY(board, masks, height, x);
+                if (y < GameEngine.BOARD_START_HEIGHT)
+                    continue; // 시작 줄에 걸치면 게임오버
+                BitBoard placed = board.copy();
+                placed.place(masks, x, y);
+                int totalLines = lines + placed.clearFullRows(GameEngine.BOARD_START_HEIGHT);
+                placements.add(new Placement(x, rotation.getRotateCount(), placed, totalLines,
+                        evaluate(placed, totalLines)));
+            }
+            return placements;
+        }
+
+        private double evaluate(BitBoard placed, int totalLines) {
+            features.extract(placed);
+            return features.score(weights, totalLines);
+        }
+    }
+
+    // 시작 위치에서 떨어뜨렸을 때 멈추는 y. 시작 위치부터 막혀 있으면 -1
+    static int dropY(BitBoard board, int[] masks, int height, int x) {
+        int y = GameEngine.START_Y;
+        if (board.collides(masks, x, y))
+            return -1;
+        while (y + height < GameEngine.BOARD_END_HEIGHT && !board.collides(masks, x, y + 1))
+            y++;
+        return y;
+    }
+}
@@ -2,16 +2,23 @@ package tetris.controller;
 
 import javax.swing.*;
 import java.awt.event.*;
+import java.io.IOException;
+
 import tetris.model.*;
 
 public class MultiGameController extends SingleGameController {
 
+    static final int ONLINE_MULTI_MODE = 2;
+    static final String INPUT_DELAY_PROPERTY = "tetris.inputDelay"; // 온라인 입력 지연 프레임. 없으면 바로 둔다
+
     GameController gamePlayer1;
     GameController gamePlayer2;
     GameController gameRobot;
     RobotController robotController;
 
     int multiMode;
+    RollbackSession onlineSession; // 온라인 대전 중이거나 상대를 기다리는 중이면 null 이 아니다
+    private JDialog onlineWaitingDialog;
 
     JLabel multiGameTimeLabel;
     JTextPane multiGameFocusing;
@@ -37,7 +44,7 @@ public class MultiGameController extends SingleGameController {
 
             @Override
             public void doBeforeTakeOutNextBlock() {
-                if (attackLines > 0) {
+                if (engine.attackLines > 0) {
                     underAttack();
                 }
                 if (blockDeque.isEmpty()) {
@@ -56,7 +63,7 @@ public class MultiGameController extends SingleGameController {
 
             @Override
             public void doBeforeTakeOutNextBlock() {
-                if (attackLines > 0) {
+                if (engine.attackLines > 0) {
                     underAttack();
                 }
                 if (blockDeque.isEmpty()) {
@@ -70,8 +77,7 @@ public class MultiGameController extends SingleGameController {
         gameRobot = new GameController(gamepane2, nextBlockPane2, attackLinePane2, scoreLabel2, multiGameFocusing) {
             @Override
             public void doWhenGameStart() {
-                robotController.findMove(currentBlock);
-                robotController.moveBlock();
+                robotController.findMoveLater(engine, engine.currentBlock, robotController::moveBlock);
             }
 
             @Override
@@ -81,7 +87,7 @@ public class MultiGameController extends SingleGameController {
 
             @Override
             public void doBeforeTakeOutNextBlock() {
-                if (attackLines > 0) {
+                if (engine.attackLines > 0) {
                     underAttack();
                 }
                 if (blockDeque.isEmpty()) {
@@ -89,17 +95,19 @@ public class MultiGameController extends SingleGameController {
                     blockDeque.addAll(randomBlockList);
                     opponentBlockDeque.addAll(randomBlockList);
                 }
-                robotController.findMove(nextBlock);
             }
 
+            // 탐색은 EDT 밖에서 하고, 자리를 찾으면 EDT 에서 이동을 시작한다
             @Override
             public void doAfterTakeOutNextBlock() {
-
-                robotController.moveBlock();
+                robotController.findMoveLater(engine, engine.currentBlock, robotController::moveBlock);
             }
         };
 
         robotController = new RobotController(this.gameRobot);
+        gamePlayer1.setBoardCanvas(gameView.getPlayerOneGameBoardCanvas());
+        gamePlayer2.setBoardCanvas(gameView.getPlayerTwoGameBoardCanvas());
+        gameRobot.setBoardCanvas(gameView.getPlayerTwoGameBoardCanvas());
 
         gameView.getVictoryLabel().addKeyListener(new KeyAdapter() {
             @Override
@@ -115,11 +123,18 @@ public class MultiGameController extends SingleGameController {
         this.setting = setting;
         multiMode = 0;
         isSingleGameModeFlag = false;
+        gameView.setBoardCanvasMode(setting.isBoardCanvasMode());
         gamePlayer1.loadSetting(setting);
         gamePlayer2.loadSetting(setting);
         gamePlayer1.setOpponentPlayer(gamePlayer2);
         gamePlayer2.setOpponentPlayer(gamePlayer1);
+        useLocalInput(gamePlayer1);
+        useLocalInput(gamePlayer2);
+        startMatch();
+        gamePlayer1.engine.setItemSeed(blockRandomizer.getItemSeed());
+        gamePlayer2.engine.setItemSeed(blockRandomizer.getItemSeed());
         generateBlockRandomizer(GameController.NORMAL_MODE);
+        startReplay(GameController.NORMAL_MODE, gamePlayer1, gamePlayer2);
         gamePlayer1.setPlayerKeys(setting.getRotateKey(), setting.getMoveDownKey(), setting.getMoveLeftKey(),
                 setting.getMoveRightKey(), setting.getStackKey());
         gamePlayer2.setPlayerKeys(setting.getRotate2Key(), setting.getMoveDown2Key(), setting.getMoveLeft2Key(),
@@ -141,10 +156,16 @@ public class MultiGameController extends SingleGameController {
         isSingleGameModeFlag = false;
         gamePlayer1.setOpponentPlayer(gameRobot);
         gameRobot.setOpponentPlayer(gamePlayer1);
+        useLocalInput(gamePlayer1);
+        startMatch();
+        gamePlayer1.engine.setItemSeed(blockRandomizer.getItemSeed());
+        gameRobot.engine.setItemSeed(blockRandomizer.getItemSeed());
         generateBlockRandomizer(GameController.NORMAL_MODE);
+        startReplay(GameController.NORMAL_MODE, gamePlayer1, gameRobot);
 
         gamePlayer1.setPlayerKeys(setting.getRotateKey(), setting.getMoveDownKey(), setting.getMoveLeftKey(),
                 setting.getMoveRightKey(), setting.getStackKey());
+        gameView.setBoardCanvasMode(setting.isBoardCanvasMode());
         gamePlayer1.loadSetting(setting);
         gameRobot.loadSetting(setting);
 
@@ -158,14 +179,169 @@ public class MultiGameController extends SingleGameController {
         startTimer(gameView.getMultiGameDisplayTimeLabel(), multiGameTimeLabel);
     }
 
+    // 온라인 대전이 옮겨 둔 게임 루프와 키 입력을 되돌린다
+    private static void useLocalInput(GameController player) {
+        player.setGameLoop(GameLoop.getInstance());
+        player.setInputQueue(null);
+        player.setGameOverDeferred(false);
+    }
+
+    /*
+     * 온라인 대전. 방을 만든 쪽은 port 에서 기다리고, 상대가 들어오면 지금 고른 모드로 시작한다.
+     * 내 보드는 1P 자리에 1P 키로, 상대 보드는 2P 자리에 둔다. 두 보드 모두 RollbackSession 이 프레임마다 둔다.
+     */
+    public void hostOnlineGame(Setting setting, int port) throws IOException {
+        OnlineConnection connection = OnlineConnection.host(port);
+        openOnlineSession(setting, connection);
+        onlineSession.setMatch(BlockRandomizer.newSeed(), gameMode, gamePlayer1.engine.itemFreqency);
+        showOnlineWaiting("상대를 기다리는 중입니다. (포트 " + connection.getLocalPort() + ")");
+    }
+
+    // 참가하는 쪽은 방을 만든 쪽이 고른 모드로 시작한다
+    public void joinOnlineGame(Setting setting, String host, int port) throws IOException {
+        openOnlineSession(setting, OnlineConnection.connect(host, port));
+        showOnlineWaiting(host + ":" + port + " 에 접속하는 중입니다.");
+    }
+
+    private void openOnlineSession(Setting setting, OnlineConnection connection) {
+        stopOnlineGame();
+        this.setting = setting;
+        RollbackSession session = new RollbackSession(connection, GameLoop.getInstance(),
+                new RollbackSession.Listener() {
+                    @Override
+                    public void onStart(long seed, int gameMode, int itemFrequency) {
+                        startOnlineGame(seed, gameMode, itemFrequency);
+                    }
+
+                    @Override
+                    public void onFrame(int frame) {
+                        countOnlineTime(frame);
+                    }
+
+                    @Override
+                    public void onDesync(int frame) {
+                        abortOnlineGame("두 화면의 보드가 " + frame + " 프레임에서 달라져 대전을 멈춥니다.");
+                    }
+
+                    @Override
+                    public void onDisconnected(IOException error) {
+                        closeOnlineWaiting();
+                        String message = error == null ? "상대와 연결이 끊어졌습니다." : "온라인 연결 오류: " + error.getMessage();
+                        JOptionPane.showMessageDialog(null, message, "Online", JOptionPane.WARNING_MESSAGE);
+                        boolean isStarted = onlineSession != null && onlineSession.isStarted();
+                        onlineSession = null;
+                        if (isStarted)
+                            playerOneWin();
+                    }
+                });
+        session.setInputDelay(Integer.getInteger(INPUT_DELAY_PROPERTY, 0));
+        onlineSession = session;
+        onlineSession.open();
+    }
+
+    private void startOnlineGame(long seed, int gameMode, int itemFrequency) {
+        closeOnlineWaiting();
+        viewController.transitView(gameView, gameView.getMulitiGameDisplayPane(), gameView.getSelectMultiGamePanel());
+        this.gameMode = gameMode;
+        multiMode = ONLINE_MULTI_MODE;
+        isSingleGameModeFlag = false;
+        replay = null; // 상대 입력이 네트워크 시각에 따라 섞이므로 녹화하지 않는다
+        gameView.setBoardCanvasMode(setting.isBoardCanvasMode());
+        gamePlayer1.loadSetting(setting);
+        gamePlayer2.loadSetting(setting);
+        gamePlayer1.setOpponentPlayer(gamePlayer2);
+        gamePlayer2.setOpponentPlayer(gamePlayer1);
+        matchSeed = seed;
+        blockRandomizer = new BlockRandomizer(seed);
+        gamePlayer1.engine.setItemSeed(blockRandomizer.getItemSeed());
+        gamePlayer2.engine.setItemSeed(blockRandomizer.getItemSeed());
+        gamePlayer1.setItemFreqency(itemFrequency);
+        gamePlayer2.setItemFreqency(itemFrequency);
+        generateBlockRandomizer(GameController.NORMAL_MODE);
+        gamePlayer1.setPlayerKeys(setting.getRotateKey(), setting.getMoveDownKey(), setting.getMoveLeftKey(),
+                setting.getMoveRightKey(), setting.getStackKey());
+        onlineSession.attach(gamePlayer1, gamePlayer2, blockRandomizer);
+
+        // 같은 tick 에 두 보드가 움직일 때 두 화면에서 순서가 같도록 방을 만든 쪽 보드를 먼저 시작한다
+        GameController hostPlayer = onlineSession.isHost() ? gamePlayer1 : gamePlayer2;
+        GameController guestPlayer = onlineSession.isHost() ? gamePlayer2 : gamePlayer1;
+        int currentResoultion = gameView.getWidth() * gameView.getHeight();
+        hostPlayer.startGame(GameController.NORMAL_MODE, gameMode, randomBlockList, currentResoultion);
+        guestPlayer.startGame(GameController.NORMAL_MODE, gameMode, randomBlockList, currentResoultion);
+        gameTime = 0;
+        showTime(multiGameTimeLabel);
+        showMode();
+        startTimer(gameView.getMultiGameDisplayTimeLabel(), multiGameTimeLabel);
+        gameTimer.stop(); // 온라인 대전의 시간은 둔 프레임으로 센다
+        multiGameFocusing.requestFocus();
+    }
+
+    // 1 초 어치 프레임이 확정될 때마다 시간을 센다. 시간 제한 모드는 두 화면에서 같은 프레임에 끝난다
+    private void countOnlineTime(int frame) {
+        if ((frame + 1) % RollbackSession.FRAMES_PER_SECOND != 0)
+            return;
+        gameTime += gameMode == GameController.TIME_ATTACK_MODE ? -1 : 1;
+        showTime(multiGameTimeLabel);
+        if (gameMode == GameController.TIME_ATTACK_MODE && gameTime == 0) {
+            onlineSession.rewind(); // 예측해서 앞서 둔 점수가 아니라 두 화면이 같은 frame 의 점수로 정한다
+            decideByScore();
+        }
+    }
+
+    // 두 화면이 어긋나 승패를 정할 수 없으면 대전을 멈추고 메인 화면으로 돌아간다
+    private void abortOnlineGame(String message) {
+        onlineSession = null;
+        gamePlayer1.endGame();
+        gamePlayer2.endGame();
+        gameTimer.stop();
+        JOptionPane.showMessageDialog(null, message, "Online", JOptionPane.WARNING_MESSAGE);
+        gameView.resetMultiGameDisplayPane();
+        gameView.resetGameView();
+        viewController.transitView(viewController.contentPane, mainView, gameView);
+    }
+
+    // 온라인 대전을 그만두고 연결을 끊는다
+    public void stopOnlineGame() {
+        closeOnlineWaiting();
+        if (onlineSession == null)
+            return;
+        onlineSession.finish();
+        onlineSession = null;
+    }
+
+    private void showOnlineWaiting(String message) {
+        JOptionPane pane = new JOptionPane(message, JOptionPane.INFORMATION_MESSAGE, JOptionPane.DEFAULT_OPTION,
+                null, new Object[] { "취소" });
+        onlineWaitingDialog = pane.createDialog(gameView, "Online");
+        onlineWaitingDialog.setModal(false);
+        pane.addPropertyChangeListener(JOptionPane.VALUE_PROPERTY, e -> {
+            // 취소를 누르거나 창을 닫으면 그만둔다
+            if (onlineWaitingDialog != null && e.getNewValue() != JOptionPane.UNINITIALIZED_VALUE)
+                stopOnlineGame();
+        });
+        onlineWaitingDialog.setVisible(true);
+    }
+
+    private void closeOnlineWaiting() {
+        if (onlineWaitingDialog == null)
+            return;
+        JDialog dialog = onlineWaitingDialog;
+        onlineWaitingDialog = null;
+        dialog.dispose();
+    }
+
     protected void continueMultiGame() {
         gameView.resetMultiStopPanel();
         if (multiMode == 0) {
             gamePlayer1.continuGame();
             gamePlayer2.continuGame();
         } else if (multiMode == 1) {
+            gamePlayer1.continuGame();
             gameRobot.continuGame();
             robotController.startRobot();
+        } else if (multiMode == ONLINE_MULTI_MODE) {
+            multiGameFocusing.requestFocus(); // 온라인 대전은 멈추지 않았다
+            return;
         }
 
         gameTimer.restart();
@@ -173,6 +349,11 @@ public class MultiGameController extends SingleGameController {
     }
 
     protected void restartMultiGame() {
+        // 온라인 대전은 상대 없이 다시 시작할 수 없으므로 이어서 한다
+        if (multiMode == ONLINE_MULTI_MODE) {
+            continueMultiGame();
+            return;
+        }
         gamePlayer1.resetGame();
         gamePlayer2.resetGame();
         gameRobot.resetGame();
@@ -185,6 +366,8 @@ public class MultiGameController extends SingleGameController {
     }
 
     protected void playerOneWin() {
+        finishOnlineGame();
+        saveReplay();
         gamePlayer1.endGame();
         gamePlayer2.endGame();
         gameRobot.endGame();
@@ -199,6 +382,8 @@ public class MultiGameController extends SingleGameController {
     }
 
     protected void playerTwoWin() {
+        finishOnlineGame();
+        saveReplay();
         gamePlayer1.endGame();
         gamePlayer2.endGame();
         gameRobot.endGame();
@@ -212,20 +397,31 @@ public class MultiGameController extends SingleGameController {
         timer.start();
     }
 
+    // 온라인 대전이면 연결을 끊는다. 상대 화면도 같은 프레임에서 같은 승패로 끝난다
+    private void finishOnlineGame() {
+        if (multiMode != ONLINE_MULTI_MODE || onlineSession == null)
+            return;
+        onlineSession.finish();
+        onlineSession = null;
+    }
+
     @Override
     protected void doAfterTimeAttack() {
         if (isSingleGameModeFlag)
             super.doAfterTimeAttack();
-        else {
-            if (gamePlayer1.score > gamePlayer2.score) {
-                playerOneWin();
-            } else if (gamePlayer1.score < gamePlayer2.score) {
-                playerTwoWin();
-            } else {
-                gameView.getVictoryLabel().setText("Draw");
-                gameView.getDepeatLabel().setText("Draw");
-                playerOneWin();
-            }
+        else if (multiMode != ONLINE_MULTI_MODE) // 온라인 대전은 countOnlineTime 이 정한다
+            decideByScore();
+    }
+
+    private void decideByScore() {
+        if (gamePlayer1.getScore() > gamePlayer2.getScore()) {
+            playerOneWin();
+        } else if (gamePlayer1.getScore() < gamePlayer2.getScore()) {
+            playerTwoWin();
+        } else {
+            gameView.getVictoryLabel().setText("Draw");
+            gameView.getDepeatLabel().setText("Draw");
+            playerOneWin();
         }
     }
 
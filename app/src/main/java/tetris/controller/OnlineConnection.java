@@ -0,0 +1,412 @@
+package tetris.controller;
+
+import java.io.*;
+import java.net.InetSocketAddress;
+import java.net.StandardSocketOptions;
+import java.nio.ByteBuffer;
+import java.nio.channels.*;
+import java.util.logging.Logger;
+
+/*
+ * 온라인 대전의 TCP 연결 하나. 네트워크 스레드 하나가 Selector 로 non-blocking 소켓을 돌린다.
+ *
+ * 메시지는 첫 바이트가 종류이고 종류에서 길이가 정해져서 길이를 따로 보내지 않는다.
+ *   0x10         HELLO     참가한 쪽이 처음 보낸다. 프로토콜 버전 (2 바이트)
+ *   0x11         START     방을 만든 쪽이 보낸다. seed 8, gameMode 1, itemFrequency 1 (11 바이트)
+ *   0x12         CHECKSUM  프레임 번호 4, 그 프레임을 둔 뒤 두 보드의 checksum 4 (9 바이트)
+ *   0x20 ~ 0x27  FRAME     한 프레임의 내 입력. 입력 수 n 을 종류 바이트에 담고 입력 종류 n 바이트가 따라온다 (1 + n 바이트)
+ *
+ * FRAME 은 0 번 프레임부터 빠짐없이 차례로 보내므로 프레임 번호를 싣지 않는다.
+ *
+ * 받거나 보낼 때 메시지마다 객체를 만들지 않는다.
+ * 네트워크 스레드는 다 받은 메시지만 편지함(inbox)에 옮겨 두고, 게임 루프가 poll 로 꺼내 Handler 를 부른다.
+ * 보내는 메시지는 outbox 에 바이트로 쌓고 네트워크 스레드가 소켓에 쓴다.
+ */
+class OnlineConnection implements Closeable {
+
+    static final int DEFAULT_PORT = 19019;
+    static final int PROTOCOL_VERSION = 3;
+
+    static final int HELLO = 0x10;
+    static final int START = 0x11;
+    static final int CHECKSUM = 0x12;
+    static final int FRAME = 0x20;
+    static final int MAX_FRAME_INPUTS = 7;
+    // 네트워크 스레드가 편지함에만 넣는 표시. 소켓으로는 오가지 않는다
+    private static final int CONNECTED = 0x7E;
+    private static final int CLOSED = 0x7F;
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private static final Logger log = Logger.getGlobal();
+
+    // poll 이 게임 루프에서 부르는 메소드. inputs 는 다시 쓰는 배열이므로 호출이 끝난 뒤에는 들고 있지 않는다
+    interface Handler {
+        void onConnected();
+
+        void onStart(long seed, int gameMode, int itemFrequency);
+
+        // 상대의 다음 프레임 입력. inputs 의 앞 count 개를 쓴다
+        void onFrame(int count, int[] inputs);
+
+        void onChecksum(int frame, int checksum);
+
+        // 상대가 끊었으면 error 가 null 이다
+        void onClosed(IOException error);
+    }
+
+    private final boolean isHost;
+    private final Selector selector;
+    private final ServerSocketChannel server;
+    private SocketChannel channel;
+    private SelectionKey channelKey;
+    private final String remoteHost;
+    private final int remotePort;
+
+    private final ByteBuffer readBuffer; // 네트워크 스레드만 쓴다
+    private final Object inboxLock = new Object();
+    private ByteBuffer inbox; // 다 받은 메시지. 쓰는 중인 상태(position 이 끝)로 둔다
+    private final ByteBuffer outbox; // 보낼 바이트. 쓰는 중인 상태로 둔다
+    private final int[] inputs;
+    private final Thread thread;
+    private volatile boolean isClosing;
+    private boolean isHandshaken; // 네트워크 스레드만 쓴다
+    private IOException closeError;
+
+    private OnlineConnection(boolean isHost, ServerSocketChannel server, SocketChannel channel, String remoteHost,
+            int remotePort) throws IOException {
+        this.isHost = isHost;
+        this.server = server;
+        this.channel = channel;
+        this.remoteHost = remoteHost;
+        this.remotePort = remotePort;
+        selector = Selector.open();
+        readBuffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+        inbox = ByteBuffer.allocate(BUFFER_SIZE);
+        outbox = ByteBuffer.allocate(BUFFER_SIZE);
+        inputs = new int[MAX_FRAME_INPUTS];
+        thread = new Thread(this::run, isHost ? "tetris-online-host" : "tetris-online-guest");
+        thread.setDaemon(true);
+    }
+
+    // port 에서 상대 한 명을 기다린다. port 가 0 이면 빈 포트를 쓴다
+    static OnlineConnection host(int port) throws IOException {
+        ServerSocketChannel server = ServerSocketChannel.open();
+        try {
+            server.bind(new InetSocketAddress(port), 1);
+            server.configureBlocking(false);
+            OnlineConnection connection = new OnlineConnection(true, server, null, null, 0);
+            server.register(connection.selector, SelectionKey.OP_ACCEPT);
+            connection.thread.start();
+            return connection;
+        } catch (IOException e) {
+            server.close();
+            throw e;
+        }
+    }
+
+    // host:port 에 접속한다. 이름 찾기와 접속은 네트워크 스레드에서 하므로 기다리지 않는다
+    static OnlineConnection connect(String host, int port) throws IOException {
+        SocketChannel channel = SocketChannel.open();
+        try {
+            channel.configureBlocking(false);
+            OnlineConnection connection = new OnlineConnection(false, null, channel, host, port);
+            connection.thread.start();
+            return connection;
+        } catch (IOException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    boolean isHost() {
+        return isHost;
+    }
+
+    // 기다리는 포트. 방을 만든 쪽이 아니면 -1
+    int getLocalPort() {
+        try {
+            return server == null ? -1 : ((InetSocketAddress) server.getLocalAddress()).getPort();
+        } catch (IOException e) {
+            return -1;
+        }
+    }
+
+    /* 보내기 (게임 루프) */
+
+    // 다음 프레임의 내 입력. inputs 의 앞 count 개(MAX_FRAME_INPUTS 까지)를 보낸다
+    void sendFrame(int count, int[] inputs) {
+        synchronized (outbox) {
+            if (!reserve(1 + count))
+                return;
+            outbox.put((byte) (FRAME + count));
+            for (int i = 0; i < count; i++)
+                outbox.put((byte) inputs[i]);
+        }
+    }
+
+    void sendStart(long seed, int gameMode, int itemFrequency) {
+        synchronized (outbox) {
+            if (!reserve(11))
+                return;
+            outbox.put((byte) START).putLong(seed).put((byte) gameMode).put((byte) itemFrequency);
+        }
+    }
+
+    void sendChecksum(int frame, int checksum) {
+        synchronized (outbox) {
+            if (!reserve(9))
+                return;
+            outbox.put((byte) CHECKSUM).putInt(frame).putInt(checksum);
+        }
+    }
+
+    /*
+     * outbox 에 length 바이트 자리가 있는지 본다. outbox 가 비어 있었으면 네트워크 스레드를 깨운다.
+     * (비어 있지 않으면 이미 깨웠거나 소켓이 쓸 수 있게 되기를 기다리는 중이다)
+     * 상대가 받지 않아 outbox 가 차면 연결을 끊는다.
+     */
+    private boolean reserve(int length) {
+        if (isClosing)
+            return false;
+        if (outbox.remaining() < length) {
+            log.warning("보낼 메시지가 너무 많이 밀려 온라인 연결을 끊습니다");
+            close();
+            return false;
+        }
+        if (outbox.position() == 0)
+            selector.wakeup();
+        return true;
+    }
+
+    /* 받기 (게임 루프) */
+
+    // 지금까지 받은 메시지를 순서대로 handler 에 넘긴다. 넘긴 메시지 수를 돌려준다
+    int poll(Handler handler) {
+        int count = 0;
+        synchronized (inboxLock) {
+            inbox.flip();
+            while (inbox.hasRemaining()) {
+                dispatch(handler);
+                count++;
+            }
+            inbox.clear();
+        }
+        return count;
+    }
+
+    private void dispatch(Handler handler) {
+        int type = inbox.get() & 0xFF;
+        switch (type) {
+            case START:
+                long seed = inbox.getLong();
+                int gameMode = inbox.get() & 0xFF;
+                handler.onStart(seed, gameMode, inbox.get() & 0xFF);
+                break;
+            case CHECKSUM:
+                int frame = inbox.getInt();
+                handler.onChecksum(frame, inbox.getInt());
+                break;
+            case CONNECTED:
+                handler.onConnected();
+                break;
+            case CLOSED:
+                handler.onClosed(closeError);
+                break;
+            default:
+                int count = type - FRAME;
+                for (int i = 0; i < count; i++)
+                    inputs[i] = inbox.get();
+                handler.onFrame(count, inputs);
+        }
+    }
+
+    // 종류별 메시지 길이. 모르는 종류면 -1
+    static int messageLength(int type) {
+        switch (type) {
+            case HELLO:
+                return 2;
+            case START:
+                return 11;
+            case CHECKSUM:
+                return 9;
+            default:
+                return type >= FRAME && type <= FRAME + MAX_FRAME_INPUTS ? 1 + type - FRAME : -1;
+        }
+    }
+
+    /* 네트워크 스레드 */
+
+    private void run() {
+        IOException error = null;
+        try {
+            if (channel != null) {
+                channel.setOption(StandardSocketOptions.TCP_NODELAY, true);
+                channelKey = channel.register(selector, SelectionKey.OP_CONNECT);
+                if (channel.connect(new InetSocketAddress(remoteHost, remotePort)))
+                    finishConnect();
+            }
+            while (!isClosing) {
+                selector.select(this::process);
+                if (channelKey != null && channel.isConnected())
+                    flushOutbox();
+            }
+            if (channelKey != null && channel.isConnected())
+                flushOutbox(); // 끊기 전에 마지막 프레임을 보낸다
+        } catch (IOException e) {
+            error = e;
+        } catch (UncheckedIOException e) {
+            error = e.getCause();
+        } catch (UnresolvedAddressException e) {
+            error = new IOException("주소를 찾을 수 없습니다: " + remoteHost, e);
+        } finally {
+            closeChannels();
+        }
+        if (!isClosing) {
+            synchronized (inboxLock) {
+                closeError = error instanceof EOFException ? null : error; // EOF 는 상대가 끊은 것이다
+                ensureInbox(1);
+                inbox.put((byte) CLOSED);
+            }
+        }
+    }
+
+    private void process(SelectionKey key) {
+        try {
+            if (key.isAcceptable())
+                accept();
+            else if (key.isConnectable())
+                finishConnect();
+            else {
+                if (key.isReadable())
+                    read();
+                if (key.isValid() && key.isWritable())
+                    flushOutbox();
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    // 상대 한 명만 받고 더는 기다리지 않는다
+    private void accept() throws IOException {
+        SocketChannel accepted = server.accept();
+        if (accepted == null)
+            return;
+        server.close();
+        channel = accepted;
+        channel.configureBlocking(false);
+        channel.setOption(StandardSocketOptions.TCP_NODELAY, true);
+        channelKey = channel.register(selector, SelectionKey.OP_READ);
+    }
+
+    private void finishConnect() throws IOException {
+        if (!channel.finishConnect())
+            return;
+        channelKey.interestOps(SelectionKey.OP_READ);
+        synchronized (outbox) {
+            ByteBuffer pending = outbox.duplicate();
+            pending.flip();
+            outbox.clear();
+            outbox.put((byte) HELLO).put((byte) PROTOCOL_VERSION).put(pending);
+        }
+        isHandshaken = true;
+        putConnected();
+    }
+
+    private void read() throws IOException {
+        if (channel.read(readBuffer) < 0)
+            throw new EOFException();
+        readBuffer.flip();
+        synchronized (inboxLock) {
+            while (readBuffer.hasRemaining()) {
+                int position = readBuffer.position();
+                int type = readBuffer.get(position) & 0xFF;
+                int length = messageLength(type);
+                if (length < 0)
+                    throw new IOException("알 수 없는 메시지 " + type);
+                if (readBuffer.remaining() < length)
+                    break;
+                if (type == HELLO) {
+                    readHello(readBuffer.get(position + 1) & 0xFF);
+                    readBuffer.position(position + length);
+                    continue;
+                }
+                if (!isHandshaken)
+                    throw new IOException("HELLO 전에 메시지 " + type + " 를 받았습니다");
+                ensureInbox(length);
+                int limit = readBuffer.limit();
+                readBuffer.limit(position + length);
+                inbox.put(readBuffer);
+                readBuffer.limit(limit);
+            }
+        }
+        readBuffer.compact();
+    }
+
+    // 방을 만든 쪽만 HELLO 를 받는다. 버전이 같아야 연결된 것으로 본다
+    private void readHello(int version) throws IOException {
+        if (!isHost || isHandshaken)
+            throw new IOException("HELLO 를 두 번 받았습니다");
+        if (version != PROTOCOL_VERSION)
+            throw new IOException("상대의 프로토콜 버전 " + version + " 이 " + PROTOCOL_VERSION + " 과 다릅니다");
+        isHandshaken = true;
+        putConnected();
+    }
+
+    private void putConnected() {
+        synchronized (inboxLock) {
+            ensureInbox(1);
+            inbox.put((byte) CONNECTED);
+        }
+    }
+
+    // 게임 루프가 한동안 꺼내 가지 않아 편지함이 차면 늘린다
+    private void ensureInbox(int length) {
+        if (inbox.remaining() >= length)
+            return;
+        ByteBuffer larger = ByteBuffer.allocate(Math.max(inbox.capacity() * 2, inbox.position() + length));
+        inbox.flip();
+        larger.put(inbox);
+        inbox = larger;
+    }
+
+    private void flushOutbox() throws IOException {
+        boolean isPending;
+        synchronized (outbox) {
+            if (outbox.position() == 0)
+                return;
+            outbox.flip();
+            channel.write(outbox);
+            isPending = outbox.hasRemaining();
+            outbox.compact();
+        }
+        int ops = isPending ? SelectionKey.OP_READ | SelectionKey.OP_WRITE : SelectionKey.OP_READ;
+        if (channelKey.interestOps() != ops)
+            channelKey.interestOps(ops);
+    }
+
+    private void closeChannels() {
+        try {
+            selector.close();
+            if (server != null)
+                server.close();
+            if (channel != null)
+                channel.close();
+        } catch (IOException e) {
+            log.warning("온라인 연결을 닫지 못했습니다: " + e);
+        }
+    }
+
+    // 연결을 끊는다. 끊은 쪽에는 onClosed 를 부르지 않는다
+    @Override
+    public void close() {
+        isClosing = true;
+        selector.wakeup();
+    }
+
+    // 네트워크 스레드가 끝날 때까지 기다린다
+    void awaitClosed(long millis) throws InterruptedException {
+        thread.join(millis);
+    }
+}
@@ -0,0 +1,147 @@
+package tetris.controller;
+
+import java.io.IOException;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.logging.Logger;
+
+import javax.swing.SwingUtilities;
+
+/*
+ * 점수와 설정 파일을 EDT 밖에서 읽고 쓰는 스레드 하나짜리 실행기.
+ * 넣은 순서대로 실행하므로 점수를 읽는 작업 뒤에 넣은 저장은 항상 읽은 뒤에 일어난다.
+ *
+ *   submit      : 작업을 큐에 넣고, 끝나면 EDT 에서 callback 을 부른다
+ *   writeBehind : 같은 key 의 쓰기가 아직 큐에 있으면 그것을 새 작업으로 바꾼다. 설정처럼 마지막 값만
+ *                 남기면 되는 파일을 연달아 저장해도 디스크에는 한 번만 쓴다. 합쳐진 쓰기의 callback 은
+ *                 모두 그 한 번의 결과로 넣은 순서대로 불린다
+ *   call        : 큐에 넣고 끝날 때까지 기다린다. EDT 가 아닌 곳(테스트, 도구)에서 쓴다
+ *
+ * 프로그램이 끝날 때 큐에 남은 쓰기는 종료 훅에서 SHUTDOWN_WAIT_SECONDS 까지 기다려 마저 쓴다.
+ */
+class PersistenceExecutor {
+
+    static final long SHUTDOWN_WAIT_SECONDS = 5;
+
+    // 파일을 읽거나 쓰는 작업
+    interface Task<T> {
+        T run() throws IOException;
+    }
+
+    // 작업이 끝나면 EDT 에서 불린다. 실패했으면 error 가 null 이 아니다
+    interface Callback<T> {
+        void done(T result, IOException error);
+    }
+
+    // key 별로 아직 쓰지 않은 마지막 쓰기와 그 사이에 합쳐진 쓰기들의 callback
+    private static class PendingWrite {
+        Task<?> task;
+        final List<Callback<Object>> callbacks = new ArrayList<>();
+    }
+
+    private final ExecutorService executor;
+    private final Map<String, PendingWrite> pendingWrites;
+
+    PersistenceExecutor() {
+        executor = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "tetris-persistence");
+            thread.setDaemon(true);
+            return thread;
+        });
+        pendingWrites = new HashMap<>();
+    }
+
+    private static class LazyHolder {
+        private static final PersistenceExecutor INSTANCE = createInstance();
+
+        private static PersistenceExecutor createInstance() {
+            PersistenceExecutor instance = new PersistenceExecutor();
+            Runtime.getRuntime().addShutdownHook(new Thread(instance::shutdown, "tetris-persistence-flush"));
+            return instance;
+        }
+    }
+
+    static PersistenceExecutor getInstance() {
+        return LazyHolder.INSTANCE;
+    }
+
+    <T> void submit(Task<T> task, Callback<T> callback) {
+        executor.execute(() -> runAndCallBack(task, callback));
+    }
+
+    void writeBehind(String key, Task<?> task, Callback<Object> callback) {
+        synchronized (pendingWrites) {
+            PendingWrite pending = pendingWrites.get(key);
+            boolean isQueued = pending != null;
+            if (!isQueued) {
+                pending = new PendingWrite();
+                pendingWrites.put(key, pending);
+            }
+            pending.task = task;
+            if (callback != null)
+                pending.callbacks.add(callback);
+            if (isQueued)
+                return; // 앞서 넣은 실행이 새 작업과 callback 을 가져간다
+        }
+        executor.execute(() -> {
+            PendingWrite latest;
+            synchronized (pendingWrites) {
+                latest = pendingWrites.remove(key);
+            }
+            List<Callback<Object>> callbacks = latest.callbacks;
+            runAndCallBack(latest.task, callbacks.isEmpty() ? null : (result, error) -> {
+                for (Callback<Object> each : callbacks)
+                    each.done(result, error);
+            });
+        });
+    }
+
+    private <T> void runAndCallBack(Task<T> task, Callback<? super T> callback) {
+        T result = null;
+        IOException error = null;
+        try {
+            result = task.run();
+        } catch (IOException e) {
+            error = e;
+        } catch (RuntimeException e) {
+            error = new IOException(e);
+        }
+        if (error != null)
+            Logger.getGlobal().warning("파일 작업 실패: " + error);
+        if (callback == null)
+            return;
+        T finalResult = result;
+        IOException finalError = error;
+        SwingUtilities.invokeLater(() -> callback.done(finalResult, finalError));
+    }
+
+    <T> T call(Task<T> task) throws IOException {
+        Future<T> future = executor.submit(() -> task.run());
+        try {
+            return future.get();
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException)
+                throw (IOException) e.getCause();
+            if (e.getCause() instanceof RuntimeException)
+                throw (RuntimeException) e.getCause();
+            throw new IOException(e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("interrupted", e);
+        }
+    }
+
+    // 지금까지 넣은 작업이 모두 끝날 때까지 기다린다
+    void flush() throws IOException {
+        call(() -> null);
+    }
+
+    private void shutdown() {
+        executor.shutdown();
+        try {
+            executor.awaitTermination(SHUTDOWN_WAIT_SECONDS, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -2,69 +2,192 @@ package tetris.controller;
 
 import javax.swing.*;
 import java.util.*;
+import java.util.function.Consumer;
 import java.io.*;
-import java.nio.charset.StandardCharsets;
-import com.google.gson.*;
-import com.google.gson.reflect.TypeToken;
+import java.util.logging.Logger;
 
 import tetris.model.Player;
 
+/*
+ * 점수 로그(ScoreStore)는 PersistenceExecutor 스레드에서만 만진다.
+ * 작업마다 끝에서 playerList 를 새 목록으로 바꿔 두므로 EDT 는 getPlayerList 로 언제나 마지막 랭킹을 읽는다.
+ * ...Later 메소드는 EDT 를 막지 않고, 끝나면 EDT 에서 콜백을 부른다.
+ */
 public class PlayerController {
 
-    private List<Player> playerList;
+    // 점수를 저장한 뒤 보여줄 결과. ranking 은 저장한 난이도와 모드의 랭킹
+    static class SavedScore {
+        final boolean isAdded;
+        final int rank;
+        final List<Player> ranking;
+
+        SavedScore(boolean isAdded, int rank, List<Player> ranking) {
+            this.isAdded = isAdded;
+            this.rank = rank;
+            this.ranking = ranking;
+        }
+    }
+
+    private final ScoreStore scoreStore;
+    private final PersistenceExecutor persistence;
+    private volatile List<Player> playerList;
 
     public PlayerController() {
-        playerList = new ArrayList<>();
+        this(new ScoreStore());
+    }
 
-        for (int i = 0; i < 10; i++) {
-            playerList.add(new Player("없음", 0, "없음"));
-        }
+    PlayerController(ScoreStore scoreStore) {
+        this(scoreStore, PersistenceExecutor.getInstance());
+    }
 
+    PlayerController(ScoreStore scoreStore, PersistenceExecutor persistence) {
+        this.scoreStore = scoreStore;
+        this.persistence = persistence;
+        playerList = withEmptyRanks(new ArrayList<>());
     }
 
+    /* 기다리는 메소드. 테스트와 도구에서 쓴다 */
+
     public void addPlayer(String name, int score, String difficulty) {
-        playerList.add(new Player(name, score, difficulty));
-        Collections.sort(playerList,
-                Collections.reverseOrder((p1, p2) -> Integer.compare(p1.getScore(), p2.getScore())));
+        addPlayer(name, score, difficulty, Player.GENERAL_GAME_MODE);
+    }
 
-        while (playerList.size() < 10) {
-            playerList.add(new Player("없음", 0, "없음"));
+    // 점수 로그 끝에 한 줄만 덧붙이고 메모리의 랭킹을 고친다
+    public void addPlayer(String name, int score, String difficulty, String gameMode) {
+        try {
+            persistence.call(() -> {
+                scoreStore.append(new Player(name, score, difficulty, gameMode));
+                refreshPlayerList();
+                return null;
+            });
+        } catch (IOException e) {
+            showSaveError();
         }
     }
 
-    public void savePlayerList() {
-        try (Writer sw = new OutputStreamWriter(new FileOutputStream("src/main/java/tetris/data/Score.json"),
-                StandardCharsets.UTF_8)) {
-            Gson gson = new GsonBuilder().setPrettyPrinting().create();
-            gson.toJson(playerList, sw);
-
+    // replay 를 다시 두어 주장한 점수가 맞을 때만 다시 둔 점수로 랭킹에 넣는다. 넣었으면 true
+    boolean addVerifiedPlayer(String name, String difficulty, Replay replay) {
+        String gameMode = replay == null ? Player.GENERAL_GAME_MODE : toGameModeName(replay.gameMode);
+        try {
+            SavedScore saved = persistence.call(() -> verifyAndAppend(name, difficulty, gameMode, replay));
+            if (!saved.isAdded)
+                showRejected();
+            return saved.isAdded;
         } catch (IOException e) {
-            JOptionPane.showMessageDialog(new JFrame(), "score.json파일 저장에 실패하였습니다.",
-                    "File cannot save error", JOptionPane.ERROR_MESSAGE);
+            showSaveError();
+            return false;
         }
     }
 
+    // 점수 로그를 읽어 랭킹을 만든다. 로그가 없으면 예전 Score.json 을 옮겨 온다
     public void loadPlayerList() {
-        while (true) {
-            try (Reader br = new BufferedReader(new InputStreamReader(
-                    new FileInputStream("src/main/java/tetris/data/Score.json"),
-                    StandardCharsets.UTF_8))) {
-                Gson gson = new GsonBuilder().setPrettyPrinting().create();
-                playerList = gson.fromJson(br,
-                        TypeToken.getParameterized(ArrayList.class, Player.class).getType());
-
-                while (playerList.size() < 10) {
-                    playerList.add(new Player("없음", 0, "없음"));
-                }
-                break;
-
-            } catch (FileNotFoundException | NullPointerException e) {
-                savePlayerList();
-            } catch (IOException e) {
-                JOptionPane.showMessageDialog(new JFrame(), "score.json파일을 불러오는데 실패하였습니다.",
-                        "File Not Found error", JOptionPane.ERROR_MESSAGE);
+        try {
+            persistence.call(() -> {
+                scoreStore.load();
+                refreshPlayerList();
+                return null;
+            });
+        } catch (IOException e) {
+            showLoadError();
+        }
+    }
+
+    /* EDT 를 막지 않는 메소드 */
+
+    // 다시 두어 확인하고 저장하는 일을 백그라운드에서 하고, 끝나면 EDT 에서 onSaved 를 부른다
+    void addVerifiedPlayerLater(String name, String difficulty, String gameMode, Replay replay,
+            Consumer<SavedScore> onSaved) {
+        persistence.submit(() -> verifyAndAppend(name, difficulty, gameMode, replay), (saved, error) -> {
+            if (error != null) {
+                showSaveError();
+                return;
             }
+            if (!saved.isAdded)
+                showRejected();
+            onSaved.accept(saved);
+        });
+    }
+
+    // 시작할 때 화면이 파일을 기다리지 않게 점수 로그를 백그라운드에서 읽는다
+    public void loadPlayerListLater(Runnable onLoaded) {
+        persistence.submit(() -> {
+            scoreStore.load();
+            refreshPlayerList();
+            return null;
+        }, (result, error) -> {
+            if (error != null)
+                showLoadError();
+            onLoaded.run();
+        });
+    }
+
+    // 점수 초기화. 로그에 초기화 줄을 덧붙이고 지난 기록은 compact 때 지운다
+    public void resetPlayerList(Runnable onReset) {
+        persistence.submit(() -> {
+            scoreStore.clear();
+            refreshPlayerList();
+            return null;
+        }, (result, error) -> {
+            if (error != null)
+                JOptionPane.showMessageDialog(new JFrame(), "점수 초기화에 실패하였습니다.",
+                        "File cannot save error", JOptionPane.ERROR_MESSAGE);
+            onReset.run();
+        });
+    }
+
+    /* 실행기 스레드에서 도는 부분 */
+
+    private SavedScore verifyAndAppend(String name, String difficulty, String gameMode, Replay replay)
+            throws IOException {
+        ReplayVerifier.Result result = replay == null ? ReplayVerifier.Result.rejected(name, "no replay")
+                : ReplayVerifier.verify(name, replay);
+        int rank = 0;
+        if (result.isAccepted) {
+            scoreStore.append(new Player(name, result.scores[0], difficulty, gameMode));
+            rank = scoreStore.getRank(difficulty, gameMode, result.scores[0]);
+            refreshPlayerList();
+        } else {
+            Logger.getGlobal().warning("점수 확인 실패 " + name + ": " + result.reason);
+        }
+        return new SavedScore(result.isAccepted, rank,
+                withEmptyRanks(new ArrayList<>(scoreStore.getRanking(difficulty, gameMode))));
+    }
+
+    private void refreshPlayerList() {
+        playerList = withEmptyRanks(new ArrayList<>(scoreStore.getRanking()));
+    }
+
+    private static List<Player> withEmptyRanks(List<Player> players) {
+        while (players.size() < ScoreStore.RANKING_SIZE) {
+            players.add(new Player(ScoreStore.EMPTY_NAME, 0, ScoreStore.EMPTY_NAME, ScoreStore.EMPTY_NAME));
         }
+        return Collections.unmodifiableList(players);
+    }
+
+    /* 오류 표시 (EDT) */
+
+    private void showSaveError() {
+        JOptionPane.showMessageDialog(new JFrame(), "점수 저장에 실패하였습니다.",
+                "File cannot save error", JOptionPane.ERROR_MESSAGE);
+    }
+
+    private void showLoadError() {
+        JOptionPane.showMessageDialog(new JFrame(), "점수 파일을 불러오는데 실패하였습니다.",
+                "File Not Found error", JOptionPane.ERROR_MESSAGE);
+    }
+
+    private void showRejected() {
+        JOptionPane.showMessageDialog(new JFrame(), "리플레이로 점수를 확인하지 못해 랭킹에 올리지 않았습니다.",
+                "Score rejected", JOptionPane.ERROR_MESSAGE);
+    }
+
+    // 점수 기록에 남기는 게임 모드 이름
+    static String toGameModeName(int gameMode) {
+        if (gameMode == GameController.ITEM_GAME_MODE)
+            return "item";
+        else if (gameMode == GameController.TIME_ATTACK_MODE)
+            return "time attack";
+        return Player.GENERAL_GAME_MODE;
     }
 
     public List<Player> getPlayerList() {
@@ -74,4 +197,4 @@ public class PlayerController {
     public void setPlayerList(List<Player> playerList) {
         this.playerList = playerList;
     }
-}
\ No newline at end of file
+}
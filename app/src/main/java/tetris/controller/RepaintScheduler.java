@@ -0,0 +1,110 @@
+package tetris.controller;
+
+import java.awt.*;
+import java.awt.event.ContainerEvent;
+import java.util.*;
+
+import javax.swing.Timer;
+
+/*
+ * 화면 갱신 요청을 모아서 한 프레임에 한 번만 처리하는 스케줄러.
+ * 다시 그릴 영역(markDirty)과 구조가 바뀐 컨테이너(markLayoutDirty)만 기록해 두었다가
+ * 다음 프레임에 그 부분만 repaint, revalidate 한다. 기록된 요청이 없으면 Timer 도 돌지 않는다.
+ * 보이는 컨테이너에 컴포넌트를 add/remove 하면 ContainerEvent 로 markLayoutDirty 가 자동으로 된다.
+ * 게임 중에는 GameController 가 BoardCanvas 의 바뀐 칸 영역을 markDirty 로 넘긴다.
+ * 글자 보드(JTextPane)와 점수 JLabel 은 문서나 글자를 바꾸면 Swing 이 스스로 repaint 하므로 여기로 오지 않는다.
+ * 모든 메소드는 EDT 에서 불러야 한다.
+ */
+class RepaintScheduler {
+
+    static final int FRAME_INTERVAL = 17; // 60FPS
+
+    private final Map<Component, Rectangle> dirtyRegions;
+    private final Set<Container> dirtyLayouts;
+    private final Timer frameTimer;
+    private int frameCount;
+
+    RepaintScheduler(boolean isListeningContainerEvent) {
+        dirtyRegions = new LinkedHashMap<>();
+        dirtyLayouts = new LinkedHashSet<>();
+        frameTimer = new Timer(FRAME_INTERVAL, e -> runFrame());
+        frameTimer.setRepeats(false);
+        if (isListeningContainerEvent) {
+            Toolkit.getDefaultToolkit().addAWTEventListener(event -> {
+                Container container = ((ContainerEvent) event).getContainer();
+                if (container.isShowing())
+                    markLayoutDirty(container);
+            }, AWTEvent.CONTAINER_EVENT_MASK);
+        }
+    }
+
+    private static class LazyHolder {
+        private static final RepaintScheduler INSTANCE = new RepaintScheduler(true);
+    }
+
+    static RepaintScheduler getInstance() {
+        return LazyHolder.INSTANCE;
+    }
+
+    // 컴포넌트 전체를 다음 프레임에 다시 그린다
+    void markDirty(Component component) {
+        markDirty(component, new Rectangle(0, 0, component.getWidth(), component.getHeight()));
+    }
+
+    // 컴포넌트 좌표계의 region 을 다음 프레임에 다시 그린다. 같은 컴포넌트의 영역은 합쳐진다.
+    void markDirty(Component component, Rectangle region) {
+        Rectangle dirty = dirtyRegions.get(component);
+        if (dirty == null)
+            dirtyRegions.put(component, new Rectangle(region));
+        else
+            dirty.add(region);
+        schedule();
+    }
+
+    // 컴포넌트가 추가/삭제된 컨테이너를 다음 프레임에 다시 배치하고 그린다
+    void markLayoutDirty(Container container) {
+        dirtyLayouts.add(container);
+        schedule();
+    }
+
+    boolean isPending() {
+        return frameTimer.isRunning();
+    }
+
+    int getFrameCount() {
+        return frameCount;
+    }
+
+    private void schedule() {
+        if (!frameTimer.isRunning())
+            frameTimer.start();
+    }
+
+    // 기록된 요청만 처리하고 비운다
+    void runFrame() {
+        frameTimer.stop();
+        for (Container container : dirtyLayouts) {
+            container.revalidate();
+            container.repaint();
+        }
+        for (Map.Entry<Component, Rectangle> entry : dirtyRegions.entrySet()) {
+            Component component = entry.getKey();
+            if (isInDirtyLayout(component))
+                continue;
+            Rectangle region = entry.getValue();
+            component.repaint(region.x, region.y, region.width, region.height);
+        }
+        dirtyLayouts.clear();
+        dirtyRegions.clear();
+        frameCount++;
+    }
+
+    // 이미 통째로 다시 그려질 컨테이너 안의 컴포넌트인지
+    private boolean isInDirtyLayout(Component component) {
+        for (Container parent = component.getParent(); parent != null; parent = parent.getParent()) {
+            if (dirtyLayouts.contains(parent))
+                return true;
+        }
+        return dirtyLayouts.contains(component);
+    }
+}
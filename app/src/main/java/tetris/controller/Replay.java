@@ -0,0 +1,266 @@
+package tetris.controller;
+
+import java.io.*;
+import java.nio.file.*;
+import java.util.Arrays;
+
+/*
+ * 한 판을 다시 두는 데 필요한 모든 것: 블록 순서와 아이템을 정하는 seed, 게임 설정, 입력 기록.
+ * 블록 순서는 BlockRandomizer 가 seed 로 다시 만들므로 입력만 남기면 된다.
+ *
+ * 입력 하나는 (tick, player, action) 이고 varint 로 이어 붙여 보통 2바이트에 들어간다.
+ *   tick   : 녹화를 시작한 뒤 지난 GameLoop tick 수. 앞 입력과의 차이만 쓴다
+ *   player : 대전에서 몇 번째 플레이어인지 (한 명이면 0)
+ *   action : GameEngine 의 applyInput 입력 (MOVE_LEFT ~ DROP_DOWN), 중력 한 칸인 STEP,
+ *            줄삭제나 폭발 애니메이션이 끝나 다음 블록을 꺼낸 TAKE_OUT
+ * player 와 action 은 (player << ACTION_BITS | action) 하나로 묶어 쓴다.
+ *
+ * 파일 구조
+ *   MAGIC(4바이트) VERSION seed diffMode gameMode itemFrequency players eventCount 입력길이 입력...
+ *   hasClaims(0 또는 1), 1 이면 플레이어마다 주장하는 점수와 삭제줄 수
+ * VERSION 이 다른 파일은 읽지 않는다.
+ * MAGIC 뒤의 값은 모두 varint 이고 seed 는 음수도 짧게 쓰도록 zigzag 로 바꾼다.
+ * 주장하는 결과는 ReplayVerifier 가 다시 두어 본 결과와 맞춰 본다.
+ */
+class Replay {
+
+    static final int MAGIC = 0x54525059; // "TRPY"
+    static final int VERSION = 1;
+    static final int STEP = 5; // 중력에 의한 한 칸 하강 (GameEngine.step)
+    static final int TAKE_OUT = 6; // 애니메이션이 끝나 다음 블록을 꺼냄 (GameEngine.finishTakeOut)
+    static final int ACTION_BITS = 3;
+    static final String REPLAY_DIR = "replays"; // DataDirectory 안
+    static final String EXTENSION = ".replay";
+    private static final int MAX_EVENT_BYTES = 1 << 28; // 깨진 파일이 큰 배열을 잡지 않게 한다
+
+    // 입력을 하나씩 받는 대상
+    interface EventHandler {
+        void handle(long tick, int player, int action);
+    }
+
+    final long seed;
+    final int diffMode;
+    final int gameMode;
+    final int itemFrequency;
+    final int players;
+    final int[] claimedScores;
+    final int[] claimedLines;
+    boolean hasClaims;
+
+    private byte[] events;
+    private int length;
+    private int eventCount;
+    private long lastTick;
+    private long startTick;
+
+    Replay(long seed, int diffMode, int gameMode, int itemFrequency, int players) {
+        this.seed = seed;
+        this.diffMode = diffMode;
+        this.gameMode = gameMode;
+        this.itemFrequency = itemFrequency;
+        this.players = players;
+        claimedScores = new int[players];
+        claimedLines = new int[players];
+        events = new byte[256];
+    }
+
+    /* 녹화 */
+
+    // GameLoop 의 tick 수 loopTick 을 tick 0 으로 삼는다
+    void start(long loopTick) {
+        startTick = loopTick;
+        length = 0;
+        eventCount = 0;
+        lastTick = 0;
+    }
+
+    // GameLoop 의 tick 수가 loopTick 일 때의 입력을 남긴다
+    void record(long loopTick, int player, int action) {
+        add(loopTick - startTick, player, action);
+    }
+
+    void add(long tick, int player, int action) {
+        if (tick < lastTick)
+            tick = lastTick;
+        ensureCapacity(20);
+        length = writeVarLong(events, length, tick - lastTick);
+        length = writeVarLong(events, length, (long) player << ACTION_BITS | action);
+        lastTick = tick;
+        eventCount++;
+    }
+
+    // 게임이 끝났을 때 player 의 점수와 삭제줄 수를 남긴다
+    void setResult(int player, int score, int lines) {
+        claimedScores[player] = score;
+        claimedLines[player] = lines;
+        hasClaims = true;
+    }
+
+    int getEventCount() {
+        return eventCount;
+    }
+
+    // 입력 부분의 바이트 수
+    int getEventBytes() {
+        return length;
+    }
+
+    private void ensureCapacity(int extra) {
+        if (length + extra > events.length)
+            events = Arrays.copyOf(events, Math.max(events.length * 2, length + extra));
+    }
+
+    /* 재생 */
+
+    // 기록된 순서대로 입력을 넘긴다
+    void forEach(EventHandler handler) {
+        long[] value = new long[1];
+        int offset = 0;
+        long tick = 0;
+        for (int i = 0; i < eventCount; i++) {
+            offset = readVarLong(events, offset, value);
+            tick += value[0];
+            offset = readVarLong(events, offset, value);
+            handler.handle(tick, (int) (value[0] >>> ACTION_BITS), (int) (value[0] & ((1 << ACTION_BITS) - 1)));
+        }
+    }
+
+    /* 파일 */
+
+    void write(OutputStream out) throws IOException {
+        DataOutputStream data = new DataOutputStream(out);
+        data.writeInt(MAGIC);
+        writeVarLong(data, VERSION);
+        writeVarLong(data, seed << 1 ^ seed >> 63);
+        writeVarLong(data, diffMode);
+        writeVarLong(data, gameMode);
+        writeVarLong(data, itemFrequency);
+        writeVarLong(data, players);
+        writeVarLong(data, eventCount);
+        writeVarLong(data, length);
+        data.write(events, 0, length);
+        writeVarLong(data, hasClaims ? 1 : 0);
+        for (int i = 0; hasClaims && i < players; i++) {
+            writeVarLong(data, claimedScores[i]);
+            writeVarLong(data, claimedLines[i]);
+        }
+        data.flush();
+    }
+
+    static Replay read(InputStream in) throws IOException {
+        DataInputStream data = new DataInputStream(in);
+        if (data.readInt() != MAGIC)
+            throw new IOException("not a replay file");
+        long version = readVarLong(data);
+        if (version != VERSION)
+            throw new IOException("unsupported replay version " + version);
+        long zigzag = readVarLong(data);
+        Replay replay = new Replay(zigzag >>> 1 ^ -(zigzag & 1), (int) readVarLong(data), (int) readVarLong(data),
+                (int) readVarLong(data), readPlayers(data));
+        long eventCount = readVarLong(data);
+        long length = readVarLong(data);
+        if (length > MAX_EVENT_BYTES || eventCount > length)
+            throw new IOException("corrupt replay: " + eventCount + " events in " + length + " bytes");
+        replay.events = new byte[(int) length];
+        data.readFully(replay.events);
+        replay.length = (int) length;
+        replay.eventCount = (int) eventCount;
+        replay.validate();
+        if (readVarLong(data) == 0)
+            return replay;
+        for (int i = 0; i < replay.players; i++)
+            replay.setResult(i, (int) readVarLong(data), (int) readVarLong(data));
+        return replay;
+    }
+
+    private static int readPlayers(DataInput in) throws IOException {
+        long players = readVarLong(in);
+        if (players < 1 || players > 1 << 10)
+            throw new IOException("corrupt replay: " + players + " players");
+        return (int) players;
+    }
+
+    // 입력 부분이 eventCount 개로 딱 나눠지는지 확인하고 마지막 tick 을 맞춘다
+    private void validate() throws IOException {
+        long[] value = new long[1];
+        int offset = 0;
+        long tick = 0;
+        try {
+            for (int i = 0; i < eventCount; i++) {
+                offset = readVarLong(events, offset, value);
+                tick += value[0];
+                offset = readVarLong(events, offset, value);
+                if ((value[0] >>> ACTION_BITS) >= players || (value[0] & ((1 << ACTION_BITS) - 1)) > TAKE_OUT)
+                    throw new IOException("corrupt replay: bad event " + i);
+            }
+        } catch (ArrayIndexOutOfBoundsException e) {
+            throw new IOException("corrupt replay: truncated events");
+        }
+        if (offset != length)
+            throw new IOException("corrupt replay: trailing bytes");
+        lastTick = tick;
+    }
+
+    void save(Path path) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(length + 64);
+        write(out);
+        DataDirectory.writeAtomically(path, out.toByteArray());
+    }
+
+    static Replay load(Path path) throws IOException {
+        try (InputStream in = new BufferedInputStream(Files.newInputStream(path))) {
+            return read(in);
+        }
+    }
+
+    // 데이터 디렉터리의 REPLAY_DIR 에 seed 와 시각으로 이름을 지어 저장하고 경로를 돌려준다
+    Path saveToReplayDir() throws IOException {
+        Path path = DataDirectory.getInstance().resolve(REPLAY_DIR)
+                .resolve(System.currentTimeMillis() + "-" + Long.toHexString(seed) + EXTENSION);
+        save(path);
+        return path;
+    }
+
+    /* varint: 7비트씩 낮은 자리부터, 뒤에 더 있으면 최상위 비트를 켠다 */
+
+    static int writeVarLong(byte[] buffer, int offset, long value) {
+        while ((value & ~0x7FL) != 0) {
+            buffer[offset++] = (byte) (value & 0x7F | 0x80);
+            value >>>= 7;
+        }
+        buffer[offset++] = (byte) value;
+        return offset;
+    }
+
+    // value[0] 에 읽은 값을 넣고 다음 offset 을 돌려준다
+    static int readVarLong(byte[] buffer, int offset, long[] value) {
+        long result = 0;
+        for (int shift = 0;; shift += 7) {
+            byte b = buffer[offset++];
+            result |= (long) (b & 0x7F) << shift;
+            if (b >= 0)
+                break;
+        }
+        value[0] = result;
+        return offset;
+    }
+
+    static void writeVarLong(DataOutput out, long value) throws IOException {
+        while ((value & ~0x7FL) != 0) {
+            out.writeByte((int) (value & 0x7F | 0x80));
+            value >>>= 7;
+        }
+        out.writeByte((int) value);
+    }
+
+    static long readVarLong(DataInput in) throws IOException {
+        long result = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            byte b = in.readByte();
+            result |= (long) (b & 0x7F) << shift;
+            if (b >= 0)
+                return result;
+        }
+        throw new IOException("corrupt replay: varint too long");
+    }
+}
@@ -0,0 +1,174 @@
+package tetris.controller;
+
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.util.List;
+
+/*
+ * Replay 를 Swing 없이 GameEngine 으로 다시 두는 재생기.
+ * ./gradlew replay --args="$HOME/.tetris/replays/xxx.replay --speed 4"
+ *
+ * speed 1 은 녹화한 속도 그대로, 2 이상은 빨리 감기, max(MAX_SPEED) 는 기다리지 않고 끝까지 둔다.
+ * 엔진의 블록 보충과 공격줄 처리는 SingleGameController, MultiGameController 의 훅과 같게 해야
+ * 같은 입력으로 같은 판이 나온다.
+ */
+public class ReplayPlayer {
+
+    static final double MAX_SPEED = 0;
+
+    private static final String USAGE = "usage: replay <file> [--speed 1|2|4|...|max]";
+
+    final Replay replay;
+    final GameEngine[] engines;
+    private final BlockRandomizer randomizer;
+    private int playedEvents;
+
+    ReplayPlayer(Replay replay) {
+        this.replay = replay;
+        randomizer = new BlockRandomizer(replay.seed);
+        engines = new GameEngine[replay.players];
+        if (replay.players == 1)
+            engines[0] = createSingleEngine();
+        else
+            createVersusEngines();
+    }
+
+    public static void main(String[] args) {
+        if (args.length != 1 && args.length != 3) {
+            System.err.println(USAGE);
+            return;
+        }
+        double speed = MAX_SPEED;
+        if (args.length == 3) {
+            if (!args[1].equals("--speed")) {
+                System.err.println(USAGE);
+                return;
+            }
+            try {
+                speed = args[2].equals("max") ? MAX_SPEED : Double.parseDouble(args[2]);
+            } catch (NumberFormatException e) {
+                System.err.println("bad number for --speed: " + args[2]);
+                return;
+            }
+        }
+        try {
+            ReplayPlayer player = new ReplayPlayer(Replay.load(Paths.get(args[0])));
+            player.play(speed);
+            player.printResult();
+        } catch (IOException e) {
+            System.err.println("cannot read " + args[0] + ": " + e.getMessage());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    // SingleGameController 처럼 덱이 3개 밑으로 줄면 같은 난이도의 블록을 채운다
+    private GameEngine createSingleEngine() {
+        GameEngine engine = new GameEngine() {
+            @Override
+            public void doBeforeTakeOutNextBlock() {
+                if (blockDeque.size() < 3)
+                    blockDeque.addAll(randomizer.nextBlocks(replay.diffMode));
+            }
+        };
+        start(engine, randomizer.nextBlocks(replay.diffMode));
+        return engine;
+    }
+
+    // MultiGameController 처럼 공격줄을 올리고, 덱이 비면 같은 블록을 두 플레이어에게 채운다
+    private void createVersusEngines() {
+        for (int i = 0; i < engines.length; i++) {
+            int opponentIndex = (i + 1) % engines.length;
+            engines[i] = new GameEngine() {
+                @Override
+                public void doBeforeTakeOutNextBlock() {
+                    if (attackLines > 0)
+                        underAttack();
+                    if (blockDeque.isEmpty()) {
+                        List<Integer> blocks = randomizer.nextBlocks(GameEngine.NORMAL_MODE);
+                        blockDeque.addAll(blocks);
+                        engines[opponentIndex].blockDeque.addAll(blocks);
+                    }
+                }
+            };
+        }
+        for (int i = 0; i < engines.length; i++)
+            engines[i].setOpponent(engines[(i + 1) % engines.length]);
+        List<Integer> blocks = randomizer.nextBlocks(GameEngine.NORMAL_MODE);
+        for (GameEngine engine : engines)
+            start(engine, blocks);
+    }
+
+    private void start(GameEngine engine, List<Integer> blocks) {
+        engine.setBitBoardMode(true);
+        engine.setItemSeed(randomizer.getItemSeed());
+        engine.setItemFreqency(replay.itemFrequency);
+        engine.isTakeOutDeferred = true; // Replay.TAKE_OUT 이 올 때 다음 블록을 꺼낸다
+        engine.startGame(replay.diffMode, replay.gameMode, blocks);
+    }
+
+    /*
+     * 입력을 끝까지 적용한다. speed 가 MAX_SPEED 보다 크면 tick 시각에 맞춰 기다린다.
+     * 누군가 게임오버가 되면 거기서 멈춘다.
+     */
+    void play(double speed) throws InterruptedException {
+        long startTime = System.nanoTime();
+        long[] lastTick = { 0 };
+        InterruptedException[] interrupted = new InterruptedException[1];
+        replay.forEach((tick, player, action) -> {
+            if (interrupted[0] != null || isGameEnd())
+                return;
+            if (speed > MAX_SPEED && tick != lastTick[0]) {
+                lastTick[0] = tick;
+                long due = startTime + (long) (tick * GameLoop.TICK_INTERVAL * 1_000_000L / speed);
+                long wait = due - System.nanoTime();
+                try {
+                    if (wait > 0)
+                        Thread.sleep(wait / 1_000_000L, (int) (wait % 1_000_000L));
+                } catch (InterruptedException e) {
+                    interrupted[0] = e;
+                    return;
+                }
+            }
+            apply(player, action);
+        });
+        if (interrupted[0] != null)
+            throw interrupted[0];
+    }
+
+    void apply(int player, int action) {
+        GameEngine engine = engines[player];
+        if (action == Replay.STEP)
+            engine.step();
+        else if (action == Replay.TAKE_OUT)
+            engine.finishTakeOut();
+        else
+            engine.applyInput(action);
+        playedEvents++;
+    }
+
+    boolean isGameEnd() {
+        for (GameEngine engine : engines) {
+            if (engine.isGameEnd())
+                return true;
+        }
+        return false;
+    }
+
+    GameEngine getEngine(int player) {
+        return engines[player];
+    }
+
+    int getPlayedEvents() {
+        return playedEvents;
+    }
+
+    void printResult() {
+        System.out.printf("seed %x, %d of %d events%n", replay.seed, playedEvents, replay.getEventCount());
+        for (int i = 0; i < engines.length; i++) {
+            GameEngine engine = engines[i];
+            System.out.printf("player %d: score %d, lines %d%s%n", i, engine.getScore(), engine.getDeleteLines(),
+                    engine.isGameEnd() ? ", game over" : "");
+        }
+    }
+}
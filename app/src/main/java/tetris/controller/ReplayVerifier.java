@@ -0,0 +1,161 @@
+package tetris.controller;
+
+import java.io.IOException;
+import java.nio.file.*;
+import java.util.*;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.stream.Stream;
+
+/*
+ * Replay 를 헤드리스 엔진으로 끝까지 다시 두어 파일에 적힌 점수와 삭제줄 수가 맞는지 확인한다.
+ * ./gradlew replayVerifier --args="--threads 8 $HOME/.tetris/replays"
+ *
+ * 점수는 입력과 seed 만으로 정해지므로 다시 둔 결과와 다르면 파일이나 점수가 고쳐진 것이다.
+ * 랭킹에 올리기 전에 PlayerController.addVerifiedPlayer 가 한 판씩, 모아 둔 파일은 verifyAll 이
+ * ForkJoinPool 에서 파일 하나를 작업 하나로 나눠 한꺼번에 확인한다.
+ */
+public class ReplayVerifier {
+
+    private static final String USAGE = "usage: replayVerifier [--threads N] <replay file or directory>...";
+
+    // 한 파일의 확인 결과. 다시 두지 못했으면 scores 와 lines 가 null 이다.
+    static class Result {
+        final String name;
+        final boolean isAccepted;
+        final String reason;
+        final int[] scores;
+        final int[] lines;
+
+        Result(String name, boolean isAccepted, String reason, int[] scores, int[] lines) {
+            this.name = name;
+            this.isAccepted = isAccepted;
+            this.reason = reason;
+            this.scores = scores;
+            this.lines = lines;
+        }
+
+        static Result rejected(String name, String reason) {
+            return new Result(name, false, reason, null, null);
+        }
+    }
+
+    private final int threads;
+
+    ReplayVerifier(int threads) {
+        this.threads = threads;
+    }
+
+    public static void main(String[] args) {
+        int threads = Runtime.getRuntime().availableProcessors();
+        List<Path> paths = new ArrayList<>();
+        try {
+            for (int i = 0; i < args.length; i++) {
+                if (args[i].equals("--threads")) {
+                    if (i + 1 >= args.length)
+                        throw new IllegalArgumentException("missing value for --threads");
+                    threads = Integer.parseInt(args[++i]);
+                } else {
+                    addReplayFiles(Paths.get(args[i]), paths);
+                }
+            }
+        } catch (NumberFormatException e) {
+            System.err.println("bad number for --threads");
+            return;
+        } catch (IllegalArgumentException | IOException e) {
+            System.err.println(e.getMessage());
+            System.err.println(USAGE);
+            return;
+        }
+        if (paths.isEmpty()) {
+            System.err.println(USAGE);
+            return;
+        }
+
+        long startTime = System.nanoTime();
+        List<Result> results = new ReplayVerifier(threads).verifyAll(paths);
+        int accepted = 0;
+        for (Result result : results) {
+            if (result.isAccepted)
+                accepted++;
+            System.out.printf("%-8s %s%s%n", result.isAccepted ? "accepted" : "rejected", result.name,
+                    result.isAccepted ? "" : " (" + result.reason + ")");
+        }
+        System.out.printf("%d of %d replays accepted in %.2f s%n", accepted, results.size(),
+                (System.nanoTime() - startTime) / 1e9);
+    }
+
+    // 디렉터리면 안의 .replay 파일을 이름 순으로 모두 넣는다
+    static void addReplayFiles(Path path, List<Path> paths) throws IOException {
+        if (!Files.isDirectory(path)) {
+            paths.add(path);
+            return;
+        }
+        try (Stream<Path> files = Files.list(path)) {
+            files.filter(file -> file.toString().endsWith(Replay.EXTENSION)).sorted().forEach(paths::add);
+        }
+    }
+
+    // 파일마다 읽고 다시 두는 작업을 풀에 넣고, paths 순서대로 결과를 돌려준다
+    List<Result> verifyAll(List<Path> paths) {
+        List<Callable<Result>> tasks = new ArrayList<>();
+        for (Path path : paths)
+            tasks.add(() -> verify(path));
+        List<Result> results = new ArrayList<>();
+        ForkJoinPool pool = new ForkJoinPool(threads);
+        try {
+            for (Future<Result> future : pool.invokeAll(tasks))
+                results.add(future.get());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+            throw new IllegalStateException(e.getCause());
+        } finally {
+            pool.shutdown();
+        }
+        return results;
+    }
+
+    static Result verify(Path path) {
+        Replay replay;
+        try {
+            replay = Replay.load(path);
+        } catch (IOException e) {
+            return Result.rejected(path.toString(), e.getMessage());
+        }
+        return verify(path.toString(), replay);
+    }
+
+    // replay 를 최대 속도로 다시 두고 모든 플레이어의 점수와 삭제줄 수를 주장한 값과 비교한다
+    static Result verify(String name, Replay replay) {
+        if (!replay.hasClaims)
+            return Result.rejected(name, "no claimed result");
+        ReplayPlayer player;
+        try {
+            player = new ReplayPlayer(replay);
+            player.play(ReplayPlayer.MAX_SPEED);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return Result.rejected(name, "interrupted");
+        } catch (RuntimeException e) {
+            // 엔진이 받아들이지 못하는 설정이나 입력으로 고쳐진 파일
+            return Result.rejected(name, "cannot simulate: " + e);
+        }
+
+        int[] scores = new int[replay.players];
+        int[] lines = new int[replay.players];
+        String reason = null;
+        for (int i = 0; i < replay.players; i++) {
+            GameEngine engine = player.getEngine(i);
+            scores[i] = engine.getScore();
+            lines[i] = engine.getDeleteLines();
+            if (reason == null && (scores[i] != replay.claimedScores[i] || lines[i] != replay.claimedLines[i]))
+                reason = String.format("player %d claimed score %d, lines %d but replay gives score %d, lines %d", i,
+                        replay.claimedScores[i], replay.claimedLines[i], scores[i], lines[i]);
+        }
+        return new Result(name, reason == null, reason, scores, lines);
+    }
+}
@@ -0,0 +1,46 @@
+package tetris.controller;
+
+import java.util.Random;
+
+/*
+ * java.util.Random 과 같은 수를 내면서 내부 상태를 long 하나로 꺼내고 되돌릴 수 있는 난수.
+ * Random 의 seed 는 밖에서 읽을 수 없으므로 같은 선형 합동 생성기를 직접 돌린다.
+ * 같은 seed 면 Random 과 같은 순서가 나오므로 이미 남긴 리플레이도 그대로 재생된다.
+ */
+class RestorableRandom extends Random {
+
+    private static final long MULTIPLIER = 0x5DEECE66DL;
+    private static final long ADDEND = 0xBL;
+    private static final long MASK = (1L << 48) - 1;
+
+    private long state; // Random 생성자가 setSeed 를 먼저 부르므로 초기값을 두지 않는다
+
+    RestorableRandom() {
+        super();
+    }
+
+    RestorableRandom(long seed) {
+        super(seed);
+    }
+
+    @Override
+    public synchronized void setSeed(long seed) {
+        super.setSeed(seed);
+        state = (seed ^ MULTIPLIER) & MASK;
+    }
+
+    @Override
+    protected int next(int bits) {
+        state = (state * MULTIPLIER + ADDEND) & MASK;
+        return (int) (state >>> (48 - bits));
+    }
+
+    long getState() {
+        return state;
+    }
+
+    // getState 로 꺼낸 때로 되돌린다. 그 뒤로는 그때와 같은 수가 나온다
+    void setState(long state) {
+        this.state = state & MASK;
+    }
+}
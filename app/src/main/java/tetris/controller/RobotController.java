@@ -1,27 +1,37 @@
 package tetris.controller;
 
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
 import java.util.*;
 import java.util.List;
+import java.util.logging.Logger;
 
-import javax.swing.*;
-import javax.swing.Timer;
+import javax.swing.SwingUtilities;
+
+import com.google.gson.*;
 
 import tetris.model.*;
 
 public class RobotController {
 
     private static final int DELAY = 100;
+    static final String WEIGHT_FILE = "RobotWeight.json"; // DataDirectory 안의 이름
+    private static final Logger log = Logger.getGlobal();
 
     GameController gameController;
-    GameController caculator;
-    Timer moveRotateTimer;
-    Timer moveLeftTimer;
-    Timer moveRightTimer;
-    Timer testTimer;
+    LookaheadSearch lookahead;
+    private final BitBoard bitBoard; // 탐색에 넘길 현재 보드의 고정된 칸
     boolean timerFlag;
 
+    // 계획한 키 입력을 DELAY 간격으로 하나씩 실행한다
+    private final Deque<Runnable> plannedMoves;
+    private final GameLoop.Ticker ticker;
+    private int moveElapsed;
+    private int searchCount; // EDT 만 쓴다. 늦게 끝난 탐색이 더 새로운 탐색의 결과를 덮지 않게 센다
+    private boolean isWeightSet; // setWeight 로 정한 가중치는 늦게 읽힌 파일이 덮지 않는다
+
     Block block;
-    int[][] board;
     int moveX = 0;
     int rotateCount = 0;
     int finalGameScore;
@@ -32,7 +42,7 @@ public class RobotController {
     double weightCompleteLines = 0.760666;
     double weightHoles = -0.35663;
     double weightBumpiness = -0.184483;
-    int[] highestVertical;
+    final BoardFeatures features; // calculateScore 가 다시 쓰는 특징 계산기
 
     double holes;
     double completeLines;
@@ -40,67 +50,127 @@ public class RobotController {
     double bumpiness;
 
     RobotController(GameController gameController) {
-        caculator = new GameController(new JTextPane(), new JTextPane(), new JTextPane(), null, new JPanel()) {
+        this(gameController, new LookaheadSearch());
+        loadWeightLater(DataDirectory.getInstance(), PersistenceExecutor.getInstance());
+    }
 
-        };
+    RobotController(GameController gameController, LookaheadSearch lookahead) {
+        this.lookahead = lookahead;
+        features = new BoardFeatures();
+        bitBoard = new BitBoard(GameController.BOARD_END_HEIGHT);
         this.gameController = gameController;
-        this.board = new int[GameController.BOARD_END_HEIGHT][GameController.BOARD_WIDTH];
         this.block = new JBlock();
-        caculator.currentBlock = caculator.getBlock(0);
-        caculator.blockBuffer = new JBlock();
         this.timerFlag = true;
+        plannedMoves = new ArrayDeque<>();
+        ticker = this::tick;
     }
 
+    // 현재 블록과 그 다음 블록까지 보고 놓을 자리(moveX, rotateCount)를 정한다
     void findMove(Block block) {
-        double currnetScore;
-        double maxScore = Double.MIN_EXPONENT;
-        caculator.copyBoard(gameController.board, caculator.board);
+        findMove(gameController.engine, block);
+    }
+
+    void findMove(GameEngine engine, Block block) {
+        bitBoard.sync(engine.board);
         this.block.copyBlock(block);
-        caculator.currentBlock.copyBlock(block);
-        caculator.blockBuffer.copyBlock(block);
-        for (int j = 0; j < 4; j++) {
-            caculator.currentBlock.rotate();
-            caculator.blockBuffer.rotate();
-            for (int i = 0; i < GameController.BOARD_WIDTH - caculator.currentBlock.getWidth() + 1; i++) {
-                caculator.x = i;
-                caculator.y = GameController.BOARD_START_HEIGHT;
-                caculator.getGhostY();
-                caculator.placeBlock(caculator.board, caculator.currentBlock, i, caculator.ghostY);
-                currnetScore = calculateScore(caculator.board);
-
-                if (currnetScore > maxScore) {
-                    maxScore = currnetScore;
-                    moveX = i;
-                    rotateCount = caculator.currentBlock.getRotateCount();
-                }
-                caculator.eraseBlock(caculator.board, caculator.currentBlock, i, caculator.ghostY);
-            }
-        }
+        LookaheadSearch.Placement placement = lookahead.search(bitBoard, this.block,
+                getFollowingBlock(engine, block), getWeights());
+        if (placement == null)
+            return; // 어디에 놓아도 게임오버
+        moveX = placement.x;
+        rotateCount = placement.rotateCount;
+    }
+
+    /*
+     * findMove 와 같은 자리를 EDT 밖에서 찾는다. 찾으면 EDT 에서 moveX, rotateCount 를 정하고 then 을 부른다.
+     * 보드와 블록은 부른 때의 복사본으로 찾고, 그 사이 로봇이 멈췄거나 다시 찾기 시작했으면 결과를 버린다.
+     */
+    void findMoveLater(GameEngine engine, Block block, Runnable then) {
+        int count = ++searchCount;
+        bitBoard.sync(engine.board);
+        Block following = getFollowingBlock(engine, block);
+        lookahead.searchLater(bitBoard.copy(), copyOf(block), following == null ? null : copyOf(following),
+                getWeights(), placement -> SwingUtilities.invokeLater(() -> {
+                    if (count != searchCount || !timerFlag)
+                        return;
+                    if (placement != null) {
+                        moveX = placement.x;
+                        rotateCount = placement.rotateCount;
+                    }
+                    then.run();
+                }));
+    }
+
+    private static Block copyOf(Block block) {
+        Block copy = new JBlock();
+        copy.copyBlock(block);
+        return copy;
+    }
+
+    // block 다음에 나올 블록. 현재 블록이면 다음 블록, 다음 블록이면 대기열의 첫 블록이다.
+    private Block getFollowingBlock(GameEngine engine, Block block) {
+        if (block == engine.currentBlock)
+            return engine.nextBlock;
+        Integer id = engine.blockDeque.peekFirst();
+        return id == null ? null : engine.getBlock(id);
+    }
+
+    double[] getWeights() {
+        return new double[] { weightAggHeights, weightCompleteLines, weightHoles, weightBumpiness };
     }
 
     void moveBlock() {
-        int currentRotateCount = gameController.currentBlock.getRotateCount();
-        int currentX = gameController.x;
-        int count = 0;
+        int currentRotateCount = gameController.engine.currentBlock.getRotateCount();
+        int currentX = gameController.engine.x;
+        plannedMoves.clear();
         for (int i = 0; i < rotateCount - currentRotateCount; i++) {
-            startMoveRotateTimer(DELAY * count);
-            count++;
+            plannedMoves.add(gameController::moveRotate);
         }
         currentX = calculateRotateX(currentX, rotateCount);
         for (int i = 0; i < currentX - moveX; i++) {
-            startMoveLeftTimer(DELAY * count);
-            count++;
+            plannedMoves.add(gameController::moveLeft);
         }
         for (int i = 0; i < moveX - currentX; i++) {
-            startMoveRightTimer(DELAY * count);
-            count++;
+            plannedMoves.add(gameController::moveRight);
         }
-        Timer stackTimer = new Timer(DELAY * count + DELAY, e -> {
-            if (timerFlag)
-                gameController.dropDown();
-        });
-        stackTimer.setRepeats(false);
-        stackTimer.start();
+        plannedMoves.add(() -> {
+        }); // 마지막 이동 뒤 한 번 쉬고 떨어뜨린다
+        plannedMoves.add(gameController::dropDown);
+        moveElapsed = DELAY; // 첫 이동은 다음 tick 에 바로 실행한다
+        gameController.gameLoop.register(ticker);
+    }
+
+    // Swing 없이 engine 의 현재 블록을 찾은 자리에 바로 놓고 고정한다 (대국 러너용)
+    void playMove(GameEngine engine) {
+        findMove(engine, engine.currentBlock);
+        int rotations = rotateCount - engine.currentBlock.getRotateCount();
+        for (int i = 0; i < rotations; i++)
+            engine.applyInput(GameEngine.MOVE_ROTATE);
+        int lastX = -1;
+        while (engine.x != moveX && engine.x != lastX) {
+            lastX = engine.x;
+            engine.applyInput(engine.x > moveX ? GameEngine.MOVE_LEFT : GameEngine.MOVE_RIGHT);
+        }
+        engine.applyInput(GameEngine.DROP_DOWN);
+        engine.step(); // 바닥에 닿은 블록은 다음 중력 tick 에 고정된다
+    }
+
+    private void tick(int interval) {
+        moveElapsed += interval;
+        if (moveElapsed < DELAY)
+            return;
+        moveElapsed = 0;
+        Runnable move = plannedMoves.poll();
+        if (move == null) {
+            gameController.gameLoop.unregister(ticker);
+            return;
+        }
+        if (timerFlag)
+            move.run();
+    }
+
+    int getPlannedMoveCount() {
+        return plannedMoves.size();
     }
 
     private int calculateRotateX(int x, int rotateCount) {
@@ -120,111 +190,93 @@ public class RobotController {
         return x;
     }
 
-    private void startMoveRotateTimer(int delay) {
-        moveRotateTimer = new Timer(delay, e -> {
-            if (timerFlag)
-                gameController.moveRotate();
-        });
-        moveRotateTimer.setRepeats(false);
-        moveRotateTimer.start();
-    }
-
-    private void startMoveLeftTimer(int delay) {
-        moveLeftTimer = new Timer(delay, e -> {
-            if (timerFlag)
-                gameController.moveLeft();
-        });
-        moveLeftTimer.setRepeats(false);
-        moveLeftTimer.start();
-    }
-
-    private void startMoveRightTimer(int delay) {
-        moveRightTimer = new Timer(delay, e -> {
-            if (timerFlag)
-                gameController.moveRight();
-        });
-        moveRightTimer.setRepeats(false);
-        moveRightTimer.start();
-    }
-
+    // board 의 특징을 구해 가중치 합을 돌려준다. 구한 특징은 holes, completeLines, aggHeight, bumpiness 에 남는다.
     double calculateScore(int[][] board) {
-        int highestBlock = 0;
-        int blockNums = 0;
-        holes = 0.0;
-        completeLines = 0.0;
-        aggHeight = 0.0;
-        bumpiness = 0.0;
-        highestVertical = new int[GameController.BOARD_WIDTH];
-
-        for (int j = 0; j < GameController.BOARD_WIDTH; j++) {
-            for (int i = GameController.BOARD_START_HEIGHT; i < GameController.BOARD_END_HEIGHT; i++) {
-                if (board[i][j] > 0) {
-                    if (highestBlock < GameController.BOARD_END_HEIGHT - i)
-                        highestBlock = GameController.BOARD_END_HEIGHT - i;
-                    blockNums++;
-                }
-            }
-            highestVertical[j] = highestBlock;
-            holes += highestBlock - blockNums;
-            blockNums = 0;
-            highestBlock = 0;
-        }
-        aggHeight = Arrays.stream(highestVertical).sum();
-        bumpiness = getRoughness(highestVertical, GameController.BOARD_WIDTH);
-        highestBlock = Arrays.stream(highestVertical).max().getAsInt();
-
-        getCompleteLines(highestBlock);
+        features.extract(board);
+        holes = features.holes;
+        completeLines = features.completeLines;
+        aggHeight = features.aggHeight;
+        bumpiness = features.bumpiness;
 
         return (weightAggHeights * aggHeight) + (weightHoles * holes)
-                + (weightCompleteLines + completeLines)
+                + (weightCompleteLines * completeLines)
                 + (weightBumpiness * bumpiness);
     }
 
     public void setWeight(double weightAggHeights,
             double weightBumpiness, double weightHoles, double weightCompleteLines) {
+        isWeightSet = true;
         this.weightAggHeights = weightAggHeights;
         this.weightBumpiness = weightBumpiness;
         this.weightHoles = weightHoles;
         this.weightCompleteLines = weightCompleteLines;
     }
 
-    private double getRoughness(int[] a, int length) {
-        int roughness = 0;
-        for (int x = 0; x < length - 1; x++) {
-            roughness += Math.abs(a[x] - a[x + 1]);
+    /*
+     * RobotWeightTuner 가 데이터 디렉터리에 저장한 가중치를 EDT 밖에서 읽고 EDT 에서 적용한다.
+     * 파일이 없거나 읽을 수 없으면, 또는 그 사이 setWeight 로 가중치를 정했으면 지금 가중치를 그대로 쓴다.
+     */
+    void loadWeightLater(DataDirectory dataDirectory, PersistenceExecutor persistence) {
+        persistence.submit(() -> dataDirectory.read(WEIGHT_FILE), (json, error) -> {
+            RobotWeight weight = json == null ? null : parseWeight(json);
+            if (weight != null && !isWeightSet)
+                applyWeight(weight);
+        });
+    }
+
+    // path 의 가중치를 바로 불러온다 (도구와 테스트용). 파일이 없거나 읽을 수 없으면 false
+    boolean loadWeight(Path path) {
+        if (!Files.exists(path))
+            return false;
+        RobotWeight weight;
+        try {
+            weight = parseWeight(DataDirectory.readFully(path));
+        } catch (IOException e) {
+            log.warning(e.toString());
+            return false;
         }
-        return roughness;
-    }
-
-    private double getCompleteLines(int highestBlock) {
-        int blockNums = 0;
-        for (int i = GameController.BOARD_END_HEIGHT - highestBlock; i < GameController.BOARD_END_HEIGHT; i++) {
-            for (int j = 0; j < GameController.BOARD_WIDTH; j++) {
-                if (board[i][j] > 0) {
-                    blockNums++;
-                }
-            }
-            if (blockNums > 9)
-                completeLines++;
-            blockNums = 0;
+        if (weight == null)
+            return false;
+        applyWeight(weight);
+        return true;
+    }
+
+    private void applyWeight(RobotWeight weight) {
+        setWeight(weight.getAggHeights(), weight.getBumpiness(), weight.getHoles(), weight.getCompleteLines());
+    }
+
+    private static RobotWeight parseWeight(byte[] json) {
+        try {
+            return new Gson().fromJson(new String(json, StandardCharsets.UTF_8), RobotWeight.class);
+        } catch (JsonParseException e) {
+            log.warning(e.toString());
+            return null;
         }
-        return completeLines;
+    }
+
+    // 임시 파일에 쓰고 바꿔치기하므로 쓰는 도중에 멈춰도 예전 파일이 온전히 남는다
+    static void saveWeight(Path path, RobotWeight weight) throws IOException {
+        Gson gson = new GsonBuilder().setPrettyPrinting().create();
+        DataDirectory.writeAtomically(path, gson.toJson(weight).getBytes(StandardCharsets.UTF_8));
     }
 
     public void stopRobot() {
         timerFlag = false;
+        searchCount++;
+        plannedMoves.clear();
+        if (gameController != null)
+            gameController.gameLoop.unregister(ticker);
     }
 
     public void startRobot() {
         timerFlag = true;
-        findMove(gameController.currentBlock);
-        moveBlock();
+        findMoveLater(gameController.engine, gameController.engine.currentBlock, this::moveBlock);
     }
 
     public void startTestRobot() {
         timerFlag = true;
 
-        findMove(gameController.currentBlock);
+        findMove(gameController.engine.currentBlock);
         moveBlock();
     }
 
@@ -0,0 +1,347 @@
+package tetris.controller;
+
+import java.util.*;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+
+
+/*
+ * Swing 없이 GameEngine 만으로 로봇 대국을 CPU 가 허락하는 만큼 빠르게 두는 명령줄 러너.
+ * ./gradlew robotTournament --args="--mode versus --games 200 --weights -0.51,-0.18,-0.36,0.76 --weights ..."
+ *
+ * solo   : 가중치 묶음마다 혼자 maxPieces 개까지 둔다
+ * versus : 가중치 묶음의 모든 순서쌍끼리 같은 블록 순서로 번갈아 두며 공격줄을 주고받는다
+ *          (묶음이 하나면 자기 자신과 둔다)
+ *
+ * 한 판이 ForkJoinPool 의 작업 하나이고, 로봇의 beam search 도 같은 풀을 쓰므로 모든 코어를 나눠 쓴다.
+ * 판마다 seed 가 정해져 있고 기본으로는 탐색에 시간 예산을 두지 않으므로 같은 인자로 돌리면 같은 결과가 나온다.
+ * --budget 으로 예산을 주면 예산 안에 끝나지 못한 탐색이 기계 부하에 따라 다른 자리를 고를 수 있다.
+ */
+public class RobotTournament {
+
+    static final String SOLO_MODE = "solo";
+    static final String VERSUS_MODE = "versus";
+    static final int DEFAULT_GAMES = 100;
+    static final int DEFAULT_MAX_PIECES = 1000;
+    static final long DEFAULT_TIME_BUDGET = LookaheadSearch.UNTIMED; // 결과가 재현되도록 시간을 보지 않는다
+    static final double[] DEFAULT_WEIGHTS = { -0.510066, -0.184483, -0.35663, 0.760666 };
+
+    private static final String USAGE = "usage: robotTournament [--mode solo|versus] [--games N] [--threads N]"
+            + " [--max-pieces N] [--seed N] [--budget ms, 0 = untimed] [--weights aggHeights,bumpiness,holes,completeLines]...";
+
+    // setWeight 인자 순서의 가중치 묶음
+    final List<double[]> weightSets;
+    String mode;
+    int games;
+    int threads;
+    int maxPieces;
+    long seed;
+    long timeBudget;
+
+    RobotTournament() {
+        weightSets = new ArrayList<>();
+        mode = SOLO_MODE;
+        games = DEFAULT_GAMES;
+        threads = Runtime.getRuntime().availableProcessors();
+        maxPieces = DEFAULT_MAX_PIECES;
+        seed = 0;
+        timeBudget = DEFAULT_TIME_BUDGET;
+    }
+
+    public static void main(String[] args) {
+        RobotTournament tournament;
+        try {
+            tournament = parse(args);
+        } catch (IllegalArgumentException e) {
+            System.err.println(e.getMessage());
+            System.err.println(USAGE);
+            return;
+        }
+        tournament.run().print();
+    }
+
+    static RobotTournament parse(String[] args) {
+        RobotTournament tournament = new RobotTournament();
+        for (int i = 0; i < args.length; i++) {
+            String option = args[i];
+            if (i + 1 >= args.length)
+                throw new IllegalArgumentException("missing value for " + option);
+            String value = args[++i];
+            try {
+                switch (option) {
+                    case "--mode":
+                        if (!value.equals(SOLO_MODE) && !value.equals(VERSUS_MODE))
+                            throw new IllegalArgumentException("unknown mode " + value);
+                        tournament.mode = value;
+                        break;
+                    case "--games":
+                        tournament.games = Integer.parseInt(value);
+                        break;
+                    case "--threads":
+                        tournament.threads = Integer.parseInt(value);
+                        break;
+                    case "--max-pieces":
+                        tournament.maxPieces = Integer.parseInt(value);
+                        break;
+                    case "--seed":
+                        tournament.seed = Long.parseLong(value);
+                        break;
+                    case "--budget":
+                        tournament.timeBudget = Long.parseLong(value);
+                        break;
+                    case "--weights":
+                        tournament.weightSets.add(parseWeights(value));
+                        break;
+                    default:
+                        throw new IllegalArgumentException("unknown option " + option);
+                }
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("bad number for " + option + ": " + value);
+            }
+        }
+        if (tournament.weightSets.isEmpty())
+            tournament.weightSets.add(DEFAULT_WEIGHTS.clone());
+        return tournament;
+    }
+
+    static double[] parseWeights(String value) {
+        String[] tokens = value.split(",");
+        if (tokens.length != 4)
+            throw new IllegalArgumentException("weights need 4 values: " + value);
+        double[] weights = new double[4];
+        for (int i = 0; i < 4; i++)
+            weights[i] = Double.parseDouble(tokens[i].trim());
+        return weights;
+    }
+
+    /* 대국 */
+
+    // 한 플레이어의 한 판 결과
+    static class GameResult {
+        final int weightIndex;
+        final int lines;
+        final int pieces;
+        final int score;
+        final int aggHeight; // 끝났을 때 남은 열 높이의 합
+        final boolean isToppedOut;
+
+        GameResult(int weightIndex, GameEngine engine, int pieces) {
+            this.weightIndex = weightIndex;
+            this.lines = engine.getDeleteLines();
+            this.pieces = pieces;
+            this.score = engine.getScore();
+            BoardFeatures features = new BoardFeatures();
+            features.extract(engine.bitBoard);
+            this.aggHeight = features.aggHeight;
+            this.isToppedOut = engine.isGameEnd();
+        }
+    }
+
+    // 한 판의 결과. solo 는 플레이어가 하나이고 winner 가 없다.
+    static class MatchResult {
+        final GameResult[] players;
+        final int winner; // players 의 인덱스, 무승부나 solo 는 -1
+
+        MatchResult(int winner, GameResult... players) {
+            this.players = players;
+            this.winner = winner;
+        }
+    }
+
+    // seed 로 정해지는 블록 순서를 앞에서부터 쌓아 두고 인덱스로 꺼낸다. 두 플레이어가 같은 순서를 받는다.
+    static class BlockSequence {
+        private final BlockRandomizer randomizer;
+        private final List<Integer> blocks;
+
+        BlockSequence(long seed) {
+            randomizer = new BlockRandomizer(seed);
+            blocks = new ArrayList<>();
+        }
+
+        int get(int index) {
+            while (blocks.size() <= index)
+                blocks.addAll(randomizer.nextBlocks(GameEngine.NORMAL_MODE));
+            return blocks.get(index);
+        }
+
+        long getItemSeed() {
+            return randomizer.getItemSeed();
+        }
+    }
+
+    // sequence 를 처음부터 받아 두는 엔진. 대전이면 다음 블록을 꺼내기 전에 받은 공격줄을 올린다.
+    static GameEngine createEngine(BlockSequence sequence) {
+        GameEngine engine = new GameEngine() {
+            private int nextIndex = 2;
+
+            @Override
+            public void doBeforeTakeOutNextBlock() {
+                if (attackLines > 0)
+                    underAttack();
+                if (blockDeque.isEmpty())
+                    blockDeque.add(sequence.get(nextIndex++));
+            }
+        };
+        engine.setBitBoardMode(true);
+        engine.setItemSeed(sequence.getItemSeed());
+        engine.startGame(GameEngine.NORMAL_MODE, GameEngine.GENERAL_GAME_MODE,
+                Arrays.asList(sequence.get(0), sequence.get(1)));
+        return engine;
+    }
+
+    RobotController createRobot(int weightIndex, ForkJoinPool pool) {
+        double[] weights = weightSets.get(weightIndex);
+        RobotController robot = new RobotController(null,
+                new LookaheadSearch(pool, LookaheadSearch.DEFAULT_BEAM_WIDTH, timeBudget));
+        robot.setWeight(weights[0], weights[1], weights[2], weights[3]);
+        return robot;
+    }
+
+    MatchResult playSolo(int weightIndex, long matchSeed, ForkJoinPool pool) {
+        GameEngine engine = createEngine(new BlockSequence(matchSeed));
+        RobotController robot = createRobot(weightIndex, pool);
+        int pieces = 0;
+        while (!engine.isGameEnd() && pieces < maxPieces) {
+            robot.playMove(engine);
+            pieces++;
+        }
+        return new MatchResult(-1, new GameResult(weightIndex, engine, pieces));
+    }
+
+    MatchResult playVersus(int first, int second, long matchSeed, ForkJoinPool pool) {
+        BlockSequence sequence = new BlockSequence(matchSeed);
+        GameEngine[] engines = { createEngine(sequence), createEngine(sequence) };
+        engines[0].setOpponent(engines[1]);
+        engines[1].setOpponent(engines[0]);
+        RobotController[] robots = { createRobot(first, pool), createRobot(second, pool) };
+        int[] pieces = new int[2];
+        int turn = 0;
+        while (!engines[0].isGameEnd() && !engines[1].isGameEnd() && pieces[1] < maxPieces) {
+            robots[turn].playMove(engines[turn]);
+            pieces[turn]++;
+            turn = 1 - turn;
+        }
+        int winner = -1;
+        if (engines[0].isGameEnd())
+            winner = 1;
+        else if (engines[1].isGameEnd())
+            winner = 0;
+        else if (engines[0].getDeleteLines() != engines[1].getDeleteLines())
+            winner = engines[0].getDeleteLines() > engines[1].getDeleteLines() ? 0 : 1;
+        return new MatchResult(winner, new GameResult(first, engines[0], pieces[0]),
+                new GameResult(second, engines[1], pieces[1]));
+    }
+
+    // 모든 판을 풀에 넣고 끝날 때까지 기다린다
+    Report run() {
+        List<Callable<MatchResult>> matches = new ArrayList<>();
+        ForkJoinPool pool = new ForkJoinPool(threads);
+        for (int g = 0; g < games; g++) {
+            long matchSeed = seed + g;
+            if (mode.equals(SOLO_MODE)) {
+                for (int i = 0; i < weightSets.size(); i++) {
+                    int weightIndex = i;
+                    matches.add(() -> playSolo(weightIndex, matchSeed, pool));
+                }
+            } else if (weightSets.size() == 1) {
+                matches.add(() -> playVersus(0, 0, matchSeed, pool));
+            } else {
+                for (int i = 0; i < weightSets.size(); i++) {
+                    for (int j = 0; j < weightSets.size(); j++) {
+                        int first = i;
+                        int second = j;
+                        if (first != second)
+                            matches.add(() -> playVersus(first, second, matchSeed, pool));
+                    }
+                }
+            }
+        }
+
+        Report report = new Report(weightSets);
+        long startTime = System.nanoTime();
+        try {
+            for (Future<MatchResult> future : pool.invokeAll(matches))
+                report.add(future.get());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+            throw new IllegalStateException(e.getCause());
+        } finally {
+            pool.shutdown();
+        }
+        report.elapsedNanos = System.nanoTime() - startTime;
+        return report;
+    }
+
+    /* 결과 집계 */
+
+    static class Standing {
+        int games;
+        int wins;
+        int losses;
+        int draws;
+        long lines;
+        long pieces;
+
+        double getWinRate() {
+            return games == 0 ? 0 : (double) wins / games;
+        }
+    }
+
+    static class Report {
+        final List<double[]> weightSets;
+        final Standing[] standings;
+        int matches;
+        long pieces;
+        long elapsedNanos;
+
+        Report(List<double[]> weightSets) {
+            this.weightSets = weightSets;
+            standings = new Standing[weightSets.size()];
+            for (int i = 0; i < standings.length; i++)
+                standings[i] = new Standing();
+        }
+
+        void add(MatchResult match) {
+            matches++;
+            for (int p = 0; p < match.players.length; p++) {
+                GameResult player = match.players[p];
+                Standing standing = standings[player.weightIndex];
+                standing.games++;
+                standing.lines += player.lines;
+                standing.pieces += player.pieces;
+                pieces += player.pieces;
+                if (match.players.length == 1)
+                    continue;
+                if (match.winner == -1)
+                    standing.draws++;
+                else if (match.winner == p)
+                    standing.wins++;
+                else
+                    standing.losses++;
+            }
+        }
+
+        double getGamesPerSecond() {
+            return elapsedNanos == 0 ? 0 : matches * 1e9 / elapsedNanos;
+        }
+
+        void print() {
+            System.out.printf("%-4s %-36s %6s %6s %6s %6s %8s %10s %10s%n", "#", "weights", "games", "win",
+                    "lose", "draw", "win%", "lines/g", "pieces/g");
+            for (int i = 0; i < standings.length; i++) {
+                Standing standing = standings[i];
+                int games = Math.max(standing.games, 1);
+                System.out.printf("%-4d %-36s %6d %6d %6d %6d %7.1f%% %10.1f %10.1f%n", i,
+                        Arrays.toString(weightSets.get(i)), standing.games, standing.wins, standing.losses,
+                        standing.draws, standing.getWinRate() * 100, (double) standing.lines / games,
+                        (double) standing.pieces / games);
+            }
+            System.out.printf("%d games, %d pieces in %.2f s (%.2f games/s, %.0f pieces/s)%n", matches, pieces,
+                    elapsedNanos / 1e9, getGamesPerSecond(), elapsedNanos == 0 ? 0 : pieces * 1e9 / elapsedNanos);
+        }
+    }
+}
@@ -0,0 +1,239 @@
+package tetris.controller;
+
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.util.*;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+
+import tetris.model.RobotWeight;
+
+/*
+ * RobotController 가중치를 진화 전략으로 찾는 명령줄 도구.
+ * ./gradlew robotWeightTuner --args="--generations 100 --population 32 --games 8"
+ *
+ * 세대마다 평균 벡터 주변에서 정규분포로 후보를 뽑고, 후보마다 헤드리스 solo 대국을 여러 판 둔 평균 삭제줄 수로
+ * 순위를 매긴다. 좋은 후보는 모든 판이 max-pieces 에서 끝나 삭제줄 수가 비슷하므로,
+ * 줄 수가 같으면 보드를 더 낮게 남긴 후보가 앞서도록 1줄보다 작은 보너스를 더한다.
+ * 상위 후보들의 평균과 표준편차로 다음 세대의 분포를 다시 정한다 (대각 공분산만 쓰는 CMA 방식).
+ * 점수는 가중치의 크기와 상관없으므로 후보는 길이 1로 맞춘다.
+ * 모든 세대의 후보를 같은 seed 묶음으로 두므로 세대가 달라도 점수를 그대로 비교할 수 있고,
+ * 모든 대국은 ForkJoinPool 에서 병렬로 돈다.
+ * 가장 좋은 가중치가 바뀔 때마다 파일에 덮어쓰므로 밤새 돌리다 멈춰도 결과가 남는다.
+ */
+public class RobotWeightTuner {
+
+    static final int DEFAULT_GENERATIONS = 30;
+    static final int DEFAULT_POPULATION = 24;
+    static final int DEFAULT_GAMES = 4;
+    static final int DEFAULT_MAX_PIECES = 500;
+    static final double START_SIGMA = 0.5;
+    static final double MIN_SIGMA = 0.01; // 분포가 한 점으로 줄어들지 않게 한다
+    private static final int WEIGHT_COUNT = 4;
+    private static final int MAX_AGG_HEIGHT = GameEngine.BOARD_WIDTH * GameEngine.BOARD_HEIGHT;
+
+    private static final String USAGE = "usage: robotWeightTuner [--generations N] [--population N] [--games N]"
+            + " [--max-pieces N] [--threads N] [--seed N] [--out path]";
+
+    int generations;
+    int population;
+    int games;
+    int maxPieces;
+    int threads;
+    long seed;
+    String outPath;
+
+    double[] mean;
+    double[] sigma;
+    double[] best;
+    double bestFitness;
+
+    RobotWeightTuner() {
+        generations = DEFAULT_GENERATIONS;
+        population = DEFAULT_POPULATION;
+        games = DEFAULT_GAMES;
+        maxPieces = DEFAULT_MAX_PIECES;
+        threads = Runtime.getRuntime().availableProcessors();
+        seed = 0;
+        outPath = DataDirectory.getInstance().resolve(RobotController.WEIGHT_FILE).toString();
+    }
+
+    public static void main(String[] args) {
+        RobotWeightTuner tuner;
+        try {
+            tuner = parse(args);
+        } catch (IllegalArgumentException e) {
+            System.err.println(e.getMessage());
+            System.err.println(USAGE);
+            return;
+        }
+        try {
+            tuner.run();
+        } catch (IOException e) {
+            System.err.println("cannot write " + tuner.outPath + ": " + e.getMessage());
+        }
+    }
+
+    static RobotWeightTuner parse(String[] args) {
+        RobotWeightTuner tuner = new RobotWeightTuner();
+        for (int i = 0; i < args.length; i++) {
+            String option = args[i];
+            if (i + 1 >= args.length)
+                throw new IllegalArgumentException("missing value for " + option);
+            String value = args[++i];
+            try {
+                switch (option) {
+                    case "--generations":
+                        tuner.generations = Integer.parseInt(value);
+                        break;
+                    case "--population":
+                        tuner.population = Integer.parseInt(value);
+                        break;
+                    case "--games":
+                        tuner.games = Integer.parseInt(value);
+                        break;
+                    case "--max-pieces":
+                        tuner.maxPieces = Integer.parseInt(value);
+                        break;
+                    case "--threads":
+                        tuner.threads = Integer.parseInt(value);
+                        break;
+                    case "--seed":
+                        tuner.seed = Long.parseLong(value);
+                        break;
+                    case "--out":
+                        tuner.outPath = value;
+                        break;
+                    default:
+                        throw new IllegalArgumentException("unknown option " + option);
+                }
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("bad number for " + option + ": " + value);
+            }
+        }
+        if (tuner.population < 4)
+            throw new IllegalArgumentException("population must be at least 4");
+        return tuner;
+    }
+
+    void run() throws IOException {
+        Random random = new Random(seed);
+        mean = normalize(RobotTournament.DEFAULT_WEIGHTS.clone());
+        sigma = new double[WEIGHT_COUNT];
+        Arrays.fill(sigma, START_SIGMA);
+        best = mean.clone();
+        bestFitness = Double.NEGATIVE_INFINITY;
+        ForkJoinPool pool = new ForkJoinPool(threads);
+        try {
+            for (int generation = 0; generation < generations; generation++) {
+                List<double[]> candidates = sample(random);
+                double[] fitness = evaluate(candidates, pool);
+                boolean isImproved = update(candidates, fitness);
+                System.out.printf("generation %d: best %.2f lines/game %s, sigma %s%n", generation, bestFitness,
+                        Arrays.toString(best), Arrays.toString(sigma));
+                if (isImproved)
+                    RobotController.saveWeight(Paths.get(outPath),
+                            new RobotWeight(best[0], best[1], best[2], best[3], bestFitness));
+            }
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    // 지금 평균과 표준편차로 후보를 뽑는다. 지금 평균도 후보에 넣어 좋은 분포를 잃지 않게 한다.
+    List<double[]> sample(Random random) {
+        List<double[]> candidates = new ArrayList<>();
+        candidates.add(mean.clone());
+        while (candidates.size() < population) {
+            double[] candidate = new double[WEIGHT_COUNT];
+            for (int i = 0; i < WEIGHT_COUNT; i++)
+                candidate[i] = mean[i] + sigma[i] * random.nextGaussian();
+            candidates.add(normalize(candidate));
+        }
+        return candidates;
+    }
+
+    // 후보마다 seed, seed + 1, ... 로 solo 대국을 두고 한 판 평균 삭제줄 수에 높이 보너스를 더한 점수를 구한다
+    double[] evaluate(List<double[]> candidates, ForkJoinPool pool) {
+        RobotTournament tournament = new RobotTournament();
+        tournament.weightSets.addAll(candidates);
+        tournament.maxPieces = maxPieces;
+        List<Callable<RobotTournament.MatchResult>> matches = new ArrayList<>();
+        for (int i = 0; i < candidates.size(); i++) {
+            for (int g = 0; g < games; g++) {
+                int weightIndex = i;
+                long matchSeed = seed + g;
+                matches.add(() -> tournament.playSolo(weightIndex, matchSeed, pool));
+            }
+        }
+        double[] fitness = new double[candidates.size()];
+        try {
+            for (Future<RobotTournament.MatchResult> future : pool.invokeAll(matches)) {
+                RobotTournament.GameResult result = future.get().players[0];
+                fitness[result.weightIndex] += gameFitness(result, games);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+            throw new IllegalStateException(e.getCause());
+        }
+        return fitness;
+    }
+
+    /*
+     * 한 판이 평균에 보태는 점수. 줄 수에 더하는 보너스는 판마다 1/games 보다 작아서
+     * 모든 판의 보너스를 합해도 삭제줄 1줄 차이를 뒤집지 못한다. 끝까지 살아남은 판에만 준다.
+     */
+    static double gameFitness(RobotTournament.GameResult result, int games) {
+        double bonus = 0;
+        if (!result.isToppedOut)
+            bonus = (double) (MAX_AGG_HEIGHT - result.aggHeight) / (MAX_AGG_HEIGHT + 1);
+        return (result.lines + bonus / games) / games;
+    }
+
+    // 상위 1/4 후보의 평균과 표준편차로 분포를 옮기고 가장 좋은 후보를 기록한다. 가장 좋은 후보가 바뀌면 true
+    boolean update(List<double[]> candidates, double[] fitness) {
+        Integer[] order = new Integer[candidates.size()];
+        for (int i = 0; i < order.length; i++)
+            order[i] = i;
+        Arrays.sort(order, (a, b) -> Double.compare(fitness[b], fitness[a]));
+        boolean isImproved = fitness[order[0]] > bestFitness;
+        if (isImproved) {
+            bestFitness = fitness[order[0]];
+            best = candidates.get(order[0]).clone();
+        }
+
+        int eliteCount = Math.max(2, candidates.size() / 4);
+        double[] eliteMean = new double[WEIGHT_COUNT];
+        for (int e = 0; e < eliteCount; e++) {
+            double[] elite = candidates.get(order[e]);
+            for (int i = 0; i < WEIGHT_COUNT; i++)
+                eliteMean[i] += elite[i] / eliteCount;
+        }
+        for (int i = 0; i < WEIGHT_COUNT; i++) {
+            double variance = 0;
+            for (int e = 0; e < eliteCount; e++) {
+                double diff = candidates.get(order[e])[i] - eliteMean[i];
+                variance += diff * diff / eliteCount;
+            }
+            sigma[i] = Math.max(MIN_SIGMA, Math.sqrt(variance));
+        }
+        mean = normalize(eliteMean);
+        return isImproved;
+    }
+
+    static double[] normalize(double[] weights) {
+        double length = 0;
+        for (double weight : weights)
+            length += weight * weight;
+        length = Math.sqrt(length);
+        if (length == 0)
+            return weights;
+        for (int i = 0; i < weights.length; i++)
+            weights[i] /= length;
+        return weights;
+    }
+}
@@ -0,0 +1,418 @@
+package tetris.controller;
+
+import java.io.IOException;
+import java.util.Arrays;
+
+/*
+ * 온라인 대전 한 판을 롤백 방식으로 둔다. 두 화면이 모두 두 보드를 두고, 상대 입력을 기다리지 않는다.
+ *
+ *   프레임     게임 루프 tick 하나. 두 보드는 simulationLoop 에 붙어 있어서 프레임을 둘 때만 tick 이 간다
+ *   내 입력    누른 키는 inputDelay(기본 0) 프레임 뒤의 프레임에 바로 두고 그 프레임 입력으로 보낸다(FRAME)
+ *   예측       아직 오지 않은 상대 입력은 아무 키도 누르지 않았다고 보고 둔다. 최대 MAX_PREDICTION 프레임까지 앞서 둔다
+ *   롤백       프레임마다 두기 전의 두 보드를 GameSnapshot 에 담아 둔다. 늦게 온 상대 입력이 예측과 다르면
+ *              그 프레임의 snapshot 으로 되돌리고 지금 프레임까지 다시 둔다
+ *   두는 순서  프레임마다 방을 만든 쪽(HOST) 입력, 참가한 쪽(GUEST) 입력, 그 다음 tick (HOST 보드 먼저).
+ *              공격줄도 이 순서 안에서 오가므로 따로 보내지 않는다
+ *   확정       두 사람 입력이 모두 도착한 프레임은 다시 두지 않는다. 그 프레임의 checksum 을 보내 상대 값과 비교하고
+ *              다르면 onDesync. 게임오버도 확정된 프레임에서만 알린다
+ *
+ * 중력, 바닥 대기, 애니메이션은 모두 simulationLoop 의 tick 으로만 진행하고 블록과 아이템은 seed 로 정하므로
+ * 보드를 보내지 않아도 같은 입력이면 두 화면에서 같게 두어진다.
+ * 상대 입력이 MAX_PREDICTION 프레임 넘게 늦으면 그동안은 멈춰서 기다린다.
+ * 모든 메소드는 게임 루프(EDT)에서 불린다.
+ */
+class RollbackSession implements OnlineConnection.Handler {
+
+    static final int HOST = 0;
+    static final int GUEST = 1;
+    static final int FRAMES_PER_SECOND = 1000 / GameLoop.TICK_INTERVAL;
+    static final int MAX_INPUT_DELAY = 10;
+    static final int MAX_PREDICTION = 30; // 왕복 600 ms 까지는 멈추지 않는다
+    private static final int SNAPSHOTS = MAX_PREDICTION + 1; // 확정된 프레임부터 지금 프레임까지
+    private static final int HISTORY = 256; // 입력과 checksum 을 기억하는 프레임 수
+    private static final int MAX_CATCH_UP = 5; // 기다렸다가 한 tick 에 따라잡는 최대 프레임 수
+
+    // MultiGameController 가 받는 알림
+    interface Listener {
+        // 두 사람이 같은 seed 와 모드로 게임을 시작한다. 여기서 attach 를 부른 뒤 HOST 보드부터 startGame 한다
+        void onStart(long seed, int gameMode, int itemFrequency);
+
+        // frame 이 확정되었다. 시간은 확정된 프레임으로 센다. 보드는 이보다 앞선 예측 프레임일 수 있다
+        void onFrame(int frame);
+
+        // frame 을 둔 두 화면의 보드가 다르다
+        void onDesync(int frame);
+
+        // 연결이 끊겼다. 상대가 끊었으면 error 가 null 이다
+        void onDisconnected(IOException error);
+    }
+
+    private final OnlineConnection connection;
+    private final GameLoop gameLoop;
+    private final GameLoop simulationLoop;
+    private final GameLoop.Ticker ticker;
+    private final Listener listener;
+    private final int localIndex;
+    private final int remoteIndex;
+    private final GameController[] players;
+    private final IntQueue pendingInputs; // 아직 프레임에 싣지 않은 내 입력
+    private BlockRandomizer randomizer; // 두 보드의 덱을 채우므로 보드와 같이 되돌린다
+
+    // 플레이어마다 프레임 입력을 frame % HISTORY 자리에 둔다
+    private final int[][][] frameInputs;
+    private final int[][] frameInputCounts;
+    private final int[] confirmedFrames; // 입력이 정해진 프레임 수 (내 것은 보낸 프레임 수)
+    private final int[] localChecksums;
+    private final int[] localChecksumFrames;
+    private final int[] remoteChecksums;
+    private final int[] remoteChecksumFrames;
+
+    // frame 을 두기 전의 상태를 frame % SNAPSHOTS 자리에 둔다
+    private final GameSnapshot[][] snapshots;
+    private final long[] randomizerStates;
+
+    private long seed;
+    private int gameMode;
+    private int itemFrequency;
+    private int frame; // 다음에 둘 프레임
+    private int syncedFrame; // 이 앞의 프레임은 확정되어 다시 두지 않는다
+    private int rollbackFrame; // 예측이 틀린 가장 앞 프레임, 없으면 -1
+    private int rollbacks;
+    private int owedFrames; // 실제 시간보다 늦은 프레임 수
+    private int inputDelay;
+    private boolean isStarted;
+    private boolean isPlaying;
+    private boolean isFinished;
+    private boolean isPeerClosed; // 상대가 끊었어도 받은 입력까지는 둔다
+
+    RollbackSession(OnlineConnection connection, GameLoop gameLoop, Listener listener) {
+        this.connection = connection;
+        this.gameLoop = gameLoop;
+        this.listener = listener;
+        simulationLoop = new GameLoop(System::nanoTime, false);
+        ticker = this::tick;
+        localIndex = connection.isHost() ? HOST : GUEST;
+        remoteIndex = 1 - localIndex;
+        players = new GameController[2];
+        pendingInputs = new IntQueue();
+        frameInputs = new int[2][HISTORY][OnlineConnection.MAX_FRAME_INPUTS];
+        frameInputCounts = new int[2][HISTORY];
+        confirmedFrames = new int[2];
+        localChecksums = new int[HISTORY];
+        localChecksumFrames = new int[HISTORY];
+        remoteChecksums = new int[HISTORY];
+        remoteChecksumFrames = new int[HISTORY];
+        Arrays.fill(localChecksumFrames, -1);
+        Arrays.fill(remoteChecksumFrames, -1);
+        snapshots = new GameSnapshot[2][SNAPSHOTS];
+        for (GameSnapshot[] playerSnapshots : snapshots)
+            for (int i = 0; i < SNAPSHOTS; i++)
+                playerSnapshots[i] = new GameSnapshot();
+        randomizerStates = new long[SNAPSHOTS];
+        rollbackFrame = -1;
+    }
+
+    // 방을 만든 쪽은 상대가 들어오면 이 seed 와 모드로 시작하자고 보낸다
+    void setMatch(long seed, int gameMode, int itemFrequency) {
+        this.seed = seed;
+        this.gameMode = gameMode;
+        this.itemFrequency = itemFrequency;
+    }
+
+    // 내 입력을 frames 프레임 늦게 둔다. 조금 늦추면 상대 화면에서 되돌리는 프레임이 줄어든다
+    void setInputDelay(int frames) {
+        inputDelay = Math.max(0, Math.min(MAX_INPUT_DELAY, frames));
+    }
+
+    int getInputDelay() {
+        return inputDelay;
+    }
+
+    // 연결을 기다리기 시작한다
+    void open() {
+        gameLoop.register(ticker);
+    }
+
+    /*
+     * local 을 내 보드로, remote 를 상대 보드로 쓰고 randomizer 로 두 덱을 채운다. startGame 전에 불러야 한다.
+     * 두 보드를 simulationLoop 로 옮기고, 내 키는 바로 두지 않고 프레임에 싣는다. 상대 보드는 키를 받지 않는다.
+     */
+    void attach(GameController local, GameController remote, BlockRandomizer randomizer) {
+        players[localIndex] = local;
+        players[remoteIndex] = remote;
+        this.randomizer = randomizer;
+        for (GameController player : players) {
+            player.setGameLoop(simulationLoop);
+            player.setGameOverDeferred(true);
+        }
+        local.setInputQueue(this::queueInput);
+        remote.setInputQueue(input -> {
+        });
+        isStarted = true;
+        isPlaying = true;
+    }
+
+    // 내 입력 하나를 다음에 둘 프레임에 싣는다
+    void queueInput(int input) {
+        if (isPlaying)
+            pendingInputs.add(input);
+    }
+
+    /*
+     * 예측한 프레임을 버리고 마지막으로 확정된 프레임의 보드로 되돌린다.
+     * 시간 제한이 끝나 점수를 비교할 때처럼 두 화면이 같은 보드를 보아야 하면 onFrame 에서 부른다.
+     */
+    void rewind() {
+        if (frame == syncedFrame)
+            return;
+        restore(syncedFrame);
+        frame = syncedFrame;
+        rollbackFrame = -1;
+    }
+
+    // 게임이 끝났거나 그만둔다. 보낸 프레임은 보낸 뒤에 끊는다
+    void finish() {
+        if (isFinished)
+            return;
+        isFinished = true;
+        isPlaying = false;
+        gameLoop.unregister(ticker);
+        connection.close();
+    }
+
+    boolean isHost() {
+        return localIndex == HOST;
+    }
+
+    boolean isStarted() {
+        return isStarted;
+    }
+
+    boolean isPlaying() {
+        return isPlaying;
+    }
+
+    int getFrame() {
+        return frame;
+    }
+
+    int getSyncedFrame() {
+        return syncedFrame;
+    }
+
+    // 예측이 틀려 되돌린 횟수
+    int getRollbacks() {
+        return rollbacks;
+    }
+
+    /* 게임 루프 */
+
+    private void tick(int interval) {
+        connection.poll(this);
+        if (!isPlaying)
+            return;
+        if (rollbackFrame >= 0)
+            rollback();
+        confirm();
+        if (owedFrames < MAX_CATCH_UP)
+            owedFrames++;
+        while (isPlaying && owedFrames > 0 && canPredict()) {
+            owedFrames--;
+            sendFrames();
+            advance();
+        }
+        confirm();
+        if (isPlaying && isPeerClosed && syncedFrame == confirmedFrames[remoteIndex]) {
+            finish();
+            listener.onDisconnected(null);
+        }
+    }
+
+    // 게임오버가 된 프레임은 확정될 때까지 더 두지 않는다
+    private boolean canPredict() {
+        return frame - syncedFrame < MAX_PREDICTION && !isEnded();
+    }
+
+    private boolean isEnded() {
+        return players[HOST].engine.isGameEnd || players[GUEST].engine.isGameEnd;
+    }
+
+    // 지금 프레임보다 inputDelay 앞의 프레임까지 내 입력을 보낸다
+    private void sendFrames() {
+        while (confirmedFrames[localIndex] <= frame + inputDelay) {
+            int slot = confirmedFrames[localIndex] % HISTORY;
+            int count = Math.min(pendingInputs.size(), OnlineConnection.MAX_FRAME_INPUTS);
+            for (int i = 0; i < count; i++)
+                frameInputs[localIndex][slot][i] = pendingInputs.poll();
+            frameInputCounts[localIndex][slot] = count;
+            connection.sendFrame(count, frameInputs[localIndex][slot]);
+            confirmedFrames[localIndex]++;
+        }
+    }
+
+    private void advance() {
+        save(frame);
+        simulate(frame);
+        frame++;
+    }
+
+    // 예측이 틀린 프레임으로 되돌리고 지금 프레임까지 다시 둔다
+    private void rollback() {
+        int target = frame;
+        restore(rollbackFrame);
+        frame = rollbackFrame;
+        rollbackFrame = -1;
+        rollbacks++;
+        while (frame < target && !isEnded())
+            advance();
+    }
+
+    private void save(int savedFrame) {
+        int slot = savedFrame % SNAPSHOTS;
+        for (int player = HOST; player <= GUEST; player++)
+            players[player].save(snapshots[player][slot]);
+        randomizerStates[slot] = randomizer.getState();
+    }
+
+    private void restore(int savedFrame) {
+        int slot = savedFrame % SNAPSHOTS;
+        for (int player = HOST; player <= GUEST; player++)
+            players[player].restore(snapshots[player][slot]);
+        randomizer.setState(randomizerStates[slot]);
+    }
+
+    // 두 사람의 입력을 HOST 부터 두고 tick 하나를 보낸다. 아직 오지 않은 입력은 없다고 본다
+    private void simulate(int simulated) {
+        int slot = simulated % HISTORY;
+        for (int player = HOST; player <= GUEST; player++) {
+            if (simulated >= confirmedFrames[player])
+                continue;
+            int[] inputs = frameInputs[player][slot];
+            for (int i = 0; i < frameInputCounts[player][slot]; i++)
+                players[player].applyInput(inputs[i]);
+        }
+        simulationLoop.step();
+        localChecksums[slot] = checksum();
+    }
+
+    private int checksum() {
+        return players[HOST].engine.checksum() * 31 + players[GUEST].engine.checksum();
+    }
+
+    // 두 사람 입력이 다 온 프레임을 확정하고 checksum 을 보낸다. 확정된 보드가 게임오버면 끝낸다
+    private void confirm() {
+        while (isPlaying && syncedFrame < frame && syncedFrame < confirmedFrames[remoteIndex]) {
+            int slot = syncedFrame % HISTORY;
+            localChecksumFrames[slot] = syncedFrame;
+            connection.sendChecksum(syncedFrame, localChecksums[slot]);
+            int confirmed = syncedFrame++;
+            if (!checkSync(slot))
+                return;
+            listener.onFrame(confirmed);
+        }
+        if (isPlaying && syncedFrame == frame && isEnded()) {
+            GameController loser = players[HOST].engine.isGameEnd ? players[HOST] : players[GUEST];
+            loser.doAfterGameOver();
+            finish();
+        }
+    }
+
+    // slot 의 두 checksum 이 모두 있고 다르면 어긋난 것으로 보고 끝낸다
+    private boolean checkSync(int slot) {
+        int checkedFrame = localChecksumFrames[slot];
+        if (checkedFrame < 0 || checkedFrame != remoteChecksumFrames[slot]
+                || localChecksums[slot] == remoteChecksums[slot])
+            return true;
+        finish();
+        listener.onDesync(checkedFrame);
+        return false;
+    }
+
+    /* OnlineConnection.Handler */
+
+    @Override
+    public void onConnected() {
+        if (!connection.isHost())
+            return;
+        connection.sendStart(seed, gameMode, itemFrequency);
+        listener.onStart(seed, gameMode, itemFrequency);
+    }
+
+    @Override
+    public void onStart(long seed, int gameMode, int itemFrequency) {
+        setMatch(seed, gameMode, itemFrequency);
+        listener.onStart(seed, gameMode, itemFrequency);
+    }
+
+    @Override
+    public void onFrame(int count, int[] inputs) {
+        if (isFinished)
+            return;
+        int remoteFrame = confirmedFrames[remoteIndex];
+        if (remoteFrame - syncedFrame >= HISTORY) {
+            finish();
+            listener.onDisconnected(new IOException("상대 입력이 " + HISTORY + " 프레임 넘게 앞섰습니다"));
+            return;
+        }
+        int slot = remoteFrame % HISTORY;
+        System.arraycopy(inputs, 0, frameInputs[remoteIndex][slot], 0, count);
+        frameInputCounts[remoteIndex][slot] = count;
+        confirmedFrames[remoteIndex]++;
+        // 이미 입력 없이 둔 프레임에 입력이 있었으면 그 프레임부터 다시 둔다
+        if (count > 0 && remoteFrame < frame && (rollbackFrame < 0 || remoteFrame < rollbackFrame))
+            rollbackFrame = remoteFrame;
+    }
+
+    @Override
+    public void onChecksum(int frame, int checksum) {
+        if (isFinished || frame < 0)
+            return;
+        int slot = frame % HISTORY;
+        remoteChecksums[slot] = checksum;
+        remoteChecksumFrames[slot] = frame;
+        checkSync(slot);
+    }
+
+    @Override
+    public void onClosed(IOException error) {
+        if (isFinished)
+            return;
+        if (isPlaying && error == null) {
+            isPeerClosed = true; // 끊기 전에 보낸 프레임으로 게임이 끝나는지 마저 둔다
+            return;
+        }
+        finish();
+        listener.onDisconnected(error);
+    }
+
+    // 메시지마다 객체를 만들지 않도록 int 를 그대로 담는 원형 큐
+    static class IntQueue {
+        private int[] values = new int[1024];
+        private int head;
+        private int size;
+
+        void add(int value) {
+            if (size == values.length) {
+                int[] larger = Arrays.copyOf(values, values.length * 2);
+                System.arraycopy(values, 0, larger, values.length, head);
+                values = larger;
+            }
+            values[(head + size++) % values.length] = value;
+        }
+
+        int poll() {
+            int value = values[head];
+            head = (head + 1) % values.length;
+            size--;
+            return value;
+        }
+
+        boolean isEmpty() {
+            return size == 0;
+        }
+
+        int size() {
+            return size;
+        }
+    }
+}
@@ -0,0 +1,242 @@
+package tetris.controller;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.util.*;
+import java.util.List;
+
+import com.google.gson.*;
+import com.google.gson.reflect.TypeToken;
+
+import tetris.model.Player;
+
+/*
+ * 점수 기록을 한 줄에 하나씩 덧붙이는 JSON lines 로그.
+ * {"name":"abc","score":300,"difficulty":"easy"}
+ * {"reset":true}                          <- 점수 초기화. 이 줄 앞의 기록은 죽은 기록이 된다
+ *
+ * 점수 하나를 저장할 때는 파일 끝에 한 줄만 쓰므로 기록이 아무리 많아도 저장 비용이 같다.
+ * 살아 있는 기록은 모두 메모리의 Leaderboard 에 넣어 난이도와 모드별 랭킹과 등수를 바로 찾는다.
+ * 죽은 기록과 쓰다 만 줄이 살아 있는 기록보다 많아지면 살아 있는 기록만 새 파일에 옮겨 쓰고 바꿔치기한다(compact).
+ *
+ * 로그는 DataDirectory 에 두고, 로그가 없고 예전 위치에 Score.json 이 있으면 처음 load 할 때 그 내용을 로그로 옮긴다.
+ */
+class ScoreStore {
+
+    static final String LOG_FILE = "Score.jsonl";
+    static final String LEGACY_FILE = "Score.json";
+    static final int RANKING_SIZE = 10;
+    static final int COMPACT_MIN_DEAD = 1000; // 이보다 적게 쌓였으면 compact 하지 않는다
+    static final String EMPTY_NAME = "없음"; // PlayerController 가 빈 순위를 채우는 이름
+    private static final String RESET_KEY = "reset";
+
+    private final Path logPath;
+    private final Path legacyPath;
+    private final Gson gson;
+    private final Leaderboard leaderboard;
+    private int liveRecords;
+    private int deadLines; // 초기화로 죽은 기록과 읽지 못한 줄
+    private long liveStartLine; // 마지막 초기화 다음 줄. compact 는 여기서부터 옮긴다
+    private long lineCount;
+    private boolean isMissingNewline; // 쓰다 만 줄로 끝나면 다음 기록 앞에 줄바꿈을 넣는다
+
+    ScoreStore(Path logPath, Path legacyPath) {
+        this.logPath = logPath;
+        this.legacyPath = legacyPath;
+        gson = new Gson();
+        leaderboard = new Leaderboard();
+    }
+
+    ScoreStore(DataDirectory dataDirectory) {
+        this(dataDirectory.resolve(LOG_FILE), dataDirectory.resolveLegacy(LEGACY_FILE));
+    }
+
+    ScoreStore() {
+        this(DataDirectory.getInstance());
+    }
+
+    /* 읽기 */
+
+    // 로그를 처음부터 읽어 leaderboard 를 다시 만든다
+    void load() throws IOException {
+        leaderboard.clear();
+        liveRecords = 0;
+        deadLines = 0;
+        liveStartLine = 0;
+        lineCount = 0;
+        isMissingNewline = false;
+        if (!Files.exists(logPath)) {
+            importLegacy();
+            return;
+        }
+        try (BufferedReader reader = Files.newBufferedReader(logPath, StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                lineCount++;
+                readLine(line);
+            }
+        }
+        isMissingNewline = !endsWithNewline();
+        if (needsCompaction())
+            compact();
+    }
+
+    private void readLine(String line) {
+        JsonObject object = parse(line);
+        if (object == null) {
+            deadLines++;
+        } else if (object.has(RESET_KEY)) {
+            deadLines += liveRecords + 1;
+            liveRecords = 0;
+            liveStartLine = lineCount;
+            leaderboard.clear();
+        } else {
+            liveRecords++;
+            leaderboard.add(gson.fromJson(object, Player.class));
+        }
+    }
+
+    // 기록 한 줄. 쓰다 만 줄이나 빈 줄이면 null
+    private JsonObject parse(String line) {
+        if (line.isEmpty())
+            return null;
+        try {
+            JsonElement element = JsonParser.parseString(line);
+            if (!element.isJsonObject())
+                return null;
+            JsonObject object = element.getAsJsonObject();
+            if (!object.has(RESET_KEY) && !object.has("score"))
+                return null;
+            return object;
+        } catch (JsonParseException | IllegalStateException e) {
+            return null;
+        }
+    }
+
+    private boolean endsWithNewline() throws IOException {
+        try (FileChannel channel = FileChannel.open(logPath, StandardOpenOption.READ)) {
+            if (channel.size() == 0)
+                return true;
+            ByteBuffer last = ByteBuffer.allocate(1);
+            channel.read(last, channel.size() - 1);
+            return last.get(0) == '\n';
+        }
+    }
+
+    // 예전 Score.json 의 기록을 로그로 옮긴다. 빈 순위를 채우던 기록은 버린다.
+    private void importLegacy() throws IOException {
+        if (legacyPath == null || !Files.exists(legacyPath))
+            return;
+        List<Player> players;
+        try (Reader reader = Files.newBufferedReader(legacyPath, StandardCharsets.UTF_8)) {
+            players = gson.fromJson(reader, TypeToken.getParameterized(ArrayList.class, Player.class).getType());
+        } catch (JsonParseException e) {
+            throw new IOException("cannot read " + legacyPath + ": " + e.getMessage());
+        }
+        if (players == null)
+            return;
+        for (Player player : players) {
+            if (player != null && !EMPTY_NAME.equals(player.getDifficulty()))
+                append(player);
+        }
+    }
+
+    /* 쓰기 */
+
+    // 파일 끝에 한 줄을 덧붙이고 leaderboard 에 넣는다
+    void append(Player player) throws IOException {
+        appendLine(gson.toJson(player));
+        liveRecords++;
+        leaderboard.add(player);
+    }
+
+    // 점수를 모두 지운다. 지금까지의 기록은 다음 compact 때 파일에서도 사라진다.
+    void clear() throws IOException {
+        JsonObject reset = new JsonObject();
+        reset.addProperty(RESET_KEY, true);
+        appendLine(gson.toJson(reset));
+        deadLines += liveRecords + 1;
+        liveRecords = 0;
+        liveStartLine = lineCount;
+        leaderboard.clear();
+        if (needsCompaction())
+            compact();
+    }
+
+    private void appendLine(String json) throws IOException {
+        if (logPath.getParent() != null)
+            Files.createDirectories(logPath.getParent());
+        String line = (isMissingNewline ? "\n" : "") + json + "\n";
+        try (Writer writer = Files.newBufferedWriter(logPath, StandardCharsets.UTF_8, StandardOpenOption.CREATE,
+                StandardOpenOption.APPEND)) {
+            writer.write(line);
+        }
+        isMissingNewline = false; // 끝나지 않은 줄은 load 에서 이미 한 줄로 셌다
+        lineCount++;
+    }
+
+    boolean needsCompaction() {
+        return deadLines >= COMPACT_MIN_DEAD && deadLines > liveRecords;
+    }
+
+    // 살아 있는 기록만 옆 파일에 옮겨 쓰고 로그와 바꿔치기한다. 도중에 멈춰도 원래 로그는 그대로 남는다.
+    void compact() throws IOException {
+        if (!Files.exists(logPath))
+            return;
+        Path temp = DataDirectory.tempFile(logPath);
+        long kept = 0;
+        try (BufferedReader reader = Files.newBufferedReader(logPath, StandardCharsets.UTF_8);
+                FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                        StandardOpenOption.TRUNCATE_EXISTING);
+                Writer writer = new BufferedWriter(
+                        Channels.newWriter(channel, StandardCharsets.UTF_8.newEncoder(), -1))) {
+            String line;
+            for (long i = 0; (line = reader.readLine()) != null; i++) {
+                if (i < liveStartLine)
+                    continue;
+                JsonObject object = parse(line);
+                if (object == null || object.has(RESET_KEY))
+                    continue;
+                writer.write(line);
+                writer.write('\n');
+                kept++;
+            }
+            writer.flush();
+            channel.force(true);
+        }
+        DataDirectory.replace(temp, logPath);
+        lineCount = kept;
+        liveRecords = (int) kept;
+        deadLines = 0;
+        liveStartLine = 0;
+        isMissingNewline = false;
+    }
+
+    /* 랭킹 */
+
+    // 모든 난이도와 모드를 합쳐 점수가 높은 순으로 최대 RANKING_SIZE 개
+    List<Player> getRanking() {
+        return leaderboard.top(RANKING_SIZE);
+    }
+
+    List<Player> getRanking(String difficulty, String gameMode) {
+        return leaderboard.top(difficulty, gameMode, RANKING_SIZE);
+    }
+
+    // 같은 난이도와 모드에서 score 가 몇 위인지
+    int getRank(String difficulty, String gameMode, int score) {
+        return leaderboard.rank(difficulty, gameMode, score);
+    }
+
+    int getRecordCount() {
+        return liveRecords;
+    }
+
+    int getDeadLines() {
+        return deadLines;
+    }
+}
@@ -0,0 +1,282 @@
+package tetris.controller;
+
+import java.io.*;
+import java.net.InetSocketAddress;
+import java.net.StandardSocketOptions;
+import java.nio.ByteBuffer;
+import java.nio.channels.*;
+import java.util.Random;
+
+/*
+ * 루프백에서 GameServer 하나에 흉내 낸 클라이언트를 붙여 판을 끝까지 두고 matches/s 와 tick 시간을 재는 명령줄 러너.
+ * ./gradlew serverBenchmark --args="--matches 500 --speed 50 --threads 4"
+ *
+ * 클라이언트는 스레드 하나가 Selector 로 모두 돌린다. STATE 를 받으면 임의의 이동 하나와 DROP_DOWN 을 보내므로
+ * 서버의 tick 이 빨라지면 클라이언트의 입력도 같이 빨라진다. 밀린 STATE 를 한꺼번에 읽으면 마지막 것에만 답한다.
+ * --invalid-every N 이면 N 번째 입력마다 없는 입력을 섞어 서버가 거절하는지 본다.
+ */
+public class ServerBenchmark {
+
+    static final int DEFAULT_MATCHES = 200;
+    static final double DEFAULT_SPEED = 50;
+    static final long DEFAULT_TIMEOUT = 600; // s
+    static final int INVALID_INPUT = 0x7F;
+
+    private static final String USAGE = "usage: serverBenchmark [--matches N] [--threads N] [--speed X] [--seed N]"
+            + " [--mode normal|item] [--invalid-every N] [--timeout s]";
+
+    final GameServer.Options options;
+    int matches;
+    int invalidEvery;
+    long timeout;
+
+    ServerBenchmark() {
+        options = new GameServer.Options();
+        options.port = 0;
+        options.speed = DEFAULT_SPEED;
+        options.seed = 0;
+        matches = DEFAULT_MATCHES;
+        invalidEvery = 0;
+        timeout = DEFAULT_TIMEOUT;
+    }
+
+    public static void main(String[] args) throws IOException, InterruptedException {
+        ServerBenchmark benchmark;
+        try {
+            benchmark = parse(args);
+        } catch (IllegalArgumentException e) {
+            System.err.println(e.getMessage());
+            System.err.println(USAGE);
+            return;
+        }
+        benchmark.run().print();
+    }
+
+    static ServerBenchmark parse(String[] args) {
+        ServerBenchmark benchmark = new ServerBenchmark();
+        for (int i = 0; i < args.length; i++) {
+            String option = args[i];
+            if (i + 1 >= args.length)
+                throw new IllegalArgumentException("missing value for " + option);
+            String value = args[++i];
+            try {
+                switch (option) {
+                    case "--matches":
+                        benchmark.matches = Integer.parseInt(value);
+                        break;
+                    case "--threads":
+                        benchmark.options.threads = Integer.parseInt(value);
+                        break;
+                    case "--speed":
+                        benchmark.options.speed = Double.parseDouble(value);
+                        if (benchmark.options.speed <= 0)
+                            throw new IllegalArgumentException("speed must be positive: " + value);
+                        break;
+                    case "--seed":
+                        benchmark.options.seed = Long.parseLong(value);
+                        break;
+                    case "--mode":
+                        benchmark.options.gameMode = GameServer.parseGameMode(value);
+                        break;
+                    case "--invalid-every":
+                        benchmark.invalidEvery = Integer.parseInt(value);
+                        break;
+                    case "--timeout":
+                        benchmark.timeout = Long.parseLong(value);
+                        break;
+                    default:
+                        throw new IllegalArgumentException("unknown option " + option);
+                }
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("bad number for " + option + ": " + value);
+            }
+        }
+        return benchmark;
+    }
+
+    Report run() throws IOException, InterruptedException {
+        try (GameServer server = GameServer.start(options)) {
+            long startTime = System.nanoTime();
+            SimulatedClients clients = new SimulatedClients(server.getLocalPort(), matches * ServerMatch.PLAYERS,
+                    options.seed, invalidEvery);
+            clients.run(timeout * 1000);
+            return new Report(clients, server.getStats(), System.nanoTime() - startTime);
+        }
+    }
+
+    static class Report {
+        final SimulatedClients clients;
+        final GameServer.Stats stats;
+        final long elapsedNanos;
+
+        Report(SimulatedClients clients, GameServer.Stats stats, long elapsedNanos) {
+            this.clients = clients;
+            this.stats = stats;
+            this.elapsedNanos = elapsedNanos;
+        }
+
+        void print() {
+            stats.print(elapsedNanos);
+            System.out.printf("%d of %d clients ended (%d wins, %d draws), %d states, %d attacks, %d rejects%n",
+                    clients.ended, clients.count, clients.wins, clients.draws, clients.states, clients.attacks,
+                    clients.rejects);
+        }
+    }
+
+    /* 흉내 낸 클라이언트 */
+
+    static class SimulatedClients {
+        final int port;
+        final int count;
+        final Random random;
+        final int invalidEvery;
+        // 받은 메시지 수. run 이 끝난 뒤에 읽는다
+        int ended;
+        int wins;
+        int draws;
+        long states;
+        long attacks;
+        long rejects;
+
+        private Selector selector;
+        private long sentInputs;
+
+        SimulatedClients(int port, int count, long seed, int invalidEvery) {
+            this.port = port;
+            this.count = count;
+            this.random = new Random(seed);
+            this.invalidEvery = invalidEvery;
+        }
+
+        private static class Client {
+            final SocketChannel channel;
+            final ByteBuffer readBuffer = ByteBuffer.allocate(1024);
+            final ByteBuffer outbox = ByteBuffer.allocate(1024); // 쓰는 중인 상태로 둔다
+            int player = -1;
+
+            Client(SocketChannel channel) {
+                this.channel = channel;
+            }
+        }
+
+        // 모든 클라이언트가 END 를 받거나 timeout 이 지날 때까지 돌린다
+        void run(long timeout) throws IOException {
+            selector = Selector.open();
+            try {
+                for (int i = 0; i < count; i++) {
+                    SocketChannel channel = SocketChannel.open();
+                    channel.configureBlocking(false);
+                    channel.setOption(StandardSocketOptions.TCP_NODELAY, true);
+                    Client client = new Client(channel);
+                    client.outbox.put((byte) GameServer.HELLO).put((byte) GameServer.PROTOCOL_VERSION);
+                    channel.register(selector, SelectionKey.OP_CONNECT, client);
+                    channel.connect(new InetSocketAddress("localhost", port));
+                }
+                long deadline = System.nanoTime() + timeout * 1_000_000;
+                while (ended < count) {
+                    long left = (deadline - System.nanoTime()) / 1_000_000;
+                    if (left <= 0)
+                        break;
+                    selector.select(this::process, left);
+                }
+            } finally {
+                for (SelectionKey key : selector.keys())
+                    key.channel().close();
+                selector.close();
+            }
+        }
+
+        private void process(SelectionKey key) {
+            Client client = (Client) key.attachment();
+            try {
+                if (key.isConnectable()) {
+                    if (!client.channel.finishConnect())
+                        return;
+                    key.interestOps(SelectionKey.OP_READ);
+                    flush(client, key);
+                    return;
+                }
+                if (key.isReadable())
+                    read(client, key);
+                if (key.isValid() && key.isWritable())
+                    flush(client, key);
+            } catch (IOException e) {
+                // 서버가 끊었다. END 를 받지 못했어도 끝난 것으로 센다
+                key.cancel();
+                ended++;
+            }
+        }
+
+        private void read(Client client, SelectionKey key) throws IOException {
+            ByteBuffer buffer = client.readBuffer;
+            if (client.channel.read(buffer) < 0)
+                throw new EOFException();
+            buffer.flip();
+            boolean isStateReceived = false;
+            while (buffer.hasRemaining()) {
+                int position = buffer.position();
+                int type = buffer.get(position) & 0xFF;
+                int length = GameServer.messageLength(type);
+                if (length < 0)
+                    throw new IOException("알 수 없는 메시지 " + type);
+                if (buffer.remaining() < length)
+                    break;
+                buffer.position(position + length);
+                switch (type) {
+                    case GameServer.START:
+                        client.player = buffer.get(position + 11);
+                        break;
+                    case GameServer.STATE:
+                        states++;
+                        isStateReceived = true;
+                        break;
+                    case GameServer.ATTACK:
+                        attacks++;
+                        break;
+                    case GameServer.REJECT:
+                        rejects++;
+                        break;
+                    case GameServer.END:
+                        int winner = buffer.get(position + 1) & 0xFF;
+                        if (winner == GameServer.NO_WINNER)
+                            draws++;
+                        else if (winner == client.player)
+                            wins++;
+                        ended++;
+                        key.cancel();
+                        client.channel.close();
+                        return;
+                    default:
+                        throw new IOException("서버가 보내지 않는 메시지 " + type);
+                }
+            }
+            buffer.compact();
+            if (isStateReceived)
+                sendMove(client);
+            flush(client, key);
+        }
+
+        // 임의의 이동 하나와 DROP_DOWN
+        private void sendMove(Client client) {
+            if (client.outbox.remaining() < 3)
+                return;
+            client.outbox.put((byte) (GameServer.INPUT + 2)).put((byte) nextInput(random.nextInt(3)))
+                    .put((byte) nextInput(GameEngine.DROP_DOWN));
+        }
+
+        private int nextInput(int input) {
+            sentInputs++;
+            return invalidEvery > 0 && sentInputs % invalidEvery == 0 ? INVALID_INPUT : input;
+        }
+
+        private void flush(Client client, SelectionKey key) throws IOException {
+            if (client.outbox.position() == 0)
+                return;
+            client.outbox.flip();
+            client.channel.write(client.outbox);
+            boolean isPending = client.outbox.hasRemaining();
+            client.outbox.compact();
+            key.interestOps(isPending ? SelectionKey.OP_READ | SelectionKey.OP_WRITE : SelectionKey.OP_READ);
+        }
+    }
+}
@@ -0,0 +1,212 @@
+package tetris.controller;
+
+import java.util.List;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+/*
+ * 서버가 두는 대전 한 판. Swing 없이 GameEngine 두 개로 두고, 클라이언트는 입력만 보낸다.
+ *
+ *   입력   네트워크 스레드가 offerInputs 로 넣는다. 입력 종류가 아니거나 너무 많이 밀리면 받지 않고 onReject.
+ *          1 초 동안 MAX_REJECTS 번보다 많이 거절당하면 서버가 연결을 끊는다
+ *          tick 마다 한 사람의 입력을 MAX_INPUTS_PER_TICK 개까지만 두므로 입력을 몰아 보내도 빨라지지 않는다
+ *   중력   tick 마다 GameLoop.TICK_INTERVAL 을 더해 engine.delay 가 지나면 engine.step
+ *   공격줄 두 엔진이 서로 상대이므로 엔진이 바로 쌓고, 쌓인 만큼 받은 사람에게 onAttack 으로 알린다
+ *   끝     한 사람이 게임오버가 되거나 나가면 상대가 이긴다. MAX_TICKS 가 지나면 점수로 정한다
+ *
+ * tick 은 서버의 작업 스레드 하나에서만 불리고, offerInputs 와 forfeit 는 네트워크 스레드에서 불린다.
+ */
+class ServerMatch {
+
+    static final int PLAYERS = 2;
+    static final int DRAW = -1;
+    static final int MAX_INPUTS_PER_TICK = OnlineConnection.MAX_FRAME_INPUTS;
+    static final int MAX_PENDING_INPUTS = 64; // 한 사람이 밀어 둘 수 있는 입력 수
+    static final int MAX_REJECTS = 100; // REJECT_WINDOW 동안 이보다 많이 거절당하면 연결을 끊는다
+    static final int REJECT_WINDOW = 1000 / GameLoop.TICK_INTERVAL; // 1 초
+    static final int STATE_INTERVAL = 10; // tick
+    static final int MAX_TICKS = 10 * 60 * 1000 / GameLoop.TICK_INTERVAL; // 10 분
+
+    interface Listener {
+        // STATE_INTERVAL tick 마다 player 보드의 점수와 checksum
+        void onState(int player, int tick, int score, int checksum);
+
+        // player 에게 공격줄 lines 개가 쌓였다
+        void onAttack(int player, int lines);
+
+        // player 가 보낸 input 을 두지 않았다
+        void onReject(int player, int input);
+
+        // 판이 끝났다. 무승부면 winner 가 DRAW
+        void onEnd(int winner);
+    }
+
+    private final Listener listener;
+    private final GameEngine[] engines;
+    private final BlockRandomizer randomizer;
+    private final RollbackSession.IntQueue[] pendingInputs; // 플레이어마다 자기 큐로 잠근다
+    private final AtomicIntegerArray rejects; // 이번 REJECT_WINDOW 에 거절한 입력 수
+    private final int[] gravityElapsed;
+    private volatile int forfeited = -1; // 나간 플레이어
+    private volatile boolean isEnded;
+    private int tick;
+    volatile ScheduledFuture<?> future; // 서버가 판을 돌리는 작업. 끝난 뒤 다음 차례에 취소한다
+
+    ServerMatch(long seed, int gameMode, int itemFrequency, Listener listener) {
+        this.listener = listener;
+        randomizer = new BlockRandomizer(seed);
+        engines = new GameEngine[PLAYERS];
+        pendingInputs = new RollbackSession.IntQueue[PLAYERS];
+        rejects = new AtomicIntegerArray(PLAYERS);
+        gravityElapsed = new int[PLAYERS];
+        for (int p = 0; p < PLAYERS; p++) {
+            engines[p] = createEngine(p);
+            pendingInputs[p] = new RollbackSession.IntQueue();
+        }
+        engines[0].setOpponent(engines[1]);
+        engines[1].setOpponent(engines[0]);
+        List<Integer> blocks = randomizer.nextBlocks(GameEngine.NORMAL_MODE);
+        for (GameEngine engine : engines) {
+            engine.setBitBoardMode(true);
+            engine.setItemSeed(randomizer.getItemSeed());
+            engine.setItemFreqency(itemFrequency);
+            engine.startGame(GameEngine.NORMAL_MODE, gameMode, blocks);
+        }
+    }
+
+    // MultiGameController 의 대전 보드처럼 공격줄을 올리고 두 덱을 같은 블록으로 채운다
+    private GameEngine createEngine(int player) {
+        return new GameEngine() {
+            @Override
+            public void doBeforeTakeOutNextBlock() {
+                if (attackLines > 0)
+                    underAttack();
+                if (blockDeque.isEmpty()) {
+                    List<Integer> blocks = randomizer.nextBlocks(GameEngine.NORMAL_MODE);
+                    blockDeque.addAll(blocks);
+                    engines[1 - player].blockDeque.addAll(blocks);
+                }
+            }
+        };
+    }
+
+    /*
+     * player 의 입력 count 개를 다음 tick 부터 둔다. 거절한 입력마다 onReject 를 부른다.
+     * 이번 REJECT_WINDOW 의 거절이 MAX_REJECTS 를 넘으면 false 를 돌려주고, 서버는 그 연결을 끊는다.
+     */
+    boolean offerInputs(int player, int count, int[] inputs) {
+        RollbackSession.IntQueue queue = pendingInputs[player];
+        for (int i = 0; i < count; i++) {
+            int input = inputs[i];
+            boolean isAccepted = false;
+            if (!isEnded && input >= GameEngine.MOVE_LEFT && input <= GameEngine.DROP_DOWN) {
+                synchronized (queue) {
+                    if (queue.size() < MAX_PENDING_INPUTS) {
+                        queue.add(input);
+                        isAccepted = true;
+                    }
+                }
+            }
+            if (!isAccepted) {
+                rejects.incrementAndGet(player);
+                listener.onReject(player, input);
+            }
+        }
+        return rejects.get(player) <= MAX_REJECTS;
+    }
+
+    // player 가 나갔다. 다음 tick 에 상대가 이긴다
+    void forfeit(int player) {
+        if (forfeited < 0)
+            forfeited = player;
+    }
+
+    boolean isEnded() {
+        return isEnded;
+    }
+
+    int getTick() {
+        return tick;
+    }
+
+    GameEngine getEngine(int player) {
+        return engines[player];
+    }
+
+    // 아직 두지 않은 player 의 입력 수
+    int getPendingInputs(int player) {
+        RollbackSession.IntQueue queue = pendingInputs[player];
+        synchronized (queue) {
+            return queue.size();
+        }
+    }
+
+    // 한 tick 을 둔다. 끝났으면 아무것도 하지 않는다
+    void tick() {
+        if (isEnded)
+            return;
+        if (forfeited >= 0) {
+            end(1 - forfeited);
+            return;
+        }
+        for (int p = 0; p < PLAYERS; p++) {
+            GameEngine opponent = engines[1 - p];
+            int attackLines = opponent.attackLines;
+            applyInputs(p);
+            tickGravity(p);
+            if (opponent.attackLines > attackLines)
+                listener.onAttack(1 - p, opponent.attackLines - attackLines);
+        }
+        tick++;
+        if (tick % REJECT_WINDOW == 0) {
+            for (int p = 0; p < PLAYERS; p++)
+                rejects.set(p, 0);
+        }
+        if (engines[0].isGameEnd() || engines[1].isGameEnd()) {
+            // 같은 tick 에 둘 다 끝나면 비긴다
+            end(engines[0].isGameEnd() == engines[1].isGameEnd() ? DRAW : engines[0].isGameEnd() ? 1 : 0);
+            return;
+        }
+        if (tick % STATE_INTERVAL == 0) {
+            for (int p = 0; p < PLAYERS; p++)
+                listener.onState(p, tick, engines[p].getScore(), engines[p].checksum());
+        }
+        if (tick >= MAX_TICKS) {
+            int score0 = engines[0].getScore();
+            int score1 = engines[1].getScore();
+            end(score0 == score1 ? DRAW : score0 > score1 ? 0 : 1);
+        }
+    }
+
+    private void applyInputs(int player) {
+        RollbackSession.IntQueue queue = pendingInputs[player];
+        for (int i = 0; i < MAX_INPUTS_PER_TICK; i++) {
+            int input;
+            synchronized (queue) {
+                if (queue.isEmpty())
+                    return;
+                input = queue.poll();
+            }
+            engines[player].applyInput(input);
+        }
+    }
+
+    private void tickGravity(int player) {
+        gravityElapsed[player] += GameLoop.TICK_INTERVAL;
+        if (gravityElapsed[player] < engines[player].delay)
+            return;
+        gravityElapsed[player] = 0;
+        engines[player].step();
+    }
+
+    // tick 이 예외로 멈춘 판을 비긴 것으로 끝낸다. 이미 끝났으면 아무것도 하지 않는다
+    void abort() {
+        if (!isEnded)
+            end(DRAW);
+    }
+
+    private void end(int winner) {
+        isEnded = true;
+        listener.onEnd(winner);
+    }
+}
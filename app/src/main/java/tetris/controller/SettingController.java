@@ -13,12 +13,23 @@ import tetris.model.Setting;
 
 public class SettingController {
 
+    static final String SETTING_FILE = "Setting.json";
+
     private Setting setting;
+    private boolean isChanged; // loadSettingLater 가 끝나기 전에 설정을 바꿔 저장했는지
     private final Logger log = Logger.getGlobal();
+    private final DataDirectory dataDirectory;
+    private final PersistenceExecutor persistence;
+    private final Gson gson = new GsonBuilder().setPrettyPrinting().create();
 
     public SettingController() {
+        this(DataDirectory.getInstance(), PersistenceExecutor.getInstance());
+    }
+
+    SettingController(DataDirectory dataDirectory, PersistenceExecutor persistence) {
+        this.dataDirectory = dataDirectory;
+        this.persistence = persistence;
         initSetting();
-        loadSetting();
     }
 
     private void initSetting() {
@@ -42,40 +53,73 @@ public class SettingController {
         }
     }
 
+    /*
+     * 지금 설정을 JSON 으로 떠 두고 쓰기는 PersistenceExecutor 에 맡긴다.
+     * 아직 쓰지 않은 저장이 있으면 그것을 이번 내용으로 바꾸므로 키를 연달아 바꿔도 한 번만 쓴다.
+     * 임시 파일에 쓰고 바꿔치기하므로 실패해도 예전 설정 파일은 남는다.
+     */
     public void saveSetting() {
-        try (Writer sw = new OutputStreamWriter(
-                new FileOutputStream("src/main/java/tetris/data/Setting.json"),
-                StandardCharsets.UTF_8)) {
-            Gson gson = new GsonBuilder().setPrettyPrinting().create();
-            gson.toJson(setting, sw);
-
+        isChanged = true;
+        byte[] json = gson.toJson(setting).getBytes(StandardCharsets.UTF_8);
+        persistence.writeBehind(SETTING_FILE, () -> {
+            dataDirectory.write(SETTING_FILE, json);
+            return null;
+        }, (result, error) -> {
+            if (error != null)
+                JOptionPane.showMessageDialog(new JFrame(), "setting.json파일을 저장하는데 실패하였습니다.",
+                        "File cannot save error", JOptionPane.ERROR_MESSAGE);
+        });
+    }
+
+    // 설정 파일을 바로 읽는다 (도구와 테스트용)
+    public void loadSetting() {
+        try {
+            applyLoaded(persistence.call(() -> dataDirectory.read(SETTING_FILE)));
         } catch (IOException e) {
-            log.warning(e.toString());
-            JOptionPane.showMessageDialog(new JFrame(), "setting.json파일을 저장하는데 실패하였습니다.",
-                    "File cannot save error", JOptionPane.ERROR_MESSAGE);
-            System.exit(0);
+            showLoadError();
         }
     }
 
-    public void loadSetting() {
-        while (true) {
-            try (Reader br = new BufferedReader(new InputStreamReader(
-                    new FileInputStream("src/main/java/tetris/data/Setting.json"),
-                    StandardCharsets.UTF_8))) {
-                Gson gson = new GsonBuilder().setPrettyPrinting().create();
-                setting = gson.fromJson(br, Setting.class);
-                break;
-
-            } catch (FileNotFoundException | NullPointerException e) {
-                saveSetting();
-            } catch (IOException e) {
-                JOptionPane.showMessageDialog(new JFrame(), "setting.json파일을 불러오는데 실패하였습니다.",
-                        "File Not Found error", JOptionPane.ERROR_MESSAGE);
-                System.exit(0);
+    /*
+     * 시작할 때 창이 파일을 기다리지 않게 설정 파일을 EDT 밖에서 읽고 EDT 에서 적용한 뒤 onLoaded 를 부른다.
+     * 그 사이 설정을 바꿔 저장했으면 읽은 값으로 덮어쓰지 않는다.
+     */
+    public void loadSettingLater(Runnable onLoaded) {
+        persistence.submit(() -> dataDirectory.read(SETTING_FILE), (json, error) -> {
+            if (error != null) {
+                showLoadError();
+                return;
             }
+            if (isChanged)
+                return;
+            applyLoaded(json);
+            onLoaded.run();
+        });
+    }
+
+    // 설정 파일이 없거나 깨졌으면 기본 설정을 저장해 두고 쓴다
+    private void applyLoaded(byte[] json) {
+        Setting loaded = null;
+        try {
+            if (json != null)
+                loaded = gson.fromJson(new String(json, StandardCharsets.UTF_8), Setting.class);
+        } catch (JsonParseException e) {
+            log.warning("setting.json 을 읽지 못해 기본 설정을 씁니다: " + e.getMessage());
+        }
+        if (loaded == null) {
+            initSetting();
+            saveSetting();
+        } else {
+            setting = loaded;
         }
     }
 
+    private void showLoadError() {
+        JOptionPane.showMessageDialog(new JFrame(), "setting.json파일을 불러오는데 실패하였습니다.",
+                "File Not Found error", JOptionPane.ERROR_MESSAGE);
+        System.exit(0);
+    }
+
     public Setting getSetting() {
         return setting;
     }
@@ -100,6 +144,14 @@ public class SettingController {
         setting.setColorBlindMode(colorBlindMode);
     }
 
+    public boolean isBoardCanvasMode() {
+        return setting.isBoardCanvasMode();
+    }
+
+    public void setBoardCanvasMode(boolean boardCanvasMode) {
+        setting.setBoardCanvasMode(boardCanvasMode);
+    }
+
     public int getMoveLeftKey() {
         return setting.getMoveLeftKey();
     }
@@ -107,7 +159,6 @@ public class SettingController {
     public void setMoveLeftKey(int moveLeftKey) {
         setting.setMoveLeftKey(moveLeftKey);
         saveSetting();
-        loadSetting();
     }
 
     public int getMoveRightKey() {
@@ -117,7 +168,6 @@ public class SettingController {
     public void setMoveRightKey(int moveDownKey) {
         setting.setMoveRightKey(moveDownKey);
         saveSetting();
-        loadSetting();
     }
 
     public int getMoveDownKey() {
@@ -127,7 +177,6 @@ public class SettingController {
     public void setMoveDownKey(int moveDownKey) {
         setting.setMoveDownKey(moveDownKey);
         saveSetting();
-        loadSetting();
     }
 
     public int getRotateKey() {
@@ -137,7 +186,6 @@ public class SettingController {
     public void setRotateKey(int rotateKey) {
         setting.setRotateKey(rotateKey);
         saveSetting();
-        loadSetting();
     }
 
     public int getStackKey() {
@@ -147,7 +195,6 @@ public class SettingController {
     public void setStackKey(int stackKey) {
         setting.setStackKey(stackKey);
         saveSetting();
-        loadSetting();
     }
 
     public int getMoveLeft2Key() {
@@ -157,7 +204,6 @@ public class SettingController {
     public void setMoveLeft2Key(int moveLeft2Key) {
         setting.setMoveLeft2Key(moveLeft2Key);
         saveSetting();
-        loadSetting();
     }
 
     public int getMoveRight2Key() {
@@ -167,7 +213,6 @@ public class SettingController {
     public void setMoveRight2Key(int moveDown2Key) {
         setting.setMoveRight2Key(moveDown2Key);
         saveSetting();
-        loadSetting();
     }
 
     public int getMoveDown2Key() {
@@ -177,7 +222,6 @@ public class SettingController {
     public void setMoveDown2Key(int moveDown2Key) {
         setting.setMoveDown2Key(moveDown2Key);
         saveSetting();
-        loadSetting();
     }
 
     public int getRotate2Key() {
@@ -187,7 +231,6 @@ public class SettingController {
     public void setRotate2Key(int rotate2Key) {
         setting.setRotate2Key(rotate2Key);
         saveSetting();
-        loadSetting();
     }
 
     public int getStack2Key() {
@@ -197,6 +240,5 @@ public class SettingController {
     public void setStack2Key(int stack2Key) {
         setting.setStack2Key(stack2Key);
         saveSetting();
-        loadSetting();
     }
 }
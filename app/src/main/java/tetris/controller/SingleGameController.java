@@ -3,8 +3,10 @@ package tetris.controller;
 import javax.swing.*;
 import javax.swing.Timer;
 import java.awt.event.*;
+import java.io.IOException;
 import java.util.*;
 import java.util.List;
+import java.util.logging.Logger;
 import java.awt.*;
 
 import tetris.model.*;
@@ -35,11 +37,19 @@ public class SingleGameController {
     protected int gameMode;
     protected int gameTime;
     protected List<Integer> randomBlockList;
+    protected BlockRandomizer blockRandomizer; // 이번 판의 블록 순서와 아이템 난수를 정한다
+    protected long matchSeed;
+    protected boolean isSeedFixed; // setMatchSeed 로 정했으면 새 판에서도 같은 seed 를 쓴다
+    protected Replay replay; // 이번 판의 녹화
+    protected GameController[] replayPlayers; // replay 의 player 순서대로 녹화 중인 플레이어
+    protected Replay finishedReplay; // 마지막으로 끝난 판의 녹화. 랭킹에 올리기 전에 다시 두어 확인한다
 
     public SingleGameController(PlayerController playerController, ViewController viewController) {
         diffMode = 0;
         gameMode = 0;
         randomBlockList = new ArrayList<>();
+        matchSeed = BlockRandomizer.newSeed();
+        blockRandomizer = new BlockRandomizer(matchSeed);
         this.playerController = playerController;
         this.viewController = viewController;
         this.gameView = GameView.getInstance();
@@ -55,6 +65,7 @@ public class SingleGameController {
                 singleGameFocusing) {
             @Override
             public void doAfterGameOver() {
+                saveReplay();
                 gamePlayer.endGame();
                 gameTimer.stop();
                 gameView.setGameOver();
@@ -75,6 +86,8 @@ public class SingleGameController {
             }
         };
 
+        gamePlayer.setBoardCanvas(gameView.getSinglePlayerGameBoardCanvas());
+
         gameView.getGameOverLabel().addKeyListener(new KeyAdapter() {
             @Override
             public void keyPressed(KeyEvent e) {
@@ -87,14 +100,17 @@ public class SingleGameController {
     protected void startSingleGame(Setting setting) {
         this.setting = setting;
         isSingleGameModeFlag = true;
+        gameView.setBoardCanvasMode(setting.isBoardCanvasMode());
         gamePlayer.loadSetting(setting);
         gamePlayer.setPlayerKeys(setting.getRotateKey(), setting.getMoveDownKey(), setting.getMoveLeftKey(),
                 setting.getMoveRightKey(), setting.getStackKey());
 
+        startMatch();
+        gamePlayer.engine.setItemSeed(blockRandomizer.getItemSeed());
         generateBlockRandomizer(diffMode);
+        startReplay(diffMode, gamePlayer);
         resoultion = gameView.getWidth() * gameView.getHeight();
         gameView.getGameOverLabel().setPreferredSize(new Dimension(gameView.getWidth(), gameView.getHeight()));
-        System.out.println(resoultion);
         gamePlayer.startGame(diffMode, gameMode, randomBlockList, resoultion);
         gamePane.requestFocus(true);
         gamePlayer.setDeleteLines(gameView.getSingleLinesLabel());
@@ -104,6 +120,49 @@ public class SingleGameController {
         startTimer(gameView.getSingleGameDisplayTimeLabel(), singleTimeLabel);
     }
 
+    // 판마다 seed 를 새로 정하고 블록 생성기를 다시 만든다
+    protected void startMatch() {
+        if (!isSeedFixed)
+            matchSeed = BlockRandomizer.newSeed();
+        blockRandomizer = new BlockRandomizer(matchSeed);
+    }
+
+    // players 의 입력을 순서대로 player 0, 1 로 녹화하기 시작한다
+    protected void startReplay(int diffMode, GameController... players) {
+        replay = new Replay(matchSeed, diffMode, gameMode, players[0].engine.itemFreqency, players.length);
+        replayPlayers = players;
+        for (int i = 0; i < players.length; i++)
+            players[i].setReplay(replay, i);
+        replay.start(players[0].gameLoop.getTicks());
+    }
+
+    // 녹화를 멈추고 각 플레이어의 결과를 적어 Replay.REPLAY_DIR 에 저장한다. 저장에 실패해도 게임 진행은 막지 않는다.
+    protected void saveReplay() {
+        if (replay == null)
+            return;
+        for (int i = 0; i < replayPlayers.length; i++) {
+            replayPlayers[i].setReplay(null, 0);
+            replay.setResult(i, replayPlayers[i].getScore(), replayPlayers[i].engine.getDeleteLines());
+        }
+        finishedReplay = replay;
+        try {
+            replay.saveToReplayDir();
+        } catch (IOException e) {
+            Logger.getGlobal().warning("리플레이 저장에 실패하였습니다: " + e.getMessage());
+        }
+        replay = null;
+    }
+
+    // 같은 판을 다시 두려면 seed 를 정한다
+    public void setMatchSeed(long matchSeed) {
+        this.matchSeed = matchSeed;
+        isSeedFixed = true;
+    }
+
+    public long getMatchSeed() {
+        return matchSeed;
+    }
+
     protected void setDiffMode(int diffMode) {
         this.diffMode = diffMode;
     }
@@ -122,55 +181,39 @@ public class SingleGameController {
 
     // 유저 저장 메소드
     protected void saveUserName() {
-        String difficulty = "normal";
+        String difficulty = toDifficultyName(diffMode);
+        String mode = PlayerController.toGameModeName(gameMode);
+        String userName = gameView.getInputName().getText();
+        // 다시 두어 확인하고 저장하는 일은 백그라운드에서 하고, 끝나면 랭킹을 채운다
+        playerController.addVerifiedPlayerLater(userName, difficulty, mode, finishedReplay,
+                saved -> showRanking(difficulty, mode, userName, saved));
+        gameView.resetGameView();
+    }
+
+    private static String toDifficultyName(int diffMode) {
         if (diffMode == GameController.EASY_MODE)
-            difficulty = "easy";
+            return "easy";
         else if (diffMode == GameController.HARD_MODE)
-            difficulty = "hard";
-        String userName = gameView.getInputName().getText();
-        playerController.addPlayer(userName, gamePlayer.score, difficulty);
-        playerController.savePlayerList();
-        playerController.loadPlayerList();
+            return "hard";
+        return "normal";
+    }
+
+    // 방금 한 난이도와 모드의 랭킹과 등수를 보여준다
+    private void showRanking(String difficulty, String mode, String userName, PlayerController.SavedScore saved) {
         scoreView.resetRankingPane();
         scoreView.resetRankingList();
-
-        playerController.getPlayerList()
-                .forEach(player -> scoreView.addRankingList(new ArrayList<>(Arrays.asList(player.getName(),
-                        Integer.toString(player.getScore()), player.getDifficulty()))));
+        String title = "Ranking (" + difficulty + ", " + mode + ")";
+        if (saved.isAdded)
+            title += " - " + saved.rank + "위";
+        scoreView.getRankingTitle().setText(title);
+        saved.ranking.forEach(player -> scoreView.addRankingList(new ArrayList<>(Arrays.asList(player.getName(),
+                Integer.toString(player.getScore()), player.getDifficulty(), player.getGameMode()))));
         scoreView.fillScoreBoard(userName);
-        gameView.resetGameView();
     }
 
     protected void generateBlockRandomizer(int mode) {
-        int jBlock = Block.JBLOCK_IDENTIFY_NUMBER;
-        int lBlock = Block.LBLOCK_IDENTIFY_NUMBER;
-        int zBlock = Block.ZBLOCK_IDENTIFY_NUMBER;
-        int sBlock = Block.SBLOCK_IDENTIFY_NUMBER;
-        int tBlock = Block.TBLOCK_IDENTIFY_NUMBER;
-        int oBlock = Block.OBLOCK_IDENTIFY_NUMBER;
-        int iBlock = Block.IBLOCK_IDENTIFY_NUMBER;
-
         randomBlockList.clear();
-        for (int i = 0; i < 4; i++) {
-            List<Integer> blockList = Arrays.asList(jBlock, lBlock, zBlock, sBlock, tBlock, oBlock, iBlock);
-            Collections.shuffle(blockList);
-            randomBlockList.addAll(blockList);
-        }
-
-        // easy mode
-        if (mode == GameController.EASY_MODE) {
-            List<Integer> blockList = Arrays.asList(jBlock, lBlock, zBlock, sBlock, tBlock, oBlock, iBlock);
-            Collections.shuffle(blockList);
-            randomBlockList.addAll(blockList);
-            randomBlockList.add(iBlock);
-        }
-
-        // hard mode
-        else if (mode == GameController.HARD_MODE) {
-            List<Integer> blockList = Arrays.asList(jBlock, lBlock, zBlock, sBlock, tBlock, oBlock);
-            Collections.shuffle(blockList);
-            randomBlockList.addAll(blockList);
-        }
+        randomBlockList.addAll(blockRandomizer.nextBlocks(mode));
     }
 
     protected void startTimer(JLabel timeDescribtion, JLabel timeLabel) {
@@ -219,11 +262,7 @@ public class SingleGameController {
     }
 
     protected void showMode() {
-        String difficulty = "normal";
-        if (diffMode == GameController.EASY_MODE)
-            difficulty = "easy";
-        else if (diffMode == GameController.HARD_MODE)
-            difficulty = "hard";
+        String difficulty = toDifficultyName(diffMode);
         String mode = "일반 모드";
         if (gameMode == GameController.ITEM_GAME_MODE)
             mode = "아이템모드";
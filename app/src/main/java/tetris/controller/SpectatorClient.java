@@ -0,0 +1,228 @@
+package tetris.controller;
+
+import java.io.*;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.*;
+
+/*
+ * GameServer 의 판 하나를 보는 관전 클라이언트. 같은 판에 관전자 여럿을 붙여 fan-out 을 볼 수도 있다.
+ * ./gradlew spectator --args="--port 19020 --match 0 --viewers 100"
+ *
+ * 관전자마다 SpectatorFeed.Replica 에 BOARD 를 덮어 두 보드를 다시 만들고,
+ * 프레임에 실린 서버 보드의 hash 와 맞는지 프레임마다 본다. END 를 받으면 끝난다.
+ * 관전자는 스레드 하나가 Selector 로 모두 돌린다.
+ */
+public class SpectatorClient {
+
+    static final int DEFAULT_VIEWERS = 1;
+    static final long DEFAULT_TIMEOUT = 600; // s
+
+    private static final int READ_BUFFER_SIZE = 64 * 1024;
+
+    private static final String USAGE = "usage: spectator [--host name] [--port N] [--match N] [--viewers N]"
+            + " [--timeout s]";
+
+    String host;
+    int port;
+    int match;
+    int viewers;
+    long timeout;
+
+    // 관전자 하나
+    static class Viewer {
+        final SocketChannel channel;
+        final ByteBuffer readBuffer = ByteBuffer.allocate(READ_BUFFER_SIZE);
+        final ByteBuffer outbox = ByteBuffer.allocate(GameServer.messageLength(GameServer.WATCH));
+        final SpectatorFeed.Replica replica = new SpectatorFeed.Replica();
+        long bytes; // 받은 BOARD 바이트
+        int winner = -1;
+        boolean isEnded;
+
+        Viewer(SocketChannel channel) {
+            this.channel = channel;
+        }
+    }
+
+    Viewer[] viewerList = new Viewer[0];
+    private Selector selector;
+    private int ended;
+
+    SpectatorClient() {
+        host = "localhost";
+        port = GameServer.DEFAULT_PORT;
+        match = 0;
+        viewers = DEFAULT_VIEWERS;
+        timeout = DEFAULT_TIMEOUT;
+    }
+
+    public static void main(String[] args) throws IOException {
+        SpectatorClient client;
+        try {
+            client = parse(args);
+        } catch (IllegalArgumentException e) {
+            System.err.println(e.getMessage());
+            System.err.println(USAGE);
+            return;
+        }
+        client.connect();
+        client.run();
+        client.print();
+    }
+
+    static SpectatorClient parse(String[] args) {
+        SpectatorClient client = new SpectatorClient();
+        for (int i = 0; i < args.length; i++) {
+            String option = args[i];
+            if (i + 1 >= args.length)
+                throw new IllegalArgumentException("missing value for " + option);
+            String value = args[++i];
+            try {
+                switch (option) {
+                    case "--host":
+                        client.host = value;
+                        break;
+                    case "--port":
+                        client.port = Integer.parseInt(value);
+                        break;
+                    case "--match":
+                        client.match = Integer.parseInt(value);
+                        break;
+                    case "--viewers":
+                        client.viewers = Integer.parseInt(value);
+                        break;
+                    case "--timeout":
+                        client.timeout = Long.parseLong(value);
+                        break;
+                    default:
+                        throw new IllegalArgumentException("unknown option " + option);
+                }
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("bad number for " + option + ": " + value);
+            }
+        }
+        return client;
+    }
+
+    // 관전자를 모두 접속시키고 WATCH 를 보낸다. 접속은 run 이 마친다
+    void connect() throws IOException {
+        selector = Selector.open();
+        viewerList = new Viewer[viewers];
+        for (int i = 0; i < viewers; i++) {
+            SocketChannel channel = SocketChannel.open();
+            channel.configureBlocking(false);
+            Viewer viewer = new Viewer(channel);
+            viewer.outbox.put((byte) GameServer.WATCH).put((byte) GameServer.PROTOCOL_VERSION).putInt(match);
+            viewerList[i] = viewer;
+            channel.register(selector, SelectionKey.OP_CONNECT, viewer);
+            channel.connect(new InetSocketAddress(host, port));
+        }
+    }
+
+    // 모든 관전자가 END 를 받거나 끊기거나 timeout 이 지날 때까지 돌린다
+    void run() throws IOException {
+        try {
+            long deadline = System.nanoTime() + timeout * 1_000_000_000;
+            while (ended < viewerList.length) {
+                long left = (deadline - System.nanoTime()) / 1_000_000;
+                if (left <= 0)
+                    break;
+                selector.select(this::process, left);
+            }
+        } finally {
+            for (SelectionKey key : selector.keys())
+                key.channel().close();
+            selector.close();
+        }
+    }
+
+    private void process(SelectionKey key) {
+        Viewer viewer = (Viewer) key.attachment();
+        try {
+            if (key.isConnectable()) {
+                if (!viewer.channel.finishConnect())
+                    return;
+                key.interestOps(SelectionKey.OP_READ);
+                flush(viewer, key);
+                return;
+            }
+            if (key.isReadable())
+                read(viewer, key);
+            if (key.isValid() && key.isWritable())
+                flush(viewer, key);
+        } catch (IOException e) {
+            // 서버가 끊었다. END 를 받지 못한 관전자로 남는다
+            key.cancel();
+            ended++;
+        }
+    }
+
+    private void read(Viewer viewer, SelectionKey key) throws IOException {
+        ByteBuffer buffer = viewer.readBuffer;
+        if (viewer.channel.read(buffer) < 0)
+            throw new EOFException();
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            int position = buffer.position();
+            int type = buffer.get(position) & 0xFF;
+            int length;
+            if (type == GameServer.BOARD) {
+                if (buffer.remaining() < SpectatorFeed.HEADER_LENGTH)
+                    break;
+                length = SpectatorFeed.HEADER_LENGTH + (buffer.getShort(position + 1) & 0xFFFF);
+            } else if (type == GameServer.END) {
+                length = GameServer.messageLength(type);
+            } else {
+                throw new IOException("관전자가 받지 않는 메시지 " + type);
+            }
+            if (buffer.remaining() < length)
+                break;
+            buffer.position(position + length);
+            if (type == GameServer.BOARD) {
+                viewer.bytes += length;
+                viewer.replica.apply(buffer, position);
+                continue;
+            }
+            viewer.winner = buffer.get(position + 1) & 0xFF;
+            viewer.isEnded = true;
+            ended++;
+            key.cancel();
+            viewer.channel.close();
+            return;
+        }
+        buffer.compact();
+    }
+
+    private void flush(Viewer viewer, SelectionKey key) throws IOException {
+        if (viewer.outbox.position() == 0)
+            return;
+        viewer.outbox.flip();
+        viewer.channel.write(viewer.outbox);
+        boolean isPending = viewer.outbox.hasRemaining();
+        viewer.outbox.compact();
+        key.interestOps(isPending ? SelectionKey.OP_READ | SelectionKey.OP_WRITE : SelectionKey.OP_READ);
+    }
+
+    void print() {
+        long frames = 0;
+        long keyframes = 0;
+        long bytes = 0;
+        long mismatches = 0;
+        int endedViewers = 0;
+        for (Viewer viewer : viewerList) {
+            frames += viewer.replica.frames;
+            keyframes += viewer.replica.keyframes;
+            mismatches += viewer.replica.mismatches;
+            bytes += viewer.bytes;
+            endedViewers += viewer.isEnded ? 1 : 0;
+        }
+        System.out.printf("%d of %d viewers saw match %d end, %d frames (%d keyframes), %d bytes (%.1f bytes/frame),"
+                + " %d mismatches%n", endedViewers, viewerList.length, match, frames, keyframes, bytes,
+                frames == 0 ? 0 : (double) bytes / frames, mismatches);
+        if (viewerList.length == 0)
+            return;
+        SpectatorFeed.Replica replica = viewerList[0].replica;
+        System.out.printf("tick %d, scores %d : %d, winner %s%n", replica.tick, replica.scores[0], replica.scores[1],
+                viewerList[0].winner == GameServer.NO_WINNER ? "draw" : String.valueOf(viewerList[0].winner));
+    }
+}
@@ -0,0 +1,159 @@
+package tetris.controller;
+
+import java.nio.ByteBuffer;
+
+/*
+ * 관전자에게 보내는 보드 프레임을 만든다. 판마다 하나를 두고 작업 스레드가 tick 마다 encode 를 부른다.
+ * 프레임은 한 번만 만들고 같은 바이트를 모든 관전자에게 보낸다.
+ *
+ * 지난 프레임과 달라진 칸만 보내고, KEYFRAME_INTERVAL 마다 또는 새 관전자가 들어오면 두 보드 전체를 보낸다.
+ * BOARD 메시지 (GameServer 의 0x1A)
+ *   머리    종류 1, 뒤따르는 길이 2
+ *   프레임  tick 4, flags 1 (KEYFRAME)
+ *   보드    플레이어마다 점수 4, visualBoard 의 hash 4, 바뀐 줄 mask 4 (줄 i 가 bit i)
+ *           바뀐 줄마다 바뀐 칸 mask 2 (칸 j 가 bit j), 바뀐 칸 값 1 바이트씩
+ * 칸 값은 Block 의 identify number 이므로 한 바이트에 들어간다.
+ * keyframe 은 MAX_FRAME_LENGTH (632 바이트) 이고 블록이 움직인 delta 는 대개 50 바이트 안팎이다.
+ */
+class SpectatorFeed {
+
+    // tick. TCP 라 빠지는 프레임은 없고 새 관전자는 바로 keyframe 을 받으므로 드물게 둔다
+    static final int KEYFRAME_INTERVAL = 5000 / GameLoop.TICK_INTERVAL; // 5 초
+    static final int KEYFRAME = 0x01;
+    static final int ROWS = GameEngine.BOARD_END_HEIGHT;
+    static final int COLUMNS = GameEngine.BOARD_WIDTH;
+    static final int HEADER_LENGTH = 3;
+    static final int MAX_FRAME_LENGTH = HEADER_LENGTH + 5 + ServerMatch.PLAYERS * (12 + ROWS * (2 + COLUMNS));
+
+    private final int[][][] sent = new int[ServerMatch.PLAYERS][ROWS][COLUMNS]; // 마지막으로 보낸 보드
+    private final int[] sentScores = new int[ServerMatch.PLAYERS];
+    private final ByteBuffer frame = ByteBuffer.allocate(MAX_FRAME_LENGTH);
+    private boolean hasSent;
+    private int nextKeyframeTick;
+    // 만든 프레임 수와 바이트. 작업 스레드만 쓴다
+    int keyframes;
+    int deltas;
+    long bytes;
+
+    /*
+     * engines 의 보드로 다음 프레임을 만든다. 바뀐 것이 없고 keyframe 차례도 아니면 null.
+     * 돌려준 버퍼는 다음 encode 에서 다시 쓰므로 그 전에 보낸다.
+     */
+    ByteBuffer encode(int tick, boolean isKeyframeForced, GameEngine... engines) {
+        boolean isKeyframe = isKeyframeForced || !hasSent || tick >= nextKeyframeTick;
+        frame.clear();
+        frame.put((byte) GameServer.BOARD).putShort((short) 0).putInt(tick).put((byte) (isKeyframe ? KEYFRAME : 0));
+        boolean isChanged = isKeyframe;
+        for (int p = 0; p < engines.length; p++)
+            isChanged |= encodeBoard(p, engines[p], isKeyframe);
+        if (!isChanged)
+            return null;
+        if (isKeyframe) {
+            keyframes++;
+            nextKeyframeTick = tick + KEYFRAME_INTERVAL;
+        } else {
+            deltas++;
+        }
+        hasSent = true;
+        frame.putShort(1, (short) (frame.position() - HEADER_LENGTH));
+        frame.flip();
+        bytes += frame.remaining();
+        return frame;
+    }
+
+    private boolean encodeBoard(int player, GameEngine engine, boolean isKeyframe) {
+        int[][] board = engine.visualBoard;
+        int[][] last = sent[player];
+        int score = engine.getScore();
+        frame.putInt(score).putInt(boardHash(board));
+        int maskPosition = frame.position();
+        frame.putInt(0);
+        int rowMask = 0;
+        for (int i = 0; i < ROWS; i++) {
+            int cellMask = 0;
+            for (int j = 0; j < COLUMNS; j++) {
+                if (isKeyframe || board[i][j] != last[i][j])
+                    cellMask |= 1 << j;
+            }
+            if (cellMask == 0)
+                continue;
+            rowMask |= 1 << i;
+            frame.putShort((short) cellMask);
+            for (int j = 0; j < COLUMNS; j++) {
+                if ((cellMask & 1 << j) != 0) {
+                    frame.put((byte) board[i][j]);
+                    last[i][j] = board[i][j];
+                }
+            }
+        }
+        frame.putInt(maskPosition, rowMask);
+        boolean isScoreChanged = score != sentScores[player];
+        sentScores[player] = score;
+        return rowMask != 0 || isScoreChanged;
+    }
+
+    // visualBoard 의 FNV-1a hash. 관전자가 다시 만든 보드가 서버의 보드와 같은지 본다
+    static int boardHash(int[][] board) {
+        int hash = 0x811C9DC5;
+        for (int i = 0; i < ROWS; i++) {
+            for (int j = 0; j < COLUMNS; j++)
+                hash = (hash ^ board[i][j]) * 0x01000193;
+        }
+        return hash;
+    }
+
+    /*
+     * 관전자가 프레임으로 다시 만드는 두 보드.
+     * 처음 keyframe 을 받기 전의 delta 는 덮어쓸 보드가 없으므로 건너뛴다.
+     */
+    static class Replica {
+        final int[][][] boards = new int[ServerMatch.PLAYERS][ROWS][COLUMNS];
+        final int[] scores = new int[ServerMatch.PLAYERS];
+        int tick = -1;
+        boolean isSynced;
+        int frames;
+        int keyframes;
+        int skipped; // keyframe 전에 받아 건너뛴 delta
+        int mismatches; // 다시 만든 보드의 hash 가 서버의 hash 와 다른 횟수
+
+        // message 의 position 에서 시작하는 BOARD 메시지 하나를 읽는다. 보드가 서버와 같으면 true
+        boolean apply(ByteBuffer message, int position) {
+            int offset = position + HEADER_LENGTH;
+            int frameTick = message.getInt(offset);
+            boolean isKeyframe = (message.get(offset + 4) & KEYFRAME) != 0;
+            offset += 5;
+            if (!isKeyframe && !isSynced) {
+                skipped++;
+                return false;
+            }
+            isSynced = true;
+            tick = frameTick;
+            frames++;
+            if (isKeyframe)
+                keyframes++;
+            boolean isMatched = true;
+            for (int p = 0; p < ServerMatch.PLAYERS; p++) {
+                int[][] board = boards[p];
+                scores[p] = message.getInt(offset);
+                int hash = message.getInt(offset + 4);
+                int rowMask = message.getInt(offset + 8);
+                offset += 12;
+                for (int i = 0; i < ROWS; i++) {
+                    if ((rowMask & 1 << i) == 0)
+                        continue;
+                    int cellMask = message.getShort(offset) & 0xFFFF;
+                    offset += 2;
+                    for (int j = 0; j < COLUMNS; j++) {
+                        if ((cellMask & 1 << j) != 0)
+                            board[i][j] = message.get(offset++) & 0xFF;
+                    }
+                }
+                if (boardHash(board) != hash) {
+                    mismatches++;
+                    isMatched = false;
+                }
+            }
+            return isMatched;
+        }
+    }
+}
@@ -4,7 +4,7 @@ import java.awt.*;
 import java.awt.event.*;
 import java.awt.Font;
 import javax.swing.*;
-import javax.swing.Timer;
+import java.io.IOException;
 import java.util.List;
 import java.util.*;
 
@@ -15,7 +15,6 @@ import tetris.view.MasterView.JLabel;
 
 public class ViewController extends JFrame {
 
-    public static final int REFRESH_RATE = 17; // 60FPS
     static final String OVERLAP_KEY_MSG = "키 중복!";
 
     private int currentResoultion;
@@ -30,7 +29,7 @@ public class ViewController extends JFrame {
     private transient InitGameViewKeyMap initGameViewKeyMap;
     private transient InitSettingViewMap initSettingViewMap;
     private transient List<Component> allComponents;
-    transient Timer refreshTimer;
+    transient RepaintScheduler repaintScheduler;
 
     boolean settingFlag;
 
@@ -50,6 +49,7 @@ public class ViewController extends JFrame {
         addEventListener();
         setMainKeyLabel();
         resizeViewFont();
+        settingController.loadSettingLater(this::applyLoadedSetting);
     }
 
     private void initViewAndController() {
@@ -57,12 +57,21 @@ public class ViewController extends JFrame {
         gameView = GameView.getInstance();
         scoreView = ScoreView.getInstance();
         settingView = SettingView.getInstance();
-        settingController = new SettingController();
         playerController = new PlayerController();
         multiGameController = new MultiGameController(playerController, this);
         allComponents = new LinkedList<>();
     }
 
+    // 창은 기본 설정으로 먼저 띄우고, 설정 파일을 다 읽으면 크기와 키를 그 값으로 다시 맞춘다
+    private void applyLoadedSetting() {
+        resizeJFrame();
+        initMainView();
+        initGameView();
+        initSettingView();
+        setMainKeyLabel();
+        resizeViewFont();
+    }
+
     private void initJFrame() {
         super.setTitle("Team 19 Tetris");
         super.setResizable(false); // 창의 크기 조정 가능 여부
@@ -84,6 +93,7 @@ public class ViewController extends JFrame {
         int fontSize = currentResoultion / 23040;
         allComponents.forEach(e -> e.setFont(new Font(GameView.BASIC_FONT_FAMILY, Font.BOLD, fontSize)));
         settingView.getIsColorBlindLabel().setFont(new Font(GameView.BASIC_FONT_FAMILY, Font.BOLD, fontSize));
+        settingView.getIsBoardCanvasLabel().setFont(new Font(GameView.BASIC_FONT_FAMILY, Font.BOLD, fontSize));
         mainView.getAppNameLabel().setFont(new Font(GameView.BASIC_FONT_FAMILY, Font.BOLD, fontSize * 3));
         mainView.getAllKeyLabel().setFont(new Font(GameView.BASIC_FONT_FAMILY, Font.BOLD, fontSize / 2));
     }
@@ -112,11 +122,7 @@ public class ViewController extends JFrame {
         contentPane.setLayout(new GridLayout(1, 0, 0, 0)); // Frame의 레이아웃 방식을 설정, row 1
         contentPane.add(mainView);
 
-        refreshTimer = new Timer(REFRESH_RATE, e -> {
-            super.revalidate();
-            super.repaint();
-        });
-        refreshTimer.start();
+        repaintScheduler = RepaintScheduler.getInstance();
         initMainView();
         initGameView();
         initSettingView();
@@ -147,6 +153,7 @@ public class ViewController extends JFrame {
         settingView.setDisplayComboBox(settingController.getDisplayList(),
                 settingController.getDisplayMode());
         settingView.setIsColorBlindBtn(settingController.isColorBlindMode());
+        settingView.setIsBoardCanvasBtn(settingController.isBoardCanvasMode());
 
         initSettingViewMap = new InitSettingViewMap(settingController.getSetting());
         initSettingViewMap.initAllKey();
@@ -154,12 +161,18 @@ public class ViewController extends JFrame {
         settingView.init2KeyLabels(up2Key, down2Key, left2Key, right2Key, stack2Key);
     }
 
+    // 점수 파일은 백그라운드에서 읽고 다 읽으면 랭킹을 채운다
     private void initScoreView() {
-        playerController.loadPlayerList();
+        playerController.loadPlayerListLater(this::fillRankingList);
+    }
+
+    private void fillRankingList() {
+        scoreView.getRankingTitle().setText("Ranking");
+        scoreView.resetRankingPane();
         scoreView.resetRankingList();
         playerController.getPlayerList().forEach(
                 player -> scoreView.addRankingList(new ArrayList<>(Arrays.asList(player.getName(),
-                        Integer.toString(player.getScore()), player.getDifficulty()))));
+                        Integer.toString(player.getScore()), player.getDifficulty(), player.getGameMode()))));
         scoreView.fillScoreBoard();
     }
 
@@ -258,8 +271,7 @@ public class ViewController extends JFrame {
         pane.add(to);
         pane.remove(from);
         focus(to);
-        super.revalidate(); // component 변화 후 JFrame 새로고침(component 변화 적용) */
-        super.repaint(); // component 변화 후 JFrame 새로고침(component 색 등의 성질 적용) */
+        repaintScheduler.markLayoutDirty(pane); // 다음 프레임에 바뀐 화면만 다시 배치하고 그린다
     }
 
     private void focus(Container to) {
@@ -480,6 +492,7 @@ public class ViewController extends JFrame {
                 transitView(gameView, gameView.getMulitiGameDisplayPane(), gameView.getSelectMultiGamePanel());
                 multiGameController.startRobotGame(settingController.getSetting());
             });
+            gameViewKeyMap.put(new KeyPair(stackKey, gameView.getOnlineGameBtn()), this::openOnlineGame);
 
             gameViewKeyMap.put(new KeyPair(stackKey, gameView.getGeneralModeBtn()), () -> {
                 multiGameController.setGameMode(GameController.GENERAL_GAME_MODE);
@@ -547,6 +560,7 @@ public class ViewController extends JFrame {
                         multiGameController.gamePlayer1.endGame();
                         multiGameController.gamePlayer2.endGame();
                         multiGameController.gameRobot.endGame();
+                        multiGameController.stopOnlineGame();
                         multiGameController.stopTimer();
 
                         gameView.resetGameView();
@@ -556,6 +570,33 @@ public class ViewController extends JFrame {
                     () -> System.exit(0));
         }
 
+        // 방을 만들지 참가할지 고른다. 게임 화면으로는 상대와 연결된 뒤에 넘어간다
+        private void openOnlineGame() {
+            Object[] options = { "방 만들기", "참가하기", "취소" };
+            int choice = JOptionPane.showOptionDialog(gameView, "온라인 대전", "Online", JOptionPane.DEFAULT_OPTION,
+                    JOptionPane.QUESTION_MESSAGE, null, options, options[0]);
+            try {
+                if (choice == 0) {
+                    multiGameController.hostOnlineGame(settingController.getSetting(), OnlineConnection.DEFAULT_PORT);
+                } else if (choice == 1) {
+                    String address = JOptionPane.showInputDialog(gameView, "상대 주소 (host:port)",
+                            "localhost:" + OnlineConnection.DEFAULT_PORT);
+                    if (address == null || address.trim().isEmpty())
+                        return;
+                    address = address.trim();
+                    int colon = address.lastIndexOf(':');
+                    String host = colon < 0 ? address : address.substring(0, colon);
+                    int port = colon < 0 ? OnlineConnection.DEFAULT_PORT : Integer.parseInt(address.substring(colon + 1));
+                    multiGameController.joinOnlineGame(settingController.getSetting(), host, port);
+                }
+            } catch (NumberFormatException e) {
+                JOptionPane.showMessageDialog(gameView, "포트 번호가 올바르지 않습니다.", "Online", JOptionPane.ERROR_MESSAGE);
+            } catch (IOException e) {
+                JOptionPane.showMessageDialog(gameView, "온라인 연결을 열 수 없습니다: " + e.getMessage(), "Online",
+                        JOptionPane.ERROR_MESSAGE);
+            }
+        }
+
         private void initOtherKeys() {
             gameViewKeyMap.put(new KeyPair(KeyEvent.VK_ENTER, gameView.getInputName()),
                     () -> {
@@ -574,11 +615,14 @@ public class ViewController extends JFrame {
                     });
             gameViewKeyMap.put(new KeyPair(KeyEvent.VK_ESCAPE, multiGameController.multiGameFocusing),
                     () -> {
-                        multiGameController.gamePlayer1.stopGame();
-                        multiGameController.gamePlayer2.stopGame();
-                        multiGameController.gameRobot.stopGame();
-                        multiGameController.robotController.stopRobot();
-                        multiGameController.gameTimer.stop();
+                        // 온라인 대전은 상대 화면도 같이 멈출 수 없으므로 메뉴만 연다
+                        if (multiGameController.multiMode != MultiGameController.ONLINE_MULTI_MODE) {
+                            multiGameController.gamePlayer1.stopGame();
+                            multiGameController.gamePlayer2.stopGame();
+                            multiGameController.gameRobot.stopGame();
+                            multiGameController.robotController.stopRobot();
+                            multiGameController.gameTimer.stop();
+                        }
                         gameView.setMultiStopPanel();
                         gameView.getContinueBtn().requestFocus();
                     });
@@ -714,6 +758,12 @@ public class ViewController extends JFrame {
                 settingController.setColorBlindMode(!isColorBlind);
                 settingController.saveSetting();
             });
+            settingViewKeyMap.put(new KeyPair(stackKey, settingView.getIsBoardCanvasBtn()), () -> {
+                boolean isBoardCanvas = settingController.isBoardCanvasMode();
+                settingView.setIsBoardCanvasBtn(!isBoardCanvas);
+                settingController.setBoardCanvasMode(!isBoardCanvas);
+                settingController.saveSetting();
+            });
             settingViewKeyMap.put(new KeyPair(stackKey, settingView.getSetDisplayBtn()), () -> {
                 displayComboBox.setFocusable(true);
                 displayComboBox.requestFocus();
@@ -747,6 +797,10 @@ public class ViewController extends JFrame {
                 settingView.setSettingBtnsFocusable(true);
                 settingView.getInitMenuBtn().requestFocus();
             });
+            settingViewKeyMap.put(new KeyPair(stackKey, settingView.getInitScoreBtn()), () -> {
+                playerController.resetPlayerList(ViewController.this::fillRankingList);
+                settingView.getReturnSettingToMainBtn().requestFocus();
+            });
             settingViewKeyMap.put(new KeyPair(stackKey, settingView.getInitSettingBtn()), () -> {
                 settingController.resetSetting();
                 initSettingView();
@@ -5,15 +5,15 @@ import java.util.*;
 
 public abstract class Block {
 
-    protected int[][] shape;
-    protected int[][] visualShape;
+    protected int[][] shape; // 하위 클래스는 기본 모양을 정한 뒤 initVisualShapeAndXYList 를 호출한다
     protected Color color;
     protected Color blindColor;
     protected int identifynumber;
     protected int attachItemID;
     protected int rotateCount;
-    protected List<int[]> coordiList;
-    protected int[] itemCoordinate;
+    protected RotationState[] rotations; // 같은 종류의 블록끼리 공유하는 회전 표
+    protected int rotation; // rotations 중 현재 상태의 인덱스
+    protected int itemPoint; // 아이템 칸의 기본 모양 기준 좌표 인덱스
     protected Random rnd = new Random();
     public static final int FIRST_ROTATE_STATE = 0;
     public static final int SECOND_ROTATE_STATE = 1;
@@ -47,102 +47,72 @@ public abstract class Block {
         attachItemID = -1;
         rotateCount = FIRST_ROTATE_STATE;
         initVisualShapeAndXYList(identifynumber);
-        itemCoordinate = new int[] { 0, 0 };
+        itemPoint = 0;
     }
 
     public void rotate() {
-        int length = shape.length;
-        int width = shape[0].length;
-
-        List<int[]> rotateCoordiList = new LinkedList<>();
-        coordiList.forEach(e -> rotateCoordiList.add(new int[] { length - 1 - e[1], e[0] }));
-        coordiList = rotateCoordiList;
-        itemCoordinate = new int[] { length - 1 - itemCoordinate[1], itemCoordinate[0] };
-        int[][] rotate = new int[width][length];
-        int[][] visualrotate = new int[width][length];
-        for (int row = 0; row < length; row++) {
-            for (int col = 0; col < width; col++) {
-                rotate[col][length - 1 - row] = shape[row][col];
-                visualrotate[col][length - 1 - row] = visualShape[row][col];
-            }
-        }
-        shape = rotate;
-        visualShape = visualrotate;
-        if (rotateCount != OBLOCK_ROTATE_STATE)
-            plusRotateCount();
-
+        setRotation(rotations[rotation].getNextIndex());
     }
 
-    private void plusRotateCount() {
-        int length = shape.length;
-        int width = shape[0].length;
-
-        rotateCount = (rotateCount + 1) % IBLOCK_FIRST_ROTATE_STATE;
-
-        // IBlock
-        if (Math.abs(width - length) > 2)
-            rotateCount += IBLOCK_FIRST_ROTATE_STATE;
+    private void setRotation(int rotation) {
+        this.rotation = rotation;
+        shape = rotations[rotation].getShape();
+        rotateCount = rotations[rotation].getRotateCount();
     }
 
     public void copyBlock(Block src) {
-        this.shape = copyShape(src.getShape());
-        this.visualShape = copyShape(src.getVisualShape());
+        this.rotations = src.rotations;
+        setRotation(src.rotation);
         this.color = src.getColor();
-        this.coordiList = src.getCoordiList();
         this.attachItemID = src.getAttachItemID();
-        this.itemCoordinate = new int[] { src.getItemCoordinate()[0], src.getItemCoordinate()[1] };
+        this.itemPoint = src.itemPoint;
         this.identifynumber = src.getIdentifynumber();
-        this.rotateCount = src.getRotateCount();
         this.blindColor = src.getBlindColor();
     }
 
-    private int[][] copyShape(int[][] shape) {
-        int length = shape.length;
-        int width = shape[0].length;
-        int[][] copyShape = new int[length][width];
-        for (int i = 0; i < shape.length; i++) {
-            copyShape[i] = Arrays.copyOf(shape[i], copyShape[i].length);
-        }
-        return copyShape;
+    protected void initVisualShapeAndXYList(int id) {
+        rotations = RotationState.of(id, shape, rotateCount);
+        setRotation(0);
     }
 
-    protected void initVisualShapeAndXYList(int id) {
-        int length = shape.length;
-        int width = shape[0].length;
-        coordiList = new LinkedList<>();
-        visualShape = new int[length][width];
-        for (int j = 0; j < length; j++) {
-            for (int i = 0; i < width; i++) {
-                if (shape[j][i] > 0) {
-                    visualShape[j][i] = id;
-                    coordiList.add(new int[] { i, j });
-                } else
-                    visualShape[j][i] = 0;
+    // 현재 회전 상태 기준 좌표로 아이템 칸을 정한다
+    protected void setItemCoordinate(int x, int y) {
+        RotationState state = rotations[rotation];
+        for (int i = 0; i < state.getPointCount(); i++) {
+            int[] point = state.getPoint(i);
+            if (point[0] == x && point[1] == y) {
+                itemPoint = i;
+                return;
             }
         }
     }
 
-    private void attachItem(int itemID) {
-        int[] index = coordiList.get(rnd.nextInt(coordiList.size()));
-        visualShape[index[1]][index[0]] = itemID;
-        itemCoordinate = new int[] { index[0], index[1] };
+    private void attachItem(int itemID, Random random) {
+        List<int[]> coordiList = getCoordiList();
+        int[] index = coordiList.get(random.nextInt(coordiList.size()));
+        setItemCoordinate(index[0], index[1]);
         attachItemID = itemID;
     }
 
     public void makeItemBlock() {
-        int randomNumber = rnd.nextInt(4);
+        makeItemBlock(rnd);
+    }
+
+    // 아이템 종류와 칸 위치를 random 으로 정한다. 판을 재현하려면 seed 를 정한 Random 을 넘긴다.
+    public void makeItemBlock(Random random) {
+        int randomNumber = random.nextInt(4);
         switch (randomNumber) {
             case 0:
                 copyBlock(new WeightBlock());
                 return;
             case 1:
-                attachItem(BOMBBLOCK_IDENTIFY_NUMBER);
+                attachItem(BOMBBLOCK_IDENTIFY_NUMBER, random);
                 return;
             case 2:
-                attachItem(ONELINEBLOCK_IDENTIFY_NUMBER);
+                attachItem(ONELINEBLOCK_IDENTIFY_NUMBER, random);
                 return;
             case 3:
-                attachItem(STUFF_BLOCK_IDENTIFY_NUMBER);
+                attachItem(STUFF_BLOCK_IDENTIFY_NUMBER, random);
                 return;
             default:
                 copyBlock(new WeightBlock());
@@ -150,27 +120,51 @@ public abstract class Block {
     }
 
     public int[][] getShape() {
-        return shape;
+        return rotations[rotation].getShape();
     }
 
     public int getShape(int x, int y) {
-        return shape[y][x];
+        return rotations[rotation].getShape()[y][x];
     }
 
+    // 아이템이 붙어 있으면 아이템 칸까지 반영한 새 배열을 돌려준다
     public int[][] getVisualShape() {
-        return visualShape;
+        int[][] visualShape = rotations[rotation].getVisualShape();
+        int[][] copy = new int[visualShape.length][];
+        for (int j = 0; j < visualShape.length; j++)
+            copy[j] = Arrays.copyOf(visualShape[j], visualShape[j].length);
+        if (attachItemID > 0) {
+            int[] item = getItemCoordinate();
+            copy[item[1]][item[0]] = attachItemID;
+        }
+        return copy;
     }
 
     public int getVisualShape(int x, int y) {
-        return visualShape[y][x];
+        if (attachItemID > 0) {
+            int[] item = getItemCoordinate();
+            if (item[0] == x && item[1] == y)
+                return attachItemID;
+        }
+        return rotations[rotation].getVisualShape()[y][x];
     }
 
     public List<int[]> getCoordiList() {
-        return this.coordiList;
+        return rotations[rotation].getCoordiList();
+    }
+
+    // 반환된 배열은 같은 종류의 블록끼리 공유하므로 수정하면 안 된다
+    public int[][] getCells() {
+        return rotations[rotation].getCells();
+    }
+
+    // 반환된 배열은 여러 블록이 공유하므로 수정하면 안 된다
+    public int[] getRowMasks() {
+        return rotations[rotation].getRowMasks();
     }
 
     public int[] getItemCoordinate() {
-        return this.itemCoordinate;
+        return rotations[rotation].getPoint(itemPoint);
     }
 
     public Color getColor() {
@@ -190,13 +184,11 @@ public abstract class Block {
     }
 
     public int getHeight() {
-        return shape.length;
+        return rotations[rotation].getHeight();
     }
 
     public int getWidth() {
-        if (shape.length > 0)
-            return shape[0].length;
-        return 0;
+        return rotations[rotation].getWidth();
     }
 
     public int getIdentifynumber() {
@@ -208,6 +200,6 @@ public abstract class Block {
     }
 
     public int getRotateCount() {
-        return rotateCount;
+        return rotations[rotation].getRotateCount();
     }
 }
@@ -2,14 +2,22 @@ package tetris.model;
 
 public class Player {
 
+    public static final String GENERAL_GAME_MODE = "general";
+
     private String name;
     private int score;
     private String difficulty;
+    private String gameMode;
 
     public Player(String name, int score, String difficulty) {
+        this(name, score, difficulty, GENERAL_GAME_MODE);
+    }
+
+    public Player(String name, int score, String difficulty, String gameMode) {
         this.name = name;
         this.score = score;
         this.difficulty = difficulty;
+        this.gameMode = gameMode;
     }
 
     public String getName() {
@@ -36,4 +44,13 @@ public class Player {
     public void setDifficulty(String difficulty) {
         this.difficulty = difficulty;
     }
+
+    // 게임 모드가 없던 예전 기록은 일반 모드로 본다
+    public String getGameMode() {
+        return this.gameMode == null ? GENERAL_GAME_MODE : this.gameMode;
+    }
+
+    public void setGameMode(String gameMode) {
+        this.gameMode = gameMode;
+    }
 }
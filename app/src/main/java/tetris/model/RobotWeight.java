@@ -0,0 +1,38 @@
+package tetris.model;
+
+public class RobotWeight {
+
+    private double aggHeights;
+    private double bumpiness;
+    private double holes;
+    private double completeLines;
+    private double fitness; // 튜닝할 때 얻은 한 판 평균 삭제줄 수 (소수 부분은 낮게 남긴 보드의 보너스)
+
+    public RobotWeight(double aggHeights, double bumpiness, double holes, double completeLines, double fitness) {
+        this.aggHeights = aggHeights;
+        this.bumpiness = bumpiness;
+        this.holes = holes;
+        this.completeLines = completeLines;
+        this.fitness = fitness;
+    }
+
+    public double getAggHeights() {
+        return aggHeights;
+    }
+
+    public double getBumpiness() {
+        return bumpiness;
+    }
+
+    public double getHoles() {
+        return holes;
+    }
+
+    public double getCompleteLines() {
+        return completeLines;
+    }
+
+    public double getFitness() {
+        return fitness;
+    }
+}
@@ -0,0 +1,191 @@
+package tetris.model;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/*
+ * 블록 종류별로 미리 계산해 둔 회전 상태.
+ * 한 번 만들어지면 바뀌지 않으며 같은 종류의 블록끼리 공유한다.
+ * Block 은 현재 상태의 인덱스만 바꿔가며 회전한다.
+ */
+public final class RotationState {
+
+    private static final Map<Integer, RotationState[]> TABLES = new ConcurrentHashMap<>();
+
+    private final int[][] shape;
+    private final int[][] visualShape;
+    private final int[][] cells; // 블록 칸의 {x, y}, 모든 회전 상태에서 같은 칸이 같은 순서로 나온다
+    private final List<int[]> coordiList;
+    private final int[][] points; // 기본 모양 기준 좌표(y * 기본 너비 + x)가 이 상태에서 옮겨간 좌표
+    private final int[] rowMasks;
+    private final int width;
+    private final int height;
+    private final int rotateCount;
+    private final int nextIndex;
+
+    private RotationState(int[][] shape, int id, int[][] cells, int[][] points, int rotateCount) {
+        this.nextIndex = -1; // makeTable 이 다음 상태를 찾은 뒤 다음 인덱스를 넣어 다시 만든다
+        this.shape = shape;
+        this.cells = cells;
+        this.points = points;
+        this.rotateCount = rotateCount;
+        height = shape.length;
+        width = shape[0].length;
+        visualShape = new int[height][width];
+        rowMasks = new int[height];
+        for (int j = 0; j < height; j++) {
+            for (int i = 0; i < width; i++) {
+                if (shape[j][i] > 0) {
+                    visualShape[j][i] = id;
+                    rowMasks[j] |= 1 << i;
+                }
+            }
+        }
+        coordiList = Collections.unmodifiableList(Arrays.asList(cells));
+    }
+
+    private RotationState(RotationState state, int nextIndex) {
+        this.nextIndex = nextIndex;
+        shape = state.shape;
+        visualShape = state.visualShape;
+        cells = state.cells;
+        coordiList = state.coordiList;
+        points = state.points;
+        rowMasks = state.rowMasks;
+        width = state.width;
+        height = state.height;
+        rotateCount = state.rotateCount;
+    }
+
+    // 식별번호별 회전 표를 돌려준다. 처음 요청될 때 기본 모양에서 만들어 둔다.
+    public static RotationState[] of(int id, int[][] baseShape, int baseRotateCount) {
+        return TABLES.computeIfAbsent(id, key -> makeTable(id, baseShape, baseRotateCount));
+    }
+
+    private static RotationState[] makeTable(int id, int[][] baseShape, int baseRotateCount) {
+        int length = baseShape.length;
+        int width = baseShape[0].length;
+        int[][] shape = new int[length][width];
+        for (int j = 0; j < length; j++)
+            shape[j] = Arrays.copyOf(baseShape[j], width);
+
+        List<int[]> cellList = new ArrayList<>();
+        for (int j = 0; j < length; j++)
+            for (int i = 0; i < width; i++)
+                if (shape[j][i] > 0)
+                    cellList.add(new int[] { i, j });
+        int[][] cells = cellList.toArray(new int[0][]);
+        int[][] points = new int[length * width][];
+        for (int j = 0; j < length; j++)
+            for (int i = 0; i < width; i++)
+                points[j * width + i] = new int[] { i, j };
+
+        // 이미 나온 상태로 돌아올 때까지 돌려 보고, 마지막 상태만 돌아간 곳을 가리킨다
+        List<RotationState> states = new ArrayList<>();
+        RotationState state = new RotationState(shape, id, cells, points, baseRotateCount);
+        states.add(state);
+        int lastNextIndex;
+        while (true) {
+            RotationState next = state.makeRotated(id);
+            lastNextIndex = states.indexOf(next);
+            if (lastNextIndex >= 0)
+                break;
+            states.add(next);
+            state = next;
+        }
+        RotationState[] table = new RotationState[states.size()];
+        for (int i = 0; i < table.length; i++) {
+            int nextIndex = i + 1 < table.length ? i + 1 : lastNextIndex;
+            table[i] = new RotationState(states.get(i), nextIndex);
+        }
+        return table;
+    }
+
+    // 시계방향으로 한 번 돌린 상태를 만든다 (기존 Block.rotate 와 같은 규칙)
+    private RotationState makeRotated(int id) {
+        int[][] rotate = new int[width][height];
+        for (int row = 0; row < height; row++)
+            for (int col = 0; col < width; col++)
+                rotate[col][height - 1 - row] = shape[row][col];
+
+        int[][] rotateCells = new int[cells.length][];
+        for (int i = 0; i < cells.length; i++)
+            rotateCells[i] = rotatePoint(cells[i]);
+        int[][] rotatePoints = new int[points.length][];
+        for (int i = 0; i < points.length; i++)
+            rotatePoints[i] = rotatePoint(points[i]);
+
+        return new RotationState(rotate, id, rotateCells, rotatePoints, nextRotateCount(rotate));
+    }
+
+    private int[] rotatePoint(int[] point) {
+        return new int[] { height - 1 - point[1], point[0] };
+    }
+
+    private int nextRotateCount(int[][] rotate) {
+        if (rotateCount == Block.OBLOCK_ROTATE_STATE)
+            return rotateCount;
+        int next = (rotateCount + 1) % Block.IBLOCK_FIRST_ROTATE_STATE;
+        // IBlock
+        if (Math.abs(rotate[0].length - rotate.length) > 2)
+            next += Block.IBLOCK_FIRST_ROTATE_STATE;
+        return next;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (!(o instanceof RotationState))
+            return false;
+        RotationState other = (RotationState) o;
+        return rotateCount == other.rotateCount && Arrays.deepEquals(cells, other.cells);
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * rotateCount + Arrays.deepHashCode(cells);
+    }
+
+    public int[][] getShape() {
+        return shape;
+    }
+
+    public int[][] getVisualShape() {
+        return visualShape;
+    }
+
+    public int[][] getCells() {
+        return cells;
+    }
+
+    public List<int[]> getCoordiList() {
+        return coordiList;
+    }
+
+    public int[] getPoint(int index) {
+        return points[index];
+    }
+
+    public int getPointCount() {
+        return points.length;
+    }
+
+    public int[] getRowMasks() {
+        return rowMasks;
+    }
+
+    public int getWidth() {
+        return width;
+    }
+
+    public int getHeight() {
+        return height;
+    }
+
+    public int getRotateCount() {
+        return rotateCount;
+    }
+
+    public int getNextIndex() {
+        return nextIndex;
+    }
+}
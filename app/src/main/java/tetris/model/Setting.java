@@ -9,6 +9,7 @@ public class Setting {
     private int displayMode;
     private List<Rectangle> displayList;
     private boolean colorBlindMode;
+    private boolean boardCanvasMode;
     private int moveLeftKey;
     private int moveRightKey;
     private int moveDownKey;
@@ -26,6 +27,7 @@ public class Setting {
                 new Rectangle(0, 0, 1120, 630),
                 new Rectangle(0, 0, 960, 540));
         colorBlindMode = false;
+        boardCanvasMode = false;
         moveLeftKey = KeyEvent.VK_LEFT;
         moveRightKey = KeyEvent.VK_RIGHT;
         moveDownKey = KeyEvent.VK_DOWN;
@@ -62,6 +64,14 @@ public class Setting {
         this.colorBlindMode = colorBlindMode;
     }
 
+    public boolean isBoardCanvasMode() {
+        return this.boardCanvasMode;
+    }
+
+    public void setBoardCanvasMode(boolean boardCanvasMode) {
+        this.boardCanvasMode = boardCanvasMode;
+    }
+
     public int getMoveLeftKey() {
         return this.moveLeftKey;
     }
@@ -0,0 +1,198 @@
+package tetris.view;
+
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.util.*;
+import java.util.function.Consumer;
+
+import javax.swing.*;
+
+/*
+ * 보드를 글자 대신 칸 단위 사각형으로 그리는 컴포넌트.
+ * 칸 그림은 BufferedImage 에 모아두고, 바뀐 칸만 이미지에 다시 칠한 뒤 그 영역만 다시 그려 달라고 한다.
+ * 게임 화면에서는 GameController 가 그 요청을 RepaintScheduler 로 보내 한 프레임에 모은다.
+ * 칸을 칠하는 Graphics2D 와 바뀐 영역은 flush 한 번 동안 같은 것을 쓴다.
+ * 글꼴 크기나 문서 속성과 상관없이 컴포넌트 크기에 맞춰 칸 크기를 정한다.
+ */
+public class BoardCanvas extends JComponent {
+
+    private static final int EMPTY_CELL = -1;
+    private static final Color BACKGROUND_COLOR = Color.BLACK;
+    private static final Color BORDER_COLOR = Color.GRAY;
+
+    private final int rows;
+    private final int cols;
+    private final int[] cellIds; // 마지막으로 그린 식별번호, 애니메이션으로 직접 칠한 칸은 EMPTY_CELL
+    private final Color[] cellColors; // 마지막으로 그린 색
+
+    private Map<Integer, Color> colorMap;
+    private Map<Integer, Character> charMap;
+
+    private final Rectangle dirtyRect = new Rectangle();
+    private Consumer<Rectangle> repaintRequester = this::repaint; // 바뀐 영역을 다시 그려 달라고 하는 곳
+
+    private BufferedImage image;
+    private Graphics2D imageGraphics; // 다음 flush 까지 칸을 칠하는 데 쓴다
+    private Font itemFont;
+    private int cellSize;
+    private int originX;
+    private int originY;
+    private boolean isDirty;
+
+    public BoardCanvas(int rows, int cols) {
+        this.rows = rows;
+        this.cols = cols;
+        cellIds = new int[rows * cols];
+        cellColors = new Color[rows * cols];
+        colorMap = Collections.emptyMap();
+        charMap = Collections.emptyMap();
+        setOpaque(true);
+        setFocusable(false);
+        clearCells();
+    }
+
+    // 식별번호별 색과 글자를 정한다. 바뀐 색으로 모든 칸을 다시 그리게 한다.
+    public void setPalette(Map<Integer, Color> colorMap, Map<Integer, Character> charMap) {
+        this.colorMap = colorMap;
+        this.charMap = charMap;
+        clearCells();
+    }
+
+    // flush 가 바뀐 영역을 바로 repaint 하지 않고 넘길 곳. 넘긴 Rectangle 은 다음 flush 에서 다시 쓰므로 복사해 둔다
+    public void setRepaintRequester(Consumer<Rectangle> repaintRequester) {
+        this.repaintRequester = repaintRequester;
+    }
+
+    // 다음 render 에서 모든 칸을 다시 그리게 한다
+    public void clearCells() {
+        Arrays.fill(cellIds, EMPTY_CELL);
+        Arrays.fill(cellColors, null);
+    }
+
+    // visualBoard 의 startRow 부터 rows 줄을 그린다. 직전과 식별번호나 색이 다른 칸만 다시 칠한다.
+    public void render(int[][] visualBoard, int startRow) {
+        for (int i = 0; i < rows; i++) {
+            for (int j = 0; j < cols; j++) {
+                int id = visualBoard[startRow + i][j];
+                Color color = colorMap.getOrDefault(id, Color.WHITE);
+                int index = i * cols + j;
+                if (cellIds[index] == id && color.equals(cellColors[index]))
+                    continue;
+                cellIds[index] = id;
+                cellColors[index] = color;
+                drawCell(i, j);
+            }
+        }
+        flush();
+    }
+
+    // 줄삭제, 폭발 애니메이션처럼 칸 하나를 주어진 색으로 직접 칠한다
+    public void paintCell(int row, int col, Color color) {
+        int index = row * cols + col;
+        cellIds[index] = EMPTY_CELL;
+        cellColors[index] = color;
+        drawCell(row, col);
+    }
+
+    // 지금까지 바뀐 칸을 화면에 반영한다
+    public void flush() {
+        disposeGraphics();
+        if (image == null) {
+            dirtyRect.setBounds(0, 0, getWidth(), getHeight());
+            repaintRequester.accept(dirtyRect);
+        } else if (isDirty) {
+            repaintRequester.accept(dirtyRect);
+        }
+        isDirty = false;
+    }
+
+    private void disposeGraphics() {
+        if (imageGraphics != null) {
+            imageGraphics.dispose();
+            imageGraphics = null;
+        }
+    }
+
+    @Override
+    protected void paintComponent(Graphics g) {
+        g.setColor(BACKGROUND_COLOR);
+        g.fillRect(0, 0, getWidth(), getHeight());
+        int size = Math.min(getWidth() / (cols + 2), getHeight() / (rows + 2));
+        if (size <= 0)
+            return;
+        originX = (getWidth() - (cols + 2) * size) / 2;
+        originY = (getHeight() - (rows + 2) * size) / 2;
+        if (image == null || size != cellSize)
+            makeImage(size);
+        g.drawImage(image, originX, originY, null);
+    }
+
+    // 칸 크기가 바뀌면 이미지를 새로 만들고 테두리와 모든 칸을 다시 그린다
+    private void makeImage(int size) {
+        disposeGraphics();
+        cellSize = size;
+        image = new BufferedImage((cols + 2) * size, (rows + 2) * size, BufferedImage.TYPE_INT_RGB);
+        itemFont = new Font(MasterView.BASIC_FONT_FAMILY, Font.BOLD, size * 2 / 3);
+        Graphics2D g = image.createGraphics();
+        g.setColor(BORDER_COLOR);
+        g.fillRect(0, 0, image.getWidth(), image.getHeight());
+        g.setColor(BACKGROUND_COLOR);
+        g.fillRect(size, size, cols * size, rows * size);
+        g.dispose();
+        for (int i = 0; i < rows; i++)
+            for (int j = 0; j < cols; j++)
+                drawCell(i, j);
+        disposeGraphics();
+        isDirty = false;
+    }
+
+    private void drawCell(int row, int col) {
+        if (image == null)
+            return;
+        int index = row * cols + col;
+        int id = cellIds[index];
+        Color color = cellColors[index];
+        int x = (col + 1) * cellSize;
+        int y = (row + 1) * cellSize;
+
+        if (imageGraphics == null) {
+            imageGraphics = image.createGraphics();
+            imageGraphics.setFont(itemFont);
+        }
+        Graphics2D g = imageGraphics;
+        g.setColor(BACKGROUND_COLOR);
+        g.fillRect(x, y, cellSize, cellSize);
+        char ch = charMap.getOrDefault(id, GameView.BLOCK_CHAR);
+        if (color != null && (id == EMPTY_CELL || ch != GameView.NULL_CHAR)) {
+            g.setColor(color);
+            if (ch == GameView.GHOST_CHAR && id != EMPTY_CELL)
+                g.drawRect(x + 1, y + 1, cellSize - 3, cellSize - 3);
+            else
+                g.fillRect(x + 1, y + 1, cellSize - 2, cellSize - 2);
+            // 아이템 칸은 색 위에 아이템 글자를 함께 그린다
+            if (id != EMPTY_CELL && ch != GameView.BLOCK_CHAR && ch != GameView.GHOST_CHAR) {
+                g.setColor(BACKGROUND_COLOR);
+                FontMetrics metrics = g.getFontMetrics();
+                g.drawString(String.valueOf(ch), x + (cellSize - metrics.charWidth(ch)) / 2,
+                        y + (cellSize + metrics.getAscent() - metrics.getDescent()) / 2);
+            }
+        }
+
+        // 두 모서리를 더하면 칸 사각형을 더한 것과 같다
+        if (isDirty) {
+            dirtyRect.add(originX + x, originY + y);
+        } else {
+            dirtyRect.setBounds(originX + x, originY + y, 0, 0);
+            isDirty = true;
+        }
+        dirtyRect.add(originX + x + cellSize, originY + y + cellSize);
+    }
+
+    BufferedImage getImage() {
+        return image;
+    }
+
+    int getCellSize() {
+        return cellSize;
+    }
+}
@@ -21,6 +21,9 @@ public class GameView extends MasterView {
 
     private JTextPane singlePlayerGameBoardPane;
     private JTextPane singlePlayerNextBlockPane;
+    private BoardCanvas singlePlayerGameBoardCanvas;
+    private BoardCanvas playerOneGameBoardCanvas;
+    private BoardCanvas playerTwoGameBoardCanvas;
     private JLabel singleScoreLabel;
     private JLabel singleLinesLabel;
     private JLabel singleGameDisplayTimeLabel;
@@ -120,6 +123,13 @@ public class GameView extends MasterView {
         singlePlayerGameBoardPane.setBackground(Color.BLACK);
         singlePlayerGameBoardPane.setEditable(false);
 
+        singlePlayerGameBoardCanvas = initAndSetName("singlePlayerGameBoardCanvas",
+                new BoardCanvas(BORDER_HEIGHT, BORDER_WIDTH));
+        playerOneGameBoardCanvas = initAndSetName("playerOneGameBoardCanvas",
+                new BoardCanvas(BORDER_HEIGHT, BORDER_WIDTH));
+        playerTwoGameBoardCanvas = initAndSetName("playerTwoGameBoardCanvas",
+                new BoardCanvas(BORDER_HEIGHT, BORDER_WIDTH));
+
         singlePlayerNextBlockPane = initAndSetName("singlePlayerNextBlockPane", new JTextPane());
         singlePlayerNextBlockPane.setBackground(Color.BLACK);
         singlePlayerNextBlockPane.setEditable(false);
@@ -281,6 +291,23 @@ public class GameView extends MasterView {
 
     }
 
+    // 그래픽 보드를 켜면 보드 pane 위에 BoardCanvas 를 덮어 그린다. 키 입력과 포커스는 그대로 pane 이 받는다.
+    public void setBoardCanvasMode(boolean isBoardCanvasMode) {
+        setBoardCanvas(singlePlayerGameBoardPane, singlePlayerGameBoardCanvas, isBoardCanvasMode);
+        setBoardCanvas(playerOneGameBoardPane, playerOneGameBoardCanvas, isBoardCanvasMode);
+        setBoardCanvas(playerTwoGameBoardPane, playerTwoGameBoardCanvas, isBoardCanvasMode);
+    }
+
+    private void setBoardCanvas(JTextPane gameBoardPane, BoardCanvas canvas, boolean isBoardCanvasMode) {
+        gameBoardPane.remove(canvas);
+        if (isBoardCanvasMode) {
+            gameBoardPane.setLayout(new BorderLayout());
+            gameBoardPane.add(canvas, BorderLayout.CENTER);
+        }
+        gameBoardPane.revalidate();
+        gameBoardPane.repaint();
+    }
+
     private void initSelectGamePane() {
         selectGamePanel = new JPanel();
         GridBagLayout gridBagLayout = new GridBagLayout();
@@ -492,6 +519,18 @@ public class GameView extends MasterView {
         return this.singleGameTimeLabel;
     }
 
+    public BoardCanvas getSinglePlayerGameBoardCanvas() {
+        return this.singlePlayerGameBoardCanvas;
+    }
+
+    public BoardCanvas getPlayerOneGameBoardCanvas() {
+        return this.playerOneGameBoardCanvas;
+    }
+
+    public BoardCanvas getPlayerTwoGameBoardCanvas() {
+        return this.playerTwoGameBoardCanvas;
+    }
+
     public JTextPane getPlayerOneGameBoardPane() {
         return this.playerOneGameBoardPane;
     }
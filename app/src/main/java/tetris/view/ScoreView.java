@@ -59,9 +59,9 @@ public class ScoreView extends MasterView {
 
     public void initRankingPane() {
         GridBagLayout gridBag = new GridBagLayout();
-        gridBag.columnWidths = new int[] { 0, 0, 0, 0 };
+        gridBag.columnWidths = new int[] { 0, 0, 0, 0, 0 };
         gridBag.rowHeights = new int[] { 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0 };
-        gridBag.columnWeights = new double[] { 0.5, 1.0, 1.0, 0.5, Double.MIN_VALUE };
+        gridBag.columnWeights = new double[] { 0.5, 1.0, 1.0, 0.5, 0.5, Double.MIN_VALUE };
         gridBag.rowWeights = new double[] { 0.8, 1.0, 1.0, 1.0, 1.0, 1.0, 1.0, 1.0, 1.0, 1.0, 1.0,
                 Double.MIN_VALUE };
 
@@ -72,6 +72,7 @@ public class ScoreView extends MasterView {
         addGridBagComponents(rankingPane, new JLabel("이름"), 1, 0);
         addGridBagComponents(rankingPane, new JLabel("점수"), 2, 0);
         addGridBagComponents(rankingPane, new JLabel("난이도"), 3, 0);
+        addGridBagComponents(rankingPane, new JLabel("모드"), 4, 0);
     }
 
     private void addRankInfo(Container pane, List<String> array, int y) {
@@ -31,6 +31,7 @@ public class SettingView extends MasterView {
     private JLabel right2KeyLabel;
     private JLabel stack2KeyLabel;
     private JLabel isColorBlindLabel;
+    private JLabel isBoardCanvasLabel;
     private JToggleButton setUpKeyBtn;
     private JToggleButton setDownKeyBtn;
     private JToggleButton setLeftKeyBtn;
@@ -42,6 +43,7 @@ public class SettingView extends MasterView {
     private JToggleButton setRight2KeyBtn;
     private JToggleButton setStack2KeyBtn;
     private JToggleButton isColorBlindBtn;
+    private JToggleButton isBoardCanvasBtn;
     private Map<JToggleButton, JLabel> setKeyMap;
     private JPanel initSettingPane;
     private JPanel initKeyGridPane;
@@ -76,20 +78,22 @@ public class SettingView extends MasterView {
 
         GridBagLayout gridBag = new GridBagLayout();
         gridBag.columnWidths = new int[] { 0, 0, 0 };
-        gridBag.rowHeights = new int[] { 0, 0, 0, 0, 0, 0 };
+        gridBag.rowHeights = new int[] { 0, 0, 0, 0, 0, 0, 0 };
         gridBag.columnWeights = new double[] { 1.0, 0.2, Double.MIN_VALUE };
-        gridBag.rowWeights = new double[] { 1.0, 1.0, 1.0, 1.0, 1.0, Double.MIN_VALUE };
+        gridBag.rowWeights = new double[] { 1.0, 1.0, 1.0, 1.0, 1.0, 1.0, Double.MIN_VALUE };
         super.setLayout(gridBag);
         super.add(setDisplayBtn, addGridBagComponents(1, 0));
         super.add(initKeyBtn, addGridBagComponents(1, 1));
         super.add(initMenuBtn, addGridBagComponents(1, 2));
         super.add(isColorBlindBtn, addGridBagComponents(1, 3));
+        super.add(isBoardCanvasBtn, addGridBagComponents(1, 4));
         super.add(displayComboBox, addGridBagComponents(0, 0));
         super.add(initKeyGridPane, addGridBagComponents(0, 1));
         super.add(initSettingPane, addGridBagComponents(0, 2));
         super.add(isColorBlindLabel, addGridBagComponents(0, 3));
+        super.add(isBoardCanvasLabel, addGridBagComponents(0, 4));
 
-        GridBagConstraints gblReturnMenuBtn = addGridBagComponents(0, 4);
+        GridBagConstraints gblReturnMenuBtn = addGridBagComponents(0, 5);
         gblReturnMenuBtn.gridwidth = 2;
 
         super.add(returnSettingToMainBtn, gblReturnMenuBtn);
@@ -101,6 +105,7 @@ public class SettingView extends MasterView {
         initKeyBtn = initAndSetName("initKeyBtn", new JButton("키보드 입력"));
         initMenuBtn = initAndSetName("initMenuBtn", new JButton("점수초기화"));
         isColorBlindBtn = initAndSetName("isColorBlindBtn", new JToggleButton("OFF"));
+        isBoardCanvasBtn = initAndSetName("isBoardCanvasBtn", new JToggleButton("OFF"));
         returnSettingToMainBtn = initAndSetName("returnSettingToMainBtn", new JButton("메인메뉴로"));
 
         /* 키 초기화 버튼과 라벨 */
@@ -175,6 +180,9 @@ public class SettingView extends MasterView {
         /* 색맹모드 관련 */
         isColorBlindLabel = initAndSetName("isColorBlindLabel", new JLabel("색맹모드"));
 
+        /* 그래픽 보드 관련 */
+        isBoardCanvasLabel = initAndSetName("isBoardCanvasLabel", new JLabel("그래픽 보드"));
+
         buttonArrayList.add(setDisplayBtn);
         buttonArrayList.add(initKeyBtn);
         buttonArrayList.add(initMenuBtn);
@@ -195,8 +203,10 @@ public class SettingView extends MasterView {
         labelArrayList.add(right2KeyLabel);
         labelArrayList.add(stack2KeyLabel);
         labelArrayList.add(isColorBlindLabel);
+        labelArrayList.add(isBoardCanvasLabel);
 
         toggleButtonArrayList.add(isColorBlindBtn);
+        toggleButtonArrayList.add(isBoardCanvasBtn);
         toggleButtonArrayList.add(setUpKeyBtn);
         toggleButtonArrayList.add(setDownKeyBtn);
         toggleButtonArrayList.add(setLeftKeyBtn);
@@ -368,6 +378,10 @@ public class SettingView extends MasterView {
         return this.isColorBlindLabel;
     }
 
+    public JLabel getIsBoardCanvasLabel() {
+        return this.isBoardCanvasLabel;
+    }
+
     public JToggleButton getSetUpKeyBtn() {
         return this.setUpKeyBtn;
     }
@@ -416,6 +430,10 @@ public class SettingView extends MasterView {
         return this.isColorBlindBtn;
     }
 
+    public JToggleButton getIsBoardCanvasBtn() {
+        return this.isBoardCanvasBtn;
+    }
+
     public JPanel getInitSettingPane() {
         return this.initSettingPane;
     }
@@ -436,7 +454,7 @@ public class SettingView extends MasterView {
 
     public void setSettingBtnsFocusable(boolean bool) {
         setFocusableComponents(bool, setDisplayBtn, initKeyBtn, initMenuBtn, isColorBlindBtn,
-                returnSettingToMainBtn);
+                isBoardCanvasBtn, returnSettingToMainBtn);
     }
 
     public void setInitSettingBtnsFocusable(boolean bool) {
@@ -467,6 +485,14 @@ public class SettingView extends MasterView {
             this.isColorBlindBtn.setText("OFF");
     }
 
+    public void setIsBoardCanvasBtn(boolean bool) {
+        this.isBoardCanvasBtn.setSelected(bool);
+        if (bool)
+            this.isBoardCanvasBtn.setText("ON");
+        else
+            this.isBoardCanvasBtn.setText("OFF");
+    }
+
     public ArrayList<JButton> getButtonArrayList() {
         return buttonArrayList;
     }
@@ -0,0 +1,193 @@
+package tetris.controller;
+
+import org.junit.jupiter.api.*;
+import static org.assertj.core.api.Assertions.*;
+
+import java.util.*;
+
+import tetris.model.*;
+
+/*
+ * BitBoard 모드가 기존 배열 보드와 같은 결과를 내는지 비교한다.
+ */
+public class BitBoardTest {
+
+    static final int[] BLOCK_IDS = { Block.IBLOCK_IDENTIFY_NUMBER, Block.JBLOCK_IDENTIFY_NUMBER,
+            Block.LBLOCK_IDENTIFY_NUMBER, Block.OBLOCK_IDENTIFY_NUMBER, Block.SBLOCK_IDENTIFY_NUMBER,
+            Block.TBLOCK_IDENTIFY_NUMBER, Block.ZBLOCK_IDENTIFY_NUMBER };
+
+    GameEngine makeEngine(List<Integer> blockList, boolean bitBoardMode) {
+        GameEngine engine = new GameEngine() {
+            @Override
+            public void doBeforeTakeOutNextBlock() {
+                if (blockDeque.size() < 3)
+                    blockDeque.addAll(blockList);
+            }
+        };
+        engine.setBitBoardMode(bitBoardMode);
+        engine.startGame(GameEngine.NORMAL_MODE, GameEngine.GENERAL_GAME_MODE, blockList);
+        return engine;
+    }
+
+    List<Integer> makeBlockList(Random rnd) {
+        List<Integer> blockList = new ArrayList<>();
+        for (int i = 0; i < 70; i++)
+            blockList.add(BLOCK_IDS[rnd.nextInt(BLOCK_IDS.length)]);
+        return blockList;
+    }
+
+    @Test
+    void testRowMasks() {
+        Block block = new TBlock();
+        for (int r = 0; r < 4; r++) {
+            int[] masks = block.getRowMasks();
+            assertThat(masks.length).isEqualTo(block.getHeight());
+            for (int j = 0; j < block.getHeight(); j++)
+                for (int i = 0; i < block.getWidth(); i++)
+                    assertThat((masks[j] >> i) & 1).isEqualTo(block.getShape(i, j));
+            block.rotate();
+        }
+    }
+
+    @Test
+    void testCollisionMatchesArrayBoard() {
+        Random rnd = new Random(19);
+        GameEngine engine = makeEngine(makeBlockList(rnd), false);
+        for (int t = 0; t < 30; t++) {
+            engine.initZeroBoard(engine.board);
+            for (int i = GameEngine.BOARD_START_HEIGHT; i < GameEngine.BOARD_END_HEIGHT; i++)
+                for (int j = 0; j < GameEngine.BOARD_WIDTH; j++)
+                    if (rnd.nextInt(20) < i - GameEngine.BOARD_START_HEIGHT)
+                        engine.board[i][j] = GameEngine.FIXED_BLOCK_NUMBER;
+
+            for (int id : BLOCK_IDS) {
+                engine.blockBuffer = engine.getBlock(id);
+                for (int r = 0; r < 4; r++) {
+                    engine.blockBuffer.rotate();
+                    for (int y = 0; y <= GameEngine.BOARD_END_HEIGHT - engine.blockBuffer.getHeight(); y++) {
+                        for (int x = 0; x <= GameEngine.BOARD_WIDTH - engine.blockBuffer.getWidth(); x++) {
+                            engine.setBitBoardMode(false);
+                            boolean expected = engine.checkBlockCollision(x, y);
+                            engine.setBitBoardMode(true);
+                            assertThat(engine.checkBlockCollision(x, y)).isEqualTo(expected);
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    @Test
+    void testFullLinesMatchArrayBoard() {
+        GameEngine engine = makeEngine(makeBlockList(new Random(1)), false);
+        engine.initZeroBoard(engine.board);
+        int bottom = GameEngine.BOARD_END_HEIGHT - 1;
+        Arrays.fill(engine.board[bottom], GameEngine.FIXED_BLOCK_NUMBER);
+        Arrays.fill(engine.board[bottom - 1], GameEngine.FIXED_BLOCK_NUMBER);
+        engine.board[bottom - 1][3] = 0;
+        engine.board[bottom - 2][5] = GameEngine.FULL_LINE; // 한줄삭제 아이템 칸
+        Arrays.fill(engine.board[bottom - 3], GameEngine.FIXED_BLOCK_NUMBER);
+
+        engine.setBitBoardMode(false);
+        int expected = engine.findFullLines();
+        int expectedIndex = engine.clearStartIndex;
+        engine.clearStartIndex = 0;
+        engine.setBitBoardMode(true);
+
+        assertThat(expected).isEqualTo(3);
+        assertThat(engine.findFullLines()).isEqualTo(expected);
+        assertThat(engine.clearStartIndex).isEqualTo(expectedIndex);
+    }
+
+    @Test
+    void testOverWriteLinesShiftsRows() {
+        GameEngine engine = makeEngine(makeBlockList(new Random(2)), true);
+        int bottom = GameEngine.BOARD_END_HEIGHT - 1;
+        Arrays.fill(engine.board[bottom], GameEngine.FIXED_BLOCK_NUMBER);
+        engine.board[bottom - 1][0] = GameEngine.FIXED_BLOCK_NUMBER;
+        engine.syncBitBoard();
+
+        engine.overWriteLines(bottom, 1);
+
+        assertThat(engine.bitBoard.rows[bottom]).isEqualTo(1);
+        assertThat(engine.bitBoard.rows[bottom - 1]).isEqualTo(0);
+        int[] shifted = Arrays.copyOf(engine.bitBoard.rows, GameEngine.BOARD_END_HEIGHT);
+        engine.syncBitBoard();
+        assertThat(shifted).isEqualTo(engine.bitBoard.rows);
+    }
+
+    // 블록이 가장 깊이 내려가는 열로 보내는 간단한 방식으로 줄삭제가 일어나도록 두 엔진을 똑같이 진행한다
+    @Test
+    void testSamePlayAsArrayBoard() {
+        int totalLines = 0;
+        for (long seed = 1; seed <= 20; seed++) {
+            Random rnd = new Random(seed);
+            List<Integer> blockList = makeBlockList(rnd);
+            GameEngine arrayEngine = makeEngine(blockList, false);
+            GameEngine bitEngine = makeEngine(blockList, true);
+            for (int pieces = 0; pieces < 300 && !arrayEngine.isGameEnd(); pieces++) {
+                int rotate = rnd.nextInt(4);
+                for (int i = 0; i < rotate; i++)
+                    applyBoth(arrayEngine, bitEngine, GameEngine.MOVE_ROTATE);
+                int target = findDeepestX(arrayEngine.board, arrayEngine.currentBlock);
+                for (int i = 0; i < GameEngine.BOARD_WIDTH; i++)
+                    applyBoth(arrayEngine, bitEngine, GameEngine.MOVE_LEFT);
+                for (int i = 0; i < target; i++)
+                    applyBoth(arrayEngine, bitEngine, GameEngine.MOVE_RIGHT);
+                if (rnd.nextBoolean()) {
+                    applyBoth(arrayEngine, bitEngine, GameEngine.DROP_DOWN);
+                    applyBoth(arrayEngine, bitEngine, -1);
+                } else {
+                    while (!arrayEngine.isBottomFlag)
+                        applyBoth(arrayEngine, bitEngine, -1);
+                    applyBoth(arrayEngine, bitEngine, rnd.nextInt(3));
+                    applyBoth(arrayEngine, bitEngine, -1);
+                }
+            }
+            assertThat(bitEngine.getDeleteLines()).isEqualTo(arrayEngine.getDeleteLines());
+            totalLines += arrayEngine.getDeleteLines();
+        }
+        assertThat(totalLines).isGreaterThan(20);
+    }
+
+    // input 이 음수면 step 을 진행한다
+    void applyBoth(GameEngine arrayEngine, GameEngine bitEngine, int input) {
+        if (input < 0) {
+            arrayEngine.step();
+            bitEngine.step();
+        } else {
+            arrayEngine.applyInput(input);
+            bitEngine.applyInput(input);
+        }
+        assertThat(bitEngine.board).isEqualTo(arrayEngine.board);
+        assertThat(bitEngine.visualBoard).isEqualTo(arrayEngine.visualBoard);
+        assertThat(bitEngine.x).isEqualTo(arrayEngine.x);
+        assertThat(bitEngine.y).isEqualTo(arrayEngine.y);
+        assertThat(bitEngine.isBottomFlag).isEqualTo(arrayEngine.isBottomFlag);
+        assertThat(bitEngine.getScore()).isEqualTo(arrayEngine.getScore());
+        assertThat(bitEngine.isGameEnd()).isEqualTo(arrayEngine.isGameEnd());
+    }
+
+    // 고정된 칸만 보고 블록이 가장 아래에 떨어지는 x 를 구한다
+    int findDeepestX(int[][] board, Block block) {
+        int deepestX = 0;
+        int deepestY = -1;
+        for (int x = 0; x <= GameEngine.BOARD_WIDTH - block.getWidth(); x++) {
+            int y = GameEngine.START_Y;
+            while (y + block.getHeight() < GameEngine.BOARD_END_HEIGHT && !overlaps(board, block, x, y + 1))
+                y++;
+            if (y > deepestY) {
+                deepestY = y;
+                deepestX = x;
+            }
+        }
+        return deepestX;
+    }
+
+    boolean overlaps(int[][] board, Block block, int x, int y) {
+        for (int[] e : block.getCoordiList())
+            if (board[y + e[1]][x + e[0]] > GameEngine.UNFIXED_BLOCK_NUMBER)
+                return true;
+        return false;
+    }
+}
@@ -0,0 +1,76 @@
+package tetris.controller;
+
+import org.junit.jupiter.api.*;
+import static org.assertj.core.api.Assertions.*;
+
+import java.util.*;
+
+import tetris.model.*;
+
+public class BlockRandomizerTest {
+
+    int count(List<Integer> blocks, int id) {
+        int count = 0;
+        for (int block : blocks) {
+            if (block == id)
+                count++;
+        }
+        return count;
+    }
+
+    @Test
+    void testSameSeedGivesSameSequence() {
+        BlockRandomizer randomizer = new BlockRandomizer(42);
+        BlockRandomizer same = new BlockRandomizer(42);
+        for (int i = 0; i < 5; i++)
+            assertThat(randomizer.nextBlocks(GameEngine.NORMAL_MODE))
+                    .isEqualTo(same.nextBlocks(GameEngine.NORMAL_MODE));
+        assertThat(new BlockRandomizer(42).nextBlocks(GameEngine.NORMAL_MODE))
+                .isNotEqualTo(new BlockRandomizer(43).nextBlocks(GameEngine.NORMAL_MODE));
+    }
+
+    @Test
+    void testEveryBagHasEachBlockOnce() {
+        List<Integer> blocks = new BlockRandomizer(7).nextBlocks(GameEngine.NORMAL_MODE);
+        assertThat(blocks).hasSize(7 * BlockRandomizer.BAG_COUNT);
+        for (int bag = 0; bag < BlockRandomizer.BAG_COUNT; bag++) {
+            List<Integer> sevenBag = blocks.subList(bag * 7, bag * 7 + 7);
+            for (int id = Block.IBLOCK_IDENTIFY_NUMBER; id <= Block.ZBLOCK_IDENTIFY_NUMBER; id++)
+                assertThat(count(sevenBag, id)).isEqualTo(1);
+        }
+    }
+
+    @Test
+    void testEasyAndHardBags() {
+        List<Integer> easy = new BlockRandomizer(7).nextBlocks(GameEngine.EASY_MODE);
+        assertThat(easy).hasSize(7 * 5 + 1);
+        assertThat(count(easy, Block.IBLOCK_IDENTIFY_NUMBER)).isEqualTo(6);
+        assertThat(count(easy, Block.TBLOCK_IDENTIFY_NUMBER)).isEqualTo(5);
+
+        List<Integer> hard = new BlockRandomizer(7).nextBlocks(GameEngine.HARD_MODE);
+        assertThat(hard).hasSize(7 * 4 + 6);
+        assertThat(count(hard, Block.IBLOCK_IDENTIFY_NUMBER)).isEqualTo(4);
+        assertThat(count(hard, Block.TBLOCK_IDENTIFY_NUMBER)).isEqualTo(5);
+    }
+
+    @Test
+    void testItemSeedGivesSameItemBlocks() {
+        long itemSeed = new BlockRandomizer(11).getItemSeed();
+        GameEngine[] engines = { new GameEngine(), new GameEngine() };
+        List<Integer> blocks = new BlockRandomizer(11).nextBlocks(GameEngine.NORMAL_MODE);
+        for (GameEngine engine : engines) {
+            engine.setItemSeed(itemSeed);
+            engine.startGame(GameEngine.NORMAL_MODE, GameEngine.ITEM_GAME_MODE, blocks);
+        }
+        for (int i = 0; i < 10; i++) {
+            for (GameEngine engine : engines) {
+                engine.itemLines = engine.itemFreqency;
+                engine.spawnNextBlock();
+            }
+            assertThat(engines[1].nextBlock.getIdentifynumber()).isEqualTo(engines[0].nextBlock.getIdentifynumber());
+            assertThat(engines[1].nextBlock.getAttachItemID()).isEqualTo(engines[0].nextBlock.getAttachItemID());
+            assertThat(engines[1].nextBlock.getItemCoordinate())
+                    .isEqualTo(engines[0].nextBlock.getItemCoordinate());
+        }
+    }
+}
@@ -0,0 +1,80 @@
+package tetris.controller;
+
+import org.junit.jupiter.api.*;
+import static org.assertj.core.api.Assertions.*;
+
+import java.util.*;
+
+public class BoardFeaturesTest {
+
+    BoardFeatures features;
+    BitBoard bitBoard;
+    int[][] board;
+
+    @BeforeEach
+    void setUp() {
+        features = new BoardFeatures();
+        bitBoard = new BitBoard(GameEngine.BOARD_END_HEIGHT);
+        board = new int[GameEngine.BOARD_END_HEIGHT][GameEngine.BOARD_WIDTH];
+    }
+
+    // 아래에서부터 줄 마스크를 두 보드에 같이 채운다
+    void fillBottom(int... masks) {
+        for (int i = 0; i < masks.length; i++) {
+            int index = GameEngine.BOARD_END_HEIGHT - 1 - i;
+            bitBoard.rows[index] = masks[i];
+            for (int j = 0; j < GameEngine.BOARD_WIDTH; j++)
+                board[index][j] = (masks[i] >> j & 1) * GameEngine.FIXED_BLOCK_NUMBER;
+        }
+    }
+
+    void assertFeatures(int aggHeight, int maxHeight, int holes, int bumpiness, int completeLines) {
+        assertThat(features.aggHeight).isEqualTo(aggHeight);
+        assertThat(features.maxHeight).isEqualTo(maxHeight);
+        assertThat(features.holes).isEqualTo(holes);
+        assertThat(features.bumpiness).isEqualTo(bumpiness);
+        assertThat(features.completeLines).isEqualTo(completeLines);
+    }
+
+    @Test
+    void testExtractFeatures() {
+        // RobotControllerTest.testCalculateScore 의 첫 보드
+        fillBottom(0b1111111111, 0b1111110111, 0b1111111111, 0b1111110110, 0b1001111110, 0b0000110000);
+        features.extract(bitBoard);
+        assertThat(features.heights).containsExactly(3, 5, 5, 5, 6, 6, 5, 4, 4, 5);
+        assertFeatures(48, 6, 2, 6, 2);
+        assertThat(features.wells()).isEqualTo(2);
+        assertThat(BoardFeatures.rowTransitions(bitBoard)).isEqualTo(14);
+        features.extract(board);
+        assertFeatures(48, 6, 2, 6, 2);
+        assertThat(features.wells()).isEqualTo(2);
+        assertThat(BoardFeatures.rowTransitions(board)).isEqualTo(14);
+        assertThat(features.score(new double[] { 1, 10, 100, 1000 }, 3)).isEqualTo(48 + 30 + 200 + 6000);
+
+        // 이전 결과가 남지 않는다
+        features.extract(new BitBoard(GameEngine.BOARD_END_HEIGHT));
+        assertFeatures(0, 0, 0, 0, 0);
+        assertThat(features.wells()).isZero();
+    }
+
+    @Test
+    void testArrayAndBitBoardAgree() {
+        Random random = new Random(12);
+        BoardFeatures other = new BoardFeatures();
+        for (int n = 0; n < 200; n++) {
+            int[] masks = new int[random.nextInt(GameEngine.BOARD_HEIGHT)];
+            for (int i = 0; i < masks.length; i++)
+                masks[i] = random.nextInt(BitBoard.FULL_ROW + 1);
+            bitBoard.clear();
+            for (int[] row : board)
+                Arrays.fill(row, 0);
+            fillBottom(masks);
+            features.extract(bitBoard);
+            other.extract(board);
+            assertThat(other.heights).containsExactly(features.heights);
+            assertFeatures(other.aggHeight, other.maxHeight, other.holes, other.bumpiness, other.completeLines);
+            assertThat(features.wells()).isEqualTo(other.wells());
+            assertThat(BoardFeatures.rowTransitions(bitBoard)).isEqualTo(BoardFeatures.rowTransitions(board));
+        }
+    }
+}
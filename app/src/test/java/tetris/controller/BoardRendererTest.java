@@ -0,0 +1,117 @@
+package tetris.controller;
+
+import org.junit.jupiter.api.*;
+import static org.assertj.core.api.Assertions.*;
+
+import java.awt.Color;
+import java.util.*;
+
+import javax.swing.*;
+import javax.swing.event.*;
+import javax.swing.text.*;
+
+import tetris.model.*;
+
+public class BoardRendererTest {
+
+    JTextPane pane;
+    BoardRenderer renderer;
+    StringBuilder text;
+    int[][] visualBoard;
+    int changes;
+
+    @BeforeEach
+    public void setUp() {
+        Map<Integer, Color> colorMap = new HashMap<>();
+        colorMap.put(Block.NULL_IDENTIFY_NUMBER, Color.WHITE);
+        colorMap.put(Block.GHOST_IDENTIFIY_NUMBER, Color.GRAY);
+        colorMap.put(Block.TBLOCK_IDENTIFY_NUMBER, Color.MAGENTA);
+        pane = new JTextPane();
+        renderer = new BoardRenderer(pane, new SimpleAttributeSet(), colorMap);
+        visualBoard = new int[GameEngine.BOARD_END_HEIGHT][GameEngine.BOARD_WIDTH];
+
+        text = new StringBuilder();
+        for (int i = 0; i < GameEngine.BOARD_WIDTH + 2; i++)
+            text.append('X');
+        text.append('\n');
+        for (int i = 0; i < GameEngine.BOARD_HEIGHT; i++)
+            text.append("X          X\n");
+        for (int i = 0; i < GameEngine.BOARD_WIDTH + 2; i++)
+            text.append('X');
+
+        pane.getDocument().addDocumentListener(new DocumentListener() {
+            public void insertUpdate(DocumentEvent e) {
+                changes++;
+            }
+
+            public void removeUpdate(DocumentEvent e) {
+                changes++;
+            }
+
+            public void changedUpdate(DocumentEvent e) {
+                changes++;
+            }
+        });
+    }
+
+    void setCell(int row, int col, char ch, int id) {
+        text.setCharAt(BoardRenderer.getOffset(row, col), ch);
+        visualBoard[row][col] = id;
+    }
+
+    Color getColor(int row, int col) {
+        AttributeSet attributes = pane.getStyledDocument()
+                .getCharacterElement(BoardRenderer.getOffset(row, col)).getAttributes();
+        return StyleConstants.getForeground(attributes);
+    }
+
+    @Test
+    void testFirstRenderDrawsWholeBoard() {
+        setCell(10, 3, 'O', Block.TBLOCK_IDENTIFY_NUMBER);
+        renderer.render(text, visualBoard);
+
+        assertThat(pane.getText()).isEqualTo(text.toString());
+        assertThat(getColor(10, 3)).isEqualTo(Color.MAGENTA);
+    }
+
+    @Test
+    void testRenderOnlyTouchesChangedCells() {
+        renderer.render(text, visualBoard);
+        changes = 0;
+
+        renderer.render(text, visualBoard);
+        assertThat(changes).isEqualTo(0);
+
+        setCell(10, 3, 'O', Block.TBLOCK_IDENTIFY_NUMBER);
+        setCell(24, 3, 'G', Block.GHOST_IDENTIFIY_NUMBER);
+        renderer.render(text, visualBoard);
+
+        assertThat(pane.getText()).isEqualTo(text.toString());
+        assertThat(getColor(10, 3)).isEqualTo(Color.MAGENTA);
+        assertThat(getColor(24, 3)).isEqualTo(Color.GRAY);
+        assertThat(changes).isLessThanOrEqualTo(4);
+    }
+
+    @Test
+    void testColorOnlyChange() {
+        setCell(10, 3, 'O', Block.TBLOCK_IDENTIFY_NUMBER);
+        renderer.render(text, visualBoard);
+        changes = 0;
+
+        visualBoard[10][3] = Block.GHOST_IDENTIFIY_NUMBER;
+        renderer.render(text, visualBoard);
+
+        assertThat(getColor(10, 3)).isEqualTo(Color.GRAY);
+        assertThat(changes).isEqualTo(1);
+    }
+
+    @Test
+    void testInvalidateRedrawsAll() {
+        renderer.render(text, visualBoard);
+        pane.setText("");
+        renderer.invalidate();
+
+        renderer.render(text, visualBoard);
+        assertThat(pane.getText()).isEqualTo(text.toString());
+    }
+}
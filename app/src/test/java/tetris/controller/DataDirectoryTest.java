@@ -0,0 +1,119 @@
+package tetris.controller;
+
+import org.junit.jupiter.api.*;
+import org.junit.jupiter.api.io.TempDir;
+import static org.assertj.core.api.Assertions.*;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.util.concurrent.*;
+
+import com.google.gson.Gson;
+
+import tetris.model.Player;
+import tetris.model.Setting;
+
+public class DataDirectoryTest {
+
+    @TempDir
+    Path tempDir;
+
+    DataDirectory dataDirectory;
+
+    @BeforeEach
+    void setUp() {
+        dataDirectory = new DataDirectory(tempDir.resolve("data"), tempDir.resolve("legacy"));
+    }
+
+    @Test
+    void testWriteReplacesWholeFile() throws IOException {
+        dataDirectory.write("a.json", "first version".getBytes(StandardCharsets.UTF_8));
+        dataDirectory.write("a.json", "second".getBytes(StandardCharsets.UTF_8));
+        assertThat(new String(dataDirectory.read("a.json"), StandardCharsets.UTF_8)).isEqualTo("second");
+        assertThat(Files.exists(DataDirectory.tempFile(dataDirectory.resolve("a.json")))).isFalse();
+        assertThat(dataDirectory.read("missing.json")).isNull();
+    }
+
+    @Test
+    void testReadFallsBackToLegacyDirectory() throws IOException {
+        Files.createDirectories(tempDir.resolve("legacy"));
+        Files.write(tempDir.resolve("legacy/b.json"), "old".getBytes(StandardCharsets.UTF_8));
+        assertThat(new String(dataDirectory.read("b.json"), StandardCharsets.UTF_8)).isEqualTo("old");
+
+        dataDirectory.write("b.json", "new".getBytes(StandardCharsets.UTF_8));
+        assertThat(new String(dataDirectory.read("b.json"), StandardCharsets.UTF_8)).isEqualTo("new");
+        assertThat(new String(Files.readAllBytes(tempDir.resolve("legacy/b.json")), StandardCharsets.UTF_8))
+                .isEqualTo("old");
+    }
+
+    @Test
+    void testDefaultDirFollowsProperty() {
+        String previous = System.getProperty(DataDirectory.PROPERTY);
+        try {
+            System.setProperty(DataDirectory.PROPERTY, tempDir.toString());
+            assertThat(DataDirectory.defaultDir()).isEqualTo(tempDir);
+        } finally {
+            if (previous == null)
+                System.clearProperty(DataDirectory.PROPERTY);
+            else
+                System.setProperty(DataDirectory.PROPERTY, previous);
+        }
+    }
+
+    @Test
+    void testSettingIsCreatedAndReloaded() throws IOException {
+        SettingController settingController = new SettingController(dataDirectory, PersistenceExecutor.getInstance());
+        settingController.loadSetting();
+        PersistenceExecutor.getInstance().flush();
+        assertThat(Files.exists(dataDirectory.resolve(SettingController.SETTING_FILE))).isTrue();
+        settingController.setColorBlindMode(true);
+        settingController.setRotateKey(87);
+        PersistenceExecutor.getInstance().flush();
+
+        SettingController reloaded = new SettingController(dataDirectory, PersistenceExecutor.getInstance());
+        reloaded.loadSetting();
+        assertThat(reloaded.isColorBlindMode()).isTrue();
+        assertThat(reloaded.getRotateKey()).isEqualTo(87);
+    }
+
+    @Test
+    void testBrokenSettingFallsBackToDefault() throws IOException {
+        dataDirectory.write(SettingController.SETTING_FILE, "{\"rotateKey\": ".getBytes(StandardCharsets.UTF_8));
+        SettingController settingController = new SettingController(dataDirectory, PersistenceExecutor.getInstance());
+        settingController.loadSetting();
+        assertThat(settingController.getRotateKey()).isEqualTo(new Setting().getRotateKey());
+    }
+
+    @Test
+    void testSettingLoadsInBackground() throws Exception {
+        Setting saved = new Setting();
+        saved.setRotateKey(87);
+        dataDirectory.write(SettingController.SETTING_FILE,
+                new Gson().toJson(saved).getBytes(StandardCharsets.UTF_8));
+
+        SettingController settingController = new SettingController(dataDirectory, PersistenceExecutor.getInstance());
+        // 만들 때는 파일을 읽지 않고 기본 설정을 쓴다
+        assertThat(settingController.getRotateKey()).isEqualTo(new Setting().getRotateKey());
+        CountDownLatch loaded = new CountDownLatch(1);
+        settingController.loadSettingLater(loaded::countDown);
+        assertThat(loaded.await(5, TimeUnit.SECONDS)).isTrue();
+        assertThat(settingController.getRotateKey()).isEqualTo(87);
+    }
+
+    @Test
+    void testScoresLoadInBackground() throws Exception {
+        ScoreStore store = new ScoreStore(dataDirectory);
+        store.load();
+        store.append(new Player("saved", 100, "easy"));
+
+        PlayerController playerController = new PlayerController(new ScoreStore(dataDirectory));
+        CountDownLatch loaded = new CountDownLatch(1);
+        playerController.loadPlayerListLater(loaded::countDown);
+        // 다 읽기 전에 저장해도 읽은 기록 뒤에 붙는다
+        playerController.addPlayer("new", 50, "easy");
+        assertThat(loaded.await(5, TimeUnit.SECONDS)).isTrue();
+        assertThat(playerController.getPlayerList().get(0).getName()).isEqualTo("saved");
+        assertThat(playerController.getPlayerList().get(1).getName()).isEqualTo("new");
+    }
+}
@@ -0,0 +1,92 @@
+package tetris.controller;
+
+import org.junit.jupiter.api.*;
+import static org.assertj.core.api.Assertions.*;
+
+import java.util.*;
+
+import tetris.model.*;
+
+public class GameEngineTest {
+
+    static final List<Integer> BLOCK_LIST = Arrays.asList(Block.IBLOCK_IDENTIFY_NUMBER,
+            Block.JBLOCK_IDENTIFY_NUMBER, Block.LBLOCK_IDENTIFY_NUMBER, Block.OBLOCK_IDENTIFY_NUMBER,
+            Block.SBLOCK_IDENTIFY_NUMBER, Block.TBLOCK_IDENTIFY_NUMBER, Block.ZBLOCK_IDENTIFY_NUMBER);
+
+    GameEngine engine;
+
+    @BeforeEach
+    public void setUp() {
+        engine = new GameEngine() {
+            @Override
+            public void doBeforeTakeOutNextBlock() {
+                if (blockDeque.size() < 3)
+                    blockDeque.addAll(BLOCK_LIST);
+            }
+        };
+        engine.startGame(GameEngine.NORMAL_MODE, GameEngine.GENERAL_GAME_MODE, BLOCK_LIST);
+    }
+
+    @Test
+    void testMoveStopsAtWall() {
+        for (int i = 0; i < GameEngine.BOARD_WIDTH; i++)
+            engine.applyInput(GameEngine.MOVE_LEFT);
+        assertThat(engine.x).isEqualTo(0);
+        for (int i = 0; i < GameEngine.BOARD_WIDTH; i++)
+            engine.applyInput(GameEngine.MOVE_RIGHT);
+        assertThat(engine.x).isEqualTo(GameEngine.BOARD_WIDTH - engine.currentBlock.getWidth());
+    }
+
+    @Test
+    void testStepFallsOneLine() {
+        int y = engine.y;
+        engine.step();
+        assertThat(engine.y).isEqualTo(y + 1);
+        assertThat(engine.score).isGreaterThan(0);
+    }
+
+    @Test
+    void testClearLine() {
+        int bottom = GameEngine.BOARD_END_HEIGHT - 1;
+        for (int j = 4; j < GameEngine.BOARD_WIDTH; j++) {
+            engine.board[bottom][j] = GameEngine.FIXED_BLOCK_NUMBER;
+            engine.visualBoard[bottom][j] = Block.OBLOCK_IDENTIFY_NUMBER;
+        }
+        for (int i = 0; i < 3; i++)
+            engine.applyInput(GameEngine.MOVE_LEFT);
+        engine.applyInput(GameEngine.DROP_DOWN);
+        engine.step();
+
+        assertThat(engine.getDeleteLines()).isEqualTo(1);
+        assertThat(engine.board[bottom]).containsExactly(0, 0, 0, 0, 0, 0, 0, 0, 0, 0);
+        assertThat(engine.currentBlock.getIdentifynumber()).isEqualTo(Block.JBLOCK_IDENTIFY_NUMBER);
+    }
+
+    @Test
+    void testCollisionChecksOnlyBlockRange() {
+        int bottom = GameEngine.BOARD_END_HEIGHT - 1;
+        engine.blockBuffer = new OBlock();
+        engine.board[bottom][0] = GameEngine.UNFIXED_BLOCK_NUMBER;
+        assertThat(engine.checkBlockCollision(0, bottom - 1)).isFalse();
+        engine.board[bottom][1] = GameEngine.FIXED_BLOCK_NUMBER;
+        assertThat(engine.checkBlockCollision(0, bottom - 1)).isTrue();
+        assertThat(engine.checkBlockCollision(2, bottom - 1)).isFalse();
+
+        engine.blockBuffer = new TBlock();
+        engine.board[bottom - 1][4] = GameEngine.FULL_LINE; // T 블록의 빈칸이지만 이미 겹쳐 있는 칸
+        assertThat(engine.checkBlockCollision(4, bottom - 1)).isTrue();
+    }
+
+    @Test
+    void testPlayUntilGameOver() {
+        int pieces = 0;
+        while (!engine.isGameEnd() && pieces < 1000) {
+            engine.applyInput(pieces % 2 == 0 ? GameEngine.MOVE_LEFT : GameEngine.MOVE_RIGHT);
+            engine.applyInput(GameEngine.DROP_DOWN);
+            engine.step();
+            pieces++;
+        }
+        assertThat(engine.isGameEnd()).isTrue();
+        assertThat(engine.getScore()).isGreaterThan(0);
+    }
+}
@@ -0,0 +1,207 @@
+package tetris.controller;
+
+import org.junit.jupiter.api.*;
+import static org.assertj.core.api.Assertions.*;
+
+import java.util.*;
+import java.util.concurrent.*;
+
+import javax.swing.*;
+
+import tetris.model.*;
+
+public class GameLoopTest {
+
+    static final List<Integer> BLOCK_LIST = Arrays.asList(Block.IBLOCK_IDENTIFY_NUMBER,
+            Block.JBLOCK_IDENTIFY_NUMBER, Block.LBLOCK_IDENTIFY_NUMBER, Block.OBLOCK_IDENTIFY_NUMBER,
+            Block.SBLOCK_IDENTIFY_NUMBER, Block.TBLOCK_IDENTIFY_NUMBER, Block.ZBLOCK_IDENTIFY_NUMBER);
+
+    long now;
+    GameLoop gameLoop;
+    GameController gameController;
+
+    @BeforeEach
+    void setUp() {
+        now = 0;
+        gameLoop = new GameLoop(() -> now, false);
+        gameController = new GameController(new JTextPane(), new JTextPane(), new JTextPane(), new JLabel(),
+                new JPanel()) {
+            @Override
+            public void doBeforeTakeOutNextBlock() {
+                if (blockDeque.size() < 3)
+                    blockDeque.addAll(BLOCK_LIST);
+            }
+        };
+        gameController.gameLoop = gameLoop;
+    }
+
+    void run(int millis) {
+        for (int i = 0; i < millis / GameLoop.TICK_INTERVAL; i++)
+            gameLoop.step();
+    }
+
+    @Test
+    void testUpdateRunsFixedTicks() {
+        int[] ticks = new int[1];
+        GameLoop.Ticker ticker = interval -> ticks[0] += interval;
+        gameLoop.register(ticker);
+
+        now += 25_000_000L; // 25ms
+        gameLoop.update();
+        assertThat(ticks[0]).isEqualTo(20);
+        now += 5_000_000L; // 남은 5ms 와 합쳐 한 tick
+        gameLoop.update();
+        assertThat(ticks[0]).isEqualTo(30);
+
+        now += 10_000_000_000L; // 오래 멈춘 뒤에는 한 번에 정해진 tick 까지만 따라잡는다
+        gameLoop.update();
+        assertThat(ticks[0]).isEqualTo(130);
+
+        gameLoop.unregister(ticker);
+        now += 100_000_000L;
+        gameLoop.update();
+        assertThat(ticks[0]).isEqualTo(130);
+        assertThat(gameLoop.isRegistered(ticker)).isFalse();
+    }
+
+    @Test
+    void testGravityFallsEveryDelay() {
+        gameController.startGame(GameEngine.NORMAL_MODE, GameEngine.GENERAL_GAME_MODE, BLOCK_LIST, 0);
+        int y = gameController.engine.y;
+        int delay = gameController.engine.delay;
+
+        run(delay - GameLoop.TICK_INTERVAL);
+        assertThat(gameController.engine.y).isEqualTo(y);
+        run(GameLoop.TICK_INTERVAL);
+        assertThat(gameController.engine.y).isEqualTo(y + 1);
+        assertThat(gameController.engine.delay).isLessThan(delay);
+
+        gameController.stopGame();
+        run(delay * 3);
+        assertThat(gameController.engine.y).isEqualTo(y + 1);
+    }
+
+    @Test
+    void testLockDelayThenNextBlock() {
+        gameController.startGame(GameEngine.NORMAL_MODE, GameEngine.GENERAL_GAME_MODE, BLOCK_LIST, 0);
+        gameController.dropDown();
+        assertThat(gameController.engine.currentBlock.getIdentifynumber()).isEqualTo(Block.IBLOCK_IDENTIFY_NUMBER);
+
+        run(500);
+        assertThat(gameController.engine.currentBlock.getIdentifynumber()).isEqualTo(Block.JBLOCK_IDENTIFY_NUMBER);
+        assertThat(gameController.engine.y).isEqualTo(GameEngine.START_Y);
+    }
+
+    @Test
+    void testLineClearAnimationThenNextBlock() {
+        gameController.startGame(GameEngine.NORMAL_MODE, GameEngine.GENERAL_GAME_MODE, BLOCK_LIST, 0);
+        GameEngine engine = gameController.engine;
+        int bottom = GameEngine.BOARD_END_HEIGHT - 1;
+        for (int j = 4; j < GameEngine.BOARD_WIDTH; j++) {
+            engine.board[bottom][j] = GameEngine.FIXED_BLOCK_NUMBER;
+            engine.visualBoard[bottom][j] = Block.OBLOCK_IDENTIFY_NUMBER;
+        }
+        engine.syncBitBoard();
+        for (int i = 0; i < 3; i++)
+            gameController.moveLeft();
+        gameController.dropDown();
+
+        run(500);
+        assertThat(gameController.isAnimating()).isTrue();
+        run(490);
+        assertThat(gameController.isAnimating()).isTrue();
+        run(GameLoop.TICK_INTERVAL);
+        assertThat(gameController.isAnimating()).isFalse();
+        assertThat(engine.getDeleteLines()).isEqualTo(1);
+        assertThat(engine.currentBlock.getIdentifynumber()).isEqualTo(Block.JBLOCK_IDENTIFY_NUMBER);
+    }
+
+    @Test
+    void testPauseHoldsAnimationUntilContinue() {
+        gameController.startGame(GameEngine.NORMAL_MODE, GameEngine.GENERAL_GAME_MODE, BLOCK_LIST, 0);
+        GameEngine engine = gameController.engine;
+        int bottom = GameEngine.BOARD_END_HEIGHT - 1;
+        for (int j = 4; j < GameEngine.BOARD_WIDTH; j++) {
+            engine.board[bottom][j] = GameEngine.FIXED_BLOCK_NUMBER;
+            engine.visualBoard[bottom][j] = Block.OBLOCK_IDENTIFY_NUMBER;
+        }
+        engine.syncBitBoard();
+        for (int i = 0; i < 3; i++)
+            gameController.moveLeft();
+        gameController.dropDown();
+        run(500);
+        assertThat(gameController.isAnimating()).isTrue();
+
+        // 일시정지하면 루프에서 빠져 애니메이션이 진행되지 않는다
+        gameController.stopGame();
+        run(2000);
+        assertThat(gameController.isAnimating()).isTrue();
+        assertThat(engine.currentBlock.getIdentifynumber()).isEqualTo(Block.IBLOCK_IDENTIFY_NUMBER);
+
+        gameController.continuGame();
+        run(500);
+        assertThat(gameController.isAnimating()).isFalse();
+        assertThat(engine.currentBlock.getIdentifynumber()).isEqualTo(Block.JBLOCK_IDENTIFY_NUMBER);
+    }
+
+    @Test
+    void testResetGameLeavesLoop() {
+        gameController.startGame(GameEngine.NORMAL_MODE, GameEngine.GENERAL_GAME_MODE, BLOCK_LIST, 0);
+        gameController.resetGame();
+        run(2000); // 멈춘 게임에는 중력이 더 이상 적용되지 않는다
+        assertThat(gameController.getScore()).isEqualTo(0);
+    }
+
+    @Test
+    void testRobotPlaysPlannedMoves() {
+        gameController.startGame(GameEngine.NORMAL_MODE, GameEngine.GENERAL_GAME_MODE, BLOCK_LIST, 0);
+        gameController.stopGame();
+        RobotController robotController = new RobotController(gameController);
+        robotController.findMove(gameController.engine.currentBlock);
+        robotController.moveBlock();
+        int moves = robotController.getPlannedMoveCount();
+        assertThat(moves).isGreaterThanOrEqualTo(2);
+
+        run(100 * (moves - 1));
+        assertThat(gameController.engine.isBottomFlag).isFalse();
+        run(100);
+        assertThat(gameController.engine.isBottomFlag).isTrue();
+        assertThat(gameController.engine.x).isEqualTo(robotController.moveX);
+        assertThat(robotController.getPlannedMoveCount()).isZero();
+
+        robotController.moveBlock();
+        robotController.stopRobot();
+        assertThat(robotController.getPlannedMoveCount()).isZero();
+    }
+
+    @Test
+    void testRobotSearchesOffEdt() throws Exception {
+        gameController.startGame(GameEngine.NORMAL_MODE, GameEngine.GENERAL_GAME_MODE, BLOCK_LIST, 0);
+        gameController.stopGame();
+        RobotController robotController = new RobotController(gameController);
+        robotController.findMove(gameController.engine.currentBlock);
+        int moveX = robotController.moveX;
+        int rotateCount = robotController.rotateCount;
+
+        robotController.moveX = -1;
+        boolean[] isOnEdt = new boolean[1];
+        CountDownLatch found = new CountDownLatch(1);
+        robotController.findMoveLater(gameController.engine, gameController.engine.currentBlock, () -> {
+            isOnEdt[0] = SwingUtilities.isEventDispatchThread();
+            found.countDown();
+        });
+        assertThat(found.await(5, TimeUnit.SECONDS)).isTrue();
+        assertThat(isOnEdt[0]).isTrue();
+        assertThat(robotController.moveX).isEqualTo(moveX);
+        assertThat(robotController.rotateCount).isEqualTo(rotateCount);
+
+        // 멈춘 로봇에는 늦게 끝난 탐색을 두지 않는다. 게임처럼 탐색 요청과 멈춤을 EDT 에서 한다
+        CountDownLatch stale = new CountDownLatch(1);
+        SwingUtilities.invokeAndWait(() -> {
+            robotController.findMoveLater(gameController.engine, gameController.engine.currentBlock,
+                    stale::countDown);
+            robotController.stopRobot();
+        });
+        assertThat(stale.await(500, TimeUnit.MILLISECONDS)).isFalse();
+    }
+}
@@ -0,0 +1,189 @@
+package tetris.controller;
+
+import org.junit.jupiter.api.*;
+import static org.assertj.core.api.Assertions.*;
+
+import java.io.*;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SocketChannel;
+
+public class GameServerTest {
+
+    GameServer server;
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        if (server != null) {
+            server.close();
+            server.awaitClosed(1000);
+        }
+    }
+
+    GameServer.Options fastOptions() {
+        return GameServer.parse(new String[] { "--port", "0", "--threads", "2", "--speed", "100", "--seed", "7" });
+    }
+
+    // 블로킹 소켓으로 메시지 하나를 읽는다. 서버가 끊었으면 null
+    static ByteBuffer readMessage(SocketChannel channel) throws IOException {
+        ByteBuffer type = ByteBuffer.allocate(1);
+        if (readFully(channel, type) < 0)
+            return null;
+        int length = GameServer.messageLength(type.get(0) & 0xFF);
+        assertThat(length).isPositive();
+        ByteBuffer message = ByteBuffer.allocate(length);
+        message.put(type.get(0));
+        if (readFully(channel, message) < 0)
+            return null;
+        message.flip();
+        return message;
+    }
+
+    static int readFully(SocketChannel channel, ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer) < 0)
+                return -1;
+        }
+        return buffer.position();
+    }
+
+    // 서버에 접속해 HELLO 를 보낸다
+    static SocketChannel join(GameServer server) throws IOException {
+        SocketChannel channel = SocketChannel.open(new InetSocketAddress("localhost", server.getLocalPort()));
+        channel.write(ByteBuffer.wrap(new byte[] { GameServer.HELLO, GameServer.PROTOCOL_VERSION }));
+        return channel;
+    }
+
+    // START 를 읽고 내 번호를 돌려준다
+    static int readStart(SocketChannel channel) throws IOException {
+        ByteBuffer start = readMessage(channel);
+        assertThat(start.get(0) & 0xFF).isEqualTo(GameServer.START);
+        return start.get(11);
+    }
+
+    // END 를 받을 때까지 읽고 이긴 사람 번호를 돌려준다
+    static int readUntilEnd(SocketChannel channel) throws IOException {
+        ByteBuffer message;
+        while ((message = readMessage(channel)) != null) {
+            if ((message.get(0) & 0xFF) == GameServer.END)
+                return message.get(1) & 0xFF;
+        }
+        throw new EOFException("END 전에 끊겼습니다");
+    }
+
+    @Test
+    void testParseArguments() {
+        GameServer.Options options = GameServer.parse(new String[] { "--port", "0", "--speed", "10", "--mode",
+                "item" });
+        assertThat(options.port).isZero();
+        assertThat(options.gameMode).isEqualTo(GameEngine.ITEM_GAME_MODE);
+        assertThat(options.getTickNanos()).isEqualTo(GameLoop.TICK_INTERVAL * 100_000L);
+        assertThatThrownBy(() -> GameServer.parse(new String[] { "--speed", "0" }))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> GameServer.parse(new String[] { "--mode", "coop" }))
+                .isInstanceOf(IllegalArgumentException.class);
+
+        ServerBenchmark benchmark = ServerBenchmark.parse(new String[] { "--matches", "3", "--invalid-every", "5" });
+        assertThat(benchmark.matches).isEqualTo(3);
+        assertThat(benchmark.invalidEvery).isEqualTo(5);
+        assertThat(benchmark.options.port).isZero();
+        assertThatThrownBy(() -> ServerBenchmark.parse(new String[] { "--matches" }))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void testMessageLengths() {
+        assertThat(GameServer.messageLength(GameServer.HELLO)).isEqualTo(2);
+        assertThat(GameServer.messageLength(GameServer.START)).isEqualTo(12);
+        assertThat(GameServer.messageLength(GameServer.STATE)).isEqualTo(13);
+        assertThat(GameServer.messageLength(GameServer.WATCH)).isEqualTo(6);
+        assertThat(GameServer.messageLength(GameServer.BOARD)).isEqualTo(-1);
+        assertThat(GameServer.messageLength(GameServer.INPUT + 3)).isEqualTo(4);
+        assertThat(GameServer.messageLength(GameServer.INPUT + GameServer.MAX_INPUTS + 1)).isEqualTo(-1);
+    }
+
+    @Test
+    void testLatencyHistogram() {
+        GameServer.LatencyHistogram histogram = new GameServer.LatencyHistogram();
+        for (int i = 1; i <= 100; i++)
+            histogram.record(i * 1000L);
+        assertThat(histogram.getCount()).isEqualTo(100);
+        assertThat(histogram.getMeanMicros()).isEqualTo(50.5);
+        assertThat(histogram.getPercentileMicros(0.5)).isEqualTo(51);
+        assertThat(histogram.getPercentileMicros(0.99)).isEqualTo(100);
+        assertThat(histogram.getMaxMicros()).isEqualTo(100.0);
+    }
+
+    @Test
+    void testBenchmarkFinishesAllMatches() throws Exception {
+        ServerBenchmark benchmark = ServerBenchmark.parse(new String[] { "--matches", "10", "--threads", "2",
+                "--speed", "100", "--invalid-every", "20", "--timeout", "60" });
+        ServerBenchmark.Report report = benchmark.run();
+        report.print();
+
+        assertThat(report.clients.ended).isEqualTo(20);
+        assertThat(report.clients.wins * 2 + report.clients.draws).isEqualTo(20);
+        assertThat(report.stats.matchesStarted.sum()).isEqualTo(10);
+        assertThat(report.stats.matchesFinished.sum()).isEqualTo(10);
+        assertThat(report.stats.getMatchesPerSecond(report.elapsedNanos)).isPositive();
+        assertThat(report.stats.tickTime.getCount()).isPositive();
+        assertThat(report.stats.tickLag.getCount()).isEqualTo(report.stats.tickTime.getCount());
+        assertThat(report.clients.states).isPositive();
+        assertThat(report.clients.rejects).isPositive();
+        assertThat(report.stats.rejectedInputs.sum()).isGreaterThanOrEqualTo(report.clients.rejects);
+    }
+
+    @Test
+    void testLeavingPlayerForfeits() throws Exception {
+        server = GameServer.start(fastOptions());
+        try (SocketChannel first = join(server); SocketChannel second = join(server)) {
+            assertThat(readStart(first)).isEqualTo(0);
+            int player = readStart(second);
+            assertThat(player).isEqualTo(1);
+            first.close();
+            assertThat(readUntilEnd(second)).isEqualTo(player);
+        }
+    }
+
+    @Test
+    void testFailingMatchEndsInDraw() throws Exception {
+        server = GameServer.start(fastOptions());
+        try (SocketChannel first = join(server); SocketChannel second = join(server)) {
+            readStart(first);
+            readStart(second);
+            ServerMatch match = server.getLiveMatch(0);
+            assertThat(match).isNotNull();
+            // 다음 tick 에서 블록을 움직이다 NullPointerException 이 난다
+            match.getEngine(0).currentBlock = null;
+            match.offerInputs(0, 1, new int[] { GameEngine.MOVE_LEFT });
+
+            assertThat(readUntilEnd(first)).isEqualTo(GameServer.NO_WINNER);
+            assertThat(readUntilEnd(second)).isEqualTo(GameServer.NO_WINNER);
+            assertThat(match.isEnded()).isTrue();
+            assertThat(server.getLiveMatch(0)).isNull();
+            assertThat(server.getStats().failedMatches.sum()).isEqualTo(1);
+            assertThat(server.getStats().matchesFinished.sum()).isEqualTo(1);
+        }
+    }
+
+    @Test
+    void testFloodingClientIsDropped() throws Exception {
+        server = GameServer.start(fastOptions());
+        try (SocketChannel first = join(server); SocketChannel second = join(server)) {
+            readStart(first);
+            int player = readStart(second);
+            ByteBuffer flood = ByteBuffer.allocate((1 + GameServer.MAX_INPUTS) * 20);
+            while (flood.hasRemaining()) {
+                flood.put((byte) (GameServer.INPUT + GameServer.MAX_INPUTS));
+                for (int i = 0; i < GameServer.MAX_INPUTS; i++)
+                    flood.put((byte) ServerBenchmark.INVALID_INPUT);
+            }
+            flood.flip();
+            first.write(flood);
+
+            assertThat(readUntilEnd(second)).isEqualTo(player);
+            assertThat(server.getStats().droppedClients.sum()).isEqualTo(1);
+            assertThat(server.getStats().rejectedInputs.sum()).isGreaterThan(ServerMatch.MAX_REJECTS);
+        }
+    }
+}
@@ -0,0 +1,175 @@
+package tetris.controller;
+
+import org.junit.jupiter.api.*;
+import static org.assertj.core.api.Assertions.*;
+
+import java.util.*;
+
+import javax.swing.*;
+
+public class GameSnapshotTest {
+
+    static final long SEED = 20221205L;
+
+    final RobotController robot = new RobotController(null, new LookaheadSearch(LookaheadSearch.UNTIMED));
+
+    static GameEngine createEngine(BlockRandomizer randomizer) {
+        GameEngine engine = new GameEngine() {
+            @Override
+            public void doBeforeTakeOutNextBlock() {
+                if (blockDeque.size() < 3)
+                    blockDeque.addAll(randomizer.nextBlocks(GameEngine.NORMAL_MODE));
+            }
+        };
+        engine.setItemSeed(randomizer.getItemSeed());
+        engine.setItemFreqency(1);
+        engine.startGame(GameEngine.NORMAL_MODE, GameEngine.ITEM_GAME_MODE,
+                randomizer.nextBlocks(GameEngine.NORMAL_MODE));
+        return engine;
+    }
+
+    static int[][] copy(int[][] board) {
+        int[][] copied = new int[board.length][];
+        for (int i = 0; i < board.length; i++)
+            copied[i] = board[i].clone();
+        return copied;
+    }
+
+    // 로봇이 고른 자리로 블록 하나를 떨어뜨린다
+    void playPiece(GameEngine engine) {
+        robot.findMove(engine, engine.currentBlock);
+        int rotations = Math.floorMod(robot.rotateCount - engine.currentBlock.getRotateCount(), 4);
+        for (int r = 0; r < rotations; r++)
+            engine.applyInput(GameEngine.MOVE_ROTATE);
+        for (int dx = engine.x; dx != robot.moveX; dx += dx < robot.moveX ? 1 : -1)
+            engine.applyInput(dx < robot.moveX ? GameEngine.MOVE_RIGHT : GameEngine.MOVE_LEFT);
+        engine.applyInput(GameEngine.DROP_DOWN);
+        engine.step();
+    }
+
+    @Test
+    void testRandomMatchesJavaRandom() {
+        Random random = new Random(SEED);
+        RestorableRandom restorable = new RestorableRandom(SEED);
+        for (int i = 0; i < 1000; i++)
+            assertThat(restorable.nextInt(7 + i % 5)).isEqualTo(random.nextInt(7 + i % 5));
+
+        long state = restorable.getState();
+        int[] first = new int[100];
+        for (int i = 0; i < first.length; i++)
+            first[i] = restorable.nextInt();
+        restorable.setState(state);
+        for (int value : first)
+            assertThat(restorable.nextInt()).isEqualTo(value);
+    }
+
+    @Test
+    void testEngineReturnsToSavedState() {
+        BlockRandomizer randomizer = new BlockRandomizer(SEED);
+        GameEngine engine = createEngine(randomizer);
+        for (int i = 0; i < 30; i++)
+            playPiece(engine);
+
+        GameSnapshot snapshot = new GameSnapshot();
+        engine.save(snapshot);
+        long randomizerState = randomizer.getState();
+        int[][] board = copy(engine.visualBoard);
+        List<Integer> checksums = new ArrayList<>();
+        int itemBlocks = 0;
+        for (int i = 0; i < 60; i++) {
+            if (engine.isItemFlag)
+                itemBlocks++;
+            playPiece(engine);
+            checksums.add(engine.checksum());
+        }
+        assertThat(itemBlocks).isGreaterThan(0);
+
+        engine.restore(snapshot);
+        randomizer.setState(randomizerState);
+        assertThat(engine.visualBoard).isEqualTo(board);
+        for (int i = 0; i < 60; i++) {
+            playPiece(engine);
+            assertThat(engine.checksum()).isEqualTo(checksums.get(i));
+        }
+    }
+
+    @Test
+    void testControllerReturnsToSavedTick() throws Exception {
+        SwingUtilities.invokeAndWait(() -> {
+            BlockRandomizer randomizer = new BlockRandomizer(SEED);
+            GameLoop gameLoop = new GameLoop(System::nanoTime, false);
+            int[] takenBlocks = { 0 };
+            GameController player = new GameController(new JTextPane(), new JTextPane(), new JTextPane(),
+                    new JLabel(), new JPanel()) {
+                @Override
+                public void doBeforeTakeOutNextBlock() {
+                    if (blockDeque.size() < 3)
+                        blockDeque.addAll(randomizer.nextBlocks(GameController.NORMAL_MODE));
+                }
+
+                @Override
+                public void doAfterTakeOutNextBlock() {
+                    takenBlocks[0]++;
+                }
+            };
+            player.setGameLoop(gameLoop);
+            player.engine.setItemSeed(randomizer.getItemSeed());
+            player.setItemFreqency(1);
+            player.startGame(GameController.NORMAL_MODE, GameController.ITEM_GAME_MODE,
+                    randomizer.nextBlocks(GameController.NORMAL_MODE), 0);
+
+            // 로봇이 블록마다 한 번 고른 입력을 두고, 두었던 입력을 tick 별로 남긴다
+            List<int[]> inputs = new ArrayList<>();
+            List<Integer> checksums = new ArrayList<>();
+            GameSnapshot snapshot = new GameSnapshot();
+            long randomizerState = 0;
+            int plannedBlocks = -1;
+            boolean wasAnimating = false;
+            for (int tick = 0; tick < 4000; tick++) {
+                if (tick == 1000) {
+                    player.save(snapshot);
+                    randomizerState = randomizer.getState();
+                }
+                int[] tickInputs = {};
+                if (takenBlocks[0] != plannedBlocks && !player.isAnimating()) {
+                    plannedBlocks = takenBlocks[0];
+                    tickInputs = plan(player.engine);
+                }
+                for (int input : tickInputs)
+                    player.applyInput(input);
+                gameLoop.step();
+                if (tick >= 1000) {
+                    inputs.add(tickInputs);
+                    checksums.add(player.engine.checksum());
+                    wasAnimating |= player.isAnimating();
+                }
+            }
+            assertThat(wasAnimating).isTrue();
+
+            player.restore(snapshot);
+            randomizer.setState(randomizerState);
+            for (int i = 0; i < inputs.size(); i++) {
+                for (int input : inputs.get(i))
+                    player.applyInput(input);
+                gameLoop.step();
+                assertThat(player.engine.checksum()).isEqualTo(checksums.get(i));
+            }
+            player.resetGame();
+        });
+    }
+
+    int[] plan(GameEngine engine) {
+        robot.findMove(engine, engine.currentBlock);
+        List<Integer> plan = new ArrayList<>();
+        int rotations = Math.floorMod(robot.rotateCount - engine.currentBlock.getRotateCount(), 4);
+        for (int r = 0; r < rotations; r++)
+            plan.add(GameEngine.MOVE_ROTATE);
+        // 회전하면 x 가 바뀌므로 돌린 뒤의 x 를 엔진 사본 없이 알 수 없어 벽 쪽으로 먼저 붙인 뒤 센다
+        for (int i = 0; i < GameEngine.BOARD_WIDTH; i++)
+            plan.add(GameEngine.MOVE_LEFT);
+        for (int i = 0; i < robot.moveX; i++)
+            plan.add(GameEngine.MOVE_RIGHT);
+        plan.add(GameEngine.DROP_DOWN);
+        return plan.stream().mapToInt(Integer::intValue).toArray();
+    }
+}
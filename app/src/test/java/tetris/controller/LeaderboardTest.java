@@ -0,0 +1,82 @@
+package tetris.controller;
+
+import org.junit.jupiter.api.*;
+import static org.assertj.core.api.Assertions.*;
+
+import java.util.*;
+import java.util.stream.Collectors;
+
+import tetris.model.Player;
+
+public class LeaderboardTest {
+
+    static final String[] DIFFICULTIES = { "easy", "normal", "hard" };
+    static final String[] MODES = { "general", "item", "time attack" };
+
+    @Test
+    void testTopAndRankMatchSortedList() {
+        Random random = new Random(7);
+        Leaderboard leaderboard = new Leaderboard();
+        List<Player> players = new ArrayList<>();
+        for (int i = 0; i < 5000; i++) {
+            Player player = new Player("p" + i, random.nextInt(2000), DIFFICULTIES[random.nextInt(3)],
+                    MODES[random.nextInt(3)]);
+            players.add(player);
+            leaderboard.add(player);
+        }
+        assertThat(leaderboard.size()).isEqualTo(5000);
+
+        // 안정 정렬이므로 같은 점수는 넣은 순서 그대로
+        List<Player> sorted = new ArrayList<>(players);
+        sorted.sort((a, b) -> b.getScore() - a.getScore());
+        assertThat(leaderboard.top(10)).isEqualTo(sorted.subList(0, 10));
+        for (String difficulty : DIFFICULTIES) {
+            for (String mode : MODES) {
+                List<Player> expected = sorted.stream().filter(
+                        player -> player.getDifficulty().equals(difficulty) && player.getGameMode().equals(mode))
+                        .collect(Collectors.toList());
+                assertThat(leaderboard.size(difficulty, mode)).isEqualTo(expected.size());
+                assertThat(leaderboard.top(difficulty, mode, 10)).isEqualTo(expected.subList(0, 10));
+                for (int score : new int[] { -1, 0, 500, 1999, 2000 }) {
+                    long above = expected.stream().filter(player -> player.getScore() > score).count();
+                    assertThat(leaderboard.rank(difficulty, mode, score)).isEqualTo((int) above + 1);
+                }
+            }
+        }
+        long above = players.stream().filter(player -> player.getScore() > 1000).count();
+        assertThat(leaderboard.rank(1000)).isEqualTo((int) above + 1);
+    }
+
+    @Test
+    void testTiesKeepInsertionOrderAndShareRank() {
+        Leaderboard leaderboard = new Leaderboard();
+        Player first = new Player("first", 100, "easy", "item");
+        Player second = new Player("second", 100, "easy", "item");
+        Player best = new Player("best", 300, "easy", "item");
+        leaderboard.add(first);
+        leaderboard.add(second);
+        leaderboard.add(best);
+        assertThat(leaderboard.top("easy", "item", 10)).containsExactly(best, first, second);
+        assertThat(leaderboard.rank("easy", "item", 100)).isEqualTo(2);
+        assertThat(leaderboard.rank("easy", "item", 99)).isEqualTo(4);
+        assertThat(leaderboard.top("hard", "item", 10)).isEmpty();
+        assertThat(leaderboard.rank("hard", "item", 0)).isEqualTo(1);
+
+        leaderboard.clear();
+        assertThat(leaderboard.size()).isEqualTo(0);
+        assertThat(leaderboard.top(10)).isEmpty();
+    }
+
+    @Test
+    void testTreeStaysBalanced() {
+        // 점수가 한쪽으로만 들어오는 최악의 순서에서도 높이가 log n 정도로 남는다
+        Leaderboard.RankTree tree = new Leaderboard.RankTree();
+        int count = 1 << 16;
+        for (int i = 0; i < count; i++)
+            tree.insert(new Player("p", i, "easy"), i);
+        assertThat(tree.size()).isEqualTo(count);
+        assertThat(tree.height()).isLessThanOrEqualTo(24);
+        assertThat(tree.countAbove(count - 11)).isEqualTo(10);
+        assertThat(tree.top(3).get(0).getScore()).isEqualTo(count - 1);
+    }
+}
@@ -0,0 +1,88 @@
+package tetris.controller;
+
+import org.junit.jupiter.api.*;
+import static org.assertj.core.api.Assertions.*;
+
+import java.util.*;
+import java.util.concurrent.*;
+
+import tetris.model.*;
+
+public class LookaheadSearchTest {
+
+    static final double[] WEIGHTS = { -0.510066, 0.760666, -0.35663, -0.184483 };
+
+    BitBoard board;
+
+    @BeforeEach
+    void setUp() {
+        board = new BitBoard(GameEngine.BOARD_END_HEIGHT);
+    }
+
+    // 아래에서부터 줄 마스크를 채운다
+    void fillBottom(int... masks) {
+        for (int i = 0; i < masks.length; i++)
+            board.rows[GameEngine.BOARD_END_HEIGHT - 1 - i] = masks[i];
+    }
+
+    @Test
+    void testSearchCompletesLine() {
+        fillBottom(0b1111110000);
+        LookaheadSearch search = new LookaheadSearch();
+        LookaheadSearch.Placement placement = search.search(board, new IBlock(), null, WEIGHTS);
+        assertThat(placement.x).isZero();
+        assertThat(placement.lines).isEqualTo(1);
+        assertThat(placement.rotateCount).isEqualTo(Block.IBLOCK_THIRD_ROTATE_STATE);
+        assertThat(placement.board.rows[GameEngine.BOARD_END_HEIGHT - 1]).isZero();
+        assertThat(board.rows[GameEngine.BOARD_END_HEIGHT - 1]).isEqualTo(0b1111110000);
+    }
+
+    @Test
+    void testSearchReturnsNullWhenEveryPlacementEndsGame() {
+        for (int i = GameEngine.BOARD_START_HEIGHT; i < GameEngine.BOARD_END_HEIGHT; i++)
+            board.rows[i] = 0b0101010101;
+        assertThat(new LookaheadSearch().search(board, new TBlock(), new OBlock(), WEIGHTS)).isNull();
+    }
+
+    @Test
+    void testExpiredBudgetFallsBackToFirstRotation() {
+        fillBottom(0b1111111001, 0b1111111001);
+        LookaheadSearch.Placement single = new LookaheadSearch().search(board, new SBlock(), null, WEIGHTS);
+        LookaheadSearch expired = new LookaheadSearch(ForkJoinPool.commonPool(), 4, -1);
+        // 시간이 지나도 첫 회전 상태는 끝까지 보고, 다음 블록은 보지 않는다
+        LookaheadSearch.Placement fallback = expired.search(board, new SBlock(), new OBlock(), WEIGHTS);
+        assertThat(fallback.rotateCount).isEqualTo(LookaheadSearch.getRotations(new SBlock()).get(0).getRotateCount());
+        assertThat(fallback.value).isEqualTo(fallback.score);
+        assertThat(fallback.score).isLessThanOrEqualTo(single.score);
+    }
+
+    @Test
+    void testSearchLaterCallsBack() throws Exception {
+        fillBottom(0b1111110000);
+        CompletableFuture<LookaheadSearch.Placement> found = new CompletableFuture<>();
+        new LookaheadSearch().searchLater(board, new IBlock(), null, WEIGHTS, found::complete);
+        LookaheadSearch.Placement placement = found.get(5, TimeUnit.SECONDS);
+        assertThat(placement.lines).isEqualTo(1);
+        assertThat(placement.x).isZero();
+    }
+
+    @Test
+    void testParallelSearchIsDeterministic() {
+        Random random = new Random(19);
+        LookaheadSearch serial = new LookaheadSearch(new ForkJoinPool(1), 6, 60_000);
+        LookaheadSearch parallel = new LookaheadSearch(new ForkJoinPool(4), 6, 60_000);
+        GameEngine engine = new GameEngine();
+        for (int n = 0; n < 20; n++) {
+            board.clear();
+            for (int i = 0; i < 6; i++)
+                board.rows[GameEngine.BOARD_END_HEIGHT - 1 - i] = random.nextInt(BitBoard.FULL_ROW);
+            Block block = engine.getBlock(Block.IBLOCK_IDENTIFY_NUMBER + random.nextInt(7));
+            Block nextBlock = engine.getBlock(Block.IBLOCK_IDENTIFY_NUMBER + random.nextInt(7));
+            LookaheadSearch.Placement a = serial.search(board, block, nextBlock, WEIGHTS);
+            LookaheadSearch.Placement b = parallel.search(board, block, nextBlock, WEIGHTS);
+            assertThat(b.x).isEqualTo(a.x);
+            assertThat(b.rotateCount).isEqualTo(a.rotateCount);
+            assertThat(b.value).isEqualTo(a.value);
+        }
+    }
+}
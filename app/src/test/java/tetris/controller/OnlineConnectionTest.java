@@ -0,0 +1,146 @@
+package tetris.controller;
+
+import org.junit.jupiter.api.*;
+import static org.assertj.core.api.Assertions.*;
+
+import java.io.*;
+import java.net.Socket;
+import java.util.*;
+import java.util.function.BooleanSupplier;
+
+public class OnlineConnectionTest {
+
+    // 받은 메시지를 글자로 남긴다
+    static class RecordingHandler implements OnlineConnection.Handler {
+        final List<String> events = new ArrayList<>();
+        boolean isClosed;
+        IOException closeError;
+
+        @Override
+        public void onConnected() {
+            events.add("connected");
+        }
+
+        @Override
+        public void onStart(long seed, int gameMode, int itemFrequency) {
+            events.add("start " + seed + " " + gameMode + " " + itemFrequency);
+        }
+
+        @Override
+        public void onFrame(int count, int[] inputs) {
+            events.add("frame " + Arrays.toString(Arrays.copyOf(inputs, count)));
+        }
+
+        @Override
+        public void onChecksum(int frame, int checksum) {
+            events.add("checksum " + frame + " " + checksum);
+        }
+
+        @Override
+        public void onClosed(IOException error) {
+            isClosed = true;
+            closeError = error;
+        }
+    }
+
+    OnlineConnection host;
+    OnlineConnection guest;
+    RecordingHandler hostHandler = new RecordingHandler();
+    RecordingHandler guestHandler = new RecordingHandler();
+
+    // condition 이 참이 될 때까지 두 연결에서 받은 메시지를 꺼낸다
+    void pollUntil(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (!condition.getAsBoolean()) {
+            assertThat(System.currentTimeMillis()).isLessThan(deadline);
+            if (host != null)
+                host.poll(hostHandler);
+            if (guest != null)
+                guest.poll(guestHandler);
+            Thread.sleep(1);
+        }
+    }
+
+    void connect() throws Exception {
+        host = OnlineConnection.host(0);
+        guest = OnlineConnection.connect("127.0.0.1", host.getLocalPort());
+        pollUntil(() -> hostHandler.events.contains("connected") && guestHandler.events.contains("connected"));
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (host != null)
+            host.close();
+        if (guest != null)
+            guest.close();
+    }
+
+    @Test
+    void testMessagesRoundTrip() throws Exception {
+        connect();
+        host.sendStart(-1234567890123L, GameController.ITEM_GAME_MODE, 7);
+        guest.sendFrame(0, new int[0]);
+        guest.sendFrame(3, new int[] { GameEngine.MOVE_LEFT, GameEngine.MOVE_ROTATE, GameEngine.DROP_DOWN, 9 });
+        guest.sendFrame(OnlineConnection.MAX_FRAME_INPUTS, new int[] { 0, 1, 2, 3, 4, 0, 1 });
+        guest.sendChecksum(12345, -987654321);
+
+        pollUntil(() -> hostHandler.events.size() == 5 && guestHandler.events.size() > 1);
+        assertThat(guestHandler.events).isEqualTo(Arrays.asList("connected",
+                "start -1234567890123 " + GameController.ITEM_GAME_MODE + " 7"));
+        assertThat(hostHandler.events).isEqualTo(Arrays.asList("connected",
+                "frame []", "frame [0, 2, 4]", "frame [0, 1, 2, 3, 4, 0, 1]",
+                "checksum 12345 -987654321"));
+    }
+
+    @Test
+    void testManyFramesArriveInOrder() throws Exception {
+        connect();
+        int count = 10_000;
+        int[] inputs = { GameEngine.MOVE_RIGHT, GameEngine.MOVE_RIGHT, GameEngine.MOVE_RIGHT,
+                GameEngine.MOVE_RIGHT, GameEngine.MOVE_RIGHT, GameEngine.MOVE_RIGHT, GameEngine.MOVE_RIGHT };
+        for (int i = 0; i < count; i++)
+            host.sendFrame(i % (OnlineConnection.MAX_FRAME_INPUTS + 1), inputs);
+
+        pollUntil(() -> guestHandler.events.size() == count + 1);
+        for (int i = 0; i < count; i++)
+            assertThat(guestHandler.events.get(i + 1))
+                    .isEqualTo("frame " + Arrays.toString(Arrays.copyOf(inputs, i % (OnlineConnection.MAX_FRAME_INPUTS + 1))));
+    }
+
+    @Test
+    void testPeerCloseIsReported() throws Exception {
+        connect();
+        guest.sendChecksum(7, 7);
+        guest.close();
+        guest.awaitClosed(5000);
+        guest = null;
+
+        pollUntil(() -> hostHandler.isClosed);
+        assertThat(hostHandler.events).contains("checksum 7 7");
+        assertThat(hostHandler.closeError).isNull();
+    }
+
+    @Test
+    void testRejectsOtherProtocolVersion() throws Exception {
+        host = OnlineConnection.host(0);
+        try (Socket socket = new Socket("127.0.0.1", host.getLocalPort())) {
+            OutputStream out = socket.getOutputStream();
+            out.write(new byte[] { OnlineConnection.HELLO, OnlineConnection.PROTOCOL_VERSION + 1 });
+            out.flush();
+            pollUntil(() -> hostHandler.isClosed);
+        }
+        assertThat(hostHandler.events).isEmpty();
+        assertThat(hostHandler.closeError).isNotNull();
+    }
+
+    @Test
+    void testMessageLength() {
+        assertThat(OnlineConnection.messageLength(OnlineConnection.FRAME)).isEqualTo(1);
+        assertThat(OnlineConnection.messageLength(OnlineConnection.FRAME + 3)).isEqualTo(4);
+        assertThat(OnlineConnection.messageLength(OnlineConnection.FRAME + OnlineConnection.MAX_FRAME_INPUTS + 1))
+                .isEqualTo(-1);
+        assertThat(OnlineConnection.messageLength(OnlineConnection.START)).isEqualTo(11);
+        assertThat(OnlineConnection.messageLength(OnlineConnection.CHECKSUM)).isEqualTo(9);
+        assertThat(OnlineConnection.messageLength(0x7F)).isEqualTo(-1);
+    }
+}
@@ -0,0 +1,105 @@
+package tetris.controller;
+
+import org.junit.jupiter.api.*;
+import static org.assertj.core.api.Assertions.*;
+
+import java.io.IOException;
+import java.util.*;
+import java.util.concurrent.*;
+
+import javax.swing.SwingUtilities;
+
+public class PersistenceExecutorTest {
+
+    PersistenceExecutor persistence = new PersistenceExecutor();
+
+    // 실행기 스레드를 latch 가 풀릴 때까지 붙잡아 둔다
+    CountDownLatch blockExecutor() {
+        CountDownLatch latch = new CountDownLatch(1);
+        persistence.submit(() -> {
+            try {
+                latch.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return null;
+        }, null);
+        return latch;
+    }
+
+    @Test
+    void testTasksRunInOrderAndCallBackOnEdt() throws Exception {
+        List<Integer> order = Collections.synchronizedList(new ArrayList<>());
+        CountDownLatch done = new CountDownLatch(3);
+        boolean[] isOnEdt = { true };
+        for (int i = 0; i < 3; i++) {
+            int index = i;
+            persistence.submit(() -> {
+                order.add(index);
+                return index;
+            }, (result, error) -> {
+                isOnEdt[0] &= SwingUtilities.isEventDispatchThread();
+                assertThat(result).isEqualTo(index);
+                done.countDown();
+            });
+        }
+        assertThat(done.await(5, TimeUnit.SECONDS)).isTrue();
+        assertThat(order).containsExactly(0, 1, 2);
+        assertThat(isOnEdt[0]).isTrue();
+    }
+
+    @Test
+    void testWriteBehindKeepsOnlyLatestWrite() throws Exception {
+        CountDownLatch latch = blockExecutor();
+        List<String> written = Collections.synchronizedList(new ArrayList<>());
+        for (String value : new String[] { "a", "b", "c" }) {
+            persistence.writeBehind("setting", () -> written.add(value), null);
+        }
+        persistence.writeBehind("other", () -> written.add("x"), null);
+        latch.countDown();
+        persistence.flush();
+        assertThat(written).containsExactly("c", "x");
+
+        persistence.writeBehind("setting", () -> written.add("d"), null);
+        persistence.flush();
+        assertThat(written).containsExactly("c", "x", "d");
+    }
+
+    @Test
+    void testCoalescedWritesCallBackEveryCaller() throws Exception {
+        CountDownLatch latch = blockExecutor();
+        List<String> written = Collections.synchronizedList(new ArrayList<>());
+        List<String> calledBack = Collections.synchronizedList(new ArrayList<>());
+        CountDownLatch done = new CountDownLatch(3);
+        for (String value : new String[] { "a", "b", "c" }) {
+            persistence.writeBehind("setting", () -> written.add(value), (result, error) -> {
+                assertThat(error).isNull();
+                calledBack.add(value);
+                done.countDown();
+            });
+        }
+        latch.countDown();
+        assertThat(done.await(5, TimeUnit.SECONDS)).isTrue();
+        assertThat(written).containsExactly("c");
+        assertThat(calledBack).containsExactly("a", "b", "c");
+    }
+
+    @Test
+    void testErrorsReachCallerAndCallback() throws Exception {
+        assertThatThrownBy(() -> persistence.call(() -> {
+            throw new IOException("disk full");
+        })).isInstanceOf(IOException.class);
+
+        CountDownLatch done = new CountDownLatch(1);
+        IOException[] error = new IOException[1];
+        persistence.submit(() -> {
+            throw new IOException("disk full");
+        }, (result, e) -> {
+            error[0] = e;
+            done.countDown();
+        });
+        assertThat(done.await(5, TimeUnit.SECONDS)).isTrue();
+        assertThat(error[0]).isNotNull();
+        assertThat(persistence.call(() -> 7)).isEqualTo(7);
+    }
+}
@@ -0,0 +1,80 @@
+package tetris.controller;
+
+import org.junit.jupiter.api.*;
+import static org.assertj.core.api.Assertions.*;
+
+import java.awt.Rectangle;
+import java.util.*;
+
+import javax.swing.*;
+
+public class RepaintSchedulerTest {
+
+    RepaintScheduler scheduler;
+    List<String> calls;
+
+    @BeforeEach
+    void setUp() {
+        scheduler = new RepaintScheduler(false);
+        calls = new ArrayList<>();
+    }
+
+    JPanel makePanel(String name) {
+        JPanel panel = new JPanel() {
+            @Override
+            public void repaint(long tm, int x, int y, int width, int height) {
+                if (calls != null)
+                    calls.add(name + " repaint " + x + "," + y + "," + width + "," + height);
+            }
+
+            @Override
+            public void revalidate() {
+                if (calls != null)
+                    calls.add(name + " revalidate");
+            }
+        };
+        panel.setSize(100, 50);
+        calls.clear(); // 생성 중에 Swing 이 부른 호출은 무시한다
+        return panel;
+    }
+
+    @Test
+    void testIdleSchedulerDoesNothing() {
+        assertThat(scheduler.isPending()).isFalse();
+        scheduler.runFrame();
+        assertThat(calls).isEmpty();
+    }
+
+    @Test
+    void testDirtyRegionsAreMergedPerComponent() {
+        JPanel panel = makePanel("panel");
+        scheduler.markDirty(panel, new Rectangle(10, 10, 5, 5));
+        scheduler.markDirty(panel, new Rectangle(30, 20, 5, 5));
+        assertThat(scheduler.isPending()).isTrue();
+        assertThat(calls).isEmpty();
+
+        scheduler.runFrame();
+        assertThat(calls).containsExactly("panel repaint 10,10,25,15");
+        assertThat(scheduler.isPending()).isFalse();
+        assertThat(scheduler.getFrameCount()).isEqualTo(1);
+
+        calls.clear();
+        scheduler.runFrame();
+        assertThat(calls).isEmpty();
+    }
+
+    @Test
+    void testLayoutDirtyContainerCoversChildren() {
+        JPanel parent = makePanel("parent");
+        JPanel child = makePanel("child");
+        JPanel other = makePanel("other");
+        parent.add(child);
+
+        scheduler.markDirty(child);
+        scheduler.markDirty(other);
+        scheduler.markLayoutDirty(parent);
+        scheduler.runFrame();
+        assertThat(calls).containsExactly("parent revalidate", "parent repaint 0,0,100,50",
+                "other repaint 0,0,100,50");
+    }
+}
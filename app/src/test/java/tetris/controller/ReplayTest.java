@@ -0,0 +1,331 @@
+package tetris.controller;
+
+import org.junit.jupiter.api.*;
+import static org.assertj.core.api.Assertions.*;
+
+import java.io.*;
+import java.util.*;
+
+import javax.swing.*;
+
+public class ReplayTest {
+
+    /*
+     * SingleGameController, MultiGameController 와 같은 훅을 단 GameController 를 수동 GameLoop 로 돌리며 녹화한다.
+     * 로봇은 새 블록이 나오면 바로 자리를 찾아 옮기고 떨어뜨린다. 누가 게임오버가 되면 saveReplay 처럼 녹화를 멈춘다.
+     */
+    static class RecordedGame {
+        final GameLoop gameLoop = new GameLoop(() -> 0, false);
+        final Replay replay;
+        final GameController[] players;
+        final BlockRandomizer randomizer;
+        private final boolean[] isWaitingMove;
+        private final RobotController robot = new RobotController(null, new LookaheadSearch(LookaheadSearch.UNTIMED));
+        boolean isGameOver;
+        int attacksWhileAnimating; // 애니메이션 중인 플레이어가 공격을 받은 횟수
+
+        RecordedGame(long seed, int diffMode, int gameMode, int players) {
+            randomizer = new BlockRandomizer(seed);
+            this.players = new GameController[players];
+            isWaitingMove = new boolean[players];
+            for (int i = 0; i < players; i++)
+                this.players[i] = players == 1 ? createSingle(diffMode) : createVersus(i);
+            if (players > 1) {
+                this.players[0].setOpponentPlayer(this.players[1]);
+                this.players[1].setOpponentPlayer(this.players[0]);
+            }
+            for (GameController player : this.players) {
+                player.gameLoop = gameLoop;
+                player.engine.setItemSeed(randomizer.getItemSeed());
+            }
+            List<Integer> blocks = randomizer.nextBlocks(diffMode);
+            replay = new Replay(seed, diffMode, gameMode, this.players[0].engine.itemFreqency, players);
+            for (int i = 0; i < players; i++)
+                this.players[i].setReplay(replay, i);
+            replay.start(gameLoop.getTicks());
+            for (int i = 0; i < players; i++) {
+                isWaitingMove[i] = true;
+                this.players[i].startGame(diffMode, gameMode, blocks, 0);
+            }
+        }
+
+        private GameController createSingle(int diffMode) {
+            return new GameController(new JTextPane(), new JTextPane(), new JTextPane(), new JLabel(), new JPanel()) {
+                @Override
+                public void doAfterGameOver() {
+                    finish();
+                }
+
+                @Override
+                public void doBeforeTakeOutNextBlock() {
+                    if (blockDeque.size() < 3)
+                        blockDeque.addAll(randomizer.nextBlocks(diffMode));
+                }
+
+                @Override
+                public void doAfterTakeOutNextBlock() {
+                    isWaitingMove[0] = true;
+                }
+            };
+        }
+
+        private GameController createVersus(int index) {
+            return new GameController(new JTextPane(), new JTextPane(), new JTextPane(), new JLabel(), new JPanel()) {
+                @Override
+                public void doAfterGameOver() {
+                    finish();
+                }
+
+                @Override
+                public void doBeforeTakeOutNextBlock() {
+                    if (engine.attackLines > 0) {
+                        underAttack();
+                    }
+                    if (blockDeque.isEmpty()) {
+                        List<Integer> blocks = randomizer.nextBlocks(GameController.NORMAL_MODE);
+                        blockDeque.addAll(blocks);
+                        opponentBlockDeque.addAll(blocks);
+                    }
+                }
+
+                @Override
+                public void doAfterTakeOutNextBlock() {
+                    isWaitingMove[index] = true;
+                }
+            };
+        }
+
+        // saveReplay 처럼 녹화를 멈추고 결과를 적는다
+        private void finish() {
+            isGameOver = true;
+            for (int i = 0; i < players.length; i++) {
+                players[i].setReplay(null, 0);
+                players[i].stopGameDelayTimer();
+                replay.setResult(i, players[i].getScore(), players[i].engine.getDeleteLines());
+            }
+        }
+
+        // 게임오버가 되거나 ticks 가 지날 때까지 돌리고 결과를 적는다. 애니메이션 중이면 끝날 때까지 더 돌린다
+        void play(int ticks) {
+            int[] attackLines = new int[players.length];
+            for (int t = 0; !isGameOver && (t < ticks || isAnimating()); t++) {
+                for (int i = 0; i < players.length && !isGameOver; i++) {
+                    if (isWaitingMove[i] && !players[i].isAnimating())
+                        moveRobot(i);
+                    attackLines[i] = players[i].engine.attackLines;
+                }
+                gameLoop.step();
+                for (int i = 0; i < players.length; i++) {
+                    if (players[i].isAnimating() && players[i].engine.attackLines > attackLines[i])
+                        attacksWhileAnimating++;
+                }
+            }
+            if (!isGameOver)
+                finish();
+        }
+
+        boolean isAnimating() {
+            for (GameController player : players) {
+                if (player.isAnimating())
+                    return true;
+            }
+            return false;
+        }
+
+        private void moveRobot(int index) {
+            isWaitingMove[index] = false;
+            GameController player = players[index];
+            GameEngine engine = player.engine;
+            robot.findMove(engine, engine.currentBlock);
+            int rotations = robot.rotateCount - engine.currentBlock.getRotateCount();
+            for (int r = 0; r < rotations; r++)
+                player.applyInput(GameEngine.MOVE_ROTATE);
+            int lastX = -1;
+            while (engine.x != robot.moveX && engine.x != lastX) {
+                lastX = engine.x;
+                player.applyInput(engine.x > robot.moveX ? GameEngine.MOVE_LEFT : GameEngine.MOVE_RIGHT);
+            }
+            player.applyInput(GameEngine.DROP_DOWN);
+        }
+    }
+
+    // 로봇이 고른 자리로 옮기는 입력을 live 에 두면서 replay 에 남긴다. 블록마다 중력도 한 번 넣는다.
+    static void playRobotInputs(ReplayPlayer live, Replay replay, int pieces) {
+        RobotController robot = new RobotController(null, new LookaheadSearch(LookaheadSearch.UNTIMED));
+        long[] tick = { 0 };
+        for (int i = 0; i < pieces && !live.isGameEnd(); i++) {
+            int player = i % replay.players;
+            GameEngine engine = live.getEngine(player);
+            robot.findMove(engine, engine.currentBlock);
+            apply(live, replay, tick, player, Replay.STEP);
+            int rotations = robot.rotateCount - engine.currentBlock.getRotateCount();
+            for (int r = 0; r < rotations; r++)
+                apply(live, replay, tick, player, GameEngine.MOVE_ROTATE);
+            int lastX = -1;
+            while (engine.x != robot.moveX && engine.x != lastX) {
+                lastX = engine.x;
+                int move = engine.x > robot.moveX ? GameEngine.MOVE_LEFT : GameEngine.MOVE_RIGHT;
+                apply(live, replay, tick, player, move);
+            }
+            apply(live, replay, tick, player, GameEngine.DROP_DOWN);
+            apply(live, replay, tick, player, Replay.STEP);
+        }
+    }
+
+    // 줄삭제나 폭발로 다음 블록을 기다리면 애니메이션이 끝난 것처럼 TAKE_OUT 도 남긴다
+    static void apply(ReplayPlayer live, Replay replay, long[] tick, int player, int action) {
+        replay.add(tick[0] += 3, player, action);
+        live.apply(player, action);
+        if (live.getEngine(player).isWaitingTakeOut) {
+            replay.add(tick[0] += 50, player, Replay.TAKE_OUT);
+            live.apply(player, Replay.TAKE_OUT);
+        }
+    }
+
+    static Replay copy(Replay replay) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        replay.write(out);
+        return Replay.read(new ByteArrayInputStream(out.toByteArray()));
+    }
+
+    void assertSameGame(GameEngine expected, GameEngine actual) {
+        assertThat(actual.getScore()).isEqualTo(expected.getScore());
+        assertThat(actual.getDeleteLines()).isEqualTo(expected.getDeleteLines());
+        assertThat(actual.isGameEnd()).isEqualTo(expected.isGameEnd());
+        for (int i = 0; i < GameEngine.BOARD_END_HEIGHT; i++)
+            assertThat(actual.board[i]).containsExactly(expected.board[i]);
+    }
+
+    @Test
+    void testVarintRoundTrip() {
+        byte[] buffer = new byte[10];
+        long[] value = new long[1];
+        for (long expected : new long[] { 0, 1, 127, 128, 300, Integer.MAX_VALUE, Long.MAX_VALUE, -1 }) {
+            int length = Replay.writeVarLong(buffer, 0, expected);
+            assertThat(Replay.readVarLong(buffer, 0, value)).isEqualTo(length);
+            assertThat(value[0]).isEqualTo(expected);
+        }
+        assertThat(Replay.writeVarLong(buffer, 0, 127)).isEqualTo(1);
+        assertThat(Replay.writeVarLong(buffer, 0, 128)).isEqualTo(2);
+    }
+
+    @Test
+    void testFileRoundTripIsCompact() throws IOException {
+        Replay replay = new Replay(-42, GameEngine.HARD_MODE, GameEngine.ITEM_GAME_MODE, 7, 2);
+        for (int i = 0; i < 1000; i++)
+            replay.add(i * 5, i % 2, i % 6);
+        assertThat(replay.getEventBytes()).isEqualTo(2000);
+
+        Replay loaded = copy(replay);
+        assertThat(loaded.seed).isEqualTo(-42);
+        assertThat(loaded.diffMode).isEqualTo(GameEngine.HARD_MODE);
+        assertThat(loaded.gameMode).isEqualTo(GameEngine.ITEM_GAME_MODE);
+        assertThat(loaded.itemFrequency).isEqualTo(7);
+        assertThat(loaded.players).isEqualTo(2);
+        assertThat(loaded.getEventCount()).isEqualTo(1000);
+        assertThat(loaded.hasClaims).isFalse();
+        List<long[]> events = new ArrayList<>();
+        loaded.forEach((tick, player, action) -> events.add(new long[] { tick, player, action }));
+        for (int i = 0; i < 1000; i++)
+            assertThat(events.get(i)).containsExactly(i * 5L, i % 2, i % 6);
+    }
+
+    @Test
+    void testCorruptFileIsRejected() throws IOException {
+        Replay replay = new Replay(1, GameEngine.NORMAL_MODE, GameEngine.GENERAL_GAME_MODE, 10, 1);
+        replay.add(0, 0, Replay.STEP);
+        replay.add(3, 0, GameEngine.MOVE_LEFT);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        replay.write(out);
+        byte[] bytes = out.toByteArray();
+
+        byte[] truncated = Arrays.copyOf(bytes, bytes.length - 1);
+        assertThatThrownBy(() -> Replay.read(new ByteArrayInputStream(truncated))).isInstanceOf(IOException.class);
+        byte[] badMagic = bytes.clone();
+        badMagic[0] = 0;
+        assertThatThrownBy(() -> Replay.read(new ByteArrayInputStream(badMagic))).isInstanceOf(IOException.class);
+        byte[] badPlayer = bytes.clone();
+        badPlayer[bytes.length - 2] = (byte) (1 << Replay.ACTION_BITS); // hasClaims 바로 앞의 입력
+        assertThatThrownBy(() -> Replay.read(new ByteArrayInputStream(badPlayer))).isInstanceOf(IOException.class);
+
+        byte[] badAction = bytes.clone();
+        badAction[bytes.length - 2] = Replay.TAKE_OUT + 1;
+        assertThatThrownBy(() -> Replay.read(new ByteArrayInputStream(badAction))).isInstanceOf(IOException.class);
+        byte[] otherVersion = bytes.clone();
+        otherVersion[4] = Replay.VERSION + 1; // MAGIC 뒤의 VERSION
+        assertThatThrownBy(() -> Replay.read(new ByteArrayInputStream(otherVersion)))
+                .isInstanceOf(IOException.class);
+    }
+
+    @Test
+    void testSinglePlaybackReproducesGame() throws IOException, InterruptedException {
+        for (int diffMode : new int[] { GameEngine.EASY_MODE, GameEngine.NORMAL_MODE, GameEngine.HARD_MODE }) {
+            Replay replay = new Replay(diffMode * 31L, diffMode, GameEngine.ITEM_GAME_MODE, 2, 1);
+            ReplayPlayer live = new ReplayPlayer(replay);
+            playRobotInputs(live, replay, 150);
+            assertThat(live.getEngine(0).getDeleteLines()).isGreaterThan(10);
+
+            ReplayPlayer playback = new ReplayPlayer(copy(replay));
+            playback.play(ReplayPlayer.MAX_SPEED);
+            assertThat(playback.getPlayedEvents()).isEqualTo(live.getPlayedEvents());
+            assertSameGame(live.getEngine(0), playback.getEngine(0));
+        }
+    }
+
+    @Test
+    void testVersusPlaybackReproducesGame() throws IOException, InterruptedException {
+        Replay replay = new Replay(5, GameEngine.NORMAL_MODE, GameEngine.GENERAL_GAME_MODE, 10, 2);
+        ReplayPlayer live = new ReplayPlayer(replay);
+        playRobotInputs(live, replay, 300);
+        assertThat(live.getEngine(0).getDeleteLines()).isGreaterThan(10);
+
+        ReplayPlayer playback = new ReplayPlayer(copy(replay));
+        playback.play(ReplayPlayer.MAX_SPEED);
+        assertSameGame(live.getEngine(0), playback.getEngine(0));
+        assertSameGame(live.getEngine(1), playback.getEngine(1));
+    }
+
+    @Test
+    void testGameControllerRecordingIsVerified() throws IOException, InterruptedException {
+        RecordedGame game = new RecordedGame(11, GameEngine.NORMAL_MODE, GameEngine.ITEM_GAME_MODE, 1);
+        game.play(30_000);
+        GameEngine engine = game.players[0].engine;
+        assertThat(engine.getDeleteLines()).isGreaterThan(20);
+
+        Replay replay = copy(game.replay);
+        assertThat(replay.claimedScores[0]).isEqualTo(engine.getScore());
+        ReplayVerifier.Result result = ReplayVerifier.verify("gui", replay);
+        assertThat(result.isAccepted).isTrue();
+        ReplayPlayer playback = new ReplayPlayer(replay);
+        playback.play(ReplayPlayer.MAX_SPEED);
+        assertSameGame(engine, playback.getEngine(0));
+    }
+
+    @Test
+    void testRecordingUsesGameLoopTicks() {
+        RecordedGame game = new RecordedGame(3, GameEngine.NORMAL_MODE, GameEngine.GENERAL_GAME_MODE, 1);
+        game.play(GameEngine.START_DELAY / GameLoop.TICK_INTERVAL * 3);
+        List<Long> steps = new ArrayList<>();
+        game.replay.forEach((tick, player, action) -> {
+            if (action == Replay.STEP)
+                steps.add(tick);
+        });
+        // 로봇이 첫 블록을 바로 떨어뜨리므로 첫 중력은 바닥 대기시간(500ms) 뒤의 tick 에 남는다
+        assertThat(steps.get(0)).isEqualTo(500 / GameLoop.TICK_INTERVAL);
+        assertThat(steps.get(steps.size() - 1)).isLessThanOrEqualTo(game.gameLoop.getTicks());
+    }
+
+    @Test
+    void testPlaybackFollowsTicksAtSpeed() throws InterruptedException {
+        Replay replay = new Replay(9, GameEngine.NORMAL_MODE, GameEngine.GENERAL_GAME_MODE, 10, 1);
+        for (int i = 0; i <= 20; i++)
+            replay.add(i, 0, Replay.STEP);
+        ReplayPlayer playback = new ReplayPlayer(replay);
+        long startTime = System.nanoTime();
+        playback.play(4);
+        long elapsedMillis = (System.nanoTime() - startTime) / 1_000_000L;
+        // 20 tick * 10ms 를 4배속으로 두면 50ms
+        assertThat(elapsedMillis).isGreaterThanOrEqualTo(45);
+        assertThat(playback.getPlayedEvents()).isEqualTo(21);
+    }
+}
@@ -0,0 +1,103 @@
+package tetris.controller;
+
+import org.junit.jupiter.api.*;
+import org.junit.jupiter.api.io.TempDir;
+import static org.assertj.core.api.Assertions.*;
+
+import java.io.*;
+import java.nio.file.*;
+import java.util.*;
+
+public class ReplayVerifierTest {
+
+    @TempDir
+    Path tempDir;
+
+    // 로봇으로 한 판을 두고 그 결과를 주장하는 녹화
+    Replay recordGame(long seed, int players, int pieces) {
+        Replay replay = new Replay(seed, GameEngine.NORMAL_MODE, GameEngine.GENERAL_GAME_MODE, 10, players);
+        ReplayPlayer live = new ReplayPlayer(replay);
+        ReplayTest.playRobotInputs(live, replay, pieces);
+        for (int i = 0; i < players; i++)
+            replay.setResult(i, live.getEngine(i).getScore(), live.getEngine(i).getDeleteLines());
+        return replay;
+    }
+
+    @Test
+    void testHonestReplayIsAccepted() throws IOException {
+        Replay replay = ReplayTest.copy(recordGame(1, 1, 60));
+        ReplayVerifier.Result result = ReplayVerifier.verify("honest", replay);
+        assertThat(result.isAccepted).isTrue();
+        assertThat(result.scores[0]).isEqualTo(replay.claimedScores[0]);
+        assertThat(result.lines[0]).isEqualTo(replay.claimedLines[0]);
+    }
+
+    @Test
+    void testTamperedClaimIsRejected() {
+        Replay replay = recordGame(2, 2, 80);
+        replay.setResult(1, replay.claimedScores[1] + 1000, replay.claimedLines[1]);
+        ReplayVerifier.Result result = ReplayVerifier.verify("tampered", replay);
+        assertThat(result.isAccepted).isFalse();
+        assertThat(result.reason).contains("player 1");
+
+        Replay unclaimed = new Replay(3, GameEngine.NORMAL_MODE, GameEngine.GENERAL_GAME_MODE, 10, 1);
+        assertThat(ReplayVerifier.verify("unclaimed", unclaimed).isAccepted).isFalse();
+    }
+
+    @Test
+    void testGameControllerVersusIsAccepted() throws IOException {
+        for (long seed : new long[] { 1, 2, 3 }) {
+            ReplayTest.RecordedGame game = new ReplayTest.RecordedGame(seed, GameEngine.NORMAL_MODE,
+                    GameEngine.GENERAL_GAME_MODE, 2);
+            game.play(60_000);
+            // 상대의 줄삭제 애니메이션 중에 보낸 공격줄은 애니메이션이 끝나야 올라온다
+            assertThat(game.attacksWhileAnimating).isPositive();
+
+            Replay replay = ReplayTest.copy(game.replay);
+            ReplayVerifier.Result result = ReplayVerifier.verify("versus " + seed, replay);
+            assertThat(result.reason).isNull();
+            assertThat(result.isAccepted).isTrue();
+            for (int i = 0; i < 2; i++) {
+                assertThat(result.scores[i]).isEqualTo(game.players[i].getScore());
+                assertThat(result.lines[i]).isEqualTo(game.players[i].engine.getDeleteLines());
+            }
+        }
+    }
+
+    @Test
+    void testVerifyAllKeepsOrder() throws IOException {
+        List<Path> paths = new ArrayList<>();
+        for (int i = 0; i < 6; i++) {
+            Replay replay = recordGame(i, 1, 40);
+            if (i == 4)
+                replay.setResult(0, replay.claimedScores[0], replay.claimedLines[0] + 1);
+            Path path = tempDir.resolve(i + Replay.EXTENSION);
+            replay.save(path);
+            paths.add(path);
+        }
+        Path broken = tempDir.resolve("broken" + Replay.EXTENSION);
+        Files.write(broken, new byte[] { 1, 2, 3 });
+        paths.add(broken);
+
+        List<ReplayVerifier.Result> results = new ReplayVerifier(4).verifyAll(paths);
+        assertThat(results).hasSize(7);
+        for (int i = 0; i < 7; i++) {
+            assertThat(results.get(i).name).isEqualTo(paths.get(i).toString());
+            assertThat(results.get(i).isAccepted).isEqualTo(i != 4 && i != 6);
+        }
+
+        List<Path> found = new ArrayList<>();
+        ReplayVerifier.addReplayFiles(tempDir, found);
+        assertThat(found).hasSize(7);
+    }
+
+    @Test
+    void testVerifiedScoreIsAddedToRanking() {
+        Replay replay = recordGame(5, 1, 60);
+        PlayerController playerController = new PlayerController(
+                new ScoreStore(tempDir.resolve("Score.jsonl"), null));
+        assertThat(playerController.addVerifiedPlayer("tester", "normal", replay)).isTrue();
+        assertThat(playerController.getPlayerList().get(0).getName()).isEqualTo("tester");
+        assertThat(playerController.getPlayerList().get(0).getScore()).isEqualTo(replay.claimedScores[0]);
+    }
+}
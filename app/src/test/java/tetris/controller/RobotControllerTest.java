@@ -56,7 +56,7 @@ public class RobotControllerTest {
                 { 1, 1, 1, 1, 1, 1, 1, 1, 1, 1 }, };
         robotController.calculateScore(board);
         assertThat(robotController.aggHeight).isEqualTo(48);
-        assertThat(robotController.completeLines).isEqualTo(0);
+        assertThat(robotController.completeLines).isEqualTo(2);
         assertThat(robotController.bumpiness).isEqualTo(6);
         assertThat(robotController.holes).isEqualTo(2);
 
@@ -0,0 +1,98 @@
+package tetris.controller;
+
+import org.junit.jupiter.api.*;
+import static org.assertj.core.api.Assertions.*;
+
+import java.util.concurrent.ForkJoinPool;
+
+public class RobotTournamentTest {
+
+    ForkJoinPool pool;
+
+    @BeforeEach
+    void setUp() {
+        pool = new ForkJoinPool(2);
+    }
+
+    @AfterEach
+    void tearDown() {
+        pool.shutdown();
+    }
+
+    @Test
+    void testParseArguments() {
+        RobotTournament tournament = RobotTournament.parse(new String[] { "--mode", "versus", "--games", "3",
+                "--max-pieces", "50", "--weights", "-0.5, -0.2, -0.3, 0.7", "--weights", "-1,0,0,1" });
+        assertThat(tournament.mode).isEqualTo(RobotTournament.VERSUS_MODE);
+        assertThat(tournament.games).isEqualTo(3);
+        assertThat(tournament.maxPieces).isEqualTo(50);
+        assertThat(tournament.weightSets).hasSize(2);
+        assertThat(tournament.weightSets.get(0)).containsExactly(-0.5, -0.2, -0.3, 0.7);
+
+        assertThat(RobotTournament.parse(new String[0]).weightSets.get(0))
+                .containsExactly(RobotTournament.DEFAULT_WEIGHTS);
+        // 기본은 시간 예산 없이 찾아 결과가 기계 부하와 상관없다
+        assertThat(tournament.timeBudget).isEqualTo(LookaheadSearch.UNTIMED);
+        assertThat(RobotTournament.parse(new String[] { "--budget", "50" }).timeBudget).isEqualTo(50);
+        assertThatThrownBy(() -> RobotTournament.parse(new String[] { "--mode", "coop" }))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> RobotTournament.parse(new String[] { "--games" }))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> RobotTournament.parse(new String[] { "--weights", "1,2,3" }))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void testBlockSequenceIsSevenBag() {
+        RobotTournament.BlockSequence sequence = new RobotTournament.BlockSequence(7);
+        RobotTournament.BlockSequence same = new RobotTournament.BlockSequence(7);
+        for (int bag = 0; bag < 3; bag++) {
+            boolean[] seen = new boolean[9];
+            for (int i = 0; i < 7; i++) {
+                int id = sequence.get(bag * 7 + i);
+                assertThat(seen[id]).isFalse();
+                seen[id] = true;
+                assertThat(same.get(bag * 7 + i)).isEqualTo(id);
+            }
+        }
+    }
+
+    @Test
+    void testSoloGameIsReproducible() {
+        RobotTournament tournament = RobotTournament.parse(new String[] { "--max-pieces", "60" });
+        RobotTournament.MatchResult first = tournament.playSolo(0, 3, pool);
+        RobotTournament.MatchResult second = tournament.playSolo(0, 3, pool);
+        assertThat(first.winner).isEqualTo(-1);
+        assertThat(first.players[0].pieces).isEqualTo(60);
+        assertThat(first.players[0].lines).isPositive().isEqualTo(second.players[0].lines);
+        assertThat(first.players[0].score).isEqualTo(second.players[0].score);
+        assertThat(first.players[0].isToppedOut).isFalse();
+    }
+
+    @Test
+    void testVersusWinnerOutlastsLoser() {
+        // 높이를 좋아하는 로봇은 금방 쌓여서 진다
+        RobotTournament tournament = RobotTournament.parse(new String[] { "--mode", "versus", "--max-pieces", "400",
+                "--weights", "-0.510066,-0.184483,-0.35663,0.760666", "--weights", "1,0,0,0" });
+        RobotTournament.MatchResult match = tournament.playVersus(0, 1, 5, pool);
+        assertThat(match.winner).isZero();
+        assertThat(match.players[1].isToppedOut).isTrue();
+        assertThat(match.players[0].isToppedOut).isFalse();
+    }
+
+    @Test
+    void testRunReportsStandings() {
+        RobotTournament tournament = RobotTournament.parse(new String[] { "--mode", "versus", "--games", "2",
+                "--threads", "2", "--max-pieces", "100", "--weights", "-0.510066,-0.184483,-0.35663,0.760666",
+                "--weights", "1,0,0,0" });
+        RobotTournament.Report report = tournament.run();
+        assertThat(report.matches).isEqualTo(4);
+        assertThat(report.standings[0].games).isEqualTo(4);
+        assertThat(report.standings[0].wins).isEqualTo(4);
+        assertThat(report.standings[1].losses).isEqualTo(4);
+        assertThat(report.standings[0].getWinRate()).isEqualTo(1.0);
+        assertThat(report.pieces).isPositive();
+        assertThat(report.getGamesPerSecond()).isPositive();
+        report.print();
+    }
+}
@@ -0,0 +1,169 @@
+package tetris.controller;
+
+import org.junit.jupiter.api.*;
+import static org.assertj.core.api.Assertions.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.*;
+import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+
+import javax.swing.SwingUtilities;
+
+import tetris.model.RobotWeight;
+
+public class RobotWeightTunerTest {
+
+    File weightFile;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        weightFile = File.createTempFile("RobotWeight", ".json");
+    }
+
+    @AfterEach
+    void tearDown() {
+        weightFile.delete();
+    }
+
+    @Test
+    void testParseArguments() {
+        RobotWeightTuner tuner = RobotWeightTuner.parse(new String[] { "--generations", "5", "--population", "8",
+                "--games", "2", "--out", "weights.json" });
+        assertThat(tuner.generations).isEqualTo(5);
+        assertThat(tuner.population).isEqualTo(8);
+        assertThat(tuner.games).isEqualTo(2);
+        assertThat(tuner.outPath).isEqualTo("weights.json");
+        assertThat(RobotWeightTuner.parse(new String[0]).outPath)
+                .isEqualTo(DataDirectory.getInstance().resolve(RobotController.WEIGHT_FILE).toString());
+        assertThatThrownBy(() -> RobotWeightTuner.parse(new String[] { "--population", "2" }))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> RobotWeightTuner.parse(new String[] { "--generations", "x" }))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    // 맨 아래 rows 줄에 왼쪽 9칸을 채운 보드로 끝난 판
+    static RobotTournament.GameResult result(int lines, int rows, boolean isToppedOut) {
+        GameEngine engine = new GameEngine();
+        for (int i = 0; i < rows; i++)
+            engine.bitBoard.rows[GameEngine.BOARD_END_HEIGHT - 1 - i] = BitBoard.FULL_ROW >> 1;
+        engine.deleteLines = lines;
+        engine.isGameEnd = isToppedOut;
+        return new RobotTournament.GameResult(0, engine, 100);
+    }
+
+    @Test
+    void testLowerStackBreaksTiesAtCap() {
+        int games = 4;
+        double low = RobotWeightTuner.gameFitness(result(40, 1, false), games);
+        double high = RobotWeightTuner.gameFitness(result(40, 6, false), games);
+        assertThat(low).isGreaterThan(high);
+        assertThat(high).isGreaterThan(RobotWeightTuner.gameFitness(result(40, 1, true), games));
+        // 모든 판의 보너스를 합해도 한 판에서 1줄 더 지운 차이보다 작다
+        double allBonus = RobotWeightTuner.gameFitness(result(40, 0, false), games) * games;
+        double oneMoreLine = RobotWeightTuner.gameFitness(result(40, 20, true), games) * (games - 1)
+                + RobotWeightTuner.gameFitness(result(41, 20, true), games);
+        assertThat(allBonus).isLessThan(oneMoreLine);
+    }
+
+    @Test
+    void testUpdateMovesTowardElites() {
+        RobotWeightTuner tuner = new RobotWeightTuner();
+        tuner.mean = new double[] { 1, 0, 0, 0 };
+        tuner.sigma = new double[] { 1, 1, 1, 1 };
+        tuner.bestFitness = Double.NEGATIVE_INFINITY;
+        List<double[]> candidates = Arrays.asList(new double[] { 1, 0, 0, 0 }, new double[] { 0, 1, 0, 0 },
+                new double[] { 0, 0, 1, 0 }, new double[] { 0, 0.6, 0.8, 0 }, new double[] { 0, 0, 0, 1 },
+                new double[] { 0, 0, 0, 1 }, new double[] { 0, 0, 0, 1 }, new double[] { 0, 0, 0, 1 });
+        assertThat(tuner.update(candidates, new double[] { 0, 10, 1, 9, 0, 0, 0, 0 })).isTrue();
+        assertThat(tuner.best).containsExactly(0, 1, 0, 0);
+        assertThat(tuner.bestFitness).isEqualTo(10);
+        // 상위 두 후보 (0,1,0,0) 과 (0,0.6,0.8,0) 의 평균 방향
+        assertThat(tuner.mean[0]).isZero();
+        assertThat(tuner.mean[1]).isCloseTo(0.8 / Math.sqrt(0.8), within(1e-9));
+        assertThat(tuner.mean[2]).isCloseTo(0.4 / Math.sqrt(0.8), within(1e-9));
+        assertThat(tuner.sigma[0]).isEqualTo(RobotWeightTuner.MIN_SIGMA);
+        assertThat(tuner.sigma[1]).isCloseTo(0.2, within(1e-9));
+
+        // 가장 좋은 후보를 넘지 못한 세대는 기록을 바꾸지 않는다
+        assertThat(tuner.update(candidates, new double[] { 0, 10, 1, 9, 0, 0, 0, 0 })).isFalse();
+        assertThat(tuner.bestFitness).isEqualTo(10);
+    }
+
+    @Test
+    void testSampleKeepsMeanAndNormalizes() {
+        RobotWeightTuner tuner = new RobotWeightTuner();
+        tuner.population = 6;
+        tuner.mean = RobotWeightTuner.normalize(new double[] { -1, -1, -1, 1 });
+        tuner.sigma = new double[] { 0.5, 0.5, 0.5, 0.5 };
+        List<double[]> candidates = tuner.sample(new Random(1));
+        assertThat(candidates).hasSize(6);
+        assertThat(candidates.get(0)).containsExactly(tuner.mean);
+        for (double[] candidate : candidates) {
+            double length = Arrays.stream(candidate).map(w -> w * w).sum();
+            assertThat(length).isCloseTo(1, within(1e-9));
+        }
+    }
+
+    @Test
+    void testRunWritesWeightFileRobotCanLoad() throws IOException {
+        RobotWeightTuner tuner = RobotWeightTuner.parse(new String[] { "--generations", "2", "--population", "4",
+                "--games", "1", "--max-pieces", "40", "--threads", "2", "--out", weightFile.getPath() });
+        tuner.run();
+        assertThat(tuner.bestFitness).isPositive();
+        // 모든 세대가 같은 seed 로 두므로 가장 좋은 가중치를 다시 두어도 같은 점수가 나온다
+        ForkJoinPool pool = new ForkJoinPool(2);
+        try {
+            assertThat(tuner.evaluate(Collections.singletonList(tuner.best), pool)[0]).isEqualTo(tuner.bestFitness);
+        } finally {
+            pool.shutdown();
+        }
+
+        RobotController robotController = new RobotController(null);
+        assertThat(robotController.loadWeight(weightFile.toPath())).isTrue();
+        assertThat(robotController.getWeights()).containsExactly(tuner.best[0], tuner.best[3], tuner.best[2],
+                tuner.best[1]);
+        assertThat(robotController.loadWeight(weightFile.toPath().resolveSibling(weightFile.getName() + ".missing"))).isFalse();
+    }
+
+    @Test
+    void testCalculateScoreMultipliesCompleteLines() throws IOException {
+        RobotController robotController = new RobotController(null);
+        robotController.setWeight(0, 0, 0, 2);
+        int[][] board = new int[GameEngine.BOARD_END_HEIGHT][GameEngine.BOARD_WIDTH];
+        assertThat(robotController.calculateScore(board)).isZero();
+
+        RobotController.saveWeight(weightFile.toPath(), new RobotWeight(-1, -2, -3, 4, 0));
+        robotController.loadWeight(weightFile.toPath());
+        assertThat(robotController.getWeights()).containsExactly(-1, 4, -3, -2);
+    }
+
+    @Test
+    void testWeightsLoadFromDataDirectoryOffEdt() throws Exception {
+        Path dir = Files.createTempDirectory("tetris-data");
+        Path path = dir.resolve(RobotController.WEIGHT_FILE);
+        try {
+            RobotController.saveWeight(path, new RobotWeight(-1, -2, -3, 4, 0));
+            assertThat(Files.exists(DataDirectory.tempFile(path))).isFalse();
+            PersistenceExecutor persistence = new PersistenceExecutor();
+            DataDirectory dataDirectory = new DataDirectory(dir, null);
+
+            RobotController loaded = new RobotController(null, new LookaheadSearch());
+            loaded.loadWeightLater(dataDirectory, persistence);
+            // 가중치를 먼저 정한 로봇은 파일이 덮지 않는다
+            RobotController chosen = new RobotController(null, new LookaheadSearch());
+            chosen.setWeight(0, 0, 0, 2);
+            chosen.loadWeightLater(dataDirectory, persistence);
+            persistence.flush();
+            SwingUtilities.invokeAndWait(() -> {
+            });
+
+            assertThat(loaded.getWeights()).containsExactly(-1, 4, -3, -2);
+            assertThat(chosen.getWeights()).containsExactly(0, 2, 0, 0);
+        } finally {
+            Files.deleteIfExists(path);
+            Files.delete(dir);
+        }
+    }
+}
@@ -0,0 +1,288 @@
+package tetris.controller;
+
+import org.junit.jupiter.api.*;
+import static org.assertj.core.api.Assertions.*;
+
+import java.io.IOException;
+import java.util.*;
+import java.util.function.BooleanSupplier;
+
+import javax.swing.*;
+
+public class RollbackSessionTest {
+
+    static final long SEED = 20221118L;
+    static final int SNAPSHOT_FRAME = 1500;
+    static final int CHECK_INTERVAL = 100;
+    static final int ATTACK_INTERVAL = 10;
+
+    /*
+     * 한 사람의 화면. MultiGameController 처럼 두 보드를 만들고 블록은 seed 로 만든 생성기 하나에서 같이 채운다.
+     * 내 보드는 로봇이 고른 자리로 옮기는 입력을 session 에 넣는다.
+     */
+    class Side implements RollbackSession.Listener {
+        final RollbackSession session;
+        final int localIndex;
+        final BlockRandomizer[] randomizer = new BlockRandomizer[1];
+        final GameController[] players = new GameController[2]; // HOST, GUEST 순서
+        final RobotController robot = new RobotController(null, new LookaheadSearch(LookaheadSearch.UNTIMED));
+        final List<Integer> checksums = new ArrayList<>(); // CHECK_INTERVAL 프레임마다 확정된 두 보드의 checksum
+        int[][][] snapshot; // SNAPSHOT_FRAME 이 확정된 뒤의 두 보드
+        int confirmedFrames;
+        int plannedDequeSize = -1; // 덱 크기는 블록을 꺼낼 때마다 바뀐다
+        int rotatedFrame; // 이 프레임이면 돌리는 입력이 모두 두어졌다
+        boolean isMovePlanned;
+        boolean isRobotPlaying = true;
+        boolean isStarted;
+        int underAttackCount; // 공격줄이 보드에 올라온 횟수
+        int desyncFrame = -1;
+        int endedPlayer = -1;
+        int endedFrame = -1;
+
+        Side(OnlineConnection connection) {
+            session = new RollbackSession(connection, gameLoop, this);
+            localIndex = connection.isHost() ? RollbackSession.HOST : RollbackSession.GUEST;
+            players[RollbackSession.HOST] = createPlayer(RollbackSession.HOST);
+            players[RollbackSession.GUEST] = createPlayer(RollbackSession.GUEST);
+            players[0].setOpponentPlayer(players[1]);
+            players[1].setOpponentPlayer(players[0]);
+            session.setMatch(SEED, GameController.GENERAL_GAME_MODE, 10);
+            session.open();
+        }
+
+        GameController createPlayer(int index) {
+            return new GameController(new JTextPane(), new JTextPane(), new JTextPane(), new JLabel(), new JPanel()) {
+                @Override
+                public void doBeforeTakeOutNextBlock() {
+                    if (engine.attackLines > 0) {
+                        underAttackCount++;
+                        underAttack();
+                    }
+                    // 로봇은 한 줄씩만 지우므로 덱 크기에 맞춰 공격줄을 보내 본다. 다시 두어도 같은 때에 보낸다
+                    if (blockDeque.size() % ATTACK_INTERVAL == index)
+                        engine.sendAttackLines(2);
+                    if (blockDeque.isEmpty()) {
+                        List<Integer> blocks = randomizer[0].nextBlocks(GameController.NORMAL_MODE);
+                        blockDeque.addAll(blocks);
+                        opponentBlockDeque.addAll(blocks);
+                    }
+                }
+
+                @Override
+                public void doAfterGameOver() {
+                    if (endedPlayer < 0) {
+                        endedPlayer = index;
+                        endedFrame = session.getFrame();
+                    }
+                    session.finish();
+                }
+            };
+        }
+
+        @Override
+        public void onStart(long seed, int gameMode, int itemFrequency) {
+            randomizer[0] = new BlockRandomizer(seed);
+            for (GameController player : players)
+                player.engine.setItemSeed(randomizer[0].getItemSeed());
+            session.attach(players[localIndex], players[1 - localIndex], randomizer[0]);
+            List<Integer> blocks = randomizer[0].nextBlocks(GameController.NORMAL_MODE);
+            for (GameController player : players)
+                player.startGame(GameController.NORMAL_MODE, gameMode, blocks, 0);
+            isStarted = true;
+        }
+
+        @Override
+        public void onFrame(int frame) {
+            assertThat(frame).isEqualTo(confirmedFrames++);
+            if (frame % CHECK_INTERVAL != 0 && frame != SNAPSHOT_FRAME)
+                return;
+            // 보드는 예측해서 앞서 있으므로 확정된 frame 으로 되돌려 비교한다
+            session.rewind();
+            if (frame % CHECK_INTERVAL == 0)
+                checksums.add(players[0].engine.checksum() * 31 + players[1].engine.checksum());
+            if (frame == SNAPSHOT_FRAME)
+                snapshot = new int[][][] { copy(players[0].engine.visualBoard), copy(players[1].engine.visualBoard) };
+        }
+
+        @Override
+        public void onDesync(int frame) {
+            desyncFrame = frame;
+        }
+
+        @Override
+        public void onDisconnected(IOException error) {
+            fail("disconnected: " + error);
+        }
+
+        /*
+         * 새 블록이 나오면 로봇이 고른 만큼 돌리는 입력을 넣고, 돌린 모습이 보이면 옮겨 떨어뜨리는 입력을 넣는다.
+         * 회전하면 x 가 바뀌므로 옮길 칸 수는 돌린 뒤에 센다. 되돌려 다시 둔 블록은 덱 크기가 같으므로 다시 고르지 않는다.
+         */
+        void play() {
+            GameController local = players[localIndex];
+            GameEngine engine = local.engine;
+            if (!isStarted || !isRobotPlaying || !session.isPlaying() || local.isAnimating())
+                return;
+            if (engine.blockDeque.size() != plannedDequeSize) {
+                plannedDequeSize = engine.blockDeque.size();
+                robot.findMove(engine, engine.currentBlock);
+                int rotations = Math.floorMod(robot.rotateCount - engine.currentBlock.getRotateCount(), 4);
+                for (int r = 0; r < rotations; r++)
+                    session.queueInput(GameEngine.MOVE_ROTATE);
+                rotatedFrame = session.getFrame() + rotations + session.getInputDelay() + 1;
+                isMovePlanned = false;
+                return;
+            }
+            if (isMovePlanned || session.getFrame() < rotatedFrame)
+                return;
+            isMovePlanned = true;
+            for (int dx = engine.x; dx != robot.moveX; dx += dx < robot.moveX ? 1 : -1)
+                session.queueInput(dx < robot.moveX ? GameEngine.MOVE_RIGHT : GameEngine.MOVE_LEFT);
+            session.queueInput(GameEngine.DROP_DOWN);
+        }
+    }
+
+    GameLoop gameLoop;
+    Side host;
+    Side guest;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        gameLoop = new GameLoop(System::nanoTime, false);
+        OnlineConnection hostConnection = OnlineConnection.host(0);
+        OnlineConnection guestConnection = OnlineConnection.connect("127.0.0.1", hostConnection.getLocalPort());
+        onEdt(() -> {
+            host = new Side(hostConnection);
+            guest = new Side(guestConnection);
+        });
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        onEdt(() -> {
+            for (Side side : new Side[] { host, guest }) {
+                side.session.finish();
+                for (GameController player : side.players)
+                    player.resetGame();
+            }
+        });
+    }
+
+    static void onEdt(Runnable runnable) throws Exception {
+        SwingUtilities.invokeAndWait(runnable);
+    }
+
+    static int[][] copy(int[][] board) {
+        int[][] copied = new int[board.length][];
+        for (int i = 0; i < board.length; i++)
+            copied[i] = board[i].clone();
+        return copied;
+    }
+
+    // 게임 루프를 ticks 번 돌린다. 가끔 쉬어서 네트워크 스레드가 메시지를 옮길 틈을 준다
+    void run(int ticks) throws Exception {
+        for (int i = 0; i < ticks; i++) {
+            onEdt(() -> {
+                host.play();
+                guest.play();
+                gameLoop.step();
+            });
+            if (i % 10 == 0)
+                Thread.sleep(1);
+        }
+    }
+
+    void runUntil(BooleanSupplier condition) throws Exception {
+        long deadline = System.currentTimeMillis() + 20_000;
+        boolean[] isDone = { false };
+        while (!isDone[0]) {
+            assertThat(System.currentTimeMillis()).isLessThan(deadline);
+            run(10);
+            onEdt(() -> isDone[0] = condition.getAsBoolean());
+        }
+    }
+
+    @Test
+    void testBothStartWithHostMatch() throws Exception {
+        runUntil(() -> host.isStarted && guest.isStarted && guest.session.getFrame() > 0);
+        onEdt(() -> {
+            assertThat(guest.randomizer[0].getSeed()).isEqualTo(SEED);
+            assertThat(host.session.isHost()).isTrue();
+            assertThat(guest.session.isHost()).isFalse();
+        });
+    }
+
+    @Test
+    void testBothScreensConfirmTheSameFrames() throws Exception {
+        runUntil(() -> host.confirmedFrames > SNAPSHOT_FRAME + 500 && guest.confirmedFrames > SNAPSHOT_FRAME + 500);
+        onEdt(() -> {
+            int checks = Math.min(host.checksums.size(), guest.checksums.size());
+            assertThat(host.checksums.subList(0, checks)).isEqualTo(guest.checksums.subList(0, checks));
+            assertThat(host.snapshot).isEqualTo(guest.snapshot);
+            assertThat(host.underAttackCount).isGreaterThan(0);
+            assertThat(host.desyncFrame).isEqualTo(-1);
+            assertThat(guest.desyncFrame).isEqualTo(-1);
+            // 두 로봇이 모두 입력하므로 양쪽 다 예측이 틀린 적이 있고, 되돌려 다시 둔 결과가 같다
+            assertThat(host.session.getRollbacks()).isGreaterThan(0);
+            assertThat(guest.session.getRollbacks()).isGreaterThan(0);
+            assertThat(Math.abs(host.session.getFrame() - guest.session.getFrame()))
+                    .isLessThanOrEqualTo(RollbackSession.MAX_PREDICTION);
+        });
+    }
+
+    @Test
+    void testLocalInputIsShownWithoutWaiting() throws Exception {
+        guest.isRobotPlaying = false;
+        runUntil(() -> guest.isStarted && guest.session.getFrame() > 10);
+        int[] inputFrame = new int[1];
+        onEdt(() -> {
+            GameEngine engine = guest.players[RollbackSession.GUEST].engine;
+            int x = engine.x;
+            inputFrame[0] = guest.session.getFrame();
+            guest.session.queueInput(GameEngine.MOVE_LEFT);
+            gameLoop.step();
+            // 상대가 이 입력을 받기를 기다리지 않고 같은 틱에 내 화면에서 옮긴다.
+            // (방을 만든 쪽 입력은 이미 와 있을 수 있어 확정 프레임으로는 알 수 없다)
+            assertThat(engine.x).isEqualTo(x - 1);
+            assertThat(guest.session.getFrame()).isEqualTo(inputFrame[0] + 1);
+        });
+        runUntil(() -> host.session.getSyncedFrame() > inputFrame[0] + CHECK_INTERVAL
+                && guest.session.getSyncedFrame() > inputFrame[0] + CHECK_INTERVAL);
+        onEdt(() -> {
+            // 방을 만든 쪽은 입력 없이 둔 프레임을 되돌려 다시 두었다
+            assertThat(host.session.getRollbacks()).isGreaterThan(0);
+            assertThat(host.desyncFrame).isEqualTo(-1);
+            assertThat(guest.desyncFrame).isEqualTo(-1);
+        });
+    }
+
+    @Test
+    void testChangedBoardIsReportedAsDesync() throws Exception {
+        runUntil(() -> host.confirmedFrames > 100 && guest.confirmedFrames > 100);
+        // 되돌릴 때 바뀌기 전 snapshot 으로 돌아가지 않도록 확정된 프레임에서 바꾼다
+        onEdt(() -> {
+            guest.session.rewind();
+            guest.players[RollbackSession.HOST].engine.score += 1;
+        });
+        runUntil(() -> host.desyncFrame >= 0 && guest.desyncFrame >= 0);
+        onEdt(() -> {
+            assertThat(host.session.isPlaying()).isFalse();
+            assertThat(guest.session.isPlaying()).isFalse();
+        });
+    }
+
+    @Test
+    void testGameOverHappensAtTheSameFrameOnBothScreens() throws Exception {
+        // 참가한 쪽은 가운데에 떨어뜨리기만 해서 먼저 쌓여 끝난다
+        guest.isRobotPlaying = false;
+        runUntil(() -> {
+            guest.session.queueInput(GameEngine.DROP_DOWN);
+            return host.endedPlayer >= 0 && guest.endedPlayer >= 0;
+        });
+        onEdt(() -> {
+            assertThat(host.endedPlayer).isEqualTo(RollbackSession.GUEST);
+            assertThat(guest.endedPlayer).isEqualTo(RollbackSession.GUEST);
+            assertThat(host.endedFrame).isEqualTo(guest.endedFrame);
+        });
+    }
+}
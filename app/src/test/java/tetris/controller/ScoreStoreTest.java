@@ -0,0 +1,145 @@
+package tetris.controller;
+
+import org.junit.jupiter.api.*;
+import org.junit.jupiter.api.io.TempDir;
+import static org.assertj.core.api.Assertions.*;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.util.*;
+
+import tetris.model.Player;
+
+public class ScoreStoreTest {
+
+    @TempDir
+    Path tempDir;
+
+    Path logPath;
+    ScoreStore store;
+
+    @BeforeEach
+    void setUp() {
+        logPath = tempDir.resolve("Score.jsonl");
+        store = new ScoreStore(logPath, tempDir.resolve("Score.json"));
+    }
+
+    List<String> names(List<Player> players) {
+        List<String> names = new ArrayList<>();
+        players.forEach(player -> names.add(player.getName()));
+        return names;
+    }
+
+    @Test
+    void testAppendWritesOneLinePerScore() throws IOException {
+        store.load();
+        store.append(new Player("a", 100, "easy"));
+        store.append(new Player("b", 300, "hard"));
+        store.append(new Player("c", 100, "normal"));
+        assertThat(Files.readAllLines(logPath)).hasSize(3);
+        assertThat(names(store.getRanking())).containsExactly("b", "a", "c");
+
+        ScoreStore reloaded = new ScoreStore(logPath, null);
+        reloaded.load();
+        assertThat(names(reloaded.getRanking())).containsExactly("b", "a", "c");
+        assertThat(reloaded.getRanking().get(0).getDifficulty()).isEqualTo("hard");
+        assertThat(reloaded.getRecordCount()).isEqualTo(3);
+    }
+
+    @Test
+    void testRankingPerDifficultyAndMode() throws IOException {
+        Files.write(logPath, Arrays.asList("{\"name\":\"old\",\"score\":70,\"difficulty\":\"hard\"}"),
+                StandardCharsets.UTF_8);
+        store.load();
+        store.append(new Player("a", 50, "hard", "item"));
+        store.append(new Player("b", 90, "hard", "item"));
+        store.append(new Player("c", 80, "hard", "general"));
+
+        ScoreStore reloaded = new ScoreStore(logPath, null);
+        reloaded.load();
+        assertThat(names(reloaded.getRanking("hard", "item"))).containsExactly("b", "a");
+        assertThat(names(reloaded.getRanking("hard", "general"))).containsExactly("c", "old");
+        assertThat(names(reloaded.getRanking())).containsExactly("b", "c", "old", "a");
+        assertThat(reloaded.getRank("hard", "item", 60)).isEqualTo(2);
+    }
+
+    @Test
+    void testRankingKeepsTopScores() throws IOException {
+        store.load();
+        for (int i = 0; i < 50; i++)
+            store.append(new Player("p" + i, i * 7 % 50, "easy"));
+        List<Player> ranking = store.getRanking();
+        assertThat(ranking).hasSize(ScoreStore.RANKING_SIZE);
+        for (int i = 0; i < ranking.size(); i++)
+            assertThat(ranking.get(i).getScore()).isEqualTo(49 - i);
+        assertThat(store.getRecordCount()).isEqualTo(50);
+    }
+
+    @Test
+    void testLegacyScoreFileIsImported() throws IOException {
+        Files.write(tempDir.resolve("Score.json"), Arrays.asList("[",
+                "  {\"name\": \"old\", \"score\": 346, \"difficulty\": \"easy\"},",
+                "  {\"name\": \"없음\", \"score\": 0, \"difficulty\": \"없음\"}", "]"), StandardCharsets.UTF_8);
+        store.load();
+        assertThat(names(store.getRanking())).containsExactly("old");
+        assertThat(Files.readAllLines(logPath)).hasSize(1);
+    }
+
+    @Test
+    void testTornLastLineIsSkipped() throws IOException {
+        Files.write(logPath, "{\"name\":\"a\",\"score\":10,\"difficulty\":\"easy\"}\n{\"name\":\"b\",\"sc"
+                .getBytes(StandardCharsets.UTF_8));
+        store.load();
+        assertThat(names(store.getRanking())).containsExactly("a");
+        assertThat(store.getDeadLines()).isEqualTo(1);
+
+        store.append(new Player("c", 20, "easy"));
+        ScoreStore reloaded = new ScoreStore(logPath, null);
+        reloaded.load();
+        assertThat(names(reloaded.getRanking())).containsExactly("c", "a");
+        assertThat(reloaded.getDeadLines()).isEqualTo(1);
+    }
+
+    @Test
+    void testClearIsCompactedAway() throws IOException {
+        store.load();
+        for (int i = 0; i < ScoreStore.COMPACT_MIN_DEAD; i++)
+            store.append(new Player("p" + i, i, "easy"));
+        store.clear();
+        assertThat(store.getRanking()).isEmpty();
+        assertThat(Files.readAllLines(logPath)).isEmpty();
+
+        store.append(new Player("after", 5, "hard"));
+        ScoreStore reloaded = new ScoreStore(logPath, null);
+        reloaded.load();
+        assertThat(names(reloaded.getRanking())).containsExactly("after");
+        assertThat(reloaded.getDeadLines()).isEqualTo(0);
+    }
+
+    @Test
+    void testSmallClearWaitsForCompaction() throws IOException {
+        store.load();
+        store.append(new Player("before", 50, "easy"));
+        store.clear();
+        store.append(new Player("after", 5, "easy"));
+        assertThat(Files.readAllLines(logPath)).hasSize(3);
+
+        ScoreStore reloaded = new ScoreStore(logPath, null);
+        reloaded.load();
+        assertThat(names(reloaded.getRanking())).containsExactly("after");
+        reloaded.compact();
+        assertThat(Files.readAllLines(logPath)).hasSize(1);
+    }
+
+    @Test
+    void testPlayerControllerFillsEmptyRanks() {
+        PlayerController playerController = new PlayerController(store);
+        playerController.loadPlayerList();
+        playerController.addPlayer("a", 10, "easy");
+        List<Player> players = playerController.getPlayerList();
+        assertThat(players).hasSize(ScoreStore.RANKING_SIZE);
+        assertThat(players.get(0).getName()).isEqualTo("a");
+        assertThat(players.get(1).getName()).isEqualTo(ScoreStore.EMPTY_NAME);
+    }
+}
@@ -0,0 +1,161 @@
+package tetris.controller;
+
+import org.junit.jupiter.api.*;
+import static org.assertj.core.api.Assertions.*;
+
+import java.util.*;
+
+import tetris.model.*;
+
+public class ServerMatchTest {
+
+    static final long SEED = 20221205L;
+
+    // 판이 부른 사건을 남긴다
+    static class Events implements ServerMatch.Listener {
+        final List<int[]> attacks = new ArrayList<>();
+        final List<Integer> rejects = new ArrayList<>();
+        int states;
+        int winner = Integer.MIN_VALUE;
+
+        @Override
+        public void onState(int player, int tick, int score, int checksum) {
+            states++;
+        }
+
+        @Override
+        public void onAttack(int player, int lines) {
+            attacks.add(new int[] { player, lines });
+        }
+
+        @Override
+        public void onReject(int player, int input) {
+            rejects.add(input);
+        }
+
+        @Override
+        public void onEnd(int winner) {
+            this.winner = winner;
+        }
+    }
+
+    Events events;
+    ServerMatch match;
+
+    @BeforeEach
+    void setUp() {
+        events = new Events();
+        match = new ServerMatch(SEED, GameEngine.GENERAL_GAME_MODE, 10, events);
+    }
+
+    @Test
+    void testInvalidInputsAreRejected() {
+        assertThat(match.offerInputs(0, 3, new int[] { 9, -1, GameEngine.MOVE_LEFT })).isTrue();
+        assertThat(events.rejects).containsExactly(9, -1);
+        assertThat(match.getPendingInputs(0)).isEqualTo(1);
+
+        int[] inputs = new int[ServerMatch.MAX_PENDING_INPUTS + 5];
+        Arrays.fill(inputs, GameEngine.MOVE_ROTATE);
+        match.offerInputs(1, inputs.length, inputs);
+        assertThat(match.getPendingInputs(1)).isEqualTo(ServerMatch.MAX_PENDING_INPUTS);
+        assertThat(events.rejects).hasSize(2 + 5);
+
+        // 거절이 너무 많으면 끊는다
+        int[] invalid = new int[ServerMatch.MAX_REJECTS];
+        Arrays.fill(invalid, 0x7F);
+        assertThat(match.offerInputs(0, invalid.length, invalid)).isFalse();
+
+        // 거절 수는 REJECT_WINDOW 마다 다시 센다
+        for (int i = 0; i < ServerMatch.REJECT_WINDOW; i++)
+            match.tick();
+        assertThat(match.offerInputs(0, 1, invalid)).isTrue();
+    }
+
+    @Test
+    void testInputsPerTickAreLimited() {
+        int[] inputs = new int[ServerMatch.MAX_INPUTS_PER_TICK * 2 + 1];
+        Arrays.fill(inputs, GameEngine.MOVE_ROTATE);
+        match.offerInputs(0, inputs.length, inputs);
+        match.tick();
+        assertThat(match.getPendingInputs(0)).isEqualTo(ServerMatch.MAX_INPUTS_PER_TICK + 1);
+        match.tick();
+        match.tick();
+        assertThat(match.getPendingInputs(0)).isZero();
+    }
+
+    @Test
+    void testStateIsSentEveryInterval() {
+        for (int i = 0; i < ServerMatch.STATE_INTERVAL * 3; i++)
+            match.tick();
+        assertThat(match.getTick()).isEqualTo(ServerMatch.STATE_INTERVAL * 3);
+        assertThat(events.states).isEqualTo(3 * ServerMatch.PLAYERS);
+    }
+
+    @Test
+    void testAttackLinesAreRoutedToOpponent() {
+        // 0 번 보드의 아래 두 줄을 왼쪽 두 칸만 남기고 채우고 O 블록을 왼쪽 벽에 떨어뜨린다
+        GameEngine engine = match.getEngine(0);
+        engine.eraseBlock(engine.currentBlock, engine.x, engine.y);
+        engine.currentBlock = new OBlock();
+        engine.blockBuffer = new OBlock();
+        engine.placeBlock(engine.currentBlock, engine.x, engine.y);
+        for (int i = GameEngine.BOARD_END_HEIGHT - 2; i < GameEngine.BOARD_END_HEIGHT; i++) {
+            for (int j = 2; j < GameEngine.BOARD_WIDTH; j++) {
+                engine.board[i][j] = GameEngine.FIXED_BLOCK_NUMBER;
+                engine.visualBoard[i][j] = Block.OBLOCK_IDENTIFY_NUMBER;
+            }
+        }
+        engine.syncBitBoard();
+        int[] inputs = new int[GameEngine.START_X + 1];
+        Arrays.fill(inputs, GameEngine.MOVE_LEFT);
+        inputs[inputs.length - 1] = GameEngine.DROP_DOWN;
+        match.offerInputs(0, inputs.length, inputs);
+
+        for (int i = 0; i < 200 && events.attacks.isEmpty(); i++)
+            match.tick();
+        assertThat(events.attacks).hasSize(1);
+        assertThat(events.attacks.get(0)).containsExactly(1, 2);
+        assertThat(match.getEngine(1).attackLines).isEqualTo(2);
+    }
+
+    @Test
+    void testToppedOutPlayerLoses() {
+        int[] drop = { GameEngine.DROP_DOWN };
+        for (int i = 0; i < 100_000 && !match.isEnded(); i++) {
+            match.offerInputs(0, 1, drop);
+            match.tick();
+        }
+        assertThat(match.isEnded()).isTrue();
+        assertThat(match.getEngine(0).isGameEnd()).isTrue();
+        assertThat(events.winner).isEqualTo(1);
+
+        // 끝난 뒤의 입력은 두지 않는다
+        int tick = match.getTick();
+        match.offerInputs(1, 1, drop);
+        match.tick();
+        assertThat(match.getTick()).isEqualTo(tick);
+        assertThat(events.rejects).containsExactly(GameEngine.DROP_DOWN);
+    }
+
+    @Test
+    void testForfeitEndsMatch() {
+        match.tick();
+        match.forfeit(1);
+        match.forfeit(0); // 먼저 나간 쪽이 진다
+        match.tick();
+        assertThat(match.isEnded()).isTrue();
+        assertThat(events.winner).isEqualTo(0);
+    }
+
+    @Test
+    void testAbortEndsMatchInDrawOnce() {
+        match.tick();
+        match.abort();
+        assertThat(match.isEnded()).isTrue();
+        assertThat(events.winner).isEqualTo(ServerMatch.DRAW);
+
+        events.winner = Integer.MIN_VALUE;
+        match.abort();
+        assertThat(events.winner).isEqualTo(Integer.MIN_VALUE);
+    }
+}
@@ -0,0 +1,119 @@
+package tetris.controller;
+
+import org.junit.jupiter.api.*;
+import static org.assertj.core.api.Assertions.*;
+
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SocketChannel;
+
+public class SpectatorClientTest {
+
+    GameServer server;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        server = GameServer.start(GameServer.parse(new String[] { "--port", "0", "--threads", "2", "--speed", "50",
+                "--seed", "3" }));
+    }
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        server.close();
+        server.awaitClosed(1000);
+    }
+
+    SpectatorClient spectate(int match, int viewers) throws Exception {
+        SpectatorClient client = SpectatorClient.parse(new String[] { "--port", String.valueOf(server.getLocalPort()),
+                "--match", String.valueOf(match), "--viewers", String.valueOf(viewers), "--timeout", "60" });
+        client.connect();
+        return client;
+    }
+
+    @Test
+    void testParseArguments() {
+        SpectatorClient client = SpectatorClient.parse(new String[] { "--match", "4", "--viewers", "20" });
+        assertThat(client.match).isEqualTo(4);
+        assertThat(client.viewers).isEqualTo(20);
+        assertThat(client.port).isEqualTo(GameServer.DEFAULT_PORT);
+        assertThatThrownBy(() -> SpectatorClient.parse(new String[] { "--viewers", "many" }))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void testViewersRebuildTheServerBoards() throws Exception {
+        // 판이 시작되기 전부터 보는 관전자들
+        SpectatorClient early = spectate(0, 20);
+        Thread watching = new Thread(() -> {
+            try {
+                early.run();
+            } catch (Exception e) {
+                throw new IllegalStateException(e);
+            }
+        });
+        watching.start();
+
+        ServerBenchmark.SimulatedClients players = new ServerBenchmark.SimulatedClients(server.getLocalPort(),
+                ServerMatch.PLAYERS, 3, 0);
+        Thread playing = new Thread(() -> {
+            try {
+                players.run(60_000);
+            } catch (Exception e) {
+                throw new IllegalStateException(e);
+            }
+        });
+        playing.start();
+
+        // 판 중간에 들어오는 관전자
+        Thread.sleep(100);
+        SpectatorClient late = spectate(0, 5);
+        late.run();
+        watching.join(60_000);
+        playing.join(60_000);
+        early.print();
+        late.print();
+
+        assertThat(players.ended).isEqualTo(2);
+        int winner = early.viewerList[0].winner;
+        assertThat(winner == 0 || winner == 1 || winner == GameServer.NO_WINNER).isTrue();
+        assertThat(players.draws).isEqualTo(winner == GameServer.NO_WINNER ? 2 : 0);
+        for (SpectatorClient client : new SpectatorClient[] { early, late }) {
+            for (SpectatorClient.Viewer viewer : client.viewerList) {
+                assertThat(viewer.isEnded).isTrue();
+                assertThat(viewer.replica.isSynced).isTrue();
+                assertThat(viewer.replica.mismatches).isZero();
+                assertThat(viewer.replica.keyframes).isPositive();
+                // keyframe 은 보드 전체이고 delta 는 훨씬 작다
+                long keyframeBytes = (long) viewer.replica.keyframes * SpectatorFeed.MAX_FRAME_LENGTH;
+                int deltas = viewer.replica.frames - viewer.replica.keyframes;
+                assertThat(deltas).isGreaterThan(viewer.replica.keyframes * 10);
+                assertThat((viewer.bytes - keyframeBytes) / deltas).isLessThan(SpectatorFeed.MAX_FRAME_LENGTH / 8);
+                assertThat(viewer.winner).isEqualTo(winner);
+            }
+        }
+        // 같은 판을 본 관전자는 같은 마지막 보드를 갖는다
+        SpectatorFeed.Replica last = early.viewerList[0].replica;
+        assertThat(late.viewerList[0].replica.boards).isEqualTo(last.boards);
+        assertThat(late.viewerList[0].replica.tick).isEqualTo(last.tick);
+        assertThat(early.viewerList[0].replica.frames).isGreaterThan(late.viewerList[0].replica.frames);
+
+        GameServer.Stats stats = server.getStats();
+        assertThat(stats.spectatorFrames.sum()).isPositive();
+        assertThat(stats.spectatorKeyframes.sum()).isPositive();
+    }
+
+    @Test
+    void testWatchingFinishedMatchIsRefused() throws Exception {
+        ServerBenchmark.SimulatedClients players = new ServerBenchmark.SimulatedClients(server.getLocalPort(),
+                ServerMatch.PLAYERS, 5, 0);
+        players.run(60_000);
+        assertThat(players.ended).isEqualTo(2);
+
+        try (SocketChannel channel = SocketChannel.open(new InetSocketAddress("localhost", server.getLocalPort()))) {
+            ByteBuffer watch = ByteBuffer.allocate(GameServer.messageLength(GameServer.WATCH));
+            watch.put((byte) GameServer.WATCH).put((byte) GameServer.PROTOCOL_VERSION).putInt(0).flip();
+            channel.write(watch);
+            assertThat(channel.read(ByteBuffer.allocate(16))).isEqualTo(-1);
+        }
+    }
+}
@@ -0,0 +1,109 @@
+package tetris.controller;
+
+import org.junit.jupiter.api.*;
+import static org.assertj.core.api.Assertions.*;
+
+import java.nio.ByteBuffer;
+import java.util.*;
+
+public class SpectatorFeedTest {
+
+    static final long SEED = 20221205L;
+
+    ServerMatch match;
+    SpectatorFeed feed;
+    Random random;
+
+    @BeforeEach
+    void setUp() {
+        match = new ServerMatch(SEED, GameEngine.ITEM_GAME_MODE, 1, new ServerMatchTest.Events());
+        feed = new SpectatorFeed();
+        random = new Random(SEED);
+    }
+
+    // 임의의 입력으로 한 tick 을 두고 프레임을 만든다
+    ByteBuffer tick(boolean isKeyframeForced) {
+        for (int p = 0; p < ServerMatch.PLAYERS; p++) {
+            if (random.nextInt(5) == 0)
+                match.offerInputs(p, 1, new int[] { random.nextInt(GameEngine.DROP_DOWN + 1) });
+        }
+        match.tick();
+        return feed.encode(match.getTick(), isKeyframeForced, match.getEngine(0), match.getEngine(1));
+    }
+
+    static ByteBuffer copy(ByteBuffer frame) {
+        ByteBuffer copied = ByteBuffer.allocate(frame.remaining());
+        copied.put(frame.duplicate()).flip();
+        return copied;
+    }
+
+    static boolean isKeyframe(ByteBuffer frame) {
+        return (frame.get(SpectatorFeed.HEADER_LENGTH + 4) & SpectatorFeed.KEYFRAME) != 0;
+    }
+
+    @Test
+    void testReplicaMatchesServerBoardEveryTick() {
+        SpectatorFeed.Replica replica = new SpectatorFeed.Replica();
+        long deltaBytes = 0;
+        for (int i = 0; i < 3000 && !match.isEnded(); i++) {
+            ByteBuffer frame = tick(false);
+            if (frame == null)
+                continue;
+            assertThat(frame.remaining()).isEqualTo(SpectatorFeed.HEADER_LENGTH + (frame.getShort(1) & 0xFFFF));
+            if (isKeyframe(frame))
+                assertThat(frame.remaining()).isEqualTo(SpectatorFeed.MAX_FRAME_LENGTH);
+            else
+                deltaBytes += frame.remaining();
+            assertThat(replica.apply(frame, 0)).isTrue();
+            for (int p = 0; p < ServerMatch.PLAYERS; p++) {
+                assertThat(replica.boards[p]).isEqualTo(match.getEngine(p).visualBoard);
+                assertThat(replica.scores[p]).isEqualTo(match.getEngine(p).getScore());
+            }
+        }
+        assertThat(replica.mismatches).isZero();
+        assertThat(replica.keyframes).isEqualTo(feed.keyframes);
+        assertThat(replica.frames).isEqualTo(feed.keyframes + feed.deltas);
+        assertThat(feed.keyframes).isGreaterThanOrEqualTo(match.getTick() / SpectatorFeed.KEYFRAME_INTERVAL);
+        // delta 는 보드 전체보다 훨씬 작다
+        assertThat(deltaBytes / feed.deltas).isLessThan(SpectatorFeed.MAX_FRAME_LENGTH / 8);
+    }
+
+    @Test
+    void testKeyframeIntervalAndForcedKeyframe() {
+        List<Integer> keyframeTicks = new ArrayList<>();
+        // 입력 없이 중력만 두어 판이 끝나지 않게 한다
+        for (int i = 0; i < SpectatorFeed.KEYFRAME_INTERVAL * 3; i++) {
+            match.tick();
+            ByteBuffer frame = feed.encode(match.getTick(), i == 50, match.getEngine(0), match.getEngine(1));
+            if (frame != null && isKeyframe(frame))
+                keyframeTicks.add(match.getTick());
+        }
+        int interval = SpectatorFeed.KEYFRAME_INTERVAL;
+        assertThat(keyframeTicks).containsExactly(1, 51, 51 + interval, 51 + interval * 2);
+    }
+
+    @Test
+    void testUnchangedTickSendsNothing() {
+        tick(false);
+        assertThat(feed.encode(match.getTick(), false, match.getEngine(0), match.getEngine(1))).isNull();
+    }
+
+    @Test
+    void testLateViewerWaitsForKeyframe() {
+        for (int i = 0; i < 20; i++)
+            tick(false);
+        SpectatorFeed.Replica replica = new SpectatorFeed.Replica();
+        ByteBuffer frame = null;
+        while (frame == null)
+            frame = tick(false);
+        assertThat(isKeyframe(frame)).isFalse();
+        assertThat(replica.apply(copy(frame), 0)).isFalse();
+        assertThat(replica.skipped).isEqualTo(1);
+        assertThat(replica.isSynced).isFalse();
+
+        frame = tick(true);
+        assertThat(replica.apply(frame, 0)).isTrue();
+        assertThat(replica.isSynced).isTrue();
+        assertThat(replica.boards[0]).isEqualTo(match.getEngine(0).visualBoard);
+    }
+}
@@ -0,0 +1,102 @@
+package tetris.model;
+
+import org.junit.jupiter.api.*;
+import static org.assertj.core.api.Assertions.*;
+
+import java.util.*;
+
+public class RotationStateTest {
+
+    List<Block> makeBlocks() {
+        return Arrays.asList(new IBlock(), new JBlock(), new LBlock(), new OBlock(), new SBlock(),
+                new TBlock(), new ZBlock(), new WeightBlock());
+    }
+
+    // 회전 표를 쓰기 전 Block.rotate 가 모양, 칸 목록, 아이템 좌표, rotateCount 를 바꾸던 방식
+    static class LegacyBlock {
+        int[][] shape;
+        int[][] visualShape;
+        List<int[]> coordiList = new ArrayList<>();
+        int[] itemCoordinate;
+        int rotateCount;
+
+        LegacyBlock(Block block) {
+            shape = block.getShape();
+            visualShape = block.getVisualShape();
+            block.getCoordiList().forEach(e -> coordiList.add(new int[] { e[0], e[1] }));
+            itemCoordinate = block.getItemCoordinate();
+            rotateCount = block.getRotateCount();
+        }
+
+        void rotate() {
+            int length = shape.length;
+            int width = shape[0].length;
+            List<int[]> rotateCoordiList = new ArrayList<>();
+            coordiList.forEach(e -> rotateCoordiList.add(new int[] { length - 1 - e[1], e[0] }));
+            coordiList = rotateCoordiList;
+            itemCoordinate = new int[] { length - 1 - itemCoordinate[1], itemCoordinate[0] };
+            int[][] rotate = new int[width][length];
+            int[][] visualrotate = new int[width][length];
+            for (int row = 0; row < length; row++) {
+                for (int col = 0; col < width; col++) {
+                    rotate[col][length - 1 - row] = shape[row][col];
+                    visualrotate[col][length - 1 - row] = visualShape[row][col];
+                }
+            }
+            shape = rotate;
+            visualShape = visualrotate;
+            if (rotateCount != Block.OBLOCK_ROTATE_STATE) {
+                rotateCount = (rotateCount + 1) % Block.IBLOCK_FIRST_ROTATE_STATE;
+                if (Math.abs(width - length) > 2)
+                    rotateCount += Block.IBLOCK_FIRST_ROTATE_STATE;
+            }
+        }
+    }
+
+    void assertSameAsLegacy(Block block) {
+        LegacyBlock legacy = new LegacyBlock(block);
+        for (int r = 0; r < 9; r++) {
+            block.rotate();
+            legacy.rotate();
+            assertThat(block.getShape()).isEqualTo(legacy.shape);
+            assertThat(block.getVisualShape()).isEqualTo(legacy.visualShape);
+            assertThat(block.getCoordiList().toArray()).isEqualTo(legacy.coordiList.toArray());
+            assertThat(block.getItemCoordinate()).isEqualTo(legacy.itemCoordinate);
+            assertThat(block.getRotateCount()).isEqualTo(legacy.rotateCount);
+            assertThat(block.getHeight()).isEqualTo(legacy.shape.length);
+            assertThat(block.getWidth()).isEqualTo(legacy.shape[0].length);
+        }
+    }
+
+    @Test
+    void testRotationMatchesLegacyRotate() {
+        makeBlocks().forEach(this::assertSameAsLegacy);
+    }
+
+    @Test
+    void testItemBlockRotationMatchesLegacyRotate() {
+        for (int seed = 0; seed < 20; seed++) {
+            for (Block block : makeBlocks()) {
+                block.rnd = new Random(seed);
+                block.makeItemBlock();
+                assertSameAsLegacy(block);
+            }
+        }
+    }
+
+    @Test
+    void testRotationSharesStates() {
+        Block block = new TBlock();
+        Block other = new TBlock();
+        int[][] shape = block.getShape();
+        for (int r = 0; r < 4; r++)
+            block.rotate();
+        assertThat(block.getShape()).isSameAs(shape);
+        assertThat(other.getShape()).isSameAs(shape);
+
+        other.rotate();
+        block.copyBlock(other);
+        assertThat(block.getCells()).isSameAs(other.getCells());
+        assertThat(block.getRotateCount()).isEqualTo(Block.SECOND_ROTATE_STATE);
+    }
+}
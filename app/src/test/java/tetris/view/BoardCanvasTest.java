@@ -0,0 +1,139 @@
+package tetris.view;
+
+import org.junit.jupiter.api.*;
+import static org.assertj.core.api.Assertions.*;
+
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.util.*;
+import java.util.List;
+
+public class BoardCanvasTest {
+
+    static final int ROWS = 20;
+    static final int COLS = 10;
+    static final int START_ROW = 5;
+    static final int GHOST = 1;
+    static final int TBLOCK = 7;
+    static final int BOMB = 11;
+
+    BoardCanvas canvas;
+    List<Rectangle> repaintedRects;
+    int[][] visualBoard;
+
+    @BeforeEach
+    void setUp() {
+        repaintedRects = new ArrayList<>();
+        canvas = new BoardCanvas(ROWS, COLS) {
+            @Override
+            public void repaint(Rectangle r) {
+                repaintedRects.add(new Rectangle(r));
+            }
+        };
+        Map<Integer, Color> colorMap = new HashMap<>();
+        colorMap.put(0, Color.WHITE);
+        colorMap.put(GHOST, Color.GRAY);
+        colorMap.put(TBLOCK, Color.MAGENTA);
+        colorMap.put(BOMB, Color.RED);
+        Map<Integer, Character> charMap = new HashMap<>();
+        charMap.put(0, GameView.NULL_CHAR);
+        charMap.put(GHOST, GameView.GHOST_CHAR);
+        charMap.put(TBLOCK, GameView.BLOCK_CHAR);
+        charMap.put(BOMB, GameView.BOMB_CHAR);
+        canvas.setPalette(colorMap, charMap);
+        canvas.setSize((COLS + 2) * 10, (ROWS + 2) * 10);
+        visualBoard = new int[START_ROW + ROWS][COLS];
+    }
+
+    void paint() {
+        BufferedImage screen = new BufferedImage(canvas.getWidth(), canvas.getHeight(), BufferedImage.TYPE_INT_RGB);
+        Graphics2D g = screen.createGraphics();
+        canvas.paint(g);
+        g.dispose();
+    }
+
+    // 칸 왼쪽 위 모서리에서 한 칸 안쪽의 색
+    Color getCellColor(int row, int col) {
+        int size = canvas.getCellSize();
+        return new Color(canvas.getImage().getRGB((col + 1) * size + 1, (row + 1) * size + 1));
+    }
+
+    @Test
+    void testPaintBuildsImageFromBoard() {
+        visualBoard[START_ROW + 3][4] = TBLOCK;
+        visualBoard[START_ROW + 19][4] = GHOST;
+        canvas.render(visualBoard, START_ROW);
+        assertThat(canvas.getImage()).isNull();
+
+        paint();
+        assertThat(canvas.getCellSize()).isEqualTo(10);
+        assertThat(getCellColor(3, 4)).isEqualTo(Color.MAGENTA);
+        assertThat(getCellColor(0, 0)).isEqualTo(Color.BLACK);
+        assertThat(getCellColor(19, 4)).isEqualTo(Color.GRAY);
+        // ghost 는 테두리만 그린다
+        assertThat(new Color(canvas.getImage().getRGB(5 * 10 + 5, 20 * 10 + 5))).isEqualTo(Color.BLACK);
+    }
+
+    @Test
+    void testRenderRepaintsOnlyChangedCells() {
+        canvas.render(visualBoard, START_ROW);
+        paint();
+        repaintedRects.clear();
+
+        canvas.render(visualBoard, START_ROW);
+        assertThat(repaintedRects).isEmpty();
+
+        visualBoard[START_ROW + 3][4] = TBLOCK;
+        visualBoard[START_ROW + 3][5] = BOMB;
+        canvas.render(visualBoard, START_ROW);
+        assertThat(repaintedRects).containsExactly(new Rectangle(50, 40, 20, 10));
+        assertThat(getCellColor(3, 4)).isEqualTo(Color.MAGENTA);
+        assertThat(getCellColor(3, 5)).isEqualTo(Color.RED);
+    }
+
+    @Test
+    void testRepaintRequesterReceivesDirtyRegion() {
+        List<Rectangle> requested = new ArrayList<>();
+        canvas.setRepaintRequester(region -> requested.add(new Rectangle(region)));
+        canvas.render(visualBoard, START_ROW);
+        assertThat(requested).containsExactly(new Rectangle(0, 0, canvas.getWidth(), canvas.getHeight()));
+        paint();
+        requested.clear();
+
+        visualBoard[START_ROW + 3][4] = TBLOCK;
+        canvas.render(visualBoard, START_ROW);
+        assertThat(requested).containsExactly(new Rectangle(50, 40, 10, 10));
+        assertThat(repaintedRects).isEmpty();
+    }
+
+    @Test
+    void testPaintCellIsRedrawnOnNextRender() {
+        visualBoard[START_ROW + 19][0] = TBLOCK;
+        canvas.render(visualBoard, START_ROW);
+        paint();
+
+        canvas.paintCell(19, 0, Color.YELLOW);
+        canvas.paintCell(19, 1, Color.YELLOW);
+        canvas.flush();
+        assertThat(getCellColor(19, 0)).isEqualTo(Color.YELLOW);
+        assertThat(getCellColor(19, 1)).isEqualTo(Color.YELLOW);
+
+        canvas.render(visualBoard, START_ROW);
+        assertThat(getCellColor(19, 0)).isEqualTo(Color.MAGENTA);
+        assertThat(getCellColor(19, 1)).isEqualTo(Color.BLACK);
+    }
+
+    @Test
+    void testResizeRebuildsImage() {
+        visualBoard[START_ROW][0] = TBLOCK;
+        canvas.render(visualBoard, START_ROW);
+        paint();
+        BufferedImage image = canvas.getImage();
+
+        canvas.setSize((COLS + 2) * 20, (ROWS + 2) * 20);
+        paint();
+        assertThat(canvas.getImage()).isNotSameAs(image);
+        assertThat(canvas.getCellSize()).isEqualTo(20);
+        assertThat(getCellColor(0, 0)).isEqualTo(Color.MAGENTA);
+    }
+}
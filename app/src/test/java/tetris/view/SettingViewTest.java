@@ -64,6 +64,15 @@ public class SettingViewTest {
         assertThat(settingViewTest.getIsColorBlindLabel()).isInstanceOf(JLabel.class);
     }
 
+    @Test
+    void testSetIsBoardCanvasBtn() {
+        settingViewTest.setIsBoardCanvasBtn(true);
+        assertThat(settingViewTest.getIsBoardCanvasBtn().getText()).isEqualTo("ON");
+        settingViewTest.setIsBoardCanvasBtn(false);
+        assertThat(settingViewTest.getIsBoardCanvasBtn().isSelected()).isFalse();
+        assertThat(settingViewTest.getIsBoardCanvasLabel()).isInstanceOf(JLabel.class);
+    }
+
     @Test
     void testGetLeftKeyLabel() {
         assertThat(settingViewTest.getLeftKeyLabel()).isInstanceOf(JLabel.class);